@@ -0,0 +1,104 @@
+package group.gnometrading.collectors;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of reading a short time range out of a local delta block file, seeking with its
+ * {@link DeltaBlockIndex} against scanning from the start of the file.
+ *
+ * <p>{@code seekWithIndex} binary searches the index and reads only the blocks covering the range;
+ * {@code scanHeaders} reads the whole file and decompresses the blocks whose headers overlap it, as
+ * a reader without the sidecar would; {@code fullScan} decodes every record. The range is
+ * {@code rangeEvents} events three quarters of the way into the file, and the page cache is warm
+ * after the first iteration, so the gap shown is CPU and syscall cost rather than disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaBlockSeekBenchmark {
+
+    private static final int MESSAGE_LENGTH = 370;
+    private static final long EVENT_NANOS = 1_000L;
+
+    @Param({"100000", "1000000"})
+    public int events;
+
+    @Param({"100"})
+    public int rangeEvents;
+
+    private Path file;
+    private FileChannel channel;
+    private DeltaBlockIndex index;
+    private long from;
+    private long to;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        DeltaBlockWriter writer = new DeltaBlockWriter(256 * 1024, 3, 64 * 1024 * 1024);
+        writer.reset(1, 1);
+        UnsafeBuffer message = new UnsafeBuffer(new byte[MESSAGE_LENGTH]);
+        Random random = new Random(1);
+        for (int i = 0; i < events; i++) {
+            message.putLong(10, i * EVENT_NANOS);
+            message.putLong(26, i);
+            message.putInt(66 + 32 * random.nextInt(10), 1 + random.nextInt(100));
+            writer.append(5, message, 0, MESSAGE_LENGTH, i * EVENT_NANOS, i);
+        }
+        writer.flushBlock();
+
+        file = Files.createTempFile("delta-seek", ".gmd");
+        Files.write(file, Arrays.copyOf(writer.fileBytes(), writer.fileLength()));
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        index = new DeltaBlockIndex(writer.indexBytes(), writer.indexLength());
+
+        from = (events * 3L / 4) * EVENT_NANOS;
+        to = from + rangeEvents * EVENT_NANOS;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long seekWithIndex() throws IOException {
+        return DeltaBlockReader.readBetween(channel, index, from, to, (templateId, buffer, length) -> {});
+    }
+
+    @Benchmark
+    public long scanHeaders() throws IOException {
+        DeltaBlockReader reader = new DeltaBlockReader(Files.readAllBytes(file));
+        return reader.readBetween(from, to, (templateId, buffer, length) -> {});
+    }
+
+    @Benchmark
+    public long fullScan() throws IOException {
+        DeltaBlockReader reader = new DeltaBlockReader(Files.readAllBytes(file));
+        return reader.readAll((templateId, buffer, length) -> {});
+    }
+}
@@ -0,0 +1,133 @@
+package group.gnometrading.di;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import group.gnometrading.di.OrchestratorStartupBenchmark.ListingOrchestrator;
+import group.gnometrading.di.OrchestratorStartupBenchmark.Reader;
+import group.gnometrading.di.OrchestratorStartupBenchmark.Settings;
+import group.gnometrading.di.OrchestratorStartupBenchmark.SharedModule;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Invocation latency of an {@link OrchestratorLambda} in its three container states:
+ *
+ * <ul>
+ *   <li>{@code cold}: first invocation on a fresh handler, which configures the graph inline.
+ *   <li>{@code restored}: first invocation on a handler that was primed before the measurement, as
+ *       a container restored from a SnapStart/CRaC checkpoint would be.
+ *   <li>{@code warm}: steady-state invocations, with and without warm start.
+ * </ul>
+ *
+ * <p>The cold and restored cases are single-shot so every sample is a first invocation; run with a
+ * few forks to also see class-loading cost in the first iteration of each fork.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+public class LambdaInvocationBenchmark {
+
+    @Param({"1", "20"})
+    public int listings;
+
+    @State(Scope.Thread)
+    public static class Restored {
+        BenchmarkLambda lambda;
+
+        @Setup(Level.Invocation)
+        public void setUp(LambdaInvocationBenchmark benchmark) {
+            lambda = new BenchmarkLambda(true, benchmark.listings);
+            lambda.initializeOnce();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Warm {
+        @Param({"false", "true"})
+        public boolean warmStart;
+
+        BenchmarkLambda lambda;
+
+        @Setup(Level.Trial)
+        public void setUp(LambdaInvocationBenchmark benchmark) {
+            lambda = new BenchmarkLambda(warmStart, benchmark.listings);
+            lambda.handleRequest(0, null);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 200, batchSize = 1)
+    public Integer cold() {
+        return new BenchmarkLambda(true, listings).handleRequest(1, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 200, batchSize = 1)
+    public Integer restored(Restored state) {
+        return state.lambda.handleRequest(1, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Integer warm(Warm state) {
+        return state.lambda.handleRequest(1, null);
+    }
+
+    public static class BenchmarkLambda extends OrchestratorLambda<Integer, Integer> {
+        private final boolean warmStart;
+        private final int listings;
+        private ListingOrchestrator[] children;
+
+        public BenchmarkLambda(boolean warmStart, int listings) {
+            this.warmStart = warmStart;
+            this.listings = listings;
+        }
+
+        @Override
+        public void configure() {
+            install(new SharedModule());
+            children = new ListingOrchestrator[listings];
+            for (int i = 0; i < listings; i++) {
+                children[i] = createChildOrchestrator(ListingOrchestrator.class, Map.of(Integer.class, i));
+            }
+        }
+
+        @Override
+        protected void prime() {
+            warmUp(Settings.class);
+            warmUp(List.of(children), Reader.class);
+        }
+
+        @Override
+        protected boolean isWarmStartEnabled() {
+            return warmStart;
+        }
+
+        @Override
+        protected Integer execute(Integer input, Context context) {
+            int sum = input;
+            for (ListingOrchestrator child : children) {
+                sum += child.getInstance(Reader.class).client().listingId();
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package group.gnometrading.di;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Container startup cost of a parent orchestrator that creates one child per listing, as
+ * {@code TradingOrchestrator} and {@code DelegatingCollectorOrchestrator} do.
+ *
+ * <p>Compares {@link BindingMode#REFLECTIVE} against {@link BindingMode#PRECOMPILED}. The graph
+ * mirrors the production shape: a module chain on the parent and a handful of per-listing
+ * singletons with named and unnamed parameters on each child.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrchestratorStartupBenchmark {
+
+    @Param({"REFLECTIVE", "PRECOMPILED"})
+    public BindingMode mode;
+
+    @Param({"1", "20", "200"})
+    public int listings;
+
+    private BindingMode previousMode;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        previousMode = Orchestrator.bindingMode;
+        Orchestrator.bindingMode = mode;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Orchestrator.bindingMode = previousMode;
+    }
+
+    @Benchmark
+    public void startup(Blackhole blackhole) {
+        SessionOrchestrator session = new SessionOrchestrator();
+        session.configure();
+        for (int i = 0; i < listings; i++) {
+            ListingOrchestrator child =
+                    session.createChildOrchestrator(ListingOrchestrator.class, Map.of(Integer.class, i));
+            blackhole.consume(child.getInstance(Reader.class));
+        }
+    }
+
+    public record Settings(String url, int port) {}
+
+    public record Client(Settings settings, Integer listingId) {}
+
+    public record Reader(Client client, Settings settings, String name) {}
+
+    public static final class SettingsModule extends Module {
+        @Provides
+        @Named("URL")
+        public String provideUrl() {
+            return "wss://localhost/ws";
+        }
+
+        @Provides
+        @Singleton
+        public Settings provideSettings(@Named("URL") String url) {
+            return new Settings(url, 443);
+        }
+    }
+
+    public static final class SharedModule extends Module {
+        @Override
+        protected Module[] includes() {
+            return new Module[] {new SettingsModule()};
+        }
+
+        @Provides
+        @Named("NAME")
+        public String provideName(Settings settings) {
+            return settings.url() + ":" + settings.port();
+        }
+    }
+
+    public static class SessionOrchestrator extends Orchestrator {
+        @Override
+        public void configure() {
+            install(new SharedModule());
+            getInstance(Settings.class);
+        }
+    }
+
+    public static class ListingOrchestrator extends Orchestrator {
+        @Provides
+        @Singleton
+        public Client provideClient(Settings settings, Integer listingId) {
+            return new Client(settings, listingId);
+        }
+
+        @Provides
+        @Singleton
+        public Reader provideReader(Client client, Settings settings, @Named("NAME") String name) {
+            return new Reader(client, settings, name);
+        }
+
+        @Override
+        public void configure() {
+            install(new SharedModule());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package group.gnometrading.trading;
+
+import group.gnometrading.schemas.Intent;
+import group.gnometrading.schemas.Order;
+import group.gnometrading.schemas.OrderExecutionReport;
+import group.gnometrading.sequencer.GlobalSequence;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ExchangeRouter} in both directions: routing OMS orders to the per-exchange outbound
+ * buffers by exchange ID, and forwarding per-exchange execution reports into the combined buffer.
+ *
+ * <p>One exchange is created per listing. Each invocation publishes one message per exchange, runs
+ * the router once and drains its outputs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRouterBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int listings;
+
+    @Param({"1024", "65536"})
+    public int bufferSize;
+
+    private final OrderExecutionReport report = new OrderExecutionReport();
+
+    private Order[] ordersByExchange;
+    private SequencedRingBuffer<Intent> orderOutboundBuffer;
+    private List<SequencedRingBuffer<OrderExecutionReport>> perExchangeExecReportBuffers;
+    private List<SequencedPoller> outboundPollers;
+    private SequencedPoller combinedPoller;
+    private ExchangeRouter router;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GlobalSequence globalSequence = new GlobalSequence();
+        orderOutboundBuffer = new SequencedRingBuffer<>(Intent::new, globalSequence, bufferSize);
+        SequencedRingBuffer<OrderExecutionReport> combined =
+                new SequencedRingBuffer<>(OrderExecutionReport::new, globalSequence, bufferSize);
+
+        Map<Integer, SequencedRingBuffer<?>> outboundByExchangeId = new HashMap<>();
+        perExchangeExecReportBuffers = new ArrayList<>(listings);
+        outboundPollers = new ArrayList<>(listings);
+        ordersByExchange = new Order[listings];
+        for (int exchangeId = 0; exchangeId < listings; exchangeId++) {
+            SequencedRingBuffer<Intent> outbound = new SequencedRingBuffer<>(Intent::new, globalSequence, bufferSize);
+            outboundByExchangeId.put(exchangeId, outbound);
+            outboundPollers.add(outbound.createPoller((globalSeq, templateId, buf, len) -> {}));
+            perExchangeExecReportBuffers.add(
+                    new SequencedRingBuffer<>(OrderExecutionReport::new, globalSequence, bufferSize));
+
+            Order order = new Order();
+            order.encoder.exchangeId(exchangeId).securityId(exchangeId).price(100_000L).size(1L);
+            ordersByExchange[exchangeId] = order;
+        }
+
+        router = new ExchangeRouter(orderOutboundBuffer, outboundByExchangeId, perExchangeExecReportBuffers, combined);
+        combinedPoller = combined.createPoller((globalSeq, templateId, buf, len) -> {});
+    }
+
+    @Benchmark
+    public int routeOrders() throws Exception {
+        for (Order order : ordersByExchange) {
+            orderOutboundBuffer.publishRaw(
+                    order.buffer, order.messageHeaderDecoder.templateId(), order.totalMessageSize());
+        }
+        int work = router.doWork();
+        for (SequencedPoller poller : outboundPollers) {
+            poller.poll();
+        }
+        return work;
+    }
+
+    @Benchmark
+    public int forwardExecReports() throws Exception {
+        int templateId = report.messageHeaderDecoder.templateId();
+        int length = report.totalMessageSize();
+        for (SequencedRingBuffer<OrderExecutionReport> buffer : perExchangeExecReportBuffers) {
+            buffer.publishRaw(report.buffer, templateId, length);
+        }
+        int work = router.doWork();
+        combinedPoller.poll();
+        return work;
+    }
+}
@@ -0,0 +1,35 @@
+package group.gnometrading.trading;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the trading hot-path benchmarks with the GC profiler attached, so every result carries its
+ * allocation rate ({@code gc.alloc.rate.norm} is bytes per operation) next to the throughput and
+ * sampled latency percentiles.
+ *
+ * <pre>
+ * $ mvn -Pjmh clean package -DskipTests
+ * $ java -cp target/gnome-orchestrator-*.jar group.gnometrading.trading.HotPathBenchmarks
+ * </pre>
+ *
+ * <p>Standard JMH arguments are passed through, e.g. {@code -p listings=16} or {@code -rf json}.
+ */
+public final class HotPathBenchmarks {
+
+    private HotPathBenchmarks() {}
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(new CommandLineOptions(args))
+                .include(MarketDataMultiplexerBenchmark.class.getSimpleName())
+                .include(ExchangeRouterBenchmark.class.getSimpleName())
+                .include(PaperTradingOutboundGatewayBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package group.gnometrading.trading;
+
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.sequencer.GlobalSequence;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link MarketDataMultiplexer#doWork()} fanning one MBP-10 update per listing into the strategy
+ * buffer, as the multi-listing trading session does.
+ *
+ * <p>Each invocation publishes one event into every per-listing source buffer, runs the
+ * multiplexer once and drains the target, so the score is the cost of moving {@code listings}
+ * events through real ring buffers. Run through {@link HotPathBenchmarks} to get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketDataMultiplexerBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int listings;
+
+    @Param({"1024", "65536"})
+    public int bufferSize;
+
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+
+    private List<SequencedRingBuffer<?>> sources;
+    private MarketDataMultiplexer multiplexer;
+    private SequencedPoller targetPoller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GlobalSequence globalSequence = new GlobalSequence();
+        sources = new ArrayList<>(listings);
+        for (int i = 0; i < listings; i++) {
+            sources.add(new SequencedRingBuffer<>(Mbp10Schema::new, globalSequence, bufferSize));
+        }
+        SequencedRingBuffer<Mbp10Schema> target =
+                new SequencedRingBuffer<>(Mbp10Schema::new, globalSequence, bufferSize);
+        multiplexer = new MarketDataMultiplexer(sources, target);
+        targetPoller = target.createPoller((globalSeq, templateId, buf, len) -> {});
+
+        mbp10.encoder.exchangeId(1).securityId(1).price(100_000L).size(10L).sequence(1L);
+    }
+
+    @Benchmark
+    public int multiplex() throws Exception {
+        int templateId = mbp10.messageHeaderDecoder.templateId();
+        int length = mbp10.totalMessageSize();
+        for (int i = 0; i < listings; i++) {
+            sources.get(i).publishRaw(mbp10.buffer, templateId, length);
+        }
+        int work = multiplexer.doWork();
+        targetPoller.poll();
+        return work;
+    }
+}
@@ -0,0 +1,132 @@
+package group.gnometrading.trading;
+
+import group.gnometrading.schemas.Intent;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Order;
+import group.gnometrading.schemas.OrderExecutionReport;
+import group.gnometrading.sequencer.GlobalSequence;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import group.gnometrading.simulation.exchange.MbpSimulatedExchange;
+import group.gnometrading.simulation.fee.StaticFeeModel;
+import group.gnometrading.simulation.latency.StaticLatency;
+import group.gnometrading.simulation.queues.OptimisticQueueModel;
+import java.util.concurrent.TimeUnit;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PaperTradingOutboundGateway} applying market data to its {@link MbpSimulatedExchange} and
+ * matching orders against it, with one gateway per listing as in a paper trading session.
+ *
+ * <p>Each invocation publishes one message per listing, runs every gateway once and drains the
+ * execution reports. Gateways and their simulated books are rebuilt every iteration.
+ *
+ * <p>Every order rests in the book, so a timed iteration would match against a book that grows with
+ * however many orders fit in the iteration. {@link #orders} instead runs as single shots of
+ * {@value #ORDERS_PER_SHOT} invocations, each on fresh gateways: the book never holds more than that
+ * many orders, and every shot measures the same range of depths. Its score is the time per shot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaperTradingOutboundGatewayBenchmark {
+
+    static final int ORDERS_PER_SHOT = 100;
+
+    @Param({"1", "4", "16"})
+    public int listings;
+
+    @Param({"1024", "65536"})
+    public int bufferSize;
+
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+    private final Order order = new Order();
+
+    private SequencedRingBuffer<?>[] marketDataBuffers;
+    private SequencedRingBuffer<?>[] orderBuffers;
+    private PaperTradingOutboundGateway[] gateways;
+    private SequencedPoller[] execReportPollers;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        GlobalSequence globalSequence = new GlobalSequence();
+        marketDataBuffers = new SequencedRingBuffer<?>[listings];
+        orderBuffers = new SequencedRingBuffer<?>[listings];
+        gateways = new PaperTradingOutboundGateway[listings];
+        execReportPollers = new SequencedPoller[listings];
+        for (int i = 0; i < listings; i++) {
+            SequencedRingBuffer<Mbp10Schema> marketData =
+                    new SequencedRingBuffer<>(Mbp10Schema::new, globalSequence, bufferSize);
+            SequencedRingBuffer<Intent> orders = new SequencedRingBuffer<>(Intent::new, globalSequence, bufferSize);
+            SequencedRingBuffer<OrderExecutionReport> execReports =
+                    new SequencedRingBuffer<>(OrderExecutionReport::new, globalSequence, bufferSize);
+            MbpSimulatedExchange exchange = new MbpSimulatedExchange(
+                    new StaticFeeModel(0.0005, 0.0002),
+                    new StaticLatency(0L),
+                    new StaticLatency(0L),
+                    new OptimisticQueueModel());
+
+            marketDataBuffers[i] = marketData;
+            orderBuffers[i] = orders;
+            gateways[i] = new PaperTradingOutboundGateway(exchange, marketData, orders, execReports);
+            execReportPollers[i] = execReports.createPoller((globalSeq, templateId, buf, len) -> {});
+        }
+
+        mbp10.encoder
+                .exchangeId(1)
+                .securityId(1)
+                .price(100_000L)
+                .size(10L)
+                .sequence(1L)
+                .bidPrice0(99_990L)
+                .askPrice0(100_010L)
+                .bidSize0(10L)
+                .askSize0(10L);
+        order.encoder.exchangeId(1).securityId(1).price(99_000L).size(1L);
+    }
+
+    @Benchmark
+    public int marketData() throws Exception {
+        return publishAndRun(
+                marketDataBuffers, mbp10.buffer, mbp10.messageHeaderDecoder.templateId(), mbp10.totalMessageSize());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20, batchSize = ORDERS_PER_SHOT)
+    @Measurement(iterations = 100, batchSize = ORDERS_PER_SHOT)
+    public int orders() throws Exception {
+        return publishAndRun(
+                orderBuffers, order.buffer, order.messageHeaderDecoder.templateId(), order.totalMessageSize());
+    }
+
+    private int publishAndRun(SequencedRingBuffer<?>[] inputs, UnsafeBuffer buffer, int templateId, int length)
+            throws Exception {
+        for (SequencedRingBuffer<?> input : inputs) {
+            input.publishRaw(buffer, templateId, length);
+        }
+        int work = 0;
+        for (PaperTradingOutboundGateway gateway : gateways) {
+            work += gateway.doWork();
+        }
+        for (SequencedPoller poller : execReportPollers) {
+            poller.poll();
+        }
+        return work;
+    }
+}
@@ -0,0 +1,144 @@
+package group.gnometrading.collectors;
+
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.schemas.Action;
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Side;
+import group.gnometrading.sequencer.SequencedEventHandler;
+import group.gnometrading.sm.Listing;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.agrona.concurrent.UnsafeBuffer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Computes OHLCV bars, closing top of book and spread statistics for one listing as its MBP-10
+ * events arrive, in one {@link AggregateWindow} per configured window length, and uploads each
+ * window's records once per file period.
+ *
+ * <p>Sits next to the listing's {@code MarketDataCollector} on the same consumer thread. Each event
+ * is O(1) per window and allocates nothing; only the hourly upload does. The upload copies the
+ * file's records and puts them from {@link BackgroundUploads}, off the consumer thread.
+ *
+ * <p>Objects are written to
+ * {@code <bucket>/aggregates/<exchangeId>/<securityId>/<window>/<yyyy>/<MM>/<dd>/<HHmmss>.agg}, named
+ * after the first window in the file; see {@link AggregateWindow} for the record layout.
+ */
+public final class AggregateCollector implements SequencedEventHandler {
+
+    private static final String DEFAULT_WINDOWS_SECONDS = "1,60";
+    private static final int DEFAULT_FILE_MINUTES = 60;
+    private static final DateTimeFormatter KEY_TIME =
+            DateTimeFormatter.ofPattern("yyyy/MM/dd/HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Logger logger;
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String keyPrefix;
+    private final AggregateWindow[] windows;
+    private final AggregateWindow.Output output = this::upload;
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+    private CompletableFuture<Void> lastUpload = CompletableFuture.completedFuture(null);
+
+    public AggregateCollector(
+            Logger logger, S3Client s3Client, Listing listing, String bucket, long[] windowNanos, long fileNanos) {
+        this.logger = logger;
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.keyPrefix =
+                "aggregates/" + listing.exchange().exchangeId() + "/" + listing.security().securityId() + "/";
+        this.windows = new AggregateWindow[windowNanos.length];
+        for (int i = 0; i < windowNanos.length; i++) {
+            windows[i] = new AggregateWindow(windowNanos[i], fileNanos);
+        }
+    }
+
+    /**
+     * Reads {@code aggregate.windows.seconds} (default {@code 1,60}), {@code aggregate.file.minutes}
+     * (default 60) and {@code aggregate.bucket} (default {@code defaultBucket}).
+     */
+    public static AggregateCollector fromProperties(
+            Logger logger, S3Client s3Client, Listing listing, Properties properties, String defaultBucket) {
+        String windows = properties.hasProperty("aggregate.windows.seconds")
+                ? properties.getStringProperty("aggregate.windows.seconds")
+                : DEFAULT_WINDOWS_SECONDS;
+        int fileMinutes = properties.hasProperty("aggregate.file.minutes")
+                ? properties.getIntProperty("aggregate.file.minutes")
+                : DEFAULT_FILE_MINUTES;
+        String bucket = properties.hasProperty("aggregate.bucket")
+                ? properties.getStringProperty("aggregate.bucket")
+                : defaultBucket;
+        long[] windowNanos = Arrays.stream(windows.split(","))
+                .map(String::trim)
+                .mapToLong(seconds -> TimeUnit.SECONDS.toNanos(Long.parseLong(seconds)))
+                .toArray();
+        return new AggregateCollector(
+                logger, s3Client, listing, bucket, windowNanos, TimeUnit.MINUTES.toNanos(fileMinutes));
+    }
+
+    @Override
+    public synchronized void onEvent(long globalSequence, int templateId, UnsafeBuffer buffer, int length) {
+        if (templateId != Mbp10Decoder.TEMPLATE_ID) {
+            return;
+        }
+        mbp10.wrap(buffer);
+        Mbp10Decoder decoder = mbp10.decoder;
+        long timestamp = decoder.timestampEvent() > 0 ? decoder.timestampEvent() : decoder.timestampRecv();
+        boolean trade = decoder.action() == Action.Trade;
+        boolean goodBook = !decoder.flags().maybeBadBook();
+        for (AggregateWindow window : windows) {
+            window.advance(timestamp, output);
+            if (trade) {
+                window.onTrade(decoder.price(), decoder.size(), decoder.side() == Side.Bid);
+            }
+            if (goodBook) {
+                window.onBook(
+                        timestamp, decoder.bidPrice0(), decoder.bidSize0(), decoder.askPrice0(), decoder.askSize0());
+            }
+        }
+    }
+
+    /**
+     * Closes every open window, uploads what has not been uploaded yet and waits for every upload
+     * to finish. Called on shutdown; synchronized with {@link #onEvent} since events may still be
+     * arriving.
+     */
+    public synchronized void flush(long nowNanos) {
+        for (AggregateWindow window : windows) {
+            window.flush(nowNanos, output);
+        }
+        lastUpload.join();
+    }
+
+    private void upload(AggregateWindow window, long firstWindowStart, byte[] records, int length) {
+        String key = keyPrefix + window.label() + "/"
+                + KEY_TIME.format(Instant.EPOCH.plusNanos(firstWindowStart)) + ".agg";
+        // Copies the records, since the window reuses its buffer for the next file period
+        RequestBody body = RequestBody.fromByteBuffer(ByteBuffer.wrap(records, 0, length));
+        lastUpload = BackgroundUploads.run(() -> put(key, body));
+    }
+
+    private void put(String key, RequestBody body) {
+        try {
+            s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentType("application/octet-stream")
+                            .build(),
+                    body);
+        } catch (RuntimeException e) {
+            logger.logf(LogMessage.UNKNOWN_ERROR, "Failed to upload aggregates s3://%s/%s: %s", bucket, key, e);
+        }
+    }
+}
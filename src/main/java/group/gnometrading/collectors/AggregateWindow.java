@@ -0,0 +1,254 @@
+package group.gnometrading.collectors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Aggregates one listing's events over consecutive windows of a fixed length and writes one record
+ * per window that saw any event into a preallocated buffer, handed to an {@link Output} once per
+ * file period.
+ *
+ * <p>Windows are aligned to multiples of their length in event time and close when the first event
+ * of a later window arrives; an event older than the open window is counted in it. Each record is
+ * {@link #RECORD_SIZE} bytes of little-endian 8-byte fields, prices and sizes in the schema's raw
+ * units:
+ *
+ * <ol start="0">
+ *   <li>window start, epoch nanos
+ *   <li>window length, nanos
+ *   <li>open, high, low and close trade price (fields 2-5), 0 without trades
+ *   <li>traded volume (6), of which bought by the aggressor (7), and trade count (8)
+ *   <li>volume-weighted average trade price, as a double (9)
+ *   <li>book updates (10)
+ *   <li>best bid price and size, best ask price and size at the window's close (11-14)
+ *   <li>minimum and maximum spread (15, 16) and time-weighted mean spread as a double (17)
+ * </ol>
+ *
+ * <p>Holds all state in fields and does not allocate per event; an instance belongs to one thread.
+ */
+final class AggregateWindow {
+
+    static final int FIELDS = 18;
+    static final int RECORD_SIZE = FIELDS * Long.BYTES;
+
+    /**
+     * Receives a window's records for one file period.
+     */
+    @FunctionalInterface
+    interface Output {
+        void write(AggregateWindow window, long firstWindowStart, byte[] records, int length);
+    }
+
+    private final long windowNanos;
+    private final long fileNanos;
+    private final String label;
+    private final byte[] records;
+    private final ByteBuffer out;
+    private int length;
+    private long fileStart = Long.MIN_VALUE;
+    private long firstWindowStart;
+    private long windowStart = Long.MIN_VALUE;
+    private long events;
+
+    private long open;
+    private long high;
+    private long low;
+    private long close;
+    private long volume;
+    private long buyVolume;
+    private long trades;
+    private double notional;
+
+    private long bookUpdates;
+    private boolean hasBook;
+    private long bid;
+    private long bidSize;
+    private long ask;
+    private long askSize;
+    private long minSpread;
+    private long maxSpread;
+    private long spreadSince;
+    private long spreadStart;
+    private double spreadTime;
+    private boolean spreadSeen;
+
+    AggregateWindow(long windowNanos, long fileNanos) {
+        if (windowNanos <= 0 || fileNanos % windowNanos != 0) {
+            throw new IllegalArgumentException(
+                    "Aggregate window must divide the file period: " + windowNanos + " / " + fileNanos);
+        }
+        this.windowNanos = windowNanos;
+        this.fileNanos = fileNanos;
+        this.label = label(windowNanos);
+        this.records = new byte[Math.toIntExact(fileNanos / windowNanos * RECORD_SIZE)];
+        this.out = ByteBuffer.wrap(records).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Moves to the window holding {@code timestamp}, closing the open window and file period if it
+     * has passed. Call before the event's {@link #onTrade} and {@link #onBook}.
+     */
+    void advance(long timestamp, Output output) {
+        long start = timestamp - Math.floorMod(timestamp, windowNanos);
+        if (windowStart == Long.MIN_VALUE) {
+            windowStart = start;
+            fileStart = start - Math.floorMod(start, fileNanos);
+            firstWindowStart = start;
+            openWindow();
+        } else if (start > windowStart) {
+            closeWindow(windowStart + windowNanos);
+            windowStart = start;
+            long periodStart = start - Math.floorMod(start, fileNanos);
+            if (periodStart > fileStart) {
+                flushFile(output);
+                fileStart = periodStart;
+                firstWindowStart = start;
+            }
+            openWindow();
+        }
+        events++;
+    }
+
+    void onTrade(long price, long size, boolean aggressorBought) {
+        if (trades == 0) {
+            open = price;
+            high = price;
+            low = price;
+        } else {
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+        }
+        close = price;
+        volume += size;
+        if (aggressorBought) {
+            buyVolume += size;
+        }
+        notional += (double) price * size;
+        trades++;
+    }
+
+    void onBook(long timestamp, long bidPrice, long bidQuantity, long askPrice, long askQuantity) {
+        long at = Math.max(timestamp, windowStart);
+        if (hasBook) {
+            spreadTime += (double) (ask - bid) * (at - spreadSince);
+            spreadSince = at;
+        } else {
+            spreadStart = at;
+        }
+        bookUpdates++;
+        // A one-sided book keeps the last two-sided spread until the next two-sided update
+        if (bidPrice <= 0 || askPrice <= 0) {
+            return;
+        }
+        bid = bidPrice;
+        bidSize = bidQuantity;
+        ask = askPrice;
+        askSize = askQuantity;
+        long spread = askPrice - bidPrice;
+        if (!spreadSeen) {
+            minSpread = spread;
+            maxSpread = spread;
+            spreadSeen = true;
+        } else {
+            minSpread = Math.min(minSpread, spread);
+            maxSpread = Math.max(maxSpread, spread);
+        }
+        hasBook = true;
+        spreadSince = at;
+    }
+
+    /**
+     * Closes the open window at {@code nowNanos}, or its end if earlier, and hands over everything
+     * written so far. Used on shutdown.
+     */
+    void flush(long nowNanos, Output output) {
+        if (windowStart == Long.MIN_VALUE) {
+            return;
+        }
+        closeWindow(Math.min(Math.max(nowNanos, spreadSince), windowStart + windowNanos));
+        flushFile(output);
+        windowStart = Long.MIN_VALUE;
+    }
+
+    private void openWindow() {
+        events = 0;
+        trades = 0;
+        open = 0;
+        high = 0;
+        low = 0;
+        close = 0;
+        volume = 0;
+        buyVolume = 0;
+        notional = 0;
+        bookUpdates = 0;
+        spreadTime = 0;
+        spreadSeen = hasBook;
+        if (hasBook) {
+            spreadStart = windowStart;
+            spreadSince = windowStart;
+            minSpread = ask - bid;
+            maxSpread = ask - bid;
+        }
+    }
+
+    private void closeWindow(long end) {
+        if (events == 0) {
+            return;
+        }
+        if (hasBook) {
+            spreadTime += (double) (ask - bid) * (end - spreadSince);
+            spreadSince = end;
+        }
+        long spreadNanos = end - spreadStart;
+        int base = length;
+        out.putLong(base, windowStart);
+        out.putLong(base + 8, windowNanos);
+        out.putLong(base + 16, open);
+        out.putLong(base + 24, high);
+        out.putLong(base + 32, low);
+        out.putLong(base + 40, close);
+        out.putLong(base + 48, volume);
+        out.putLong(base + 56, buyVolume);
+        out.putLong(base + 64, trades);
+        out.putDouble(base + 72, volume == 0 ? 0 : notional / volume);
+        out.putLong(base + 80, bookUpdates);
+        out.putLong(base + 88, hasBook ? bid : 0);
+        out.putLong(base + 96, hasBook ? bidSize : 0);
+        out.putLong(base + 104, hasBook ? ask : 0);
+        out.putLong(base + 112, hasBook ? askSize : 0);
+        out.putLong(base + 120, spreadSeen ? minSpread : 0);
+        out.putLong(base + 128, spreadSeen ? maxSpread : 0);
+        out.putDouble(base + 136, hasBook && spreadNanos > 0 ? spreadTime / spreadNanos : 0);
+        length += RECORD_SIZE;
+        events = 0;
+    }
+
+    private void flushFile(Output output) {
+        if (length > 0) {
+            output.write(this, firstWindowStart, records, length);
+        }
+        length = 0;
+    }
+
+    String label() {
+        return label;
+    }
+
+    long windowNanos() {
+        return windowNanos;
+    }
+
+    static String label(long windowNanos) {
+        long seconds = windowNanos / 1_000_000_000L;
+        if (seconds * 1_000_000_000L != windowNanos) {
+            return windowNanos / 1_000_000 + "ms";
+        }
+        if (seconds % 3600 == 0) {
+            return seconds / 3600 + "h";
+        }
+        if (seconds % 60 == 0) {
+            return seconds / 60 + "m";
+        }
+        return seconds + "s";
+    }
+}
@@ -0,0 +1,27 @@
+package group.gnometrading.collectors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the collectors' end-of-file uploads on one background thread shared by every listing, so a
+ * slow S3 call never holds up the consumer thread a collector runs on.
+ *
+ * <p>Uploads run one at a time in the order they were queued, so a collector that waits for the
+ * last upload it queued has waited for all of them.
+ */
+final class BackgroundUploads {
+
+    private static final ExecutorService UPLOADS = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "collector-uploads");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private BackgroundUploads() {}
+
+    static CompletableFuture<Void> run(Runnable upload) {
+        return CompletableFuture.runAsync(upload, UPLOADS);
+    }
+}
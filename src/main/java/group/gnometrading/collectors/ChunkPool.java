@@ -0,0 +1,93 @@
+package group.gnometrading.collectors;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded set of equally sized byte buffers that limits how much upload data can be held in
+ * memory at once. Buffers are allocated the first time they are needed and recycled from then on, so
+ * the pool only grows to the peak number of parts waiting to upload and steady-state uploads
+ * allocate nothing.
+ *
+ * <p>{@link #acquire()} blocks while every buffer is in use; the time spent blocked is the
+ * backpressure the uploads put on the caller and is accumulated in {@link #stallNanos()}.
+ */
+final class ChunkPool {
+
+    private final int chunkSize;
+    private final int capacity;
+    private final BlockingQueue<byte[]> free;
+    private volatile long stalls;
+    private volatile long stallNanos;
+    private volatile int maxInUse;
+    private int allocated;
+
+    ChunkPool(int chunkSize, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Upload memory budget must fit at least two parts");
+        }
+        this.chunkSize = chunkSize;
+        this.capacity = capacity;
+        this.free = new ArrayBlockingQueue<>(capacity);
+    }
+
+    byte[] acquire() throws InterruptedException {
+        byte[] chunk = free.poll();
+        if (chunk == null) {
+            chunk = allocate();
+        }
+        if (chunk == null) {
+            long start = System.nanoTime();
+            chunk = free.take();
+            synchronized (this) {
+                stalls++;
+                stallNanos += System.nanoTime() - start;
+            }
+        }
+        int inUse = inUse();
+        if (inUse > maxInUse) {
+            maxInUse = inUse;
+        }
+        return chunk;
+    }
+
+    private synchronized byte[] allocate() {
+        if (allocated == capacity) {
+            return null;
+        }
+        allocated++;
+        return new byte[chunkSize];
+    }
+
+    void release(byte[] chunk) {
+        free.add(chunk);
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    synchronized int allocated() {
+        return allocated;
+    }
+
+    int inUse() {
+        return allocated() - free.size();
+    }
+
+    int maxInUse() {
+        return maxInUse;
+    }
+
+    long stalls() {
+        return stalls;
+    }
+
+    long stallNanos() {
+        return stallNanos;
+    }
+}
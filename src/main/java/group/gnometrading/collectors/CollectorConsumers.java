@@ -0,0 +1,254 @@
+package group.gnometrading.collectors;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.gateways.inbound.EventTimestamps;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.sequencer.SequencedEventHandler;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.utils.AgentThreadPlan;
+import group.gnometrading.utils.CompositeAgent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * A fixed set of consumer threads shared by all collected listings.
+ *
+ * <p>Instead of a ring buffer consumer thread per listing, each listing's buffer is polled by a
+ * {@link Lane} on one of {@code collector.consumer.threads} {@link CompositeAgent}s, assigned round
+ * robin. Collectors do little work per event, so a handful of threads keeps up with many listings
+ * and the thread count stays flat as listings are added.
+ *
+ * <p>A lane polls its buffer again while events keep arriving, up to {@code collector.consumer.polls}
+ * poll calls per duty cycle (default 8), so one busy listing cannot starve the others on its thread.
+ * The ring buffer's poller takes no limit, so each call dispatches however many events it hands out
+ * at once: the setting bounds calls, and events per cycle only through the poller's own limit. A
+ * cycle that used every call and was still finding events is counted as saturated. Each lane
+ * reports how far behind the feed it is, as the age of the oldest event it dispatched in its last
+ * busy cycle and zero once it has caught up, on {@link #toJson()}.
+ */
+public final class CollectorConsumers {
+
+    private static final int DEFAULT_POLLS = 8;
+
+    private final CompositeAgent[] agents;
+    private final List<Lane> lanes = new ArrayList<>();
+    private final List<AutoCloseable> runners = new ArrayList<>();
+    private final int polls;
+    private final EpochNanoClock clock;
+
+    public CollectorConsumers(int threads, int polls, EpochNanoClock clock) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Collector consumer thread count must be positive: " + threads);
+        }
+        if (polls <= 0) {
+            throw new IllegalArgumentException("Collector consumer polls per cycle must be positive: " + polls);
+        }
+        this.agents = new CompositeAgent[threads];
+        for (int i = 0; i < threads; i++) {
+            agents[i] = new CompositeAgent("collector-consumer-" + i);
+        }
+        this.polls = polls;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the shared consumer threads configured by {@code collector.consumer.threads}, or
+     * {@code null} when it is unset or zero and every listing keeps its own consumer thread.
+     */
+    public static CollectorConsumers fromProperties(Properties properties, EpochNanoClock clock) {
+        if (!properties.hasProperty("collector.consumer.threads")) {
+            return null;
+        }
+        int threads = properties.getIntProperty("collector.consumer.threads");
+        if (threads == 0) {
+            return null;
+        }
+        int polls = properties.hasProperty("collector.consumer.polls")
+                ? properties.getIntProperty("collector.consumer.polls")
+                : DEFAULT_POLLS;
+        return new CollectorConsumers(threads, polls, clock);
+    }
+
+    /**
+     * Adds {@code listing}'s consumer to the next thread. {@code connect} creates the poller that
+     * dispatches the listing's events to the handler it is given.
+     */
+    public void add(
+            Listing listing,
+            SequencedEventHandler handler,
+            Function<SequencedEventHandler, SequencedPoller> connect,
+            ErrorHandler errorHandler) {
+        int thread = lanes.size() % agents.length;
+        Lane lane = new Lane(listing.listingId(), thread, handler, clock, polls);
+        lane.connect(connect.apply(lane::onEvent)::poll);
+        agents[thread].add(lane, errorHandler);
+        lanes.add(lane);
+    }
+
+    /**
+     * Starts one thread per consumer agent that has been assigned at least one listing, placed by
+     * the {@code collector-consumer-<index>} role of {@code threadPlan}.
+     */
+    public void start(AgentThreadPlan threadPlan, ErrorHandler errorHandler) {
+        for (CompositeAgent agent : agents) {
+            if (agent.size() > 0) {
+                runners.add(threadPlan.start(agent, errorHandler));
+            }
+        }
+    }
+
+    /**
+     * Stops the consumer threads and waits for them to exit, after which no collector is handed
+     * another event.
+     */
+    public void close() {
+        for (AutoCloseable runner : runners) {
+            try {
+                runner.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to stop collector consumer", e);
+            }
+        }
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"threads\":")
+                .append(agents.length)
+                .append(",\"polls\":")
+                .append(polls)
+                .append(",\"listings\":[");
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"listingId\":")
+                    .append(lane.listingId)
+                    .append(",\"thread\":")
+                    .append(lane.thread)
+                    .append(",\"events\":")
+                    .append(lane.events)
+                    .append(",\"saturatedCycles\":")
+                    .append(lane.saturatedCycles)
+                    .append(",\"lagNanos\":")
+                    .append(lane.lagNanos)
+                    .append(",\"maxLagNanos\":")
+                    .append(lane.maxLagNanos)
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < agents.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(agents[i].roleName()).append('=').append(agents[i].size()).append(" listing(s)");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Polls one call of a listing's buffer; returns the number of events dispatched.
+     */
+    @FunctionalInterface
+    interface Poll {
+        int poll() throws Exception;
+    }
+
+    /**
+     * One listing's consumer: polls its buffer up to a number of times per duty cycle and dispatches
+     * to its collector. The counters are written only by the consumer thread, so reads from other
+     * threads are approximate.
+     */
+    static final class Lane implements GnomeAgent {
+
+        private final int listingId;
+        private final int thread;
+        private final SequencedEventHandler handler;
+        private final EpochNanoClock clock;
+        private final EventTimestamps timestamps = new EventTimestamps();
+        private final int polls;
+        private Poll poller;
+        private boolean sampleLag;
+
+        private volatile long events;
+        private volatile long saturatedCycles;
+        private volatile long lagNanos;
+        private volatile long maxLagNanos;
+
+        Lane(int listingId, int thread, SequencedEventHandler handler, EpochNanoClock clock, int polls) {
+            this.listingId = listingId;
+            this.thread = thread;
+            this.handler = handler;
+            this.clock = clock;
+            this.polls = polls;
+        }
+
+        void connect(Poll poller) {
+            this.poller = poller;
+        }
+
+        @Override
+        public String roleName() {
+            return "collector-" + listingId;
+        }
+
+        @Override
+        public void onStart() {}
+
+        @Override
+        public int doWork() throws Exception {
+            sampleLag = true;
+            int polled = 0;
+            int calls = 0;
+            int work;
+            do {
+                work = poller.poll();
+                polled += work;
+                calls++;
+            } while (work > 0 && calls < polls);
+            if (polled > 0) {
+                events += polled;
+                if (work > 0) {
+                    saturatedCycles++;
+                }
+            } else if (lagNanos != 0) {
+                lagNanos = 0;
+            }
+            return polled;
+        }
+
+        void onEvent(long globalSequence, int templateId, UnsafeBuffer buffer, int length) throws Exception {
+            if (sampleLag && timestamps.read(templateId, buffer)) {
+                sampleLag = false;
+                long lag = clock.nanoTime() - timestamps.receiveNanos();
+                lagNanos = lag;
+                if (lag > maxLagNanos) {
+                    maxLagNanos = lag;
+                }
+            }
+            handler.onEvent(globalSequence, templateId, buffer, length);
+        }
+
+        long events() {
+            return events;
+        }
+
+        long saturatedCycles() {
+            return saturatedCycles;
+        }
+
+        long lagNanos() {
+            return lagNanos;
+        }
+    }
+}
@@ -8,19 +8,31 @@ import group.gnometrading.di.Orchestrator;
 import group.gnometrading.di.Provides;
 import group.gnometrading.di.Singleton;
 import group.gnometrading.gateways.inbound.DefaultInboundOrchestrator;
+import group.gnometrading.gateways.inbound.ExchangeSessionOrchestrator;
+import group.gnometrading.gateways.inbound.FeedArbitrator;
+import group.gnometrading.gateways.inbound.InboundIoThreads;
 import group.gnometrading.health.HealthCheckServer;
+import group.gnometrading.health.ListingHealthReport;
 import group.gnometrading.logging.ConsoleLogger;
 import group.gnometrading.logging.LogMessage;
 import group.gnometrading.logging.Logger;
 import group.gnometrading.resources.Properties;
 import group.gnometrading.sequencer.SchemaEventAdapter;
+import group.gnometrading.sequencer.SequencedEventHandler;
 import group.gnometrading.shared.AwsModule;
 import group.gnometrading.shared.SecurityMasterModule;
 import group.gnometrading.sm.Listing;
+import group.gnometrading.utils.AgentThreadPlan;
 import java.io.IOException;
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
 import org.agrona.concurrent.EpochNanoClock;
 import org.agrona.concurrent.SystemEpochNanoClock;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -31,6 +43,8 @@ public class DelegatingCollectorOrchestrator extends Orchestrator {
         instanceClass = DelegatingCollectorOrchestrator.class;
     }
 
+    private static final double DEFAULT_SHARD_LOAD_FACTOR = 1.25;
+
     @Provides
     public final Clock provideClock() {
         return Clock.systemUTC();
@@ -59,9 +73,36 @@ public class DelegatingCollectorOrchestrator extends Orchestrator {
         return properties.getStringProperty("raw.capture.bucket");
     }
 
+    /**
+     * The file format the collectors write: {@code mbp10} (the default) writes fixed-size records
+     * through the {@code MarketDataCollector}, and {@code delta} writes compressed blocks through the
+     * {@link DeltaBlockCollector}. Only {@code delta} files get a {@code .idx} block index and are
+     * streamed into their upload as they are written; {@code orchestrator.prod.properties} still
+     * selects {@code mbp10}, so production uploads have neither until it is switched.
+     */
+    @Provides
+    @Named("COLLECTOR_FORMAT")
+    public final String provideCollectorFormat(Properties properties) {
+        String format = properties.hasProperty("collector.format")
+                ? properties.getStringProperty("collector.format")
+                : "mbp10";
+        if (!format.equals("mbp10") && !format.equals("delta")) {
+            throw new IllegalArgumentException("Unknown collector.format: " + format);
+        }
+        return format;
+    }
+
+    /**
+     * The listings this task collects: with {@code shard.count} set, its share of the
+     * {@code shard.listings} pool (see {@link #selectShard}); otherwise {@code listings} or the single
+     * {@code listing}.
+     */
     @Provides
     @Named("LISTING_IDS")
-    public final int[] provideListingIds(Properties properties) {
+    public final int[] provideListingIds(Properties properties, Logger logger) {
+        if (properties.hasProperty("shard.count")) {
+            return selectShard(properties, logger);
+        }
         if (properties.hasProperty("listings")) {
             String[] parts = properties.getStringProperty("listings").split(",");
             int[] ids = new int[parts.length];
@@ -73,32 +114,152 @@ public class DelegatingCollectorOrchestrator extends Orchestrator {
         return new int[] {properties.getIntProperty("listing")};
     }
 
+    /**
+     * Picks this task's listings from {@code shard.listings}, a comma-separated pool of
+     * {@code listingId[:messagesPerSecond]}, with {@link ListingSharder}. Every task is given the same
+     * pool and {@code shard.count} and its own {@code shard.index}, so the shards cover the pool
+     * without overlap and no list is edited by hand. Rates default to 1; {@code shard.load.factor}
+     * (default 1.25) bounds a shard's message rate relative to the mean.
+     */
+    private static int[] selectShard(Properties properties, Logger logger) {
+        final int shardCount = properties.getIntProperty("shard.count");
+        final int shardIndex = properties.getIntProperty("shard.index");
+        final double loadFactor = properties.hasProperty("shard.load.factor")
+                ? Double.parseDouble(properties.getStringProperty("shard.load.factor"))
+                : DEFAULT_SHARD_LOAD_FACTOR;
+        final String[] parts = properties.getStringProperty("shard.listings").split(",");
+        final int[] pool = new int[parts.length];
+        final long[] rates = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            final String[] entry = parts[i].trim().split(":");
+            pool[i] = Integer.parseInt(entry[0].trim());
+            rates[i] = entry.length > 1 ? Long.parseLong(entry[1].trim()) : 1L;
+        }
+        final int[] selected = new ListingSharder(shardCount, loadFactor).select(pool, rates, shardIndex);
+        logger.logf(
+                LogMessage.DEBUG,
+                "Shard %d of %d collecting %d of %d listings: %s",
+                shardIndex,
+                shardCount,
+                selected.length,
+                pool.length,
+                Arrays.toString(selected));
+        return selected;
+    }
+
+    @Provides
+    @Singleton
+    public final MultipartUploader provideMultipartUploader(S3Client s3Client, Properties properties, Logger logger) {
+        return MultipartUploader.fromProperties(s3Client, properties, logger);
+    }
+
+    @Provides
+    @Singleton
+    public final SpillBuffer provideSpillBuffer(MultipartUploader uploader, Properties properties, Logger logger) {
+        return SpillBuffer.fromProperties(uploader, properties, logger);
+    }
+
     @Override
     public final void configure() {
         install(new SecurityMasterModule(), new AwsModule());
+        final boolean parallelWarmUp = getInstance(Boolean.class, "PARALLEL_WARM_UP");
+        if (parallelWarmUp) {
+            warmUp(Logger.class, SecurityMaster.class, S3Client.class);
+        }
         final Logger logger = getInstance(Logger.class);
         final SecurityMaster securityMaster = getInstance(SecurityMaster.class);
         final String outputBucket = getInstance(String.class, "OUTPUT_BUCKET");
         final String rawCaptureBucket = getInstance(String.class, "RAW_CAPTURE_BUCKET");
         final int[] listingIds = getInstance(int[].class, "LISTING_IDS");
 
-        final MarketDataCollector[] collectors = new MarketDataCollector[listingIds.length];
+        final boolean sharedSessions = getInstance(Boolean.class, "SHARED_EXCHANGE_SESSIONS");
+        final Map<Integer, ExchangeSessionOrchestrator> sessions = new HashMap<>();
+        final Listing[] listings = new Listing[listingIds.length];
+        final FeedArbitrator arbitrator = FeedArbitrator.fromProperties(getInstance(Properties.class));
+        final List<DefaultInboundOrchestrator<?>> orchestrators = new ArrayList<>(listingIds.length);
+        final DefaultInboundOrchestrator<?>[] secondaries = new DefaultInboundOrchestrator<?>[listingIds.length];
+        final List<DefaultInboundOrchestrator<?>> allInbounds = new ArrayList<>(listingIds.length);
         for (int i = 0; i < listingIds.length; i++) {
             final Listing listing = securityMaster.getListing(listingIds[i]);
-            final Class<? extends DefaultInboundOrchestrator<?>> orchestratorClass =
-                    DefaultInboundOrchestrator.findInboundOrchestrator(listing);
-            final DefaultInboundOrchestrator<?> orchestrator =
-                    createChildOrchestrator(orchestratorClass, Map.of(Listing.class, listing));
+            listings[i] = listing;
+            orchestrators.add(createInboundOrchestrator(listing, sharedSessions, sessions));
+            allInbounds.add(orchestrators.get(i));
+            if (arbitrator != null && arbitrator.covers(listing)) {
+                secondaries[i] = createInboundOrchestrator(listing, sharedSessions, sessions);
+                allInbounds.add(secondaries[i]);
+            }
+        }
+        if (parallelWarmUp) {
+            DefaultInboundOrchestrator.warmUpGateways(allInbounds);
+        }
+
+        final InboundIoThreads ioThreads = InboundIoThreads.fromProperties(getInstance(Properties.class));
+        final CollectorConsumers consumers = CollectorConsumers.fromProperties(
+                getInstance(Properties.class), getInstance(EpochNanoClock.class));
+        final SpillBuffer spill = getInstance(Boolean.class, "STREAMING_UPLOADS")
+                        && getInstance(Properties.class).hasProperty("upload.spill.dir")
+                ? getInstance(SpillBuffer.class)
+                : null;
+        final S3Client collectorS3Client = createCollectorS3Client(spill);
+        final LongSupplier[] lastEventNanos = new LongSupplier[listingIds.length];
+        final boolean aggregates = getInstance(Boolean.class, "COLLECTOR_AGGREGATES");
+        final boolean deltaFormat = "delta".equals(getInstance(String.class, "COLLECTOR_FORMAT"));
+        final List<LongConsumer> shutdownFlushes = new ArrayList<>();
+        for (int i = 0; i < listingIds.length; i++) {
+            final Listing listing = listings[i];
+            final DefaultInboundOrchestrator<?> orchestrator = orchestrators.get(i);
+            final Class<?> orchestratorClass = orchestrator.getClass();
 
             final RawDataCollector rawCollector = new RawDataCollector(
-                    logger, getInstance(Clock.class), getInstance(S3Client.class), listing, rawCaptureBucket);
+                    logger, getInstance(Clock.class), collectorS3Client, listing, rawCaptureBucket);
             orchestrator.setRawDataSink(rawCollector::capture);
 
-            final MarketDataCollector collector = new MarketDataCollector(
-                    logger, getInstance(Clock.class), getInstance(S3Client.class), listing, outputBucket);
-            collectors[i] = collector;
+            SequencedEventHandler handler;
+            if (deltaFormat) {
+                final DeltaBlockCollector collector = DeltaBlockCollector.fromProperties(
+                        logger,
+                        collectorS3Client,
+                        collectorS3Client instanceof StreamingS3Client
+                                ? getInstance(MultipartUploader.class)
+                                : null,
+                        listing,
+                        outputBucket,
+                        getInstance(Properties.class));
+                lastEventNanos[i] = () -> collector.lastEventNanos;
+                shutdownFlushes.add(collector::flush);
+                handler = collector;
+            } else {
+                final MarketDataCollector collector = new MarketDataCollector(
+                        logger, getInstance(Clock.class), collectorS3Client, listing, outputBucket);
+                lastEventNanos[i] = () -> collector.lastEventNanos;
+                handler = new SchemaEventAdapter(collector);
+            }
+            if (aggregates) {
+                final AggregateCollector aggregator = AggregateCollector.fromProperties(
+                        logger, collectorS3Client, listing, getInstance(Properties.class), outputBucket);
+                shutdownFlushes.add(aggregator::flush);
+                handler = chain(handler, aggregator);
+            }
 
-            orchestrator.configureGatewayForListing(new SchemaEventAdapter(collector));
+            final DefaultInboundOrchestrator<?> secondary = secondaries[i];
+            if (consumers != null) {
+                consumers.add(
+                        listing,
+                        handler,
+                        consumer -> secondary != null
+                                ? orchestrator.configurePolledRedundantGatewayForListing(
+                                        consumer, ioThreads, secondary, arbitrator)
+                                : orchestrator.configurePolledGatewayForListing(consumer, ioThreads),
+                        error -> logger.logf(
+                                LogMessage.UNKNOWN_ERROR,
+                                "Collector error on listing %d: %s",
+                                listing.listingId(),
+                                error));
+            } else if (secondary != null) {
+                orchestrator.configureRedundantGatewayForListing(handler, ioThreads, secondary, arbitrator);
+            } else {
+                orchestrator.configureGatewayForListing(handler, ioThreads);
+            }
 
             logger.logf(
                     LogMessage.DEBUG,
@@ -108,26 +269,127 @@ public class DelegatingCollectorOrchestrator extends Orchestrator {
                     listing.exchange().schemaType(),
                     orchestratorClass.getSimpleName());
         }
+        addUploadShutdownHook(consumers, shutdownFlushes, spill, collectorS3Client, logger);
+
+        final AgentThreadPlan threadPlan = getInstance(AgentThreadPlan.class);
+        if (ioThreads != null) {
+            ioThreads.start(threadPlan, error -> {
+                logger.logf(LogMessage.FATAL_ERROR_EXITING, "Inbound I/O agent error: %s", error);
+                System.exit(1);
+            });
+            logger.logf(LogMessage.DEBUG, "Started shared inbound I/O threads: %s", ioThreads);
+        }
+        if (consumers != null) {
+            consumers.start(threadPlan, error -> {
+                logger.logf(LogMessage.FATAL_ERROR_EXITING, "Collector consumer agent error: %s", error);
+                System.exit(1);
+            });
+            logger.logf(LogMessage.DEBUG, "Started shared collector consumer threads: %s", consumers);
+        }
+        if (arbitrator != null && arbitrator.size() > 0) {
+            threadPlan.start(arbitrator, error -> {
+                logger.logf(LogMessage.FATAL_ERROR_EXITING, "Feed arbitrator error: %s", error);
+                System.exit(1);
+            });
+            Runtime.getRuntime().addShutdownHook(
+                    new Thread(() -> logger.logf(LogMessage.DEBUG, "%s", arbitrator.winRateReport())));
+        }
+        logger.logf(LogMessage.DEBUG, "%s", threadPlan.summary());
 
         final long maxStaleNanos = TimeUnit.SECONDS.toNanos(90);
         try {
             new HealthCheckServer(8080, () -> {
-                        for (MarketDataCollector c : collectors) {
-                            long last = c.lastEventNanos;
+                        for (LongSupplier lastEvent : lastEventNanos) {
+                            long last = lastEvent.getAsLong();
                             if (last != 0L && (System.nanoTime() - last) < maxStaleNanos) {
                                 return true;
                             }
                         }
-                        for (MarketDataCollector c : collectors) {
-                            if (c.lastEventNanos != 0L) {
+                        for (LongSupplier lastEvent : lastEventNanos) {
+                            if (lastEvent.getAsLong() != 0L) {
                                 return false;
                             }
                         }
                         return true;
                     })
+                    .addJsonEndpoint("/listings", () -> ListingHealthReport.toJson(allInbounds))
+                    .addJsonEndpoint("/arbitration", () -> arbitrator != null ? arbitrator.toJson() : "{}")
+                    .addJsonEndpoint("/uploads", () -> collectorS3Client instanceof StreamingS3Client
+                            ? getInstance(MultipartUploader.class).toJson()
+                            : "{}")
+                    .addJsonEndpoint("/spill", () -> spill != null ? spill.toJson() : "{}")
+                    .addJsonEndpoint("/consumers", () -> consumers != null ? consumers.toJson() : "{}")
                     .start();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Returns the S3 client the collectors upload through: with {@code upload.streaming} enabled,
+     * puts are sent as parallel multipart uploads from a background pool. The fixed-record
+     * collector still builds each file in memory before its put; only {@code collector.format=delta}
+     * streams files as they are written. With {@code upload.spill.dir} also set, puts are staged in
+     * {@code spill} on local disk first.
+     */
+    private S3Client createCollectorS3Client(SpillBuffer spill) {
+        final S3Client s3Client = getInstance(S3Client.class);
+        if (!getInstance(Boolean.class, "STREAMING_UPLOADS")) {
+            return s3Client;
+        }
+        return new StreamingS3Client(s3Client, getInstance(MultipartUploader.class), spill);
+    }
+
+    /**
+     * Registers one shutdown hook that stops the shared consumer threads, uploads the open collector
+     * files and aggregate windows and then drains the spill and the uploader, in that order, so
+     * nothing is handed to a stage that has already stopped. Listings on their own consumer threads
+     * are stopped by hooks of their own in no fixed order; a put they make after the uploader has
+     * closed goes straight to S3.
+     */
+    private void addUploadShutdownHook(
+            CollectorConsumers consumers,
+            List<LongConsumer> flushes,
+            SpillBuffer spill,
+            S3Client collectorS3Client,
+            Logger logger) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (consumers != null) {
+                consumers.close();
+            }
+            final long now = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            for (LongConsumer flush : flushes) {
+                flush.accept(now);
+            }
+            if (spill != null) {
+                spill.close();
+                logger.logf(LogMessage.DEBUG, "Spill at shutdown: %s", spill.toJson());
+            }
+            if (collectorS3Client instanceof StreamingS3Client) {
+                final MultipartUploader uploader = getInstance(MultipartUploader.class);
+                uploader.close();
+                logger.logf(LogMessage.DEBUG, "Uploads at shutdown: %s", uploader.toJson());
+            }
+        }));
+    }
+
+    private static SequencedEventHandler chain(SequencedEventHandler first, SequencedEventHandler second) {
+        return (globalSequence, templateId, buffer, length) -> {
+            first.onEvent(globalSequence, templateId, buffer, length);
+            second.onEvent(globalSequence, templateId, buffer, length);
+        };
+    }
+
+    private DefaultInboundOrchestrator<?> createInboundOrchestrator(
+            Listing listing, boolean sharedSessions, Map<Integer, ExchangeSessionOrchestrator> sessions) {
+        if (sharedSessions) {
+            final ExchangeSessionOrchestrator session = sessions.computeIfAbsent(
+                    listing.exchange().exchangeId(),
+                    exchangeId -> createChildOrchestrator(
+                            ExchangeSessionOrchestrator.class, Map.of(Listing.class, listing)));
+            return session.createListingOrchestrator(listing, Map.of(Listing.class, listing));
+        }
+        return createChildOrchestrator(
+                DefaultInboundOrchestrator.findInboundOrchestrator(listing), Map.of(Listing.class, listing));
+    }
 }
@@ -0,0 +1,223 @@
+package group.gnometrading.collectors;
+
+import group.gnometrading.gateways.inbound.EventTimestamps;
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.sequencer.SequencedEventHandler;
+import group.gnometrading.sm.Listing;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.agrona.concurrent.UnsafeBuffer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Collects one listing's market data in the {@link DeltaBlockFormat} instead of fixed-size records,
+ * uploading one file per file period of event time to
+ * {@code <bucket>/delta/<exchangeId>/<securityId>/<yyyy>/<MM>/<dd>/<HHmmss>.gmd}, named after the
+ * file's first event, followed by its {@link DeltaBlockIndex} as {@code <same key>.idx} so readers
+ * can fetch only the blocks they need. The index is only uploaded once its file has been, so an
+ * index never points into a file that is missing.
+ *
+ * <p>Runs on the listing's consumer thread in place of the {@code MarketDataCollector}; appending
+ * an event does not allocate, and blocks are compressed as they fill. With a
+ * {@link MultipartUploader}, each block is written into the file's upload as soon as it is sealed,
+ * so the collector holds one block rather than the whole file and the uploader's memory budget
+ * bounds the rest; the index follows once the file has landed. Without one, the file is buffered
+ * until the end of its period. Either way the S3 calls run from {@link BackgroundUploads} or the
+ * uploader's pool, never on the consumer thread. {@link #lastEventNanos} serves the same health
+ * check as the collector's.
+ */
+public final class DeltaBlockCollector implements SequencedEventHandler {
+
+    private static final int DEFAULT_BLOCK_KB = 256;
+    private static final int DEFAULT_COMPRESSION_LEVEL = 3;
+    private static final int DEFAULT_FILE_MINUTES = 60;
+    private static final int INITIAL_FILE_SIZE = 16 * 1024 * 1024;
+    private static final DateTimeFormatter KEY_TIME =
+            DateTimeFormatter.ofPattern("yyyy/MM/dd/HHmmss").withZone(ZoneOffset.UTC);
+
+    public volatile long lastEventNanos;
+
+    private final Logger logger;
+    private final S3Client s3Client;
+    private final MultipartUploader uploader;
+    private final String bucket;
+    private final String keyPrefix;
+    private final long exchangeId;
+    private final long securityId;
+    private final long fileNanos;
+    private final DeltaBlockWriter writer;
+    private final EventTimestamps timestamps = new EventTimestamps();
+    private long fileStart = Long.MIN_VALUE;
+    private String key;
+    private MultipartUploader.ObjectUpload upload;
+    private CompletableFuture<Void> lastUpload = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param uploader streams each file's blocks as they are sealed, or null to buffer whole files
+     */
+    public DeltaBlockCollector(
+            Logger logger,
+            S3Client s3Client,
+            MultipartUploader uploader,
+            Listing listing,
+            String bucket,
+            long fileNanos,
+            int blockSize,
+            int compressionLevel) {
+        this.logger = logger;
+        this.s3Client = s3Client;
+        this.uploader = uploader;
+        this.bucket = bucket;
+        this.exchangeId = listing.exchange().exchangeId();
+        this.securityId = listing.security().securityId();
+        this.keyPrefix = "delta/" + exchangeId + "/" + securityId + "/";
+        this.fileNanos = fileNanos;
+        this.writer = uploader != null
+                ? new DeltaBlockWriter(blockSize, compressionLevel, blockSize, this::send)
+                : new DeltaBlockWriter(blockSize, compressionLevel, INITIAL_FILE_SIZE);
+    }
+
+    /**
+     * Reads {@code collector.delta.block.kb} (default 256), {@code collector.delta.level} (zstd
+     * level, default 3) and {@code collector.delta.file.minutes} (default 60).
+     */
+    public static DeltaBlockCollector fromProperties(
+            Logger logger,
+            S3Client s3Client,
+            MultipartUploader uploader,
+            Listing listing,
+            String bucket,
+            Properties properties) {
+        int blockKb = properties.hasProperty("collector.delta.block.kb")
+                ? properties.getIntProperty("collector.delta.block.kb")
+                : DEFAULT_BLOCK_KB;
+        int level = properties.hasProperty("collector.delta.level")
+                ? properties.getIntProperty("collector.delta.level")
+                : DEFAULT_COMPRESSION_LEVEL;
+        int fileMinutes = properties.hasProperty("collector.delta.file.minutes")
+                ? properties.getIntProperty("collector.delta.file.minutes")
+                : DEFAULT_FILE_MINUTES;
+        return new DeltaBlockCollector(
+                logger,
+                s3Client,
+                uploader,
+                listing,
+                bucket,
+                TimeUnit.MINUTES.toNanos(fileMinutes),
+                blockKb * 1024,
+                level);
+    }
+
+    @Override
+    public synchronized void onEvent(long globalSequence, int templateId, UnsafeBuffer buffer, int length) {
+        if (!timestamps.read(templateId, buffer)) {
+            return;
+        }
+        lastEventNanos = System.nanoTime();
+        long timestamp = timestamps.exchangeNanos() > 0 ? timestamps.exchangeNanos() : timestamps.receiveNanos();
+        long period = timestamp - Math.floorMod(timestamp, fileNanos);
+        if (fileStart == Long.MIN_VALUE) {
+            startFile(period, timestamp);
+        } else if (period > fileStart) {
+            upload();
+            startFile(period, timestamp);
+        }
+        writer.append(templateId, buffer, 0, length, timestamp, globalSequence);
+    }
+
+    /**
+     * Uploads the open file and waits for it to land. Called on shutdown; synchronized with
+     * {@link #onEvent} since events may still be arriving.
+     */
+    public synchronized void flush(long nowNanos) {
+        if (fileStart != Long.MIN_VALUE) {
+            upload();
+            fileStart = Long.MIN_VALUE;
+        }
+        lastUpload.join();
+    }
+
+    private void startFile(long period, long timestamp) {
+        fileStart = period;
+        key = keyPrefix + KEY_TIME.format(Instant.EPOCH.plusNanos(timestamp)) + ".gmd";
+        if (uploader != null) {
+            try {
+                upload = uploader.open(request(key));
+            } catch (IllegalStateException e) {
+                logger.logf(LogMessage.UNKNOWN_ERROR, "Failed to upload s3://%s/%s: %s", bucket, key, e);
+            }
+        }
+        // Hands the file header to the upload opened above
+        writer.reset(exchangeId, securityId);
+    }
+
+    /**
+     * Writes what the writer has sealed into the open file's upload. A file whose upload cannot
+     * take more data is given up: the uploader logs and counts it and no index is uploaded for it.
+     */
+    private void send(byte[] bytes, int offset, int length) {
+        if (upload == null) {
+            return;
+        }
+        try {
+            upload.write(bytes, offset, length);
+        } catch (IOException e) {
+            upload.abort(e);
+            upload = null;
+        }
+    }
+
+    private void upload() {
+        if (!writer.hasRecords()) {
+            return;
+        }
+        writer.flushBlock();
+        String indexKey = key + ".idx";
+        RequestBody index = RequestBody.fromByteBuffer(ByteBuffer.wrap(writer.indexBytes(), 0, writer.indexLength()));
+        if (uploader == null) {
+            String fileKey = key;
+            RequestBody file = RequestBody.fromByteBuffer(ByteBuffer.wrap(writer.fileBytes(), 0, writer.fileLength()));
+            lastUpload = BackgroundUploads.run(() -> {
+                if (put(fileKey, file)) {
+                    put(indexKey, index);
+                }
+            });
+        } else if (upload != null) {
+            CompletableFuture<Void> file = upload.complete();
+            upload = null;
+            // A failed file has been logged and counted by the uploader
+            lastUpload = file.thenCompose(ignored -> BackgroundUploads.run(() -> put(indexKey, index)))
+                    .exceptionally(error -> null);
+        }
+    }
+
+    private PutObjectRequest request(String key) {
+        return PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType("application/octet-stream")
+                .build();
+    }
+
+    /**
+     * Returns whether the object was uploaded; a failure is logged.
+     */
+    private boolean put(String key, RequestBody body) {
+        try {
+            s3Client.putObject(request(key), body);
+            return true;
+        } catch (RuntimeException e) {
+            logger.logf(LogMessage.UNKNOWN_ERROR, "Failed to upload s3://%s/%s: %s", bucket, key, e);
+            return false;
+        }
+    }
+}
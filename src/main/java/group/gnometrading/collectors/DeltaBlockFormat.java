@@ -0,0 +1,202 @@
+package group.gnometrading.collectors;
+
+import java.nio.ByteOrder;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Layout of the delta-encoded, block-compressed collector files written by {@link DeltaBlockWriter}
+ * and read by {@link DeltaBlockReader}. All fixed-width fields are little-endian.
+ *
+ * <pre>
+ * file   := fileHeader block*
+ * fileHeader (24 bytes) := magic "GMDB" int32, version int16, codec int16, exchangeId int64, securityId int64
+ * block  := blockHeader zstd(record*)
+ * blockHeader (32 bytes) := magic "BLK1" int32, uncompressedLength int32, compressedLength int32,
+ *                           records int32, minTimestamp int64, maxTimestamp int64
+ * record := templateId varint, length varint, changed bitmap, delta varint per changed word
+ *
+ * index  := indexHeader entry*      (the .idx sidecar uploaded with each file)
+ * indexHeader (24 bytes) := magic "GMDI" int32, version int16, reserved int16, exchangeId int64, securityId int64
+ * entry (48 bytes) := blockOffset int64, blockLength int32, records int32, minTimestamp int64,
+ *                     maxTimestamp int64, firstSequence int64, lastSequence int64
+ * </pre>
+ *
+ * <p>A record is the event's message bytes, read as 8-byte little-endian words (the last one zero
+ * padded) and stored against the previous record of the same block: a bitmap with one bit per word
+ * that changed, then the zigzag varint difference of each changed word. Book levels that did not
+ * move are words that did not change, so an update touching one level costs a few bytes. The first
+ * record of a block, and any record whose length differs from the previous one, is stored against
+ * zeros, so every block decodes on its own.
+ *
+ * <p>The index has one entry per block, giving the byte range of its header and data in the file
+ * and the global sequences it spans. Its {@code maxTimestamp} is the running maximum over the file
+ * so far, keeping it sorted for binary search even when event timestamps step backwards.
+ */
+final class DeltaBlockFormat {
+
+    static final int FILE_MAGIC = 0x42444d47;
+    static final int BLOCK_MAGIC = 0x314b4c42;
+    static final short VERSION = 1;
+    static final short CODEC_ZSTD = 1;
+
+    static final int FILE_HEADER_SIZE = 24;
+    static final int FILE_VERSION_OFFSET = 4;
+    static final int FILE_CODEC_OFFSET = 6;
+    static final int FILE_EXCHANGE_OFFSET = 8;
+    static final int FILE_SECURITY_OFFSET = 16;
+
+    static final int BLOCK_HEADER_SIZE = 32;
+    static final int BLOCK_UNCOMPRESSED_OFFSET = 4;
+    static final int BLOCK_COMPRESSED_OFFSET = 8;
+    static final int BLOCK_RECORDS_OFFSET = 12;
+    static final int BLOCK_MIN_TIMESTAMP_OFFSET = 16;
+    static final int BLOCK_MAX_TIMESTAMP_OFFSET = 24;
+
+    static final int INDEX_MAGIC = 0x49444d47;
+    static final int INDEX_HEADER_SIZE = 24;
+    static final int INDEX_ENTRY_SIZE = 48;
+    static final int ENTRY_LENGTH_OFFSET = 8;
+    static final int ENTRY_RECORDS_OFFSET = 12;
+    static final int ENTRY_MIN_TIMESTAMP_OFFSET = 16;
+    static final int ENTRY_MAX_TIMESTAMP_OFFSET = 24;
+    static final int ENTRY_FIRST_SEQUENCE_OFFSET = 32;
+    static final int ENTRY_LAST_SEQUENCE_OFFSET = 40;
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int MAX_VARINT = 10;
+
+    private DeltaBlockFormat() {}
+
+    /**
+     * Writes the file header at the start of {@code buffer} and returns its length.
+     */
+    static int putFileHeader(MutableDirectBuffer buffer, long exchangeId, long securityId) {
+        buffer.putInt(0, FILE_MAGIC, ORDER);
+        buffer.putShort(FILE_VERSION_OFFSET, VERSION, ORDER);
+        buffer.putShort(FILE_CODEC_OFFSET, CODEC_ZSTD, ORDER);
+        buffer.putLong(FILE_EXCHANGE_OFFSET, exchangeId, ORDER);
+        buffer.putLong(FILE_SECURITY_OFFSET, securityId, ORDER);
+        return FILE_HEADER_SIZE;
+    }
+
+    /**
+     * Writes the index header at the start of {@code buffer} and returns its length.
+     */
+    static int putIndexHeader(MutableDirectBuffer buffer, long exchangeId, long securityId) {
+        buffer.putInt(0, INDEX_MAGIC, ORDER);
+        buffer.putShort(FILE_VERSION_OFFSET, VERSION, ORDER);
+        buffer.putShort(FILE_CODEC_OFFSET, (short) 0, ORDER);
+        buffer.putLong(FILE_EXCHANGE_OFFSET, exchangeId, ORDER);
+        buffer.putLong(FILE_SECURITY_OFFSET, securityId, ORDER);
+        return INDEX_HEADER_SIZE;
+    }
+
+    /**
+     * Writes an index entry at {@code offset} and returns the offset after it.
+     */
+    static int putIndexEntry(
+            MutableDirectBuffer buffer,
+            int offset,
+            long blockOffset,
+            int blockLength,
+            int records,
+            long minTimestamp,
+            long maxTimestamp,
+            long firstSequence,
+            long lastSequence) {
+        buffer.putLong(offset, blockOffset, ORDER);
+        buffer.putInt(offset + ENTRY_LENGTH_OFFSET, blockLength, ORDER);
+        buffer.putInt(offset + ENTRY_RECORDS_OFFSET, records, ORDER);
+        buffer.putLong(offset + ENTRY_MIN_TIMESTAMP_OFFSET, minTimestamp, ORDER);
+        buffer.putLong(offset + ENTRY_MAX_TIMESTAMP_OFFSET, maxTimestamp, ORDER);
+        buffer.putLong(offset + ENTRY_FIRST_SEQUENCE_OFFSET, firstSequence, ORDER);
+        buffer.putLong(offset + ENTRY_LAST_SEQUENCE_OFFSET, lastSequence, ORDER);
+        return offset + INDEX_ENTRY_SIZE;
+    }
+
+    /**
+     * Writes a block header at {@code offset} and returns the offset of the block's data.
+     */
+    static int putBlockHeader(
+            MutableDirectBuffer buffer,
+            int offset,
+            int uncompressedLength,
+            int compressedLength,
+            int records,
+            long minTimestamp,
+            long maxTimestamp) {
+        buffer.putInt(offset, BLOCK_MAGIC, ORDER);
+        buffer.putInt(offset + BLOCK_UNCOMPRESSED_OFFSET, uncompressedLength, ORDER);
+        buffer.putInt(offset + BLOCK_COMPRESSED_OFFSET, compressedLength, ORDER);
+        buffer.putInt(offset + BLOCK_RECORDS_OFFSET, records, ORDER);
+        buffer.putLong(offset + BLOCK_MIN_TIMESTAMP_OFFSET, minTimestamp, ORDER);
+        buffer.putLong(offset + BLOCK_MAX_TIMESTAMP_OFFSET, maxTimestamp, ORDER);
+        return offset + BLOCK_HEADER_SIZE;
+    }
+
+    /**
+     * Most bytes a record of {@code length} message bytes can take in a block.
+     */
+    static int maxRecordSize(int length) {
+        int words = words(length);
+        return 2 * MAX_VARINT + bitmapSize(words) + words * MAX_VARINT;
+    }
+
+    static int words(int length) {
+        return (length + Long.BYTES - 1) / Long.BYTES;
+    }
+
+    static int bitmapSize(int words) {
+        return (words + 7) / 8;
+    }
+
+    /**
+     * Reads word {@code word} of a message of {@code length} bytes, zero padding past the end.
+     */
+    static long word(DirectBuffer buffer, int offset, int length, int word) {
+        int start = word * Long.BYTES;
+        if (start + Long.BYTES <= length) {
+            return buffer.getLong(offset + start, ORDER);
+        }
+        long value = 0;
+        for (int i = length - start - 1; i >= 0; i--) {
+            value = (value << 8) | (buffer.getByte(offset + start + i) & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Writes word {@code word} of a message of {@code length} bytes, dropping the padding.
+     */
+    static void putWord(MutableDirectBuffer buffer, int offset, int length, int word, long value) {
+        int start = word * Long.BYTES;
+        if (start + Long.BYTES <= length) {
+            buffer.putLong(offset + start, value, ORDER);
+            return;
+        }
+        for (int i = 0; start + i < length; i++) {
+            buffer.putByte(offset + start + i, (byte) (value >>> (8 * i)));
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes {@code value} as an unsigned LEB128 varint and returns the offset after it.
+     */
+    static int putVarLong(MutableDirectBuffer buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.putByte(offset++, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.putByte(offset++, (byte) value);
+        return offset;
+    }
+}
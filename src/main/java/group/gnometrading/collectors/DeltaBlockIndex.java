@@ -0,0 +1,136 @@
+package group.gnometrading.collectors;
+
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * The sparse index sidecar of a {@link DeltaBlockFormat} file: one entry per block with its byte
+ * range in the file, timestamp range and global sequence range.
+ *
+ * <p>{@link #findTimestamp} and {@link #findSequence} binary search the entries, so finding where
+ * to start reading costs O(log blocks) and only the bytes from {@link #offset} on need fetching,
+ * by a ranged GET against S3 or a positioned read of a local file; see
+ * {@link DeltaBlockReader#readBetween(java.nio.channels.FileChannel, DeltaBlockIndex, long, long,
+ * DeltaBlockReader.RecordHandler)}.
+ */
+public final class DeltaBlockIndex {
+
+    private final UnsafeBuffer buffer;
+    private final int size;
+    private final long exchangeId;
+    private final long securityId;
+
+    public DeltaBlockIndex(byte[] index) {
+        this(index, index.length);
+    }
+
+    public DeltaBlockIndex(byte[] index, int length) {
+        this.buffer = new UnsafeBuffer(index, 0, length);
+        if (length < DeltaBlockFormat.INDEX_HEADER_SIZE
+                || buffer.getInt(0, DeltaBlockFormat.ORDER) != DeltaBlockFormat.INDEX_MAGIC) {
+            throw new IllegalArgumentException("Not a delta block index");
+        }
+        short version = buffer.getShort(DeltaBlockFormat.FILE_VERSION_OFFSET, DeltaBlockFormat.ORDER);
+        if (version != DeltaBlockFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported delta block index version " + version);
+        }
+        if ((length - DeltaBlockFormat.INDEX_HEADER_SIZE) % DeltaBlockFormat.INDEX_ENTRY_SIZE != 0) {
+            throw new IllegalArgumentException("Truncated delta block index");
+        }
+        this.size = (length - DeltaBlockFormat.INDEX_HEADER_SIZE) / DeltaBlockFormat.INDEX_ENTRY_SIZE;
+        this.exchangeId = buffer.getLong(DeltaBlockFormat.FILE_EXCHANGE_OFFSET, DeltaBlockFormat.ORDER);
+        this.securityId = buffer.getLong(DeltaBlockFormat.FILE_SECURITY_OFFSET, DeltaBlockFormat.ORDER);
+    }
+
+    public long exchangeId() {
+        return exchangeId;
+    }
+
+    public long securityId() {
+        return securityId;
+    }
+
+    /**
+     * Number of blocks.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the first block that may hold an event at or after {@code timestamp}, or
+     * {@link #size()} if none does.
+     */
+    public int findTimestamp(long timestamp) {
+        return search(DeltaBlockFormat.ENTRY_MAX_TIMESTAMP_OFFSET, timestamp);
+    }
+
+    /**
+     * Returns the first block holding a global sequence at or after {@code sequence}, or
+     * {@link #size()} if none does.
+     */
+    public int findSequence(long sequence) {
+        return search(DeltaBlockFormat.ENTRY_LAST_SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * First entry whose sorted field at {@code fieldOffset} is at least {@code value}.
+     */
+    private int search(int fieldOffset, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (field(mid, fieldOffset) < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long field(int block, int fieldOffset) {
+        return buffer.getLong(entry(block) + fieldOffset, DeltaBlockFormat.ORDER);
+    }
+
+    private static int entry(int block) {
+        return DeltaBlockFormat.INDEX_HEADER_SIZE + block * DeltaBlockFormat.INDEX_ENTRY_SIZE;
+    }
+
+    /**
+     * Offset of the block's header in the file.
+     */
+    public long offset(int block) {
+        return buffer.getLong(entry(block), DeltaBlockFormat.ORDER);
+    }
+
+    /**
+     * Length of the block's header and compressed data.
+     */
+    public int length(int block) {
+        return buffer.getInt(entry(block) + DeltaBlockFormat.ENTRY_LENGTH_OFFSET, DeltaBlockFormat.ORDER);
+    }
+
+    public int records(int block) {
+        return buffer.getInt(entry(block) + DeltaBlockFormat.ENTRY_RECORDS_OFFSET, DeltaBlockFormat.ORDER);
+    }
+
+    public long minTimestamp(int block) {
+        return field(block, DeltaBlockFormat.ENTRY_MIN_TIMESTAMP_OFFSET);
+    }
+
+    /**
+     * The highest timestamp in this block or any before it.
+     */
+    public long maxTimestamp(int block) {
+        return field(block, DeltaBlockFormat.ENTRY_MAX_TIMESTAMP_OFFSET);
+    }
+
+    public long firstSequence(int block) {
+        return field(block, DeltaBlockFormat.ENTRY_FIRST_SEQUENCE_OFFSET);
+    }
+
+    public long lastSequence(int block) {
+        return field(block, DeltaBlockFormat.ENTRY_LAST_SEQUENCE_OFFSET);
+    }
+}
@@ -0,0 +1,252 @@
+package group.gnometrading.collectors;
+
+import com.github.luben.zstd.Zstd;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Reference decoder for the {@link DeltaBlockFormat}: lists a file's blocks from their headers
+ * without decompressing anything, and replays the original messages of any block.
+ *
+ * <p>Since each block decodes on its own and its header carries its timestamp range, a reader only
+ * interested in a time range decompresses the blocks overlapping it. The same works on a partial
+ * object: with the {@link DeltaBlockIndex} sidecar, fetch only the byte ranges of the blocks needed
+ * and {@link #decodeBlock} them, as the {@link FileChannel} overloads do for a local file.
+ */
+public final class DeltaBlockReader {
+
+    /**
+     * A block's header: where it sits in the file, its sizes, record count and timestamp range.
+     */
+    public record Block(
+            int offset,
+            int uncompressedLength,
+            int compressedLength,
+            int records,
+            long minTimestamp,
+            long maxTimestamp) {
+
+        public int dataOffset() {
+            return offset + DeltaBlockFormat.BLOCK_HEADER_SIZE;
+        }
+
+        public int endOffset() {
+            return dataOffset() + compressedLength;
+        }
+
+        public boolean overlaps(long fromTimestamp, long toTimestamp) {
+            return maxTimestamp >= fromTimestamp && minTimestamp <= toTimestamp;
+        }
+    }
+
+    /**
+     * Receives each decoded message. {@code buffer} is reused for the next record.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(int templateId, DirectBuffer buffer, int length);
+    }
+
+    private final byte[] file;
+    private final long exchangeId;
+    private final long securityId;
+    private final List<Block> blocks;
+
+    public DeltaBlockReader(byte[] file) {
+        this(file, file.length);
+    }
+
+    public DeltaBlockReader(byte[] file, int length) {
+        UnsafeBuffer buffer = new UnsafeBuffer(file, 0, length);
+        if (length < DeltaBlockFormat.FILE_HEADER_SIZE || buffer.getInt(0, DeltaBlockFormat.ORDER)
+                != DeltaBlockFormat.FILE_MAGIC) {
+            throw new IllegalArgumentException("Not a delta block file");
+        }
+        short version = buffer.getShort(DeltaBlockFormat.FILE_VERSION_OFFSET, DeltaBlockFormat.ORDER);
+        short codec = buffer.getShort(DeltaBlockFormat.FILE_CODEC_OFFSET, DeltaBlockFormat.ORDER);
+        if (version != DeltaBlockFormat.VERSION || codec != DeltaBlockFormat.CODEC_ZSTD) {
+            throw new IllegalArgumentException("Unsupported delta block file version " + version + " codec " + codec);
+        }
+        this.file = file;
+        this.exchangeId = buffer.getLong(DeltaBlockFormat.FILE_EXCHANGE_OFFSET, DeltaBlockFormat.ORDER);
+        this.securityId = buffer.getLong(DeltaBlockFormat.FILE_SECURITY_OFFSET, DeltaBlockFormat.ORDER);
+
+        List<Block> blocks = new ArrayList<>();
+        int offset = DeltaBlockFormat.FILE_HEADER_SIZE;
+        while (offset + DeltaBlockFormat.BLOCK_HEADER_SIZE <= length) {
+            Block block = readBlockHeader(buffer, offset);
+            if (block.endOffset() > length) {
+                throw new IllegalArgumentException("Truncated delta block at " + offset);
+            }
+            blocks.add(block);
+            offset = block.endOffset();
+        }
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * Parses the block header at {@code offset}; the returned block's offsets are relative to the
+     * same buffer.
+     */
+    public static Block readBlockHeader(DirectBuffer buffer, int offset) {
+        if (buffer.getInt(offset, DeltaBlockFormat.ORDER) != DeltaBlockFormat.BLOCK_MAGIC) {
+            throw new IllegalArgumentException("No delta block header at " + offset);
+        }
+        return new Block(
+                offset,
+                buffer.getInt(offset + DeltaBlockFormat.BLOCK_UNCOMPRESSED_OFFSET, DeltaBlockFormat.ORDER),
+                buffer.getInt(offset + DeltaBlockFormat.BLOCK_COMPRESSED_OFFSET, DeltaBlockFormat.ORDER),
+                buffer.getInt(offset + DeltaBlockFormat.BLOCK_RECORDS_OFFSET, DeltaBlockFormat.ORDER),
+                buffer.getLong(offset + DeltaBlockFormat.BLOCK_MIN_TIMESTAMP_OFFSET, DeltaBlockFormat.ORDER),
+                buffer.getLong(offset + DeltaBlockFormat.BLOCK_MAX_TIMESTAMP_OFFSET, DeltaBlockFormat.ORDER));
+    }
+
+    public long exchangeId() {
+        return exchangeId;
+    }
+
+    public long securityId() {
+        return securityId;
+    }
+
+    public List<Block> blocks() {
+        return blocks;
+    }
+
+    /**
+     * Replays every message in the file and returns how many there were.
+     */
+    public long readAll(RecordHandler handler) {
+        long records = 0;
+        for (Block block : blocks) {
+            records += decodeBlock(block, file, block.dataOffset(), handler);
+        }
+        return records;
+    }
+
+    /**
+     * Replays the messages of the blocks whose timestamp range overlaps {@code [from, to]}, leaving
+     * every other block compressed. Messages of those blocks outside the range are included.
+     */
+    public long readBetween(long fromTimestamp, long toTimestamp, RecordHandler handler) {
+        long records = 0;
+        for (Block block : blocks) {
+            if (block.overlaps(fromTimestamp, toTimestamp)) {
+                records += decodeBlock(block, file, block.dataOffset(), handler);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Replays the blocks of a local file that may hold events in {@code [from, to]}: the index finds
+     * the first in O(log blocks), and only those blocks are read from disk. Event time may step
+     * backwards, so a block starting after {@code to} does not end the search; every later entry is
+     * checked. Messages of those blocks outside the range are included.
+     */
+    public static long readBetween(
+            FileChannel file, DeltaBlockIndex index, long fromTimestamp, long toTimestamp, RecordHandler handler)
+            throws IOException {
+        long records = 0;
+        for (int block = index.findTimestamp(fromTimestamp); block < index.size(); block++) {
+            if (index.minTimestamp(block) <= toTimestamp) {
+                records += readBlock(file, index, block, handler);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Replays the blocks of a local file holding global sequences in {@code [from, to]}, seeking to
+     * the first through the index.
+     */
+    public static long readSequences(
+            FileChannel file, DeltaBlockIndex index, long fromSequence, long toSequence, RecordHandler handler)
+            throws IOException {
+        long records = 0;
+        for (int block = index.findSequence(fromSequence);
+                block < index.size() && index.firstSequence(block) <= toSequence;
+                block++) {
+            records += readBlock(file, index, block, handler);
+        }
+        return records;
+    }
+
+    private static int readBlock(FileChannel file, DeltaBlockIndex index, int block, RecordHandler handler)
+            throws IOException {
+        byte[] bytes = new byte[index.length(block)];
+        ByteBuffer target = ByteBuffer.wrap(bytes);
+        long position = index.offset(block);
+        while (target.hasRemaining()) {
+            if (file.read(target, position + target.position()) < 0) {
+                throw new EOFException("Delta block file shorter than its index at block " + block);
+            }
+        }
+        Block header = readBlockHeader(new UnsafeBuffer(bytes), 0);
+        return decodeBlock(header, bytes, DeltaBlockFormat.BLOCK_HEADER_SIZE, handler);
+    }
+
+    /**
+     * Decompresses the block whose compressed data starts at {@code dataOffset} in {@code source}
+     * and replays its messages. Returns the number of records.
+     */
+    public static int decodeBlock(Block block, byte[] source, int dataOffset, RecordHandler handler) {
+        byte[] raw = new byte[block.uncompressedLength()];
+        long size = Zstd.decompressByteArray(raw, 0, raw.length, source, dataOffset, block.compressedLength());
+        if (Zstd.isError(size) || size != raw.length) {
+            throw new IllegalArgumentException("Corrupt delta block at " + block.offset());
+        }
+        Cursor in = new Cursor(new UnsafeBuffer(raw));
+        UnsafeBuffer message = new UnsafeBuffer(new byte[0]);
+        int previousLength = -1;
+        for (int record = 0; record < block.records(); record++) {
+            int templateId = (int) in.next();
+            int length = (int) in.next();
+            if (length != previousLength) {
+                message.wrap(new byte[length]);
+                previousLength = length;
+            }
+            int words = DeltaBlockFormat.words(length);
+            int bitmap = in.position;
+            in.position += DeltaBlockFormat.bitmapSize(words);
+            for (int i = 0; i < words; i++) {
+                if ((in.buffer.getByte(bitmap + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                    long delta = DeltaBlockFormat.unZigZag(in.next());
+                    long value = DeltaBlockFormat.word(message, 0, length, i) + delta;
+                    DeltaBlockFormat.putWord(message, 0, length, i, value);
+                }
+            }
+            handler.onRecord(templateId, message, length);
+        }
+        return block.records();
+    }
+
+    private static final class Cursor {
+
+        private final DirectBuffer buffer;
+        private int position;
+
+        Cursor(DirectBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        long next() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.getByte(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package group.gnometrading.collectors;
+
+import com.github.luben.zstd.Zstd;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Builds one file in the {@link DeltaBlockFormat}: delta-encodes each appended message against the
+ * previous one into an uncompressed block and, once the block would overflow, zstd-compresses it
+ * behind its header into the file buffer, adding the block's entry to the index sidecar.
+ *
+ * <p>Without a {@link Sink} the whole file is kept in the file buffer. With one, the file header and
+ * each block are handed to the sink as soon as they are written, so the file buffer only ever holds
+ * one compressed block however long the file grows; offsets in the index still count from the start
+ * of the file.
+ *
+ * <p>Block and compression buffers are allocated once; the file and index buffers grow until the
+ * writer is {@link #reset}, after which they are reused. Not thread-safe.
+ */
+public final class DeltaBlockWriter {
+
+    /**
+     * Receives the file as it is written: the header on {@link #reset}, then every block as it is
+     * sealed. The bytes are only valid for the duration of the call.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void write(byte[] bytes, int offset, int length);
+    }
+
+    private static final int INITIAL_INDEX_ENTRIES = 1024;
+
+    private final int compressionLevel;
+    private final UnsafeBuffer block;
+    private final byte[] compressed;
+    private final UnsafeBuffer previous;
+    private final ExpandableArrayBuffer file;
+    private final ExpandableArrayBuffer index;
+    private final Sink sink;
+    private int fileLength;
+    private int sentLength;
+    private int indexLength;
+    private long indexMaxTimestamp;
+
+    private int blockLength;
+    private int blockRecords;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private long firstSequence;
+    private long lastSequence;
+    private int previousLength;
+
+    public DeltaBlockWriter(int blockSize, int compressionLevel, int initialFileSize) {
+        this(blockSize, compressionLevel, initialFileSize, null);
+    }
+
+    public DeltaBlockWriter(int blockSize, int compressionLevel, int initialFileSize, Sink sink) {
+        this.compressionLevel = compressionLevel;
+        this.block = new UnsafeBuffer(new byte[blockSize]);
+        this.compressed = new byte[(int) Zstd.compressBound(blockSize)];
+        this.previous = new UnsafeBuffer(new byte[blockSize]);
+        this.file = new ExpandableArrayBuffer(initialFileSize);
+        this.index = new ExpandableArrayBuffer(
+                DeltaBlockFormat.INDEX_HEADER_SIZE + INITIAL_INDEX_ENTRIES * DeltaBlockFormat.INDEX_ENTRY_SIZE);
+        this.sink = sink;
+    }
+
+    /**
+     * Discards everything written and starts a new file for the given listing.
+     */
+    public void reset(long exchangeId, long securityId) {
+        fileLength = DeltaBlockFormat.putFileHeader(file, exchangeId, securityId);
+        sentLength = 0;
+        indexLength = DeltaBlockFormat.putIndexHeader(index, exchangeId, securityId);
+        indexMaxTimestamp = Long.MIN_VALUE;
+        startBlock();
+        send();
+    }
+
+    /**
+     * Appends one message of {@code length} bytes at {@code offset} in {@code buffer}, with the
+     * timestamp and global sequence the block headers and index are keyed by.
+     */
+    public void append(int templateId, DirectBuffer buffer, int offset, int length, long timestamp, long sequence) {
+        int maxSize = DeltaBlockFormat.maxRecordSize(length);
+        if (maxSize > block.capacity()) {
+            throw new IllegalArgumentException("Message larger than a delta block: " + length);
+        }
+        if (blockLength + maxSize > block.capacity()) {
+            flushBlock();
+        }
+        if (length != previousLength) {
+            previous.setMemory(0, length, (byte) 0);
+            previousLength = length;
+        }
+
+        int position = DeltaBlockFormat.putVarLong(block, blockLength, templateId);
+        position = DeltaBlockFormat.putVarLong(block, position, length);
+        int words = DeltaBlockFormat.words(length);
+        int bitmap = position;
+        int bitmapSize = DeltaBlockFormat.bitmapSize(words);
+        block.setMemory(bitmap, bitmapSize, (byte) 0);
+        position += bitmapSize;
+        for (int i = 0; i < words; i++) {
+            long current = DeltaBlockFormat.word(buffer, offset, length, i);
+            long delta = current - DeltaBlockFormat.word(previous, 0, length, i);
+            if (delta != 0) {
+                int bit = bitmap + (i >>> 3);
+                block.putByte(bit, (byte) (block.getByte(bit) | (1 << (i & 7))));
+                position = DeltaBlockFormat.putVarLong(block, position, DeltaBlockFormat.zigZag(delta));
+            }
+        }
+        previous.putBytes(0, buffer, offset, length);
+        blockLength = position;
+
+        if (blockRecords == 0) {
+            minTimestamp = timestamp;
+            maxTimestamp = timestamp;
+            firstSequence = sequence;
+        } else {
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+        }
+        lastSequence = sequence;
+        blockRecords++;
+    }
+
+    /**
+     * Compresses the open block, if it holds anything, into the file, handing it to the sink if
+     * there is one.
+     */
+    public void flushBlock() {
+        if (blockRecords == 0) {
+            return;
+        }
+        long size = Zstd.compressByteArray(
+                compressed, 0, compressed.length, block.byteArray(), 0, blockLength, compressionLevel);
+        if (Zstd.isError(size)) {
+            throw new IllegalStateException("Failed to compress delta block: " + Zstd.getErrorName(size));
+        }
+        int position = fileLength - sentLength;
+        int data = DeltaBlockFormat.putBlockHeader(
+                file, position, blockLength, (int) size, blockRecords, minTimestamp, maxTimestamp);
+        file.putBytes(data, compressed, 0, (int) size);
+        int blockSize = data + (int) size - position;
+        indexMaxTimestamp = Math.max(indexMaxTimestamp, maxTimestamp);
+        indexLength = DeltaBlockFormat.putIndexEntry(
+                index,
+                indexLength,
+                fileLength,
+                blockSize,
+                blockRecords,
+                minTimestamp,
+                indexMaxTimestamp,
+                firstSequence,
+                lastSequence);
+        fileLength += blockSize;
+        startBlock();
+        send();
+    }
+
+    private void send() {
+        if (sink != null) {
+            sink.write(file.byteArray(), 0, fileLength - sentLength);
+            sentLength = fileLength;
+        }
+    }
+
+    private void startBlock() {
+        blockLength = 0;
+        blockRecords = 0;
+        previousLength = -1;
+    }
+
+    /**
+     * True once a record has been appended since the last {@link #reset}.
+     */
+    public boolean hasRecords() {
+        return fileLength > DeltaBlockFormat.FILE_HEADER_SIZE || blockRecords > 0;
+    }
+
+    /**
+     * The file written so far; only complete up to {@link #fileLength()} after {@link #flushBlock()}.
+     * Only holds the last block written when the writer has a sink.
+     */
+    public byte[] fileBytes() {
+        return file.byteArray();
+    }
+
+    public int fileLength() {
+        return fileLength;
+    }
+
+    /**
+     * The index of the blocks flushed so far.
+     */
+    public byte[] indexBytes() {
+        return index.byteArray();
+    }
+
+    public int indexLength() {
+        return indexLength;
+    }
+}
@@ -0,0 +1,135 @@
+package group.gnometrading.collectors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a pool of listings across {@code shardCount} collector tasks by consistent hashing with
+ * bounded loads, so every task computes the same assignment on its own from the same inputs.
+ *
+ * <p>Each shard owns {@link #VIRTUAL_NODES} points on a 64-bit hash ring. A listing goes to the
+ * owner of the first point clockwise from its own hash whose shard still has room for its weight,
+ * a listing's weight being its historical message rate. A shard's room is {@code loadFactor} times
+ * the mean load, so no task carries much more than its share of messages however the rates are
+ * skewed. Listings are placed in ring order of their own hash, ties broken by id, which keeps the
+ * result deterministic. A listing heavier than the spare room {@code (loadFactor - 1)} times the
+ * mean load gives may find no shard with room, and then goes to the lightest shard.
+ *
+ * <p>Adding a shard only adds that shard's points: listings move to it from the points it lands in
+ * front of, plus the few pushed along by the lower capacity, and the rest stay where they were.
+ * Placing in ring order keeps that push local: a full shard sends a listing on to the next points
+ * clockwise, rather than a moved heavy listing changing the room every lighter listing sees.
+ */
+final class ListingSharder {
+
+    static final int VIRTUAL_NODES = 128;
+
+    private final int shardCount;
+    private final double loadFactor;
+    private final long[] ring;
+    private final int[] owners;
+
+    ListingSharder(int shardCount, double loadFactor) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        if (loadFactor < 1.0) {
+            throw new IllegalArgumentException("Load factor must be at least 1: " + loadFactor);
+        }
+        this.shardCount = shardCount;
+        this.loadFactor = loadFactor;
+
+        long[][] points = new long[shardCount * VIRTUAL_NODES][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                points[shard * VIRTUAL_NODES + node] = new long[] {mix(((long) shard << 32) | node), shard};
+            }
+        }
+        Arrays.sort(points, Comparator.comparingLong((long[] point) -> point[0]));
+        this.ring = new long[points.length];
+        this.owners = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            ring[i] = points[i][0];
+            owners[i] = (int) points[i][1];
+        }
+    }
+
+    /**
+     * Returns the shard of each listing. {@code weights[i]} is the message rate of
+     * {@code listingIds[i]}; non-positive weights count as 1.
+     */
+    int[] assign(int[] listingIds, long[] weights) {
+        if (listingIds.length != weights.length) {
+            throw new IllegalArgumentException("Listing ids and weights differ in length");
+        }
+        long total = 0;
+        long heaviest = 0;
+        Integer[] order = new Integer[listingIds.length];
+        for (int i = 0; i < listingIds.length; i++) {
+            total += weight(weights, i);
+            heaviest = Math.max(heaviest, weight(weights, i));
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> mix(listingIds[i]))
+                .thenComparingInt(i -> listingIds[i]));
+
+        long capacity = Math.max(heaviest, (long) Math.ceil(loadFactor * total / shardCount));
+        long[] loads = new long[shardCount];
+        int[] shards = new int[listingIds.length];
+        for (int i : order) {
+            long weight = weight(weights, i);
+            int shard = place(mix(listingIds[i]), weight, capacity, loads);
+            loads[shard] += weight;
+            shards[i] = shard;
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the listings of {@code listingIds} assigned to {@code shard}, in their original order.
+     */
+    int[] select(int[] listingIds, long[] weights, int shard) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Shard index " + shard + " outside 0.." + (shardCount - 1));
+        }
+        int[] shards = assign(listingIds, weights);
+        return IntStream.range(0, listingIds.length)
+                .filter(i -> shards[i] == shard)
+                .map(i -> listingIds[i])
+                .toArray();
+    }
+
+    private int place(long hash, long weight, long capacity, long[] loads) {
+        int start = Arrays.binarySearch(ring, hash);
+        start = start >= 0 ? start : -start - 1;
+        for (int step = 0; step < ring.length; step++) {
+            int shard = owners[(start + step) % ring.length];
+            if (loads[shard] + weight <= capacity) {
+                return shard;
+            }
+        }
+        int lightest = 0;
+        for (int shard = 1; shard < shardCount; shard++) {
+            if (loads[shard] < loads[lightest]) {
+                lightest = shard;
+            }
+        }
+        return lightest;
+    }
+
+    private static long weight(long[] weights, int i) {
+        return Math.max(1L, weights[i]);
+    }
+
+    /**
+     * SplitMix64 finalizer: a stable 64-bit hash, unlike {@link Object#hashCode}, so every task
+     * builds the same ring.
+     */
+    static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,483 @@
+package group.gnometrading.collectors;
+
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Streams objects into S3 as multipart uploads from a background pool, holding at most a fixed
+ * memory budget of object data at any time.
+ *
+ * <p>{@link #submit} reads the object on the caller's thread into part-sized buffers from a
+ * {@link ChunkPool} and hands each full buffer to the pool as soon as it is read, so parts of one
+ * object upload in parallel and the caller never waits on the network. A caller that produces an
+ * object incrementally can {@link #open} an upload and write into it the same way. It only blocks when the
+ * whole budget is waiting to be uploaded; that time is reported as stall time. An object that fits
+ * in one part is sent with a single {@code PutObject}.
+ *
+ * <p>S3 calls are retried with backoff until they succeed, so an outage holds uploads in their
+ * buffers and pushes back on callers instead of dropping data. Only a request S3 rejects outright,
+ * or an upload still unfinished when {@link #close()} gives up waiting, fails: the multipart upload
+ * is aborted, the failure is logged and counted, and the future returned by {@link #submit}
+ * completes exceptionally. {@link #toJson()} reports buffer usage, stalls and upload counts.
+ */
+public final class MultipartUploader implements Closeable {
+
+    /** S3 rejects non-final parts smaller than this. */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final int DEFAULT_PART_SIZE_MB = 8;
+    private static final int DEFAULT_MEMORY_BUDGET_MB = 256;
+    private static final int DEFAULT_THREADS = 4;
+    private static final long INITIAL_BACKOFF_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long SHUTDOWN_MILLIS = 60_000;
+
+    private final S3Client s3Client;
+    private final ChunkPool chunks;
+    private final ExecutorService executor;
+    private final Logger logger;
+    private final long initialBackoffMillis;
+    private final long shutdownMillis;
+    private final CountDownLatch abandoned = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    private final AtomicLong partsUploaded = new AtomicLong();
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private final AtomicLong partRetries = new AtomicLong();
+    private final AtomicLong uploadsCompleted = new AtomicLong();
+    private final AtomicLong uploadsFailed = new AtomicLong();
+    private final AtomicInteger uploadsInFlight = new AtomicInteger();
+
+    public MultipartUploader(S3Client s3Client, int partSize, long memoryBudget, int threads, Logger logger) {
+        this(s3Client, partSize, memoryBudget, threads, logger, INITIAL_BACKOFF_MILLIS, SHUTDOWN_MILLIS);
+    }
+
+    MultipartUploader(
+            S3Client s3Client,
+            int partSize,
+            long memoryBudget,
+            int threads,
+            Logger logger,
+            long initialBackoffMillis,
+            long shutdownMillis) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be at least 5 MiB: " + partSize);
+        }
+        this.s3Client = s3Client;
+        this.chunks = new ChunkPool(partSize, (int) Math.min(Integer.MAX_VALUE, memoryBudget / partSize));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "s3-uploader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.logger = logger;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.shutdownMillis = shutdownMillis;
+    }
+
+    /**
+     * Reads {@code upload.part.size.mb} (default 8), {@code upload.memory.budget.mb} (default 256)
+     * and {@code upload.threads} (default 4).
+     */
+    public static MultipartUploader fromProperties(S3Client s3Client, Properties properties, Logger logger) {
+        int partSizeMb = properties.hasProperty("upload.part.size.mb")
+                ? properties.getIntProperty("upload.part.size.mb")
+                : DEFAULT_PART_SIZE_MB;
+        int budgetMb = properties.hasProperty("upload.memory.budget.mb")
+                ? properties.getIntProperty("upload.memory.budget.mb")
+                : DEFAULT_MEMORY_BUDGET_MB;
+        int threads = properties.hasProperty("upload.threads")
+                ? properties.getIntProperty("upload.threads")
+                : DEFAULT_THREADS;
+        return new MultipartUploader(s3Client, partSizeMb << 20, (long) budgetMb << 20, threads, logger);
+    }
+
+    /**
+     * Uploads everything {@code body} yields to the request's bucket and key. Returns once the
+     * object has been read; the upload completes in the background and the returned future
+     * completes with it, exceptionally if the upload failed.
+     *
+     * @throws IllegalStateException if the uploader has been closed, before {@code body} is read
+     */
+    public CompletableFuture<Void> submit(PutObjectRequest request, InputStream body) throws IOException {
+        ObjectUpload upload = open(request);
+        try {
+            upload.transferFrom(body);
+        } catch (IOException | RuntimeException e) {
+            upload.abort(e);
+            throw e;
+        }
+        return upload.complete();
+    }
+
+    /**
+     * Starts an upload to the request's bucket and key for a caller that produces the object a
+     * piece at a time; see {@link ObjectUpload}.
+     *
+     * @throws IllegalStateException if the uploader has been closed
+     */
+    public ObjectUpload open(PutObjectRequest request) {
+        // Counted before checking closed, so close() either sees this upload or it sees closed
+        uploadsInFlight.incrementAndGet();
+        if (closed) {
+            uploadsInFlight.decrementAndGet();
+            throw new IllegalStateException("Uploader is closed: " + request.key());
+        }
+        return new ObjectUpload(request);
+    }
+
+    /**
+     * One object being written into part-sized buffers on the caller's thread. Each buffer is
+     * handed to the pool as soon as it fills and more data follows, so only the unfilled buffer is
+     * held by the writer however large the object grows. An object that never fills more than one
+     * buffer is sent with a single {@code PutObject} by {@link #complete()}.
+     *
+     * <p>Every upload must end with {@link #complete()} or {@link #abort}. Not thread-safe.
+     */
+    public final class ObjectUpload {
+
+        private final PutObjectRequest request;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        private CompletableFuture<String> uploadId;
+        private byte[] chunk;
+        private int length;
+        private boolean finished;
+
+        private ObjectUpload(PutObjectRequest request) {
+            this.request = request;
+        }
+
+        /**
+         * Copies {@code count} bytes at {@code offset} in {@code source} into the object, blocking
+         * only while the uploader's whole memory budget is waiting to be uploaded.
+         */
+        public void write(byte[] source, int offset, int count) throws IOException {
+            while (count > 0) {
+                int written = Math.min(count, room());
+                System.arraycopy(source, offset, chunk, length, written);
+                length += written;
+                offset += written;
+                count -= written;
+            }
+        }
+
+        void transferFrom(InputStream in) throws IOException {
+            while (true) {
+                int room = room();
+                int read = in.read(chunk, length, room);
+                if (read < 0) {
+                    return;
+                }
+                length += read;
+            }
+        }
+
+        /**
+         * Sends the current buffer as a part once it is full and returns the room left in the
+         * buffer to write into, acquiring one if needed.
+         */
+        private int room() throws IOException {
+            if (finished) {
+                throw new IllegalStateException("Upload already finished: " + request.key());
+            }
+            if (chunk != null && length == chunk.length) {
+                sendPart();
+            }
+            if (chunk == null) {
+                chunk = acquire();
+            }
+            return chunk.length - length;
+        }
+
+        private void sendPart() {
+            if (uploadId == null) {
+                uploadId = CompletableFuture.supplyAsync(() -> create(request), executor);
+            }
+            parts.add(uploadPart(request, uploadId, parts.size() + 1, chunk, length));
+            chunk = null;
+            length = 0;
+        }
+
+        /**
+         * Sends what is left of the object. Returns a future that completes once the whole object
+         * has been uploaded, exceptionally if the upload failed.
+         */
+        public CompletableFuture<Void> complete() {
+            if (finished) {
+                throw new IllegalStateException("Upload already finished: " + request.key());
+            }
+            finished = true;
+            if (uploadId == null) {
+                byte[] single = chunk != null ? chunk : new byte[0];
+                int singleLength = length;
+                byte[] pooled = chunk;
+                chunk = null;
+                CompletableFuture.runAsync(() -> putSingle(request, single, singleLength), executor)
+                        .whenComplete((ignored, error) -> finish(request, pooled, error, done));
+                return done;
+            }
+            if (length > 0) {
+                sendPart();
+            } else if (chunk != null) {
+                chunks.release(chunk);
+                chunk = null;
+            }
+            completeWhenDone(request, uploadId, parts, done);
+            return done;
+        }
+
+        /**
+         * Gives up on the object: the upload fails with {@code cause} and nothing is written to
+         * the key. Does nothing if the upload has already finished.
+         */
+        public void abort(Throwable cause) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (chunk != null) {
+                chunks.release(chunk);
+                chunk = null;
+            }
+            if (uploadId == null) {
+                finish(request, null, cause, done);
+                return;
+            }
+            parts.add(CompletableFuture.failedFuture(cause));
+            completeWhenDone(request, uploadId, parts, done);
+        }
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(
+            PutObjectRequest request, CompletableFuture<String> uploadId, int partNumber, byte[] chunk, int length) {
+        return uploadId.thenApplyAsync(
+                        id -> {
+                            UploadPartRequest partRequest = UploadPartRequest.builder()
+                                    .bucket(request.bucket())
+                                    .key(request.key())
+                                    .uploadId(id)
+                                    .partNumber(partNumber)
+                                    .contentLength((long) length)
+                                    .build();
+                            String eTag = withRetries(() -> s3Client.uploadPart(partRequest, body(chunk, length))
+                                    .eTag());
+                            partsUploaded.incrementAndGet();
+                            bytesUploaded.addAndGet(length);
+                            return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+                        },
+                        executor)
+                .whenComplete((ignored, error) -> chunks.release(chunk));
+    }
+
+    private void completeWhenDone(
+            PutObjectRequest request,
+            CompletableFuture<String> uploadId,
+            List<CompletableFuture<CompletedPart>> parts,
+            CompletableFuture<Void> done) {
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenRunAsync(
+                        () -> {
+                            List<CompletedPart> completed =
+                                    parts.stream().map(CompletableFuture::join).toList();
+                            withRetries(() -> s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                                    .bucket(request.bucket())
+                                    .key(request.key())
+                                    .uploadId(uploadId.join())
+                                    .multipartUpload(CompletedMultipartUpload.builder()
+                                            .parts(completed)
+                                            .build())
+                                    .build()));
+                        },
+                        executor)
+                .whenComplete((ignored, error) -> {
+                    if (error != null && uploadId.isDone() && !uploadId.isCompletedExceptionally()) {
+                        abort(request, uploadId.join());
+                    }
+                    finish(request, null, error, done);
+                });
+    }
+
+    private String create(PutObjectRequest request) {
+        return withRetries(() -> s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(request.bucket())
+                        .key(request.key())
+                        .contentType(request.contentType())
+                        .metadata(request.metadata())
+                        .build())
+                .uploadId());
+    }
+
+    private void putSingle(PutObjectRequest request, byte[] chunk, int length) {
+        withRetries(() -> s3Client.putObject(request, body(chunk, length)));
+        partsUploaded.incrementAndGet();
+        bytesUploaded.addAndGet(length);
+    }
+
+    private void abort(PutObjectRequest request, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(request.bucket())
+                    .key(request.key())
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException e) {
+            logger.logf(LogMessage.UNKNOWN_ERROR, "Failed to abort upload of %s: %s", request.key(), e);
+        }
+    }
+
+    private void finish(PutObjectRequest request, byte[] chunk, Throwable error, CompletableFuture<Void> done) {
+        if (chunk != null) {
+            chunks.release(chunk);
+        }
+        uploadsInFlight.decrementAndGet();
+        if (error == null) {
+            uploadsCompleted.incrementAndGet();
+        } else {
+            uploadsFailed.incrementAndGet();
+            logger.logf(
+                    LogMessage.UNKNOWN_ERROR,
+                    "Upload of s3://%s/%s failed: %s",
+                    request.bucket(),
+                    request.key(),
+                    error);
+        }
+        if (error == null) {
+            done.complete(null);
+        } else {
+            done.completeExceptionally(error);
+        }
+    }
+
+    private static RequestBody body(byte[] chunk, int length) {
+        return RequestBody.fromInputStream(new ByteArrayInputStream(chunk, 0, length), length);
+    }
+
+    private <T> T withRetries(Supplier<T> call) {
+        long backoffMillis = initialBackoffMillis;
+        while (true) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                partRetries.incrementAndGet();
+                try {
+                    if (abandoned.await(backoffMillis, TimeUnit.MILLISECONDS)) {
+                        throw e;
+                    }
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Client errors other than timeouts and throttling will fail the same way every time.
+     */
+    static boolean isRetryable(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) {
+            return isRetryable(e.getCause());
+        }
+        if (e instanceof SdkServiceException service) {
+            int status = service.statusCode();
+            return status < 400 || status >= 500 || status == 408 || status == 429;
+        }
+        return true;
+    }
+
+    private byte[] acquire() throws IOException {
+        try {
+            return chunks.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for upload buffer", e);
+        }
+    }
+
+    public int uploadsInFlight() {
+        return uploadsInFlight.get();
+    }
+
+    public String toJson() {
+        return "{\"partSizeBytes\":" + chunks.chunkSize()
+                + ",\"buffers\":" + chunks.capacity()
+                + ",\"buffersAllocated\":" + chunks.allocated()
+                + ",\"buffersInUse\":" + chunks.inUse()
+                + ",\"maxBuffersInUse\":" + chunks.maxInUse()
+                + ",\"stalls\":" + chunks.stalls()
+                + ",\"stallMillis\":" + TimeUnit.NANOSECONDS.toMillis(chunks.stallNanos())
+                + ",\"uploadsInFlight\":" + uploadsInFlight.get()
+                + ",\"uploadsCompleted\":" + uploadsCompleted.get()
+                + ",\"uploadsFailed\":" + uploadsFailed.get()
+                + ",\"partsUploaded\":" + partsUploaded.get()
+                + ",\"partRetries\":" + partRetries.get()
+                + ",\"bytesUploaded\":" + bytesUploaded.get()
+                + "}";
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops accepting uploads and waits for every submitted upload to finish, then stops the pool.
+     * Uploads still retrying after the shutdown timeout are given up, aborted and reported as
+     * failed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownMillis);
+        try {
+            long nextLogNanos = System.nanoTime();
+            while (uploadsInFlight.get() > 0) {
+                long now = System.nanoTime();
+                if (now >= deadline && abandoned.getCount() > 0) {
+                    logger.logf(LogMessage.UNKNOWN_ERROR, "Giving up on %d uploads", uploadsInFlight.get());
+                    abandoned.countDown();
+                }
+                if (now >= nextLogNanos) {
+                    logger.logf(LogMessage.DEBUG, "Waiting for %d uploads to finish", uploadsInFlight.get());
+                    nextLogNanos = now + TimeUnit.SECONDS.toNanos(5);
+                }
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
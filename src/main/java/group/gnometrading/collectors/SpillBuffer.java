@@ -0,0 +1,728 @@
+package group.gnometrading.collectors;
+
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.agrona.IoUtil;
+import software.amazon.awssdk.core.SdkField;
+import software.amazon.awssdk.core.protocol.MarshallingType;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Stages collector objects in memory-mapped segment files on local disk and drains them to S3
+ * through a {@link MultipartUploader}, so an S3 outage fills the local spill instead of the heap.
+ *
+ * <p>The spill is a fixed set of segment files, created and mapped up front. {@link #stage} copies an
+ * object into one or more free segments through a reused scratch buffer, marks them committed and
+ * returns; it allocates nothing per object and never waits for space. An object that does not fit in
+ * the free segments is not staged, and the caller uploads it directly instead. Drain threads upload
+ * committed objects in order, retrying with backoff for as long as S3 keeps failing, and free the
+ * segments once the upload has completed.
+ *
+ * <p>An object S3 rejects outright (access denied, missing bucket, bad key) would fail the same way
+ * on every retry and every restart, so it is copied to the {@code quarantine} directory under the
+ * spill, named after its bucket and key, its segments are freed and it is counted in
+ * {@code objectsQuarantined}.
+ *
+ * <p>Committed segments outlive the process: on start, objects left committed by a previous run are
+ * queued for upload, with every field of their original request, before anything new, and segments
+ * caught mid-write are reclaimed. The segment files are not forced to disk on every commit, so
+ * staging survives a process restart but not a host crash.
+ */
+public final class SpillBuffer implements Closeable {
+
+    private static final int DEFAULT_CAPACITY_MB = 1024;
+    private static final int DEFAULT_SEGMENT_MB = 64;
+    private static final int DEFAULT_DRAIN_THREADS = 2;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long SHUTDOWN_DRAIN_MILLIS = 30_000;
+    private static final long DRAIN_EXIT_MILLIS = 5_000;
+    private static final String SEGMENT_SUFFIX = ".spill";
+    private static final String QUARANTINE_DIRECTORY = "quarantine";
+
+    private final MultipartUploader uploader;
+    private final Logger logger;
+    private final Path quarantine;
+    private final Segment[] segments;
+    private final BlockingQueue<Segment> free;
+    private final BlockingQueue<Segment> pending;
+    private final byte[] scratch = new byte[64 * 1024];
+    private final Thread[] drainThreads;
+    private final Object writeLock = new Object();
+    private final long shutdownDrainMillis;
+    private long nextSequence;
+    private volatile boolean running = true;
+
+    private final AtomicInteger drainsInFlight = new AtomicInteger();
+    private final AtomicLong objectsStaged = new AtomicLong();
+    private final AtomicLong bytesStaged = new AtomicLong();
+    private final AtomicLong objectsDrained = new AtomicLong();
+    private final AtomicLong drainFailures = new AtomicLong();
+    private final AtomicLong objectsQuarantined = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final int objectsRecovered;
+
+    public SpillBuffer(
+            MultipartUploader uploader, Path directory, long capacity, int segmentSize, int drainThreads, Logger logger)
+            throws IOException {
+        this(uploader, directory, capacity, segmentSize, drainThreads, logger, SHUTDOWN_DRAIN_MILLIS);
+    }
+
+    SpillBuffer(
+            MultipartUploader uploader,
+            Path directory,
+            long capacity,
+            int segmentSize,
+            int drainThreads,
+            Logger logger,
+            long shutdownDrainMillis)
+            throws IOException {
+        if (segmentSize <= Segment.HEADER_SIZE) {
+            throw new IllegalArgumentException("Spill segment size too small: " + segmentSize);
+        }
+        this.uploader = uploader;
+        this.logger = logger;
+        this.shutdownDrainMillis = shutdownDrainMillis;
+        this.quarantine = directory.resolve(QUARANTINE_DIRECTORY);
+        Files.createDirectories(directory);
+
+        int count = (int) Math.max(2, capacity / segmentSize);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(directory.resolve(String.format("segment-%05d%s", i, SEGMENT_SUFFIX)));
+        }
+        try (Stream<Path> existing = Files.list(directory)) {
+            existing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .filter(path -> !files.contains(path))
+                    .sorted()
+                    .forEach(files::add);
+        }
+
+        this.segments = new Segment[files.size()];
+        this.free = new ArrayBlockingQueue<>(segments.length);
+        this.pending = new ArrayBlockingQueue<>(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = Segment.open(files.get(i), segmentSize);
+        }
+        this.objectsRecovered = recover();
+
+        this.drainThreads = new Thread[drainThreads];
+        for (int i = 0; i < drainThreads; i++) {
+            Thread thread = new Thread(this::drain, "s3-spill-drain-" + (i + 1));
+            thread.setDaemon(true);
+            this.drainThreads[i] = thread;
+            thread.start();
+        }
+        if (objectsRecovered > 0) {
+            logger.logf(LogMessage.DEBUG, "Recovered %d spilled objects from %s", objectsRecovered, directory);
+        }
+    }
+
+    /**
+     * Reads {@code upload.spill.dir}, {@code upload.spill.capacity.mb} (default 1024),
+     * {@code upload.spill.segment.mb} (default 64) and {@code upload.spill.drain.threads} (default 2).
+     */
+    public static SpillBuffer fromProperties(MultipartUploader uploader, Properties properties, Logger logger) {
+        long capacityMb = properties.hasProperty("upload.spill.capacity.mb")
+                ? properties.getIntProperty("upload.spill.capacity.mb")
+                : DEFAULT_CAPACITY_MB;
+        int segmentMb = properties.hasProperty("upload.spill.segment.mb")
+                ? properties.getIntProperty("upload.spill.segment.mb")
+                : DEFAULT_SEGMENT_MB;
+        int drainThreads = properties.hasProperty("upload.spill.drain.threads")
+                ? properties.getIntProperty("upload.spill.drain.threads")
+                : DEFAULT_DRAIN_THREADS;
+        try {
+            return new SpillBuffer(
+                    uploader,
+                    Path.of(properties.getStringProperty("upload.spill.dir")),
+                    capacityMb << 20,
+                    segmentMb << 20,
+                    drainThreads,
+                    logger);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open upload spill", e);
+        }
+    }
+
+    /**
+     * Copies everything {@code body} yields into the spill and queues it for upload to the request's
+     * bucket and key. Returns {@code false}, with nothing staged, if the object does not fit in the
+     * free segments; {@code body} has then been partly read and the caller must upload the object
+     * itself.
+     */
+    public boolean stage(PutObjectRequest request, InputStream body) throws IOException {
+        if (!running) {
+            throw new IllegalStateException("Spill is closed");
+        }
+        synchronized (writeLock) {
+            if (!running) {
+                throw new IllegalStateException("Spill is closed");
+            }
+            Segment first = free.poll();
+            if (first == null) {
+                overflows.incrementAndGet();
+                return false;
+            }
+            long sequence = nextSequence++;
+            Segment current = first;
+            try {
+                current.begin(request, sequence, 0);
+                long total = 0;
+                int read;
+                while ((read = body.read(scratch)) >= 0) {
+                    int offset = 0;
+                    while (offset < read) {
+                        if (current.remaining() == 0) {
+                            Segment next = free.poll();
+                            if (next == null) {
+                                release(first);
+                                overflows.incrementAndGet();
+                                return false;
+                            }
+                            next.begin(request, sequence, current.chunkIndex + 1);
+                            current.next = next;
+                            current = next;
+                        }
+                        int length = Math.min(read - offset, current.remaining());
+                        current.append(scratch, offset, length);
+                        offset += length;
+                    }
+                    total += read;
+                }
+                for (Segment segment = first; segment != null; segment = segment.next) {
+                    segment.commit(segment.next == null);
+                }
+                pending.add(first);
+                objectsStaged.incrementAndGet();
+                bytesStaged.addAndGet(total);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                release(first);
+                throw e;
+            }
+        }
+    }
+
+    private void release(Segment first) {
+        Segment segment = first;
+        while (segment != null) {
+            Segment next = segment.next;
+            segment.clear();
+            free.add(segment);
+            segment = next;
+        }
+    }
+
+    /**
+     * Rebuilds the pending queue from the segment headers: complete objects are queued in the order
+     * they were staged, everything else is freed.
+     */
+    private int recover() {
+        List<Segment> committed = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.isCommitted()) {
+                committed.add(segment);
+            } else {
+                segment.clear();
+                free.add(segment);
+            }
+        }
+        committed.sort(Comparator.comparingLong(Segment::sequence).thenComparingInt(Segment::chunkIndex));
+
+        int recovered = 0;
+        int i = 0;
+        while (i < committed.size()) {
+            Segment first = committed.get(i);
+            Segment last = first;
+            int j = i + 1;
+            while (!last.isLast()
+                    && j < committed.size()
+                    && committed.get(j).sequence() == first.sequence()
+                    && committed.get(j).chunkIndex() == last.chunkIndex() + 1) {
+                last.next = committed.get(j);
+                last = last.next;
+                j++;
+            }
+            if (first.chunkIndex() == 0 && last.isLast()) {
+                first.restoreRequest();
+                pending.add(first);
+                recovered++;
+            } else {
+                logger.logf(LogMessage.UNKNOWN_ERROR, "Discarding incomplete spilled object %d", first.sequence());
+                release(first);
+            }
+            for (; j < committed.size() && committed.get(j).sequence() == first.sequence(); j++) {
+                release(committed.get(j));
+            }
+            nextSequence = Math.max(nextSequence, first.sequence() + 1);
+            i = j;
+        }
+        return recovered;
+    }
+
+    private void drain() {
+        while (running) {
+            Segment first;
+            try {
+                first = pending.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            drainsInFlight.incrementAndGet();
+            try {
+                if (upload(first)) {
+                    release(first);
+                }
+            } finally {
+                drainsInFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Uploads one object, retrying until it succeeds, S3 rejects it outright or the spill is closed.
+     * Returns true once the object has been uploaded or quarantined and its segments can be freed,
+     * and false if closed first, leaving the object committed on disk for the next run. The segments
+     * are only read while the object is submitted, so once closed this stops waiting for an upload in
+     * flight rather than hold up {@link #close()}; an upload that completes anyway is repeated by the
+     * next run.
+     */
+    private boolean upload(Segment first) {
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                CompletableFuture<Void> done = uploader.submit(first.request, new SegmentInputStream(first));
+                while (true) {
+                    try {
+                        done.get(100, TimeUnit.MILLISECONDS);
+                        objectsDrained.incrementAndGet();
+                        return true;
+                    } catch (TimeoutException e) {
+                        if (!running) {
+                            return false;
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException | ExecutionException e) {
+                if (!running) {
+                    return false;
+                }
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                if (!MultipartUploader.isRetryable(cause)) {
+                    return quarantine(first, cause);
+                }
+                drainFailures.incrementAndGet();
+                logger.logf(
+                        LogMessage.UNKNOWN_ERROR,
+                        "Spilled upload of %s failed, retrying in %dms: %s",
+                        first.request.key(),
+                        backoffMillis,
+                        e);
+            } catch (InterruptedException e) {
+                return false;
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                return false;
+            }
+            if (!running) {
+                return false;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * Copies a rejected object out of its segments into the quarantine directory. Returns false,
+     * leaving the object committed for the next run, if the copy fails.
+     */
+    private boolean quarantine(Segment first, Throwable cause) {
+        String name = URLEncoder.encode(first.request.bucket() + "/" + first.request.key(), StandardCharsets.UTF_8);
+        Path target = quarantine.resolve(first.sequence() + "-" + name);
+        try {
+            Files.createDirectories(quarantine);
+            Files.copy(new SegmentInputStream(first), target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.logf(
+                    LogMessage.UNKNOWN_ERROR,
+                    "Failed to quarantine rejected upload of %s, leaving it for the next run: %s",
+                    first.request.key(),
+                    e);
+            return false;
+        }
+        objectsQuarantined.incrementAndGet();
+        logger.logf(
+                LogMessage.UNKNOWN_ERROR,
+                "Spilled upload of s3://%s/%s rejected, quarantined to %s: %s",
+                first.request.bucket(),
+                first.request.key(),
+                target,
+                cause);
+        return true;
+    }
+
+    public boolean isClosed() {
+        return !running;
+    }
+
+    public int segmentsInUse() {
+        return segments.length - free.size();
+    }
+
+    public String toJson() {
+        return "{\"segments\":" + segments.length
+                + ",\"segmentsInUse\":" + segmentsInUse()
+                + ",\"pendingObjects\":" + (pending.size() + drainsInFlight.get())
+                + ",\"objectsRecovered\":" + objectsRecovered
+                + ",\"objectsStaged\":" + objectsStaged.get()
+                + ",\"bytesStaged\":" + bytesStaged.get()
+                + ",\"objectsDrained\":" + objectsDrained.get()
+                + ",\"drainFailures\":" + drainFailures.get()
+                + ",\"objectsQuarantined\":" + objectsQuarantined.get()
+                + ",\"overflows\":" + overflows.get()
+                + "}";
+    }
+
+    /**
+     * Gives the drain threads a bounded time to empty the spill, then stops them. Whatever is still
+     * staged is uploaded on the next start.
+     *
+     * <p>The segments are unmapped only once every drain thread has exited, since a drain touches its
+     * segments until it returns; if one fails to exit, the mappings are left to the process exit.
+     */
+    @Override
+    public void close() {
+        long deadline = System.currentTimeMillis() + shutdownDrainMillis;
+        boolean drainsExited = true;
+        try {
+            while ((!pending.isEmpty() || drainsInFlight.get() > 0) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            running = false;
+            for (Thread thread : drainThreads) {
+                thread.interrupt();
+                thread.join(DRAIN_EXIT_MILLIS);
+                drainsExited &= !thread.isAlive();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drainsExited = false;
+        } finally {
+            running = false;
+        }
+        synchronized (writeLock) {
+            if (drainsExited) {
+                for (Segment segment : segments) {
+                    segment.close();
+                }
+            } else {
+                logger.logf(LogMessage.UNKNOWN_ERROR, "Spill drain threads still running, leaving segments mapped");
+            }
+        }
+        int left = segments.length - free.size();
+        if (left > 0) {
+            logger.logf(LogMessage.DEBUG, "Leaving %d spill segments for the next run", left);
+        }
+    }
+
+    /**
+     * One mapped segment file. The header records the segment's state and which chunk of which
+     * object it holds; the first chunk's header also carries every field set on the object's
+     * request, by member name.
+     */
+    static final class Segment {
+
+        static final int HEADER_SIZE = 4096;
+        private static final int MAGIC = 0x474e5332;
+        private static final int SCALAR = -1;
+        private static final int FREE = 0;
+        private static final int WRITING = 1;
+        private static final int COMMITTED = 2;
+
+        private static final int MAGIC_OFFSET = 0;
+        private static final int STATE_OFFSET = 4;
+        private static final int SEQUENCE_OFFSET = 8;
+        private static final int CHUNK_OFFSET = 16;
+        private static final int LAST_OFFSET = 20;
+        private static final int LENGTH_OFFSET = 24;
+        private static final int STRINGS_OFFSET = 28;
+
+        private final MappedByteBuffer buffer;
+        private int length;
+        int chunkIndex;
+        Segment next;
+        PutObjectRequest request;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long fileSize = channel.size() > HEADER_SIZE ? channel.size() : size;
+                return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize));
+            }
+        }
+
+        void begin(PutObjectRequest request, long sequence, int chunkIndex) {
+            this.request = request;
+            this.chunkIndex = chunkIndex;
+            this.length = 0;
+            this.next = null;
+            buffer.putInt(STATE_OFFSET, WRITING);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putLong(SEQUENCE_OFFSET, sequence);
+            buffer.putInt(CHUNK_OFFSET, chunkIndex);
+            buffer.putInt(LAST_OFFSET, 0);
+            if (chunkIndex == 0) {
+                putRequest(request);
+            }
+        }
+
+        /**
+         * Writes the request's fields as a count followed by, per field, its member name and either
+         * {@code SCALAR} and the value as a string or the number of entries and each key and value.
+         */
+        private void putRequest(PutObjectRequest request) {
+            int fields = 0;
+            int offset = STRINGS_OFFSET + Integer.BYTES;
+            for (SdkField<?> field : request.sdkFields()) {
+                Object value = field.getValueOrDefault(request);
+                if (value instanceof Map<?, ?> map) {
+                    if (map.isEmpty()) {
+                        continue;
+                    }
+                    offset = putString(offset, field.memberName());
+                    offset = putInt(offset, map.size());
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        offset = putString(offset, String.valueOf(entry.getKey()));
+                        offset = putString(offset, String.valueOf(entry.getValue()));
+                    }
+                } else if (value != null && isScalar(field.marshallingType())) {
+                    offset = putString(offset, field.memberName());
+                    offset = putInt(offset, SCALAR);
+                    offset = putString(offset, value.toString());
+                } else {
+                    continue;
+                }
+                fields++;
+            }
+            buffer.putInt(STRINGS_OFFSET, fields);
+        }
+
+        private static boolean isScalar(MarshallingType<?> type) {
+            return type == MarshallingType.STRING
+                    || type == MarshallingType.LONG
+                    || type == MarshallingType.INTEGER
+                    || type == MarshallingType.BOOLEAN
+                    || type == MarshallingType.INSTANT;
+        }
+
+        private static Object parse(MarshallingType<?> type, String value) {
+            if (type == MarshallingType.LONG) {
+                return Long.valueOf(value);
+            } else if (type == MarshallingType.INTEGER) {
+                return Integer.valueOf(value);
+            } else if (type == MarshallingType.BOOLEAN) {
+                return Boolean.valueOf(value);
+            } else if (type == MarshallingType.INSTANT) {
+                return Instant.parse(value);
+            }
+            return value;
+        }
+
+        private int putInt(int offset, int value) {
+            if (offset + Integer.BYTES > HEADER_SIZE) {
+                throw new IllegalArgumentException("Request too large for the upload spill header");
+            }
+            buffer.putInt(offset, value);
+            return offset + Integer.BYTES;
+        }
+
+        private int putString(int offset, String value) {
+            if (value == null) {
+                buffer.putInt(offset, -1);
+                return offset + Integer.BYTES;
+            }
+            if (offset + Integer.BYTES + value.length() * Character.BYTES > HEADER_SIZE) {
+                throw new IllegalArgumentException("Request too large for the upload spill header: " + value);
+            }
+            buffer.putInt(offset, value.length());
+            offset += Integer.BYTES;
+            for (int i = 0; i < value.length(); i++) {
+                buffer.putChar(offset, value.charAt(i));
+                offset += Character.BYTES;
+            }
+            return offset;
+        }
+
+        private String getString(int offset) {
+            int chars = buffer.getInt(offset);
+            if (chars < 0) {
+                return null;
+            }
+            char[] value = new char[chars];
+            for (int i = 0; i < chars; i++) {
+                value[i] = buffer.getChar(offset + Integer.BYTES + i * Character.BYTES);
+            }
+            return new String(value);
+        }
+
+        private int skipString(int offset) {
+            int chars = buffer.getInt(offset);
+            return offset + Integer.BYTES + Math.max(chars, 0) * Character.BYTES;
+        }
+
+        void restoreRequest() {
+            PutObjectRequest.Builder builder = PutObjectRequest.builder();
+            Map<String, SdkField<?>> byName = new HashMap<>();
+            for (SdkField<?> field : builder.sdkFields()) {
+                byName.put(field.memberName(), field);
+            }
+            int fields = buffer.getInt(STRINGS_OFFSET);
+            int offset = STRINGS_OFFSET + Integer.BYTES;
+            for (int i = 0; i < fields; i++) {
+                SdkField<?> field = byName.get(getString(offset));
+                offset = skipString(offset);
+                int entries = buffer.getInt(offset);
+                offset += Integer.BYTES;
+                Object value;
+                if (entries == SCALAR) {
+                    value = getString(offset);
+                    offset = skipString(offset);
+                } else {
+                    Map<String, String> map = new HashMap<>();
+                    for (int j = 0; j < entries; j++) {
+                        String key = getString(offset);
+                        offset = skipString(offset);
+                        map.put(key, getString(offset));
+                        offset = skipString(offset);
+                    }
+                    value = map;
+                }
+                if (field != null) {
+                    field.set(builder, entries == SCALAR ? parse(field.marshallingType(), (String) value) : value);
+                }
+            }
+            this.request = builder.build();
+        }
+
+        int remaining() {
+            return buffer.capacity() - HEADER_SIZE - length;
+        }
+
+        void append(byte[] source, int offset, int count) {
+            buffer.put(HEADER_SIZE + length, source, offset, count);
+            length += count;
+        }
+
+        void commit(boolean last) {
+            buffer.putInt(LENGTH_OFFSET, length);
+            buffer.putInt(LAST_OFFSET, last ? 1 : 0);
+            buffer.putInt(STATE_OFFSET, COMMITTED);
+        }
+
+        void clear() {
+            buffer.putInt(STATE_OFFSET, FREE);
+            request = null;
+            next = null;
+            length = 0;
+        }
+
+        boolean isCommitted() {
+            return buffer.getInt(MAGIC_OFFSET) == MAGIC && buffer.getInt(STATE_OFFSET) == COMMITTED;
+        }
+
+        boolean isLast() {
+            return buffer.getInt(LAST_OFFSET) == 1;
+        }
+
+        long sequence() {
+            return buffer.getLong(SEQUENCE_OFFSET);
+        }
+
+        int chunkIndex() {
+            return buffer.getInt(CHUNK_OFFSET);
+        }
+
+        int dataLength() {
+            return buffer.getInt(LENGTH_OFFSET);
+        }
+
+        void read(int position, byte[] target, int offset, int count) {
+            buffer.get(HEADER_SIZE + position, target, offset, count);
+        }
+
+        void close() {
+            IoUtil.unmap(buffer);
+        }
+    }
+
+    /**
+     * Reads a committed object back out of its chain of segments.
+     */
+    private static final class SegmentInputStream extends InputStream {
+
+        private Segment segment;
+        private int position;
+
+        SegmentInputStream(Segment first) {
+            this.segment = first;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int count) {
+            while (segment != null && position == segment.dataLength()) {
+                segment = segment.next;
+                position = 0;
+            }
+            if (segment == null) {
+                return -1;
+            }
+            int length = Math.min(count, segment.dataLength() - position);
+            segment.read(position, target, offset, length);
+            position += length;
+            return length;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package group.gnometrading.collectors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.DelegatingS3Client;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+/**
+ * An {@link S3Client} for the collectors that hands every {@code PutObject} to a
+ * {@link MultipartUploader}, so objects are sent as parallel parts with retries. Every other
+ * operation goes to the underlying client.
+ *
+ * <p>This does not bound the collector's memory: by the time {@code putObject} is called, the
+ * {@code MarketDataCollector} has already built the whole file as a {@link RequestBody} in memory,
+ * and it is only re-chunked here. Only the {@link DeltaBlockCollector} streams its file into an
+ * upload as it is produced.
+ *
+ * <p>{@code putObject} returns once the object is safe: with a {@link SpillBuffer}, once it has been
+ * staged on local disk, from where it is uploaded however long S3 is unavailable, including after a
+ * restart; otherwise once the upload has completed. A failed upload is thrown to the caller as the
+ * underlying client would throw it. An object that overflows a full spill is handed to the uploader
+ * without waiting, and its failure is only logged and counted by the uploader. After the uploader
+ * has closed at shutdown, puts go straight to the underlying client.
+ */
+public final class StreamingS3Client extends DelegatingS3Client {
+
+    private final S3Client delegate;
+    private final MultipartUploader uploader;
+    private final SpillBuffer spill;
+
+    public StreamingS3Client(S3Client delegate, MultipartUploader uploader) {
+        this(delegate, uploader, null);
+    }
+
+    public StreamingS3Client(S3Client delegate, MultipartUploader uploader, SpillBuffer spill) {
+        super(delegate);
+        this.delegate = delegate;
+        this.uploader = uploader;
+        this.spill = spill;
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        if (isClosed()) {
+            return delegate.putObject(request, body);
+        }
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            if (spill != null) {
+                if (!spill.stage(request, in)) {
+                    overflow(request, body);
+                }
+            } else {
+                uploader.submit(request, in).join();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Closed by the shutdown hook after the check above
+            if (isClosed()) {
+                return delegate.putObject(request, body);
+            }
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException("Failed to stage upload of " + request.key(), io);
+            }
+            throw (IllegalStateException) e;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return PutObjectResponse.builder().build();
+    }
+
+    /**
+     * Hands an object the full spill could not take to the uploader without waiting for it, so the
+     * collector is held back only while the uploader's part buffers are all in use.
+     */
+    private void overflow(PutObjectRequest request, RequestBody body) throws IOException {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            uploader.submit(request, in);
+        }
+    }
+
+    private boolean isClosed() {
+        return uploader.isClosed() || (spill != null && spill.isClosed());
+    }
+
+    @Override
+    public void close() {
+        if (spill != null) {
+            spill.close();
+        }
+        uploader.close();
+        delegate.close();
+    }
+}
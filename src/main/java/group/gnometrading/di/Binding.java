@@ -0,0 +1,225 @@
+package group.gnometrading.di;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single {@code @Provides} method or injectable constructor, together with everything needed to
+ * call it.
+ *
+ * <p>Bindings are owner-independent: the same binding is shared by every orchestrator or module
+ * instance of a class, and the owner is supplied on each call.
+ */
+abstract class Binding {
+
+    private static final ClassValue<Map<String, Binding>> PROVIDERS_BY_CLASS = new ClassValue<>() {
+        @Override
+        protected Map<String, Binding> computeValue(Class<?> type) {
+            return Collections.unmodifiableMap(scanProviders(type, BindingMode.PRECOMPILED));
+        }
+    };
+
+    private static final ClassValue<Binding> CONSTRUCTORS_BY_CLASS = new ClassValue<>() {
+        @Override
+        protected Binding computeValue(Class<?> type) {
+            return new Precompiled(null, findConstructor(type));
+        }
+    };
+
+    final String qualifier;
+    final Executable executable;
+    final boolean singleton;
+
+    Binding(String qualifier, Executable executable) {
+        this.qualifier = qualifier;
+        this.executable = executable;
+        this.singleton = executable.isAnnotationPresent(Singleton.class);
+    }
+
+    /**
+     * Invokes the binding, resolving its parameters from {@code scope}.
+     *
+     * @param scope the orchestrator used to resolve parameters
+     * @param owner the instance declaring the provider method; ignored for constructors
+     * @return the provided instance
+     */
+    abstract Object create(Orchestrator scope, Object owner) throws Throwable;
+
+    /**
+     * Returns the qualifiers of the declared parameters, in order.
+     */
+    abstract String[] parameterQualifiers();
+
+    /**
+     * Returns the type produced by this binding.
+     */
+    final Class<?> type() {
+        if (executable instanceof Method method) {
+            return method.getReturnType();
+        }
+        return executable.getDeclaringClass();
+    }
+
+    /**
+     * Returns the {@code @Provides} bindings declared by {@code type}, keyed by qualifier.
+     */
+    static Map<String, Binding> providersOf(Class<?> type, BindingMode mode) {
+        if (mode == BindingMode.PRECOMPILED) {
+            return PROVIDERS_BY_CLASS.get(type);
+        }
+        return scanProviders(type, mode);
+    }
+
+    /**
+     * Returns the just-in-time binding for {@code type}: its {@code @Inject} constructor, or the
+     * no-arg constructor when none is annotated.
+     */
+    static Binding constructorOf(Class<?> type, BindingMode mode) {
+        if (mode == BindingMode.PRECOMPILED) {
+            return CONSTRUCTORS_BY_CLASS.get(type);
+        }
+        return new Reflective(null, findConstructor(type));
+    }
+
+    static String qualifierOf(Method method) {
+        if (method.isAnnotationPresent(Named.class)) {
+            return qualifierOf(method.getReturnType(), method.getAnnotation(Named.class).value());
+        }
+        return method.getReturnType().getName();
+    }
+
+    static String qualifierOf(Class<?> type, String name) {
+        return name != null ? type.getName() + "@" + name : type.getName();
+    }
+
+    static String parameterName(Executable executable, int index) {
+        var annotations = executable.getParameterAnnotations()[index];
+        for (var annotation : annotations) {
+            if (annotation instanceof Named) {
+                return ((Named) annotation).value();
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Binding> scanProviders(Class<?> type, BindingMode mode) {
+        Map<String, Binding> bindings = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.isAnnotationPresent(Provides.class)) {
+                String qualifier = qualifierOf(method);
+                Binding binding = mode == BindingMode.PRECOMPILED
+                        ? new Precompiled(qualifier, method)
+                        : new Reflective(qualifier, method);
+                bindings.put(qualifier, binding);
+            }
+        }
+        return bindings;
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type) {
+        for (var constructor : type.getConstructors()) {
+            if (constructor.isAnnotationPresent(Inject.class)) {
+                return constructor;
+            }
+        }
+        try {
+            // Fallback to default constructor if no @Inject
+            return type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Failed to create instance for class: " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Compiled once per class: parameter qualifiers are precomputed and the target is invoked
+     * through a spread {@link MethodHandle} of shape {@code (Object owner, Object[] args)Object}.
+     */
+    static final class Precompiled extends Binding {
+
+        private final Class<?>[] parameterTypes;
+        private final String[] parameterQualifiers;
+        private final MethodHandle invoker;
+
+        Precompiled(String qualifier, Executable executable) {
+            super(qualifier, executable);
+            this.parameterTypes = executable.getParameterTypes();
+            this.parameterQualifiers = new String[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterQualifiers[i] = qualifierOf(parameterTypes[i], parameterName(executable, i));
+            }
+            this.invoker = compile(executable);
+        }
+
+        @Override
+        Object create(Orchestrator scope, Object owner) throws Throwable {
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = scope.resolve(parameterTypes[i], parameterQualifiers[i]);
+            }
+            return (Object) invoker.invokeExact(owner, args);
+        }
+
+        @Override
+        String[] parameterQualifiers() {
+            return parameterQualifiers;
+        }
+
+        private static MethodHandle compile(Executable executable) {
+            try {
+                executable.setAccessible(true);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                int arity = executable.getParameterCount();
+                if (executable instanceof Method method) {
+                    MethodHandle handle = lookup.unreflect(method);
+                    return handle.asType(handle.type().generic()).asSpreader(Object[].class, arity);
+                }
+                MethodHandle handle = lookup.unreflectConstructor((Constructor<?>) executable);
+                handle = handle.asType(handle.type().generic()).asSpreader(Object[].class, arity);
+                return MethodHandles.dropArguments(handle, 0, Object.class);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to compile binding for: " + executable, e);
+            }
+        }
+    }
+
+    /**
+     * The original resolution path: parameter types, annotations and accessibility are looked up on
+     * every call and the target is invoked through core reflection.
+     */
+    static final class Reflective extends Binding {
+
+        Reflective(String qualifier, Executable executable) {
+            super(qualifier, executable);
+        }
+
+        @Override
+        Object create(Orchestrator scope, Object owner) throws Throwable {
+            executable.setAccessible(true);
+            var parameterTypes = executable.getParameterTypes();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = scope.getInstance(parameterTypes[i], parameterName(executable, i));
+            }
+            if (executable instanceof Method method) {
+                return method.invoke(owner, args);
+            }
+            return ((Constructor<?>) executable).newInstance(args);
+        }
+
+        @Override
+        String[] parameterQualifiers() {
+            var parameterTypes = executable.getParameterTypes();
+            String[] qualifiers = new String[parameterTypes.length];
+            for (int i = 0; i < qualifiers.length; i++) {
+                qualifiers[i] = qualifierOf(parameterTypes[i], parameterName(executable, i));
+            }
+            return qualifiers;
+        }
+    }
+}
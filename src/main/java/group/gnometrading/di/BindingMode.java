@@ -0,0 +1,28 @@
+package group.gnometrading.di;
+
+/**
+ * Strategy used by {@link Orchestrator} to resolve and invoke bindings.
+ *
+ * <p>The mode is read once from the {@code gnome.di.binding.mode} system property
+ * ({@code precompiled} or {@code reflective}) and defaults to {@link #PRECOMPILED}.
+ */
+public enum BindingMode {
+    /**
+     * Every lookup re-reads parameter types and annotations and goes through {@code Method.invoke}.
+     * Kept as the reference implementation and for comparison in the startup benchmark.
+     */
+    REFLECTIVE,
+    /**
+     * Provider and constructor bindings are compiled once per class into {@code MethodHandle}
+     * invokers with precomputed parameter qualifiers, so a lookup is a map hit plus a direct call.
+     */
+    PRECOMPILED;
+
+    static BindingMode fromSystemProperty() {
+        String value = System.getProperty("gnome.di.binding.mode");
+        if (value == null || value.isEmpty()) {
+            return PRECOMPILED;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
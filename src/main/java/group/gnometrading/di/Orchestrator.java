@@ -1,82 +1,167 @@
 package group.gnometrading.di;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Executable;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public abstract class Orchestrator {
 
     protected static Class<? extends Orchestrator> instanceClass;
 
+    static volatile BindingMode bindingMode = BindingMode.fromSystemProperty();
+
+    private static final Object NULL_INSTANCE = new Object();
+    private static final ThreadLocal<List<String>> RESOLUTION_PATH = ThreadLocal.withInitial(ArrayList::new);
+
     protected final Map<String, Object> singletonCache;
-    protected final Map<String, Method> providers;
-    protected final Map<String, Object> providerInstances;
+    final Map<String, Binding> classProviders;
+    final Map<String, Binding> providers;
+    final Map<String, Object> providerInstances;
     final Set<Class<? extends Module>> installedModules;
+    final Set<String> overrides;
+    final BindingMode mode;
+    private final ConcurrentMap<String, PendingSingleton> pendingSingletons;
+    final ConcurrentMap<String, Orchestrator> sharedScopes;
+    Orchestrator parent;
+    boolean configured;
+    StartupTrace trace;
     protected String[] cliArgs;
 
     public Orchestrator() {
-        this.singletonCache = new HashMap<>();
+        this.singletonCache = new ConcurrentHashMap<>();
+        this.mode = bindingMode;
+        this.classProviders = Binding.providersOf(this.getClass(), mode);
         this.providers = new HashMap<>();
         this.providerInstances = new HashMap<>();
         this.installedModules = new HashSet<>();
+        this.overrides = new HashSet<>();
+        this.pendingSingletons = new ConcurrentHashMap<>();
+        this.sharedScopes = new ConcurrentHashMap<>();
+        this.parent = null;
+        this.trace = StartupTrace.fromSystemProperty();
         this.cliArgs = null;
-        initialize();
     }
 
-    private void initialize() {
-        Method[] methods = this.getClass().getMethods();
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(Provides.class)) {
-                String qualifier = getQualifier(method);
-                this.providers.put(qualifier, method);
-                this.providerInstances.put(qualifier, this);
-            }
-        }
+    /**
+     * Returns the binding declared in this scope, by the orchestrator class itself or by one of the
+     * modules installed into this scope. Ancestors are not consulted.
+     */
+    final Binding localBinding(String qualifier) {
+        Binding binding = classProviders.get(qualifier);
+        return binding != null ? binding : providers.get(qualifier);
     }
 
-    private String getQualifier(Method method) {
-        if (method.isAnnotationPresent(Named.class)) {
-            return method.getReturnType().getName() + "@"
-                    + method.getAnnotation(Named.class).value();
-        }
-        return method.getReturnType().getName();
+    private Object localOwner(String qualifier) {
+        return classProviders.containsKey(qualifier) ? this : providerInstances.get(qualifier);
     }
 
-    private String getParameterName(Executable executable, int index) {
-        var annotations = executable.getParameterAnnotations()[index];
-        for (var annotation : annotations) {
-            if (annotation instanceof Named) {
-                return ((Named) annotation).value();
+    /**
+     * Returns the nearest scope, starting with this one, whose cached {@code qualifier} this scope
+     * sees: its own, an override, or an ancestor's singleton whose parameters resolve the same from
+     * here. An ancestor's singleton built from values this scope overrides is skipped, so the
+     * binding runs again with this scope's view.
+     *
+     * <p>Once a configured child has found the ancestor it shares a singleton with, the decision is
+     * remembered in {@link #sharedScopes}, so later lookups of that qualifier are two map hits.
+     */
+    final Orchestrator cachingScope(String qualifier) {
+        if (singletonCache.containsKey(qualifier)) {
+            return this;
+        }
+        Orchestrator shared = sharedScopes.get(qualifier);
+        if (shared != null) {
+            return shared;
+        }
+        for (Orchestrator scope = parent; scope != null; scope = scope.parent) {
+            if (scope.singletonCache.containsKey(qualifier)
+                    && (scope.overrides.contains(qualifier) || sharesWith(scope, qualifier))) {
+                if (configured) {
+                    sharedScopes.put(qualifier, scope);
+                }
+                return scope;
             }
         }
         return null;
     }
 
-    private Object[] getParameters(Executable executable) {
-        var parameterTypes = executable.getParameterTypes();
-        return IntStream.range(0, parameterTypes.length)
-                .mapToObj(index -> getInstance(parameterTypes[index], getParameterName(executable, index)))
-                .toArray();
+    private boolean sharesWith(Orchestrator ancestor, String qualifier) {
+        Orchestrator binder = ancestor.bindingScope(qualifier);
+        return binder == null || creationScope(binder, qualifier) != this;
     }
 
-    private <T> T callConstructor(Class<T> type, Constructor<?> constructor, String qualifier) {
-        try {
-            constructor.setAccessible(true);
-            var params = getParameters(constructor);
-            T instance = type.cast(constructor.newInstance(params));
-            if (constructor.isAnnotationPresent(Singleton.class)) {
-                singletonCache.put(qualifier, instance);
+    /**
+     * Returns the outermost scope that binds {@code qualifier}. Bindings of an ancestor take
+     * precedence over bindings of its children, so a child only ever adds to what it inherits;
+     * per-child values are supplied as overrides instead.
+     */
+    final Orchestrator bindingScope(String qualifier) {
+        Orchestrator scope = parent != null ? parent.bindingScope(qualifier) : null;
+        if (scope != null) {
+            return scope;
+        }
+        return localBinding(qualifier) != null ? this : null;
+    }
+
+    /**
+     * Returns the scope that invokes the binding of {@code qualifier} declared in {@code binder}, and
+     * caches it if it is a singleton. That is {@code binder} for a singleton whose parameters resolve
+     * the same from here as from there, so it is shared by every child. A binding that is not a
+     * singleton, or whose parameters reach a value overridden or bound below {@code binder}, is
+     * invoked here with this scope's view, as if the child had declared it.
+     */
+    final Orchestrator creationScope(Orchestrator binder, String qualifier) {
+        if (binder == this) {
+            return this;
+        }
+        Binding binding = binder.localBinding(qualifier);
+        if (!binding.singleton) {
+            return this;
+        }
+        Set<String> visited = new HashSet<>();
+        for (String parameter : binding.parameterQualifiers()) {
+            if (resolvesBelow(binder, parameter, visited)) {
+                return this;
             }
-            return instance;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create instance for class: " + type.getName(), e);
         }
+        return binder;
+    }
+
+    /**
+     * Returns whether {@code qualifier}, resolved from this scope, takes its value from a scope below
+     * {@code ancestor}, directly or through the parameters of its binding.
+     */
+    private boolean resolvesBelow(Orchestrator ancestor, String qualifier, Set<String> visited) {
+        if (!visited.add(qualifier)) {
+            return false;
+        }
+        for (Orchestrator scope = this; scope != ancestor; scope = scope.parent) {
+            if (scope.singletonCache.containsKey(qualifier)) {
+                return true;
+            }
+        }
+        if (ancestor.cachingScope(qualifier) != null) {
+            return false;
+        }
+        Orchestrator binder = bindingScope(qualifier);
+        if (binder == null) {
+            return false;
+        }
+        if (ancestor.bindingScope(qualifier) == null) {
+            return true;
+        }
+        for (String parameter : binder.localBinding(qualifier).parameterQualifiers()) {
+            if (resolvesBelow(ancestor, parameter, visited)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected final <T> T getInstance(Class<T> type) {
@@ -84,43 +169,133 @@ public abstract class Orchestrator {
     }
 
     protected final <T> T getInstance(Class<T> type, String name) {
-        String qualifier = name != null ? type.getName() + "@" + name : type.getName();
-        if (singletonCache.containsKey(qualifier)) {
-            return type.cast(singletonCache.get(qualifier));
+        return resolve(type, Binding.qualifierOf(type, name));
+    }
+
+    final <T> T resolve(Class<T> type, String qualifier) {
+        Orchestrator caching = cachingScope(qualifier);
+        if (caching != null) {
+            Object cached = caching.singletonCache.get(qualifier);
+            if (trace != null) {
+                trace.record(StartupTrace.Kind.CACHE_HIT, qualifier, caching, RESOLUTION_PATH.get(), System.nanoTime());
+            }
+            return type.cast(unmask(cached));
         }
 
-        if (providers.containsKey(qualifier)) {
-            Method provider = providers.get(qualifier);
-            Object owner = providerInstances.get(qualifier);
+        Orchestrator binder = bindingScope(qualifier);
+        if (binder != null) {
             try {
-                provider.setAccessible(true);
-                var params = getParameters(provider);
-                T instance = type.cast(provider.invoke(owner, params));
-                if (provider.isAnnotationPresent(Singleton.class)) {
-                    singletonCache.put(qualifier, instance);
-                }
-                return instance;
-            } catch (Exception e) {
+                Orchestrator scope = creationScope(binder, qualifier);
+                return type.cast(scope.create(qualifier, binder.localBinding(qualifier), binder.localOwner(qualifier)));
+            } catch (Throwable e) {
                 throw new RuntimeException("Failed to invoke provider for class: " + type.getName(), e);
             }
         }
 
         try {
-            var constructors = type.getConstructors();
-            for (var constructor : constructors) {
-                if (constructor.isAnnotationPresent(Inject.class)) {
-                    return callConstructor(type, constructor, qualifier);
+            return type.cast(create(qualifier, Binding.constructorOf(type, mode), null));
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to create instance for class: " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Invokes a binding, memoizing singletons exactly once even when several threads ask for the
+     * same qualifier concurrently: the first caller claims the qualifier and the others wait for it.
+     */
+    private Object create(String qualifier, Binding binding, Object owner) throws Throwable {
+        List<String> path = RESOLUTION_PATH.get();
+        if (path.contains(qualifier)) {
+            throw new IllegalStateException("Dependency cycle detected: " + describeCycle(path, qualifier));
+        }
+        if (!binding.singleton) {
+            return invoke(path, qualifier, binding, owner);
+        }
+
+        PendingSingleton claim = new PendingSingleton(qualifier);
+        PendingSingleton inFlight = pendingSingletons.putIfAbsent(qualifier, claim);
+        if (inFlight != null) {
+            long start = System.nanoTime();
+            try {
+                return inFlight.await();
+            } finally {
+                if (trace != null) {
+                    trace.record(StartupTrace.Kind.WAIT, qualifier, this, path, start);
                 }
             }
+        }
+        try {
+            Object cached = singletonCache.get(qualifier);
+            Object instance;
+            if (cached != null) {
+                instance = unmask(cached);
+            } else {
+                instance = invoke(path, qualifier, binding, owner);
+                singletonCache.put(qualifier, mask(instance));
+            }
+            claim.complete(instance);
+            return instance;
+        } catch (Throwable e) {
+            claim.fail(e);
+            throw e;
+        } finally {
+            pendingSingletons.remove(qualifier, claim);
+        }
+    }
 
-            // Fallback to default constructor if no @Inject
-            var defaultConstructor = type.getDeclaredConstructor();
-            return callConstructor(type, defaultConstructor, qualifier);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create instance for class: " + type.getName(), e);
+    private Object invoke(List<String> path, String qualifier, Binding binding, Object owner) throws Throwable {
+        long start = trace != null ? System.nanoTime() : 0L;
+        path.add(qualifier);
+        try {
+            return binding.create(this, owner);
+        } finally {
+            path.remove(path.size() - 1);
+            if (trace != null) {
+                StartupTrace.Kind kind =
+                        owner != null ? StartupTrace.Kind.PROVIDER : StartupTrace.Kind.CONSTRUCTOR;
+                trace.record(kind, qualifier, this, path, start);
+            }
         }
     }
 
+    private static String describeCycle(List<String> path, String qualifier) {
+        return String.join(" -> ", path.subList(path.indexOf(qualifier), path.size())) + " -> " + qualifier;
+    }
+
+    static Object mask(Object instance) {
+        return instance == null ? NULL_INSTANCE : instance;
+    }
+
+    static Object unmask(Object cached) {
+        return cached == NULL_INSTANCE ? null : cached;
+    }
+
+    /**
+     * Eagerly creates the given singletons, and every {@code @Singleton} provider they declare as a
+     * parameter, in parallel.
+     *
+     * <p>Independent bindings run concurrently; a binding starts once all of its declared
+     * dependencies are built, so total time approaches the critical path of the graph rather than
+     * the sum of all providers. Dependencies that a provider looks up inside its body are resolved
+     * inline and still memoized exactly once. Cycles are reported before anything runs, and all
+     * failures are collected into a single exception.
+     *
+     * @param roots the types to warm up; roots without a {@code @Provides} binding are ignored
+     */
+    protected final void warmUp(Class<?>... roots) {
+        warmUp(List.of(this), roots);
+    }
+
+    /**
+     * Warms up the same {@code roots} in each of {@code scopes} concurrently, for example one child
+     * orchestrator per listing.
+     *
+     * @see #warmUp(Class[])
+     */
+    protected static void warmUp(Collection<? extends Orchestrator> scopes, Class<?>... roots) {
+        SingletonWarmUp.run(scopes, roots);
+    }
+
     /**
      * Create a child orchestrator that inherits all the bindings of the parent.
      *
@@ -140,6 +315,13 @@ public abstract class Orchestrator {
      * provided by the parent. For example, passing a per-listing {@code Listing} instance so each
      * inbound gateway child orchestrator gets its own listing.
      *
+     * <p>Nothing is copied from the parent: the child holds only its overrides, the bindings of its
+     * own class and of modules it installs, and the singletons it creates. Every other lookup is
+     * delegated up the parent chain, so creating a child costs O(overrides) rather than O(bindings).
+     * Inherited bindings see the child's overrides: a parent singleton is shared by all children
+     * unless one of its parameters resolves to a child override or child binding, in which case it
+     * is created once per child, and non-singleton providers always run in the requesting child.
+     *
      * @param orchestratorClass the child orchestrator class
      * @param overrides type-to-instance map; entries are put into the child's singleton cache,
      *     overwriting any inherited value for the same type
@@ -150,17 +332,17 @@ public abstract class Orchestrator {
             Class<T> orchestratorClass, Map<Class<?>, Object> overrides) {
         try {
             T child = orchestratorClass.getDeclaredConstructor().newInstance();
-            child.providers.putAll(this.providers);
-            child.providerInstances.putAll(this.providerInstances);
-            child.singletonCache.putAll(this.singletonCache);
-            child.installedModules.addAll(this.installedModules);
+            child.parent = this;
+            child.trace = this.trace;
             child.cliArgs = this.cliArgs;
 
             for (Map.Entry<Class<?>, Object> entry : overrides.entrySet()) {
-                child.singletonCache.put(entry.getKey().getName(), entry.getValue());
+                child.singletonCache.put(entry.getKey().getName(), mask(entry.getValue()));
+                child.overrides.add(entry.getKey().getName());
             }
 
             child.configure();
+            child.configured = true;
 
             return child;
         } catch (Exception e) {
@@ -177,24 +359,30 @@ public abstract class Orchestrator {
 
     private void installModule(Module module) {
         Class<? extends Module> moduleClass = module.getClass();
-        if (installedModules.contains(moduleClass)) {
+        if (isInstalled(moduleClass)) {
             return;
         }
         installedModules.add(moduleClass);
         for (Module dependency : module.includes()) {
             installModule(dependency);
         }
-        for (Method method : moduleClass.getMethods()) {
-            if (method.isAnnotationPresent(Provides.class)) {
-                String qualifier = getQualifier(method);
-                if (!providers.containsKey(qualifier)) {
-                    providers.put(qualifier, method);
-                    providerInstances.put(qualifier, module);
-                }
+        for (Map.Entry<String, Binding> entry : Binding.providersOf(moduleClass, mode).entrySet()) {
+            if (localBinding(entry.getKey()) == null) {
+                providers.put(entry.getKey(), entry.getValue());
+                providerInstances.put(entry.getKey(), module);
             }
         }
     }
 
+    private boolean isInstalled(Class<? extends Module> moduleClass) {
+        for (Orchestrator scope = this; scope != null; scope = scope.parent) {
+            if (scope.installedModules.contains(moduleClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Provides
     @Named("CLI_ARGS")
     public final String[] provideCliArgs() {
@@ -205,9 +393,23 @@ public abstract class Orchestrator {
         /* Default NO-OP */
     }
 
+    /**
+     * Writes the startup trace collected by this orchestrator and its children, if tracing is
+     * enabled with {@code -Dgnome.di.trace=<path>}.
+     */
+    protected final void writeStartupTrace() {
+        if (trace != null) {
+            trace.write();
+        }
+    }
+
     public static void main(String[] args) throws Exception {
         Orchestrator orchestrator = instanceClass.getDeclaredConstructor().newInstance();
         orchestrator.cliArgs = args;
-        orchestrator.configure();
+        try {
+            orchestrator.configure();
+        } finally {
+            orchestrator.writeStartupTrace();
+        }
     }
 }
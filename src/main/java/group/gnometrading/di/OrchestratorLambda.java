@@ -3,17 +3,95 @@ package group.gnometrading.di;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import group.gnometrading.annotations.VisibleForTesting;
+import org.crac.Core;
+import org.crac.Resource;
 
-public abstract class OrchestratorLambda<I, O> extends Orchestrator implements RequestHandler<I, O> {
+/**
+ * Base class for orchestrators deployed as AWS Lambda handlers.
+ *
+ * <p>By default every invocation runs {@link #configure()} before {@link #execute}. With warm start
+ * enabled ({@code WARM_START=true}, or by overriding {@link #isWarmStartEnabled()}), configuration
+ * and {@link #prime()} run once per container and the resulting graph is reused by every later
+ * invocation.
+ *
+ * <p>The handler registers itself as a CRaC {@link Resource}. When warm start is enabled and Lambda
+ * SnapStart (or any CRaC runtime) takes a checkpoint, {@link #beforeCheckpoint} configures and
+ * primes the graph first, so restored containers start with provider bindings compiled, SDK
+ * clients built and classes loaded. On runtimes without CRaC support the registration is a no-op.
+ */
+public abstract class OrchestratorLambda<I, O> extends Orchestrator implements RequestHandler<I, O>, Resource {
+
+    private volatile boolean initialized;
+
+    protected OrchestratorLambda() {
+        Core.getGlobalContext().register(this);
+    }
 
     @Override
     public final O handleRequest(I input, Context context) {
-        this.configure();
+        if (isWarmStartEnabled()) {
+            initializeOnce();
+        } else {
+            configureAndTrace();
+        }
         return execute(input, context);
     }
 
     protected abstract O execute(I input, Context context);
 
+    /**
+     * Runs once per container after {@link #configure()}, before the first invocation or the
+     * checkpoint. Override to exercise expensive paths ahead of time, e.g. {@link #warmUp} the SDK
+     * clients the handler uses or issue a cheap request so connection pools and codecs are loaded.
+     */
+    protected void prime() {
+        /* Default NO-OP */
+    }
+
+    /**
+     * Whether configuration is reused across invocations. Reads the {@code WARM_START} environment
+     * variable by default.
+     */
+    protected boolean isWarmStartEnabled() {
+        return Boolean.parseBoolean(System.getenv("WARM_START"));
+    }
+
+    /**
+     * Configures and primes this handler unless that already happened in this container.
+     */
+    public final void initializeOnce() {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (!initialized) {
+                configureAndTrace();
+                prime();
+                initialized = true;
+            }
+        }
+    }
+
+    private void configureAndTrace() {
+        try {
+            this.configure();
+        } finally {
+            this.writeStartupTrace();
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        if (isWarmStartEnabled()) {
+            initializeOnce();
+        }
+    }
+
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        /* Default NO-OP */
+    }
+
     @VisibleForTesting
     public static void main(String[] args) throws Exception {
         OrchestratorLambda orchestrator =
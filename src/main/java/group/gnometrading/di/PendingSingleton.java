@@ -0,0 +1,69 @@
+package group.gnometrading.di;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A singleton that one thread is currently building. Other threads asking for the same qualifier
+ * block on it instead of building a second instance.
+ *
+ * <p>Before blocking, a waiter checks the global waits-for chain so that a dependency cycle split
+ * across threads fails fast with the cycle in the message instead of deadlocking.
+ */
+final class PendingSingleton {
+
+    private static final ConcurrentMap<Thread, PendingSingleton> WAITING = new ConcurrentHashMap<>();
+
+    private final String qualifier;
+    private final Thread owner;
+    private final CompletableFuture<Object> result;
+
+    PendingSingleton(String qualifier) {
+        this.qualifier = qualifier;
+        this.owner = Thread.currentThread();
+        this.result = new CompletableFuture<>();
+    }
+
+    void complete(Object instance) {
+        result.complete(instance);
+    }
+
+    void fail(Throwable error) {
+        result.completeExceptionally(error);
+    }
+
+    Object await() throws Throwable {
+        Thread current = Thread.currentThread();
+        WAITING.put(current, this);
+        try {
+            List<String> cycle = findWaitCycle(current);
+            if (cycle != null) {
+                throw new IllegalStateException(
+                        "Dependency cycle detected across threads: " + String.join(" -> ", cycle));
+            }
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } finally {
+            WAITING.remove(current);
+        }
+    }
+
+    private List<String> findWaitCycle(Thread current) {
+        List<String> chain = new ArrayList<>();
+        PendingSingleton next = this;
+        while (next != null && chain.size() <= WAITING.size()) {
+            chain.add(next.qualifier);
+            if (next.owner == current) {
+                chain.add(qualifier);
+                return chain;
+            }
+            next = WAITING.get(next.owner);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,177 @@
+package group.gnometrading.di;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the declared dependency graph of {@code @Provides @Singleton} bindings reachable from a set
+ * of roots and creates them in dependency order, running independent bindings concurrently.
+ *
+ * <p>Edges come from provider parameters. Non-singleton providers are not scheduled themselves;
+ * their parameters are followed so that the singletons underneath them are still warmed early.
+ * Each node belongs to the scope that creates it, so a parent singleton needed by many children is
+ * scheduled once unless it depends on a per-child override.
+ *
+ * <p>Tasks run on virtual threads when the runtime provides them (JDK 21+) and on a bounded pool of
+ * daemon platform threads otherwise. The bootstraps being parallelized are remote calls, so the
+ * pool is sized for blocking work rather than for cores.
+ */
+final class SingletonWarmUp {
+
+    private static final int MAX_PLATFORM_THREADS = 32;
+
+    private final Map<Node, List<Node>> graph = new LinkedHashMap<>();
+
+    private SingletonWarmUp() {}
+
+    static void run(Collection<? extends Orchestrator> scopes, Class<?>[] roots) {
+        SingletonWarmUp warmUp = new SingletonWarmUp();
+        for (Orchestrator scope : scopes) {
+            for (Class<?> root : roots) {
+                warmUp.collect(scope, root.getName(), new ArrayList<>(), new ArrayList<>());
+            }
+        }
+        warmUp.execute();
+    }
+
+    /**
+     * Adds the singleton nodes that {@code qualifier} needs to {@code into}, registering each one
+     * after its own dependencies so that {@link #graph} iterates in topological order.
+     */
+    private void collect(Orchestrator scope, String qualifier, List<String> path, List<Node> into) {
+        if (path.contains(qualifier)) {
+            path.add(qualifier);
+            throw new IllegalStateException("Dependency cycle detected: "
+                    + String.join(" -> ", path.subList(path.indexOf(qualifier), path.size())));
+        }
+        if (scope.cachingScope(qualifier) != null) {
+            return;
+        }
+        Orchestrator binder = scope.bindingScope(qualifier);
+        if (binder == null) {
+            return;
+        }
+
+        Binding binding = binder.localBinding(qualifier);
+        Orchestrator owner = scope.creationScope(binder, qualifier);
+        Node node = new Node(owner, qualifier, binding);
+        if (binding.singleton && graph.containsKey(node)) {
+            into.add(node);
+            return;
+        }
+
+        List<Node> dependencies = new ArrayList<>();
+        path.add(qualifier);
+        for (String parameter : binding.parameterQualifiers()) {
+            collect(owner, parameter, path, binding.singleton ? dependencies : into);
+        }
+        path.remove(path.size() - 1);
+
+        if (binding.singleton) {
+            graph.put(node, dependencies);
+            into.add(node);
+        }
+    }
+
+    private void execute() {
+        if (graph.isEmpty()) {
+            return;
+        }
+        Map<Node, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        Map<Node, Throwable> failures = new ConcurrentHashMap<>();
+        ExecutorService executor = newExecutor(graph.size());
+        try {
+            for (Map.Entry<Node, List<Node>> entry : graph.entrySet()) {
+                Node node = entry.getKey();
+                CompletableFuture<?>[] dependencies =
+                        entry.getValue().stream().map(futures::get).toArray(CompletableFuture[]::new);
+                futures.put(
+                        node,
+                        CompletableFuture.allOf(dependencies).thenRunAsync(() -> node.create(failures), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .handle((ignored, error) -> null)
+                    .join();
+        } finally {
+            executor.shutdown();
+        }
+
+        if (!failures.isEmpty()) {
+            throw report(failures, futures);
+        }
+    }
+
+    private static RuntimeException report(Map<Node, Throwable> failures, Map<Node, CompletableFuture<Void>> futures) {
+        StringBuilder message = new StringBuilder("Singleton warm-up failed for ")
+                .append(failures.size())
+                .append(" binding(s):");
+        RuntimeException report = null;
+        for (Map.Entry<Node, Throwable> failure : failures.entrySet()) {
+            Throwable rootCause = failure.getValue();
+            while (rootCause.getCause() != null) {
+                rootCause = rootCause.getCause();
+            }
+            message.append("\n  - ")
+                    .append(failure.getKey())
+                    .append(": ")
+                    .append(rootCause);
+        }
+        List<String> skipped = new ArrayList<>();
+        for (Map.Entry<Node, CompletableFuture<Void>> entry : futures.entrySet()) {
+            if (entry.getValue().isCompletedExceptionally() && !failures.containsKey(entry.getKey())) {
+                skipped.add(entry.getKey().toString());
+            }
+        }
+        if (!skipped.isEmpty()) {
+            message.append("\n  skipped because a dependency failed: ").append(String.join(", ", skipped));
+        }
+        for (Throwable failure : failures.values()) {
+            if (report == null) {
+                report = new RuntimeException(message.toString(), failure);
+            } else {
+                report.addSuppressed(failure);
+            }
+        }
+        return report;
+    }
+
+    private static ExecutorService newExecutor(int tasks) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.min(tasks, MAX_PLATFORM_THREADS), runnable -> {
+                Thread thread = new Thread(runnable, "di-warm-up-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private record Node(Orchestrator scope, String qualifier, Binding binding) {
+
+        void create(Map<Node, Throwable> failures) {
+            try {
+                scope.resolve(binding.type(), qualifier);
+            } catch (RuntimeException | Error e) {
+                failures.put(this, e);
+                throw e;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return qualifier + " [" + scope.getClass().getSimpleName() + "]";
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package group.gnometrading.di;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records every binding resolution made while an orchestrator tree starts up and writes them as a
+ * Chrome trace-event JSON file.
+ *
+ * <p>Each provider or constructor call becomes a complete ({@code "ph": "X"}) event with its wall
+ * time on the calling thread, so nested calls stack into a flame chart in Perfetto, Speedscope or
+ * {@code chrome://tracing}. Cache hits and waits on a singleton being built by another thread are
+ * recorded as well. Every event carries the scope, the thread name, whether the singleton cache was
+ * hit, and the dependency path that led to it.
+ *
+ * <p>Enabled by setting the {@code gnome.di.trace} system property to the output path, e.g.
+ * {@code JAVA_TOOL_OPTIONS=-Dgnome.di.trace=/tmp/startup-trace.json}. The trace is shared by a root
+ * orchestrator and all of its children and is written when the root first finishes
+ * {@code configure()}; recording stops once it is written, so lookups made by the running process
+ * are not kept, and later writes (e.g. a Lambda reconfiguring on every invocation) leave the file
+ * alone.
+ */
+final class StartupTrace {
+
+    enum Kind {
+        PROVIDER,
+        CONSTRUCTOR,
+        CACHE_HIT,
+        WAIT
+    }
+
+    private record Event(
+            Kind kind,
+            String qualifier,
+            String scope,
+            String thread,
+            long threadId,
+            String path,
+            long startNanos,
+            long endNanos) {}
+
+    private final Path output;
+    private final long originNanos;
+    private final Queue<Event> events;
+    private volatile boolean written;
+
+    private StartupTrace(Path output) {
+        this.output = output;
+        this.originNanos = System.nanoTime();
+        this.events = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns a new trace if {@code gnome.di.trace} is set, or {@code null} when tracing is off.
+     */
+    static StartupTrace fromSystemProperty() {
+        String output = System.getProperty("gnome.di.trace");
+        if (output == null || output.isEmpty()) {
+            return null;
+        }
+        return new StartupTrace(Path.of(output));
+    }
+
+    void record(Kind kind, String qualifier, Orchestrator scope, List<String> path, long startNanos) {
+        if (written) {
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        events.add(new Event(
+                kind,
+                qualifier,
+                scope.getClass().getSimpleName(),
+                thread.getName(),
+                thread.getId(),
+                String.join(" > ", path),
+                startNanos,
+                System.nanoTime()));
+    }
+
+    int size() {
+        return events.size();
+    }
+
+    synchronized void write() {
+        if (written) {
+            return;
+        }
+        written = true;
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            boolean first = true;
+            for (Event event : events) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writer.write("\n{\"name\":");
+                writeString(writer, event.qualifier());
+                writer.write(",\"cat\":");
+                writeString(writer, event.kind().name().toLowerCase(Locale.ROOT));
+                writer.write(",\"ph\":\"X\",\"pid\":1,\"tid\":");
+                writer.write(Long.toString(event.threadId()));
+                writer.write(",\"ts\":");
+                writer.write(micros(event.startNanos() - originNanos));
+                writer.write(",\"dur\":");
+                writer.write(micros(event.endNanos() - event.startNanos()));
+                writer.write(",\"args\":{\"scope\":");
+                writeString(writer, event.scope());
+                writer.write(",\"thread\":");
+                writeString(writer, event.thread());
+                writer.write(",\"cacheHit\":");
+                writer.write(Boolean.toString(event.kind() == Kind.CACHE_HIT));
+                writer.write(",\"path\":");
+                writeString(writer, event.path());
+                writer.write("}}");
+            }
+            writer.write("\n]}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write startup trace to " + output, e);
+        } finally {
+            events.clear();
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000.0);
+    }
+
+    private static void writeString(BufferedWriter writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -5,13 +5,10 @@ import group.gnometrading.di.Singleton;
 import group.gnometrading.gateways.credentials.BinanceCredentials;
 import group.gnometrading.gateways.fix.FixConfig;
 import group.gnometrading.gateways.fix.FixSocketMessageClient;
-import group.gnometrading.gateways.fix.FixTimestampPrecision;
-import group.gnometrading.gateways.fix.FixVersion;
 import group.gnometrading.gateways.inbound.exchanges.binance.BinanceFixSocketReader;
 import group.gnometrading.logging.Logger;
 import group.gnometrading.networking.sockets.factory.GnomeSocketFactory;
 import group.gnometrading.networking.sockets.factory.NativeSSLSocketFactory;
-import group.gnometrading.resources.Properties;
 import group.gnometrading.schemas.Mbp10Schema;
 import group.gnometrading.sequencer.GlobalSequence;
 import group.gnometrading.sequencer.SequencedRingBuffer;
@@ -19,8 +16,6 @@ import group.gnometrading.sm.Listing;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import org.agrona.concurrent.EpochNanoClock;
-import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 
 public class BinanceInboundOrchestrator extends DefaultInboundOrchestrator<Mbp10Schema> {
 
@@ -31,25 +26,6 @@ public class BinanceInboundOrchestrator extends DefaultInboundOrchestrator<Mbp10
         instanceClass = BinanceInboundOrchestrator.class;
     }
 
-    @Provides
-    public final FixConfig provideFixConfig(Properties properties, BinanceCredentials credentials) {
-        return new FixConfig.Builder()
-                .withSessionVersion(FixVersion.FIXT_1_1)
-                .withApplicationVersion(FixVersion.FIX_5_0SP2)
-                .withSenderCompID(properties.getStringProperty("binance.fix.sender_comp_id"))
-                .withTargetCompID(properties.getStringProperty("binance.fix.target_comp_id"))
-                .withHeartbeatSeconds(30)
-                .withDefaultPrecision(FixTimestampPrecision.MICROSECONDS)
-                .build();
-    }
-
-    @Provides
-    public final InetSocketAddress provideFixAddress(Properties properties) {
-        String host = properties.getStringProperty("binance.fix.host");
-        int port = properties.getIntProperty("binance.fix.port");
-        return new InetSocketAddress(host, port);
-    }
-
     @Provides
     public final GnomeSocketFactory provideSocketFactory() {
         return new NativeSSLSocketFactory();
@@ -63,17 +39,6 @@ public class BinanceInboundOrchestrator extends DefaultInboundOrchestrator<Mbp10
                 address, socketFactory, fixConfig, FIX_READ_BUFFER_SIZE, FIX_WRITE_BUFFER_SIZE);
     }
 
-    @Provides
-    @Singleton
-    public final BinanceCredentials provideBinanceCredentials(SecretsManagerClient secretsManager, Listing listing) {
-        String secretName = "gnome/exchange-credentials/binance";
-        String secretJson = secretsManager
-                .getSecretValue(
-                        GetSecretValueRequest.builder().secretId(secretName).build())
-                .secretString();
-        return BinanceCredentials.fromJson(secretJson);
-    }
-
     @Override
     @Provides
     @Singleton
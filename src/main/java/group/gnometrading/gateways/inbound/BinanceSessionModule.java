@@ -0,0 +1,50 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.di.Module;
+import group.gnometrading.di.Provides;
+import group.gnometrading.di.Singleton;
+import group.gnometrading.gateways.credentials.BinanceCredentials;
+import group.gnometrading.gateways.fix.FixConfig;
+import group.gnometrading.gateways.fix.FixTimestampPrecision;
+import group.gnometrading.gateways.fix.FixVersion;
+import group.gnometrading.resources.Properties;
+import java.net.InetSocketAddress;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+
+/**
+ * Binance bindings that do not depend on the listing: credentials, FIX session settings and the
+ * FIX endpoint. Installed once per {@link ExchangeSessionOrchestrator} when sessions are shared.
+ */
+public class BinanceSessionModule extends Module {
+
+    @Provides
+    public final FixConfig provideFixConfig(Properties properties, BinanceCredentials credentials) {
+        return new FixConfig.Builder()
+                .withSessionVersion(FixVersion.FIXT_1_1)
+                .withApplicationVersion(FixVersion.FIX_5_0SP2)
+                .withSenderCompID(properties.getStringProperty("binance.fix.sender_comp_id"))
+                .withTargetCompID(properties.getStringProperty("binance.fix.target_comp_id"))
+                .withHeartbeatSeconds(30)
+                .withDefaultPrecision(FixTimestampPrecision.MICROSECONDS)
+                .build();
+    }
+
+    @Provides
+    public final InetSocketAddress provideFixAddress(Properties properties) {
+        String host = properties.getStringProperty("binance.fix.host");
+        int port = properties.getIntProperty("binance.fix.port");
+        return new InetSocketAddress(host, port);
+    }
+
+    @Provides
+    @Singleton
+    public final BinanceCredentials provideBinanceCredentials(SecretsManagerClient secretsManager) {
+        String secretName = "gnome/exchange-credentials/binance";
+        String secretJson = secretsManager
+                .getSecretValue(
+                        GetSecretValueRequest.builder().secretId(secretName).build())
+                .secretString();
+        return BinanceCredentials.fromJson(secretJson);
+    }
+}
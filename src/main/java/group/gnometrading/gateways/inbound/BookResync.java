@@ -0,0 +1,13 @@
+package group.gnometrading.gateways.inbound;
+
+/**
+ * Requests a fresh order book snapshot for a listing after a sequence gap.
+ */
+@FunctionalInterface
+public interface BookResync {
+
+    /** Requests nothing, for readers that cannot resync in place. */
+    BookResync NONE = () -> {};
+
+    void requestSnapshot();
+}
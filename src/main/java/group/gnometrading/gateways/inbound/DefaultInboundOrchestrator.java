@@ -1,20 +1,23 @@
 package group.gnometrading.gateways.inbound;
 
-import group.gnometrading.concurrent.GnomeAgentRunner;
-import group.gnometrading.di.Named;
+import group.gnometrading.di.Module;
 import group.gnometrading.di.Orchestrator;
 import group.gnometrading.di.Provides;
 import group.gnometrading.di.Singleton;
 import group.gnometrading.logging.LogMessage;
 import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
 import group.gnometrading.schemas.Schema;
 import group.gnometrading.sequencer.GlobalSequence;
 import group.gnometrading.sequencer.SequencedEventHandler;
+import group.gnometrading.sequencer.SequencedPoller;
 import group.gnometrading.sequencer.SequencedRingBuffer;
 import group.gnometrading.shared.RiskModule;
 import group.gnometrading.sm.Listing;
-import java.util.ArrayList;
-import java.util.List;
+import group.gnometrading.utils.AgentThreadPlan;
+import group.gnometrading.utils.CompositeAgent;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.EpochClock;
 import org.agrona.concurrent.EpochNanoClock;
@@ -26,6 +29,7 @@ public abstract class DefaultInboundOrchestrator<T extends Schema> extends Orche
     @Override
     public final void configure() {
         install(new RiskModule());
+        install(findSessionModules(getInstance(Listing.class)));
     }
 
     public static Class<? extends DefaultInboundOrchestrator<?>> findInboundOrchestrator(final Listing listing) {
@@ -50,6 +54,39 @@ public abstract class DefaultInboundOrchestrator<T extends Schema> extends Orche
         }
     }
 
+    /**
+     * Returns the modules holding the listing-independent bindings of the listing's exchange, such
+     * as credentials. When the orchestrator is a child of an {@link ExchangeSessionOrchestrator} they
+     * are already installed there and are shared by every listing of the exchange.
+     */
+    public static Module[] findSessionModules(final Listing listing) {
+        switch (listing.exchange().exchangeName().toLowerCase()) {
+            case "binance" -> {
+                return new Module[] {new BinanceSessionModule()};
+            }
+            case "kalshi" -> {
+                return new Module[] {new KalshiSessionModule()};
+            }
+            default -> {
+                return new Module[0];
+            }
+        }
+    }
+
+    /**
+     * Builds the connection-level singletons of every given inbound orchestrator in parallel: the
+     * ring buffer, socket reader and writer, gateway, and whatever they look up on the way
+     * (credentials, WebSocket or FIX clients).
+     */
+    public static void warmUpGateways(Collection<? extends DefaultInboundOrchestrator<?>> inbounds) {
+        warmUp(
+                inbounds,
+                SequencedRingBuffer.class,
+                SocketReader.class,
+                SocketWriter.class,
+                MarketInboundGateway.class);
+    }
+
     @Provides
     public final EpochClock provideEpochClock() {
         return SystemEpochClock.INSTANCE;
@@ -93,35 +130,53 @@ public abstract class DefaultInboundOrchestrator<T extends Schema> extends Orche
 
     @Provides
     @Singleton
-    @Named("ERROR_TIMESTAMPS")
-    public final List<Long> provideErrorTimestamps() {
-        return new ArrayList<>();
+    public final ListingCircuitBreaker provideListingCircuitBreaker(Properties properties) {
+        return new ListingCircuitBreaker(
+                getInstance(Listing.class),
+                ListingCircuitBreaker.Config.fromProperties(properties),
+                getInstance(Logger.class),
+                getInstance(MarketInboundGateway.class),
+                getInstance(EpochNanoClock.class),
+                getInstance(SequenceGapTracker.class)::onResyncIssued);
     }
 
     @Provides
     public final ErrorHandler provideInboundErrorHandler() {
-        MarketInboundGateway gateway = getInstance(MarketInboundGateway.class);
-        Logger logger = getInstance(Logger.class);
-        List<Long> errorTimestamps = getInstance(List.class, "ERROR_TIMESTAMPS");
+        return getInstance(ListingCircuitBreaker.class);
+    }
 
-        return (error) -> {
-            logger.logf(LogMessage.UNKNOWN_ERROR, "Error occurred in market inbound gateway: %s", error.getMessage());
+    public final ListingCircuitBreaker getCircuitBreaker() {
+        return getInstance(ListingCircuitBreaker.class);
+    }
 
-            long currentTime = System.currentTimeMillis();
-            synchronized (errorTimestamps) {
-                errorTimestamps.add(currentTime);
+    @Provides
+    @Singleton
+    public final SequenceGapTracker provideSequenceGapTracker(Properties properties) {
+        long timeoutMillis = properties.hasProperty("inbound.gap.recovery.timeout.millis")
+                ? properties.getIntProperty("inbound.gap.recovery.timeout.millis")
+                : 5_000;
+        return new SequenceGapTracker(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
 
-                // Remove errors older than 1 minute
-                errorTimestamps.removeIf(timestamp -> currentTime - timestamp > 60_000);
+    /**
+     * Requests a fresh book after a sequence gap. The socket readers cannot yet ask for a snapshot
+     * on a live connection, and a reconnect costs the TLS handshake and resubscription the resync
+     * is meant to avoid, so by default nothing is requested: gaps are only detected, counted and
+     * flagged until the next reconnect or the recovery timeout. Exchange orchestrators override this
+     * once their reader can resync in place, and must then call
+     * {@link SequenceGapTracker#onResyncIssued()} themselves.
+     */
+    @Provides
+    public BookResync provideBookResync() {
+        return BookResync.NONE;
+    }
 
-                if (errorTimestamps.size() >= 10) {
-                    logger.log(LogMessage.FATAL_ERROR_EXITING);
-                    System.exit(1);
-                    return;
-                }
-                gateway.forceReconnect();
-            }
-        };
+    public final SequenceGapTracker getSequenceGapTracker() {
+        return getInstance(SequenceGapTracker.class);
+    }
+
+    public final Listing getListing() {
+        return getInstance(Listing.class);
     }
 
     @SuppressWarnings("unchecked")
@@ -129,39 +184,128 @@ public abstract class DefaultInboundOrchestrator<T extends Schema> extends Orche
         return getInstance(SequencedRingBuffer.class);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Returns a new ring buffer of this listing's schema that is not fed by the socket reader, such
+     * as the output of a {@link FeedArbitrator}.
+     */
+    public final SequencedRingBuffer<T> newSequencedRingBuffer() {
+        return provideSequencedRingBuffer();
+    }
+
     public final void setRawDataSink(RawDataSink sink) {
         getInstance(SocketReader.class).setRawDataSink(sink);
     }
 
-    @SuppressWarnings("unchecked")
     public final void startGatewayAgents() {
         ErrorHandler errorHandler = getInstance(ErrorHandler.class);
-        GnomeAgentRunner.startOnThread(new GnomeAgentRunner(getInstance(MarketInboundGateway.class), errorHandler));
-        GnomeAgentRunner.startOnThread(new GnomeAgentRunner(getInstance(SocketReader.class), errorHandler));
-        GnomeAgentRunner.startOnThread(new GnomeAgentRunner(getInstance(SocketWriter.class), errorHandler));
+        AgentThreadPlan threadPlan = getInstance(AgentThreadPlan.class);
+        String instance = String.valueOf(getListing().listingId());
+        threadPlan.start(getInstance(MarketInboundGateway.class), errorHandler, instance);
+        threadPlan.start(getInstance(SocketReader.class), errorHandler, instance);
+        threadPlan.start(getInstance(SocketWriter.class), errorHandler, instance);
+    }
+
+    /**
+     * Adds this listing's socket reader and socket writer to a shared I/O thread and its gateway to a
+     * shared supervisor thread, or starts them on dedicated threads when {@code ioThreads} is
+     * {@code null}. Shared threads only run once {@link InboundIoThreads#start} is called.
+     */
+    public final void startGatewayAgents(InboundIoThreads ioThreads) {
+        if (ioThreads == null) {
+            startGatewayAgents();
+            return;
+        }
+        ErrorHandler errorHandler = getInstance(ErrorHandler.class);
+        CompositeAgent ioAgent = ioThreads.assign(getInstance(Listing.class));
+        ioThreads.assignGateway().add(getInstance(MarketInboundGateway.class), errorHandler);
+        ioAgent.add(getInstance(SocketReader.class), errorHandler);
+        ioAgent.add(getInstance(SocketWriter.class), errorHandler);
     }
 
-    @SuppressWarnings("unchecked")
     public final void configureGatewayForListing(SequencedEventHandler consumer) {
+        configureGatewayForListing(consumer, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public final void configureGatewayForListing(SequencedEventHandler consumer, InboundIoThreads ioThreads) {
+        configureGatewayForListing(consumer, ioThreads, getInstance(SequencedRingBuffer.class));
+    }
+
+    /**
+     * Configures this listing with a redundant {@code secondary} connection: both sides run their
+     * own gateway agents and {@code arbitrator} publishes the first copy of each update to the
+     * buffer {@code consumer} reads.
+     */
+    public final void configureRedundantGatewayForListing(
+            SequencedEventHandler consumer,
+            InboundIoThreads ioThreads,
+            DefaultInboundOrchestrator<?> secondary,
+            FeedArbitrator arbitrator) {
+        SequencedRingBuffer<?> arbitrated = arbitrator.add(this, secondary);
+        secondary.startGatewayAgents(ioThreads);
+        configureGatewayForListing(consumer, ioThreads, arbitrated);
+    }
+
+    /**
+     * Configures this listing like {@link #configureGatewayForListing(SequencedEventHandler,
+     * InboundIoThreads)} but without a consumer thread of its own: returns a poller over the
+     * listing's buffer that dispatches to {@code consumer}, for a shared agent to drive.
+     */
+    public final SequencedPoller configurePolledGatewayForListing(
+            SequencedEventHandler consumer, InboundIoThreads ioThreads) {
+        return configurePolledGatewayForListing(consumer, ioThreads, getInstance(SequencedRingBuffer.class));
+    }
+
+    /**
+     * The polled counterpart of {@link #configureRedundantGatewayForListing}.
+     */
+    public final SequencedPoller configurePolledRedundantGatewayForListing(
+            SequencedEventHandler consumer,
+            InboundIoThreads ioThreads,
+            DefaultInboundOrchestrator<?> secondary,
+            FeedArbitrator arbitrator) {
+        SequencedRingBuffer<?> arbitrated = arbitrator.add(this, secondary);
+        secondary.startGatewayAgents(ioThreads);
+        return configurePolledGatewayForListing(consumer, ioThreads, arbitrated);
+    }
+
+    private void configureGatewayForListing(
+            SequencedEventHandler consumer, InboundIoThreads ioThreads, SequencedRingBuffer<?> sequencedRingBuffer) {
+        sequencedRingBuffer.handleEventsWith(wrapConsumer(consumer));
+        startGatewayAgents(ioThreads);
+        sequencedRingBuffer.start();
+    }
+
+    private SequencedPoller configurePolledGatewayForListing(
+            SequencedEventHandler consumer, InboundIoThreads ioThreads, SequencedRingBuffer<?> sequencedRingBuffer) {
+        SequencedPoller poller = sequencedRingBuffer.createPoller(wrapConsumer(consumer));
+        startGatewayAgents(ioThreads);
+        return poller;
+    }
+
+    private SequencedEventHandler wrapConsumer(SequencedEventHandler consumer) {
         Logger logger = getInstance(Logger.class);
         Listing listing = getInstance(Listing.class);
         logger.logf(LogMessage.DEBUG, "Configuring listing gateway for: %d", listing.listingId());
+        return withGapDetection(consumer);
+    }
 
-        SequencedRingBuffer<T> sequencedRingBuffer = getInstance(SequencedRingBuffer.class);
-        SocketWriter socketWriter = getInstance(SocketWriter.class);
-        SocketReader<T> socketReader = getInstance(SocketReader.class);
-        MarketInboundGateway marketInboundGateway = getInstance(MarketInboundGateway.class);
-
-        ErrorHandler errorHandler = getInstance(ErrorHandler.class);
-        GnomeAgentRunner marketInboundRunner = new GnomeAgentRunner(marketInboundGateway, errorHandler);
-        GnomeAgentRunner socketReaderRunner = new GnomeAgentRunner(socketReader, errorHandler);
-        GnomeAgentRunner socketWriterRunner = new GnomeAgentRunner(socketWriter, errorHandler);
-
-        sequencedRingBuffer.handleEventsWith(consumer);
-        GnomeAgentRunner.startOnThread(marketInboundRunner);
-        GnomeAgentRunner.startOnThread(socketReaderRunner);
-        GnomeAgentRunner.startOnThread(socketWriterRunner);
-        sequencedRingBuffer.start();
+    /**
+     * Returns {@code consumer} behind this listing's {@link SequenceGapDetector} when
+     * {@code inbound.gap.detection} is enabled, and {@code consumer} itself otherwise.
+     */
+    public final SequencedEventHandler withGapDetection(SequencedEventHandler consumer) {
+        if (getInstance(Boolean.class, "SEQUENCE_GAP_DETECTION")) {
+            Logger logger = getInstance(Logger.class);
+            Listing listing = getInstance(Listing.class);
+            consumer = new SequenceGapDetector(
+                    listing,
+                    getInstance(SequenceGapTracker.class),
+                    getInstance(BookResync.class),
+                    logger,
+                    getInstance(EpochNanoClock.class),
+                    consumer);
+        }
+        return consumer;
     }
 }
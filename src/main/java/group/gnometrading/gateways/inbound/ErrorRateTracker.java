@@ -0,0 +1,61 @@
+package group.gnometrading.gateways.inbound;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, allocation-free detector for "{@code maxErrors} errors within {@code windowNanos}".
+ *
+ * <p>Keeps the timestamps of the last {@code maxErrors} errors in a ring. Recording an error
+ * overwrites the oldest slot; the rate is reached when the oldest error still in the ring, the one
+ * {@code maxErrors - 1} errors back, is inside the window. Safe to call from any number of threads.
+ * Errors recorded concurrently may see each other's slot not yet written, so a trip can come one
+ * error late under contention, never early.
+ */
+public final class ErrorRateTracker {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final AtomicLongArray timestamps;
+    private final AtomicLong sequence;
+    private final long windowNanos;
+
+    public ErrorRateTracker(int maxErrors, long windowNanos) {
+        if (maxErrors <= 0) {
+            throw new IllegalArgumentException("maxErrors must be positive: " + maxErrors);
+        }
+        this.timestamps = new AtomicLongArray(maxErrors);
+        this.sequence = new AtomicLong();
+        this.windowNanos = windowNanos;
+        reset();
+    }
+
+    /**
+     * Records an error at {@code nowNanos}.
+     *
+     * @return {@code true} if this error makes {@code maxErrors} within the window
+     */
+    public boolean record(long nowNanos) {
+        long current = sequence.getAndIncrement();
+        int length = timestamps.length();
+        timestamps.set((int) (current % length), nowNanos);
+        long oldest = timestamps.get((int) ((current + 1) % length));
+        return oldest != EMPTY && nowNanos - oldest <= windowNanos;
+    }
+
+    /**
+     * Returns the total number of errors recorded since creation.
+     */
+    public long total() {
+        return sequence.get();
+    }
+
+    /**
+     * Forgets the errors in the current window. The total count is kept.
+     */
+    public void reset() {
+        for (int i = 0; i < timestamps.length(); i++) {
+            timestamps.set(i, EMPTY);
+        }
+    }
+}
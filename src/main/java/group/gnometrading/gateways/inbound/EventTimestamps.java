@@ -0,0 +1,73 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Mbp1Decoder;
+import group.gnometrading.schemas.Mbp1Schema;
+import group.gnometrading.schemas.TradesDecoder;
+import group.gnometrading.schemas.TradesSchema;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Reads the identity and timestamps of a market data event in any {@link InboundSchema}.
+ *
+ * <p>{@code timestampEvent} is stamped by the venue and {@code timestampRecv} by the socket reader
+ * when the bytes came off the socket. Holds one scratch schema per template and does not allocate,
+ * so an instance must only be used by one thread.
+ */
+public final class EventTimestamps {
+
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+    private final Mbp1Schema mbp1 = new Mbp1Schema();
+    private final TradesSchema trades = new TradesSchema();
+
+    private long exchangeId;
+    private long securityId;
+    private long exchangeNanos;
+    private long receiveNanos;
+
+    /**
+     * Reads the event in {@code buffer}; returns {@code false} if it is not market data.
+     */
+    public boolean read(int templateId, UnsafeBuffer buffer) {
+        if (templateId == Mbp10Decoder.TEMPLATE_ID) {
+            mbp10.wrap(buffer);
+            Mbp10Decoder decoder = mbp10.decoder;
+            set(decoder.exchangeId(), decoder.securityId(), decoder.timestampEvent(), decoder.timestampRecv());
+        } else if (templateId == Mbp1Decoder.TEMPLATE_ID) {
+            mbp1.wrap(buffer);
+            Mbp1Decoder decoder = mbp1.decoder;
+            set(decoder.exchangeId(), decoder.securityId(), decoder.timestampEvent(), decoder.timestampRecv());
+        } else if (templateId == TradesDecoder.TEMPLATE_ID) {
+            trades.wrap(buffer);
+            TradesDecoder decoder = trades.decoder;
+            set(decoder.exchangeId(), decoder.securityId(), decoder.timestampEvent(), decoder.timestampRecv());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void set(long exchangeId, long securityId, long exchangeNanos, long receiveNanos) {
+        this.exchangeId = exchangeId;
+        this.securityId = securityId;
+        this.exchangeNanos = exchangeNanos;
+        this.receiveNanos = receiveNanos;
+    }
+
+    public long exchangeId() {
+        return exchangeId;
+    }
+
+    public long securityId() {
+        return securityId;
+    }
+
+    public long exchangeNanos() {
+        return exchangeNanos;
+    }
+
+    public long receiveNanos() {
+        return receiveNanos;
+    }
+}
@@ -0,0 +1,35 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.di.Orchestrator;
+import group.gnometrading.sm.Listing;
+import java.util.Map;
+
+/**
+ * Scope shared by every inbound listing orchestrator of one exchange.
+ *
+ * <p>Installs the exchange's session modules (see {@link DefaultInboundOrchestrator#findSessionModules})
+ * so that credentials, secrets lookups and session settings are resolved once per exchange rather
+ * than once per listing. Listing orchestrators are created as its children and still own their
+ * connection, ring buffer and agents.
+ *
+ * <p>Created with the first listing of the exchange as its {@link Listing} override; each child
+ * overrides it with its own listing.
+ */
+public class ExchangeSessionOrchestrator extends Orchestrator {
+
+    @Override
+    public final void configure() {
+        install(DefaultInboundOrchestrator.findSessionModules(getInstance(Listing.class)));
+    }
+
+    /**
+     * Creates the inbound orchestrator for {@code listing} as a child of this session.
+     *
+     * @param listing a listing on this session's exchange
+     * @param overrides child overrides; must contain {@code Listing.class}
+     */
+    public final DefaultInboundOrchestrator<?> createListingOrchestrator(
+            Listing listing, Map<Class<?>, Object> overrides) {
+        return createChildOrchestrator(DefaultInboundOrchestrator.findInboundOrchestrator(listing), overrides);
+    }
+}
@@ -0,0 +1,214 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import group.gnometrading.sm.Listing;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Arbitrates redundant A/B feeds: each covered listing runs two independent inbound connections,
+ * and only the first copy of every update is published to the listing's output buffer.
+ *
+ * <p>Updates are ordered by exchange sequence number, or by exchange timestamp for venues that do
+ * not sequence their messages, as decided by {@link FeedOrder}. Both assume the two sessions see
+ * the same exchange-wide numbering; a listing whose sides turn out not to is split and forwards only
+ * its primary side, which is reported on {@link #toJson()}. When a side falls behind or reconnects,
+ * the other side keeps the output gap-free.
+ *
+ * <p>Enabled for the exchanges listed in {@code inbound.redundant.exchanges}. Sequences that differ
+ * by more than {@code inbound.redundant.max.skew} (default 1,000,000) between the sides are taken as
+ * different numberings.
+ *
+ * <p>One arbitrator polls every covered listing on a single thread and is the sole producer of the
+ * output buffers. The poll loop does not allocate. Per-side win counts may be read from any thread.
+ */
+public final class FeedArbitrator implements GnomeAgent {
+
+    private static final long DEFAULT_MAX_SKEW = 1_000_000;
+
+    private final Set<String> exchanges;
+    private final long maxSkew;
+    private final List<Arbitration> arbitrations = new ArrayList<>();
+    private Arbitration[] polled = new Arbitration[0];
+
+    public FeedArbitrator(Set<String> exchanges, long maxSkew) {
+        this.exchanges = exchanges;
+        this.maxSkew = maxSkew;
+    }
+
+    /**
+     * Returns the arbitrator configured by {@code inbound.redundant.exchanges}, or {@code null} when
+     * no exchange runs redundant feeds.
+     */
+    public static FeedArbitrator fromProperties(Properties properties) {
+        if (!properties.hasProperty("inbound.redundant.exchanges")) {
+            return null;
+        }
+        Set<String> exchanges = new HashSet<>();
+        for (String exchange : properties.getStringProperty("inbound.redundant.exchanges").split(",")) {
+            if (!exchange.isBlank()) {
+                exchanges.add(exchange.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        long maxSkew = properties.hasProperty("inbound.redundant.max.skew")
+                ? properties.getIntProperty("inbound.redundant.max.skew")
+                : DEFAULT_MAX_SKEW;
+        return exchanges.isEmpty() ? null : new FeedArbitrator(exchanges, maxSkew);
+    }
+
+    public boolean covers(Listing listing) {
+        return exchanges.contains(listing.exchange().exchangeName().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Arbitrates between the ring buffers of {@code primary} and {@code secondary}, two inbound
+     * orchestrators for the same listing, and returns the buffer the winning updates go to.
+     */
+    public SequencedRingBuffer<?> add(DefaultInboundOrchestrator<?> primary, DefaultInboundOrchestrator<?> secondary) {
+        Arbitration arbitration = new Arbitration(
+                primary.getListing(),
+                primary.getSequencedRingBuffer(),
+                secondary.getSequencedRingBuffer(),
+                primary.newSequencedRingBuffer(),
+                new FeedOrder(maxSkew));
+        arbitrations.add(arbitration);
+        polled = arbitrations.toArray(new Arbitration[0]);
+        return arbitration.output;
+    }
+
+    public int size() {
+        return arbitrations.size();
+    }
+
+    @Override
+    public String roleName() {
+        return "feed-arbitrator";
+    }
+
+    @Override
+    public void onStart() {}
+
+    @Override
+    public int doWork() throws Exception {
+        int work = 0;
+        for (Arbitration arbitration : polled) {
+            work += arbitration.pollerA.poll();
+            work += arbitration.pollerB.poll();
+        }
+        return work;
+    }
+
+    /**
+     * Returns one line per listing with the share of updates each side delivered first.
+     */
+    public String winRateReport() {
+        StringBuilder report = new StringBuilder("Feed arbitration win rates:");
+        for (Arbitration arbitration : arbitrations) {
+            long winsA = arbitration.winsA;
+            long winsB = arbitration.winsB;
+            long total = winsA + winsB;
+            report.append(String.format(
+                    Locale.ROOT,
+                    "%n  listing %d: A %.1f%% B %.1f%% of %d updates, %d duplicates dropped%s",
+                    arbitration.listing.listingId(),
+                    total == 0 ? 0.0 : 100.0 * winsA / total,
+                    total == 0 ? 0.0 : 100.0 * winsB / total,
+                    total,
+                    arbitration.duplicates,
+                    arbitration.order.split() ? ", split: sides are numbered differently" : ""));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Renders the per-side win counts as JSON for the health server.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"arbitration\":[");
+        for (int i = 0; i < arbitrations.size(); i++) {
+            Arbitration arbitration = arbitrations.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"listingId\":")
+                    .append(arbitration.listing.listingId())
+                    .append(",\"winsA\":")
+                    .append(arbitration.winsA)
+                    .append(",\"winsB\":")
+                    .append(arbitration.winsB)
+                    .append(",\"duplicates\":")
+                    .append(arbitration.duplicates)
+                    .append(",\"split\":")
+                    .append(arbitration.order.split())
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static final class Arbitration {
+
+        private final Listing listing;
+        private final SequencedRingBuffer<?> output;
+        private final SequencedPoller pollerA;
+        private final SequencedPoller pollerB;
+        private final FeedOrder order;
+        private final Mbp10Schema mbp10 = new Mbp10Schema();
+
+        private volatile long winsA;
+        private volatile long winsB;
+        private volatile long duplicates;
+
+        Arbitration(
+                Listing listing,
+                SequencedRingBuffer<?> sideA,
+                SequencedRingBuffer<?> sideB,
+                SequencedRingBuffer<?> output,
+                FeedOrder order) {
+            this.listing = listing;
+            this.output = output;
+            this.order = order;
+            this.pollerA = sideA.createPoller(this::onSideA);
+            this.pollerB = sideB.createPoller(this::onSideB);
+        }
+
+        private void onSideA(long globalSeq, int templateId, UnsafeBuffer buf, int len) throws Exception {
+            onEvent(FeedOrder.SIDE_A, templateId, buf, len);
+        }
+
+        private void onSideB(long globalSeq, int templateId, UnsafeBuffer buf, int len) throws Exception {
+            onEvent(FeedOrder.SIDE_B, templateId, buf, len);
+        }
+
+        private void onEvent(int side, int templateId, UnsafeBuffer buf, int len) throws Exception {
+            if (templateId != Mbp10Decoder.TEMPLATE_ID) {
+                if (order.acceptUnordered(side)) {
+                    output.publishRaw(buf, templateId, len);
+                }
+                return;
+            }
+            mbp10.wrap(buf);
+            long sequence = Mbp10Fields.sequence(mbp10);
+            boolean sequenced = sequence >= 0;
+            long key = sequenced ? sequence : Mbp10Fields.eventTimestamp(mbp10);
+            if (order.accept(side, key, sequenced)) {
+                if (side == FeedOrder.SIDE_A) {
+                    winsA++;
+                } else {
+                    winsB++;
+                }
+                output.publishRaw(buf, templateId, len);
+            } else {
+                duplicates++;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package group.gnometrading.gateways.inbound;
+
+/**
+ * Decides which copies of a listing's A/B feed updates a {@link FeedArbitrator} forwards.
+ *
+ * <p>An update is identified by its key, the exchange sequence number or, for venues that do not
+ * sequence their messages, the exchange timestamp, together with its ordinal among the updates one
+ * side delivered with that key. Timestamps are not unique, so the n-th update a side delivers at a
+ * timestamp is forwarded only if fewer than n updates at that timestamp have gone out; if the
+ * leading side fails part way through a timestamp, the other side's remaining updates still go out.
+ *
+ * <p>Both sides must number their updates in the same space. The first update that breaks this, a
+ * side whose first update is sequenced while the other side's was not, or a sequence more than
+ * {@code maxSkew} away from the one the other side last forwarded, splits the feed: from then on
+ * only side A is forwarded, unarbitrated.
+ *
+ * <p>Used from the arbitrator's thread only.
+ */
+final class FeedOrder {
+
+    static final int SIDE_A = 0;
+    static final int SIDE_B = 1;
+
+    private static final int UNKNOWN = -1;
+    private static final int UNSEQUENCED = 0;
+    private static final int SEQUENCED = 1;
+
+    private final long maxSkew;
+    private final long[] lastKey = {Long.MIN_VALUE, Long.MIN_VALUE};
+    private final int[] ordinal = new int[2];
+    private final int[] numbering = {UNKNOWN, UNKNOWN};
+
+    private long highestKey = Long.MIN_VALUE;
+    private int forwarded;
+    private int leader = UNKNOWN;
+    private boolean split;
+
+    FeedOrder(long maxSkew) {
+        if (maxSkew <= 0) {
+            throw new IllegalArgumentException("maxSkew must be positive: " + maxSkew);
+        }
+        this.maxSkew = maxSkew;
+    }
+
+    /**
+     * Returns whether the update {@code side} delivered with {@code key} is the first copy.
+     *
+     * @param sequenced whether {@code key} is an exchange sequence rather than a timestamp
+     */
+    boolean accept(int side, long key, boolean sequenced) {
+        if (split || !sameNumbering(side, key, sequenced)) {
+            split = true;
+            return side == SIDE_A;
+        }
+        ordinal[side] = key == lastKey[side] ? ordinal[side] + 1 : 1;
+        lastKey[side] = key;
+        if (key > highestKey) {
+            highestKey = key;
+            forwarded = 1;
+        } else if (key == highestKey && ordinal[side] > forwarded) {
+            forwarded = ordinal[side];
+        } else {
+            return false;
+        }
+        leader = side;
+        return true;
+    }
+
+    /**
+     * Returns whether an update without a key, such as a status message, is forwarded from
+     * {@code side}. Such updates follow the leading side, and the first side to deliver anything
+     * leads until the other overtakes it.
+     */
+    boolean acceptUnordered(int side) {
+        if (split) {
+            return side == SIDE_A;
+        }
+        if (leader == UNKNOWN) {
+            leader = side;
+        }
+        return leader == side;
+    }
+
+    boolean split() {
+        return split;
+    }
+
+    private boolean sameNumbering(int side, long key, boolean sequenced) {
+        if (numbering[side] == UNKNOWN) {
+            numbering[side] = sequenced ? SEQUENCED : UNSEQUENCED;
+            int other = numbering[1 - side];
+            if (other != UNKNOWN && other != numbering[side]) {
+                return false;
+            }
+        }
+        // A reconnecting side resumes near the live sequence, so only a different numbering is this far off
+        return !sequenced || leader != 1 - side || Math.abs(key - highestKey) <= maxSkew;
+    }
+}
@@ -0,0 +1,161 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.resources.Properties;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.utils.AgentThreadPlan;
+import group.gnometrading.utils.CompositeAgent;
+import java.util.HashMap;
+import java.util.Map;
+import org.agrona.ErrorHandler;
+
+/**
+ * A fixed set of I/O threads shared by all inbound listings.
+ *
+ * <p>Instead of three dedicated threads per listing, each listing's socket reader and socket writer
+ * are added to one of {@code inbound.io.threads} {@link CompositeAgent}s. A failing member is routed
+ * to its own listing's error handler, so an error on one listing does not disturb the others on the
+ * same thread. Thread count therefore scales with cores rather than with listings.
+ *
+ * <p>The gateways are not added to the I/O threads. A gateway reconnects inside its own
+ * {@code doWork()}, which blocks on the connect and handshake, and would stall every reader and
+ * writer on its thread for that long. They run instead on {@code inbound.io.gateway.threads}
+ * supervisor threads (default 1), assigned round robin, where a reconnect only delays the
+ * supervision of other listings.
+ *
+ * <p>Listings are assigned by {@code inbound.io.assignment}:
+ *
+ * <ul>
+ *   <li>{@code round_robin} (default): in the order they are configured.
+ *   <li>{@code exchange}: all listings of an exchange share a thread.
+ * </ul>
+ *
+ * <p>{@code inbound.io.thread.<listingId>=<index>} pins a single listing to a thread and takes
+ * precedence over the assignment strategy.
+ */
+public final class InboundIoThreads {
+
+    public enum Assignment {
+        ROUND_ROBIN,
+        EXCHANGE
+    }
+
+    private final CompositeAgent[] agents;
+    private final CompositeAgent[] gatewayAgents;
+    private final int[] listingCounts;
+    private final Assignment assignment;
+    private final Map<Integer, Integer> pinnedListings;
+    private int nextThread;
+    private int nextGatewayThread;
+
+    public InboundIoThreads(
+            int threads, int gatewayThreads, Assignment assignment, Map<Integer, Integer> pinnedListings) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Inbound I/O thread count must be positive: " + threads);
+        }
+        if (gatewayThreads <= 0) {
+            throw new IllegalArgumentException("Inbound gateway thread count must be positive: " + gatewayThreads);
+        }
+        this.agents = new CompositeAgent[threads];
+        this.listingCounts = new int[threads];
+        for (int i = 0; i < threads; i++) {
+            agents[i] = new CompositeAgent("inbound-io-" + i);
+        }
+        this.gatewayAgents = new CompositeAgent[gatewayThreads];
+        for (int i = 0; i < gatewayThreads; i++) {
+            gatewayAgents[i] = new CompositeAgent("inbound-gateway-" + i);
+        }
+        this.assignment = assignment;
+        this.pinnedListings = pinnedListings;
+        this.nextThread = 0;
+    }
+
+    /**
+     * Returns the shared I/O threads configured by {@code inbound.io.threads}, or {@code null} when
+     * it is unset or zero and every listing runs its agents on dedicated threads.
+     */
+    public static InboundIoThreads fromProperties(Properties properties) {
+        if (!properties.hasProperty("inbound.io.threads")) {
+            return null;
+        }
+        int threads = properties.getIntProperty("inbound.io.threads");
+        if (threads == 0) {
+            return null;
+        }
+        int gatewayThreads = properties.hasProperty("inbound.io.gateway.threads")
+                ? properties.getIntProperty("inbound.io.gateway.threads")
+                : 1;
+        Assignment assignment = properties.hasProperty("inbound.io.assignment")
+                ? Assignment.valueOf(properties.getStringProperty("inbound.io.assignment").toUpperCase())
+                : Assignment.ROUND_ROBIN;
+        Map<Integer, Integer> pinned = new HashMap<>();
+        for (Map.Entry<String, String> entry :
+                properties.getPropertiesByPrefix("inbound.io.thread.").entrySet()) {
+            pinned.put(Integer.parseInt(entry.getKey()), Integer.parseInt(entry.getValue().trim()));
+        }
+        return new InboundIoThreads(threads, gatewayThreads, assignment, pinned);
+    }
+
+    /**
+     * Returns the I/O agent that services {@code listing}.
+     */
+    public CompositeAgent assign(Listing listing) {
+        int thread = threadFor(listing);
+        listingCounts[thread]++;
+        return agents[thread];
+    }
+
+    /**
+     * Returns the supervisor agent that runs the gateway of the next listing.
+     */
+    public CompositeAgent assignGateway() {
+        return gatewayAgents[nextGatewayThread++ % gatewayAgents.length];
+    }
+
+    private int threadFor(Listing listing) {
+        Integer pinned = pinnedListings.get(listing.listingId());
+        if (pinned != null) {
+            if (pinned < 0 || pinned >= agents.length) {
+                throw new IllegalArgumentException("Listing " + listing.listingId() + " pinned to I/O thread "
+                        + pinned + " but only " + agents.length + " are configured");
+            }
+            return pinned;
+        }
+        return switch (assignment) {
+            case ROUND_ROBIN -> nextThread++ % agents.length;
+            case EXCHANGE -> Math.floorMod(listing.exchange().exchangeId(), agents.length);
+        };
+    }
+
+    /**
+     * Starts one thread per I/O and gateway agent that has been assigned at least one listing, placed
+     * by the {@code inbound-io-<index>} and {@code inbound-gateway-<index>} roles of
+     * {@code threadPlan}.
+     */
+    public void start(AgentThreadPlan threadPlan, ErrorHandler errorHandler) {
+        for (CompositeAgent agent : agents) {
+            if (agent.size() > 0) {
+                threadPlan.start(agent, errorHandler);
+            }
+        }
+        for (CompositeAgent agent : gatewayAgents) {
+            if (agent.size() > 0) {
+                threadPlan.start(agent, errorHandler);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < agents.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(agents[i].roleName()).append('=').append(listingCounts[i]).append(" listing(s)");
+        }
+        for (CompositeAgent agent : gatewayAgents) {
+            builder.append(", ").append(agent.roleName()).append('=').append(agent.size()).append(" gateway(s)");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Mbp1Schema;
+import group.gnometrading.schemas.Schema;
+import group.gnometrading.schemas.TradesSchema;
+import group.gnometrading.sequencer.GlobalSequence;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import group.gnometrading.sm.Listing;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * The market data schema a listing is delivered downstream in, from its exchange's configured
+ * {@code schemaType}.
+ *
+ * <p>Socket readers always decode the full {@link Mbp10Schema}; narrower schemas are derived from
+ * it by a {@link SchemaNarrower}. Schema types that cannot be derived from MBP-10 fall back to it.
+ * Time-sampled BBO types ({@code bbo-1s}, {@code bbo-1m}) are rejected: the narrower does not
+ * sample, and delivering every top-of-book change in their place would silently widen the stream.
+ */
+public enum InboundSchema {
+    MBP_10(Mbp10Schema::new),
+    MBP_1(Mbp1Schema::new),
+    TRADES(TradesSchema::new);
+
+    private final Supplier<? extends Schema> factory;
+
+    InboundSchema(Supplier<? extends Schema> factory) {
+        this.factory = factory;
+    }
+
+    public static InboundSchema of(Listing listing) {
+        String schemaType = String.valueOf(listing.exchange().schemaType())
+                .toLowerCase(Locale.ROOT)
+                .replace("_", "")
+                .replace("-", "");
+        return switch (schemaType) {
+            case "mbp1", "bbo" -> MBP_1;
+            case "bbo1s", "bbo1m" -> throw new IllegalArgumentException(
+                    "Sampled schema type " + listing.exchange().schemaType() + " is not supported, use mbp-1");
+            case "trades" -> TRADES;
+            default -> MBP_10;
+        };
+    }
+
+    /**
+     * Returns a ring buffer whose slots are sized for this schema.
+     */
+    public SequencedRingBuffer<?> newRingBuffer(GlobalSequence globalSequence) {
+        return newRingBuffer(factory, globalSequence);
+    }
+
+    private static <S extends Schema> SequencedRingBuffer<S> newRingBuffer(
+            Supplier<S> factory, GlobalSequence globalSequence) {
+        return new SequencedRingBuffer<>(factory, globalSequence);
+    }
+
+    /**
+     * Returns the widest schema among {@code schemas}, i.e. the one whose ring-buffer slots fit all
+     * of them.
+     */
+    public static InboundSchema widest(Iterable<InboundSchema> schemas) {
+        InboundSchema widest = TRADES;
+        for (InboundSchema schema : schemas) {
+            if (schema.ordinal() < widest.ordinal()) {
+                widest = schema;
+            }
+        }
+        return widest;
+    }
+}
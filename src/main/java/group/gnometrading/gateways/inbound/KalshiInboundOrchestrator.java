@@ -20,8 +20,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import org.agrona.concurrent.EpochNanoClock;
-import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 
 public class KalshiInboundOrchestrator extends DefaultInboundOrchestrator<Mbp10Schema> {
 
@@ -65,17 +63,6 @@ public class KalshiInboundOrchestrator extends DefaultInboundOrchestrator<Mbp10S
         return new SequencedRingBuffer<>(Mbp10Schema::new, getInstance(GlobalSequence.class));
     }
 
-    @Provides
-    @Singleton
-    public final KalshiCredentials provideKalshiCredentials(SecretsManagerClient secretsManager, Listing listing) {
-        String secretName = "gnome/exchange-credentials/kalshi";
-        String secretJson = secretsManager
-                .getSecretValue(
-                        GetSecretValueRequest.builder().secretId(secretName).build())
-                .secretString();
-        return KalshiCredentials.fromJson(secretJson);
-    }
-
     @Override
     @Provides
     @Singleton
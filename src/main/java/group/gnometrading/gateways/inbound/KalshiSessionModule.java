@@ -0,0 +1,26 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.di.Module;
+import group.gnometrading.di.Provides;
+import group.gnometrading.di.Singleton;
+import group.gnometrading.gateways.credentials.KalshiCredentials;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+
+/**
+ * Kalshi bindings that do not depend on the listing. Installed once per
+ * {@link ExchangeSessionOrchestrator} when sessions are shared.
+ */
+public class KalshiSessionModule extends Module {
+
+    @Provides
+    @Singleton
+    public final KalshiCredentials provideKalshiCredentials(SecretsManagerClient secretsManager) {
+        String secretName = "gnome/exchange-credentials/kalshi";
+        String secretJson = secretsManager
+                .getSecretValue(
+                        GetSecretValueRequest.builder().secretId(secretName).build())
+                .secretString();
+        return KalshiCredentials.fromJson(secretJson);
+    }
+}
@@ -0,0 +1,243 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.sm.Listing;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.EpochNanoClock;
+
+/**
+ * Error handler for one listing's inbound agents: reconnects with exponential backoff and escalates
+ * according to a {@link Policy} when the error rate stays too high.
+ *
+ * <p>Every error is counted by an {@link ErrorRateTracker}. A reconnect is issued through
+ * {@link MarketInboundGateway#forceReconnect()} on the first error after the current backoff has
+ * elapsed, so a burst of errors from the reader, writer and gateway threads results in a single
+ * reconnect; the backoff doubles with every reconnect up to {@code maxBackoff} and resets once the
+ * listing has been quiet for a full window. An error during the backoff leaves one reconnect pending,
+ * which runs when the backoff ends unless another error has reconnected first, so a connection
+ * that fails once and then goes silent is still retried. Reconnects requested without an error go
+ * through {@link #requestReconnect()} and share the same backoff, and every reconnect issued is
+ * reported to the listing's {@link SequenceGapTracker}, as the new connection starts a fresh
+ * snapshot and sequence. When
+ * {@code maxErrors} errors fall within one window the breaker trips and the policy decides what
+ * happens next.
+ *
+ * <p>The listing's {@link State} is derived from the time since its last error and is reported
+ * through {@link #state()} for health checks.
+ */
+public final class ListingCircuitBreaker implements ErrorHandler {
+
+    private static final long NO_PENDING_RECONNECT = Long.MIN_VALUE;
+
+    private static final ScheduledExecutorService PENDING_RECONNECTS =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "inbound-pending-reconnects");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public enum Policy {
+        /** Mark the listing degraded and keep reconnecting at the maximum backoff. */
+        DEGRADE,
+        /** Log an alert, then keep reconnecting with the normal backoff. */
+        ALERT,
+        /** Exit the process, as the inbound error handler always did before. */
+        EXIT
+    }
+
+    public enum State {
+        HEALTHY,
+        RECOVERING,
+        DEGRADED
+    }
+
+    public record Config(int maxErrors, Duration window, Duration initialBackoff, Duration maxBackoff, Policy policy) {
+
+        public static Config fromProperties(Properties properties) {
+            return new Config(
+                    intProperty(properties, "inbound.breaker.max.errors", 10),
+                    Duration.ofSeconds(intProperty(properties, "inbound.breaker.window.seconds", 60)),
+                    Duration.ofMillis(intProperty(properties, "inbound.breaker.backoff.initial.millis", 250)),
+                    Duration.ofMillis(intProperty(properties, "inbound.breaker.backoff.max.millis", 30_000)),
+                    properties.hasProperty("inbound.breaker.policy")
+                            ? Policy.valueOf(properties.getStringProperty("inbound.breaker.policy").toUpperCase())
+                            : Policy.EXIT);
+        }
+
+        private static int intProperty(Properties properties, String key, int defaultValue) {
+            return properties.hasProperty(key) ? properties.getIntProperty(key) : defaultValue;
+        }
+    }
+
+    private final Listing listing;
+    private final Config config;
+    private final Logger logger;
+    private final MarketInboundGateway gateway;
+    private final EpochNanoClock clock;
+    private final Runnable onReconnect;
+    private final ErrorRateTracker tracker;
+    private final long windowNanos;
+    private final AtomicLong nextReconnectNanos;
+    private final AtomicLong pendingReconnectNanos;
+    private final AtomicInteger attempt;
+    private final AtomicInteger reconnects;
+    private final AtomicInteger trips;
+    private volatile long lastErrorNanos;
+    private volatile boolean degraded;
+
+    /**
+     * @param onReconnect runs after each reconnect is issued
+     */
+    public ListingCircuitBreaker(
+            Listing listing,
+            Config config,
+            Logger logger,
+            MarketInboundGateway gateway,
+            EpochNanoClock clock,
+            Runnable onReconnect) {
+        this.listing = listing;
+        this.config = config;
+        this.logger = logger;
+        this.gateway = gateway;
+        this.clock = clock;
+        this.onReconnect = onReconnect;
+        this.windowNanos = config.window().toNanos();
+        this.tracker = new ErrorRateTracker(config.maxErrors(), windowNanos);
+        this.nextReconnectNanos = new AtomicLong(Long.MIN_VALUE);
+        this.pendingReconnectNanos = new AtomicLong(NO_PENDING_RECONNECT);
+        this.attempt = new AtomicInteger();
+        this.reconnects = new AtomicInteger();
+        this.trips = new AtomicInteger();
+        this.lastErrorNanos = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        logger.logf(
+                LogMessage.UNKNOWN_ERROR,
+                "Error occurred in market inbound gateway for listing %d: %s",
+                listing.listingId(),
+                error.getMessage());
+
+        long now = clock.nanoTime();
+        if (lastErrorNanos != Long.MIN_VALUE && now - lastErrorNanos > windowNanos) {
+            attempt.set(0);
+            if (degraded) {
+                degraded = false;
+                logger.logf(LogMessage.DEBUG, "Listing %d recovered from degraded state", listing.listingId());
+            }
+        }
+        lastErrorNanos = now;
+
+        if (tracker.record(now)) {
+            trip();
+        }
+        maybeReconnect(now);
+    }
+
+    /**
+     * Requests a reconnect without counting an error, such as to resync the book after a sequence
+     * gap. Honours the current backoff: a request during it runs when the backoff ends.
+     */
+    public void requestReconnect() {
+        maybeReconnect(clock.nanoTime());
+    }
+
+    private void trip() {
+        trips.incrementAndGet();
+        tracker.reset();
+        switch (config.policy()) {
+            case EXIT -> {
+                logger.log(LogMessage.FATAL_ERROR_EXITING);
+                System.exit(1);
+            }
+            case ALERT -> logger.logf(
+                    LogMessage.UNKNOWN_ERROR,
+                    "ALERT: listing %d exceeded %d errors in %s",
+                    listing.listingId(),
+                    config.maxErrors(),
+                    config.window());
+            case DEGRADE -> {
+                if (!degraded) {
+                    degraded = true;
+                    logger.logf(
+                            LogMessage.UNKNOWN_ERROR,
+                            "Listing %d degraded after %d errors in %s, reconnecting every %s",
+                            listing.listingId(),
+                            config.maxErrors(),
+                            config.window(),
+                            config.maxBackoff());
+                }
+            }
+        }
+    }
+
+    private void maybeReconnect(long now) {
+        long due = nextReconnectNanos.get();
+        if (now < due) {
+            if (pendingReconnectNanos.compareAndSet(NO_PENDING_RECONNECT, due)) {
+                PENDING_RECONNECTS.schedule(() -> runPendingReconnect(due), due - now, TimeUnit.NANOSECONDS);
+            }
+            return;
+        }
+        long backoff = degraded ? config.maxBackoff().toNanos() : backoffNanos(attempt.get());
+        if (nextReconnectNanos.compareAndSet(due, now + backoff)) {
+            pendingReconnectNanos.set(NO_PENDING_RECONNECT);
+            attempt.incrementAndGet();
+            reconnects.incrementAndGet();
+            gateway.forceReconnect();
+            onReconnect.run();
+        }
+    }
+
+    /**
+     * Runs the reconnect requested during the backoff that ended at {@code due}, unless a reconnect
+     * has been issued since, which already served it.
+     */
+    private void runPendingReconnect(long due) {
+        if (pendingReconnectNanos.compareAndSet(due, NO_PENDING_RECONNECT)) {
+            maybeReconnect(clock.nanoTime());
+        }
+    }
+
+    private long backoffNanos(int attempt) {
+        long max = config.maxBackoff().toNanos();
+        long backoff = config.initialBackoff().toNanos();
+        for (int i = 0; i < attempt && backoff < max; i++) {
+            backoff <<= 1;
+        }
+        return Math.min(backoff, max);
+    }
+
+    public Listing listing() {
+        return listing;
+    }
+
+    public State state() {
+        long last = lastErrorNanos;
+        if (last == Long.MIN_VALUE || clock.nanoTime() - last > windowNanos) {
+            return State.HEALTHY;
+        }
+        return degraded ? State.DEGRADED : State.RECOVERING;
+    }
+
+    public long totalErrors() {
+        return tracker.total();
+    }
+
+    public int trips() {
+        return trips.get();
+    }
+
+    public int reconnects() {
+        return reconnects.get();
+    }
+}
@@ -0,0 +1,88 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.schemas.Action;
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Mbp1Encoder;
+import group.gnometrading.schemas.Mbp1Schema;
+import group.gnometrading.schemas.TradesEncoder;
+import group.gnometrading.schemas.TradesSchema;
+
+/**
+ * The Mbp10 fields read or written by the inbound pipeline, in one place.
+ */
+final class Mbp10Fields {
+
+    private Mbp10Fields() {}
+
+    /**
+     * Returns the exchange sequence number of the wrapped event, or {@code -1} when the venue does
+     * not sequence its messages.
+     */
+    static long sequence(Mbp10Schema schema) {
+        long sequence = schema.decoder.sequence();
+        return sequence == 0 || sequence == schema.decoder.sequenceNullValue() ? -1 : sequence;
+    }
+
+    /**
+     * Returns the exchange timestamp of the wrapped event.
+     */
+    static long eventTimestamp(Mbp10Schema schema) {
+        return schema.decoder.timestampEvent();
+    }
+
+    /**
+     * Flags the wrapped event as possibly built on an inconsistent book.
+     */
+    static void markMaybeBadBook(Mbp10Schema schema) {
+        schema.encoder.flags().maybeBadBook(true);
+    }
+
+    static boolean isTrade(Mbp10Schema schema) {
+        return schema.decoder.action() == Action.Trade;
+    }
+
+    /**
+     * Copies the event header and book level 0 of {@code from} into {@code to}.
+     */
+    static void copyTopOfBook(Mbp10Schema from, Mbp1Schema to) {
+        Mbp10Decoder in = from.decoder;
+        Mbp1Encoder out = to.encoder;
+        out.exchangeId(in.exchangeId())
+                .securityId(in.securityId())
+                .timestampEvent(in.timestampEvent())
+                .timestampSent(in.timestampSent())
+                .timestampRecv(in.timestampRecv())
+                .price(in.price())
+                .size(in.size())
+                .action(in.action())
+                .side(in.side())
+                .sequence(in.sequence())
+                .bidPrice0(in.bidPrice0())
+                .askPrice0(in.askPrice0())
+                .bidSize0(in.bidSize0())
+                .askSize0(in.askSize0())
+                .bidCount0(in.bidCount0())
+                .askCount0(in.askCount0());
+        out.flags().clear().maybeBadBook(in.flags().maybeBadBook());
+    }
+
+    /**
+     * Copies the event header and trade of {@code from} into {@code to}.
+     */
+    static void copyTrade(Mbp10Schema from, TradesSchema to) {
+        Mbp10Decoder in = from.decoder;
+        TradesEncoder out = to.encoder;
+        out.exchangeId(in.exchangeId())
+                .securityId(in.securityId())
+                .timestampEvent(in.timestampEvent())
+                .timestampSent(in.timestampSent())
+                .timestampRecv(in.timestampRecv())
+                .price(in.price())
+                .size(in.size())
+                .action(in.action())
+                .side(in.side())
+                .sequence(in.sequence());
+        out.flags().clear().maybeBadBook(in.flags().maybeBadBook());
+    }
+}
@@ -0,0 +1,68 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Mbp1Schema;
+import group.gnometrading.schemas.TradesSchema;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Re-encodes MBP-10 events from a socket reader into a listing's narrower {@link InboundSchema}
+ * and publishes them to a downstream ring buffer.
+ *
+ * <p>Top-of-book events keep level 0; trade events keep only trades and drop every book update.
+ * Events of other templates are forwarded unchanged. Owns one scratch schema and does not
+ * allocate per event, so it must only be used by one thread.
+ */
+public abstract class SchemaNarrower {
+
+    protected final Mbp10Schema mbp10 = new Mbp10Schema();
+
+    /**
+     * Returns the narrower for {@code schema}, or {@code null} when events need no conversion.
+     */
+    public static SchemaNarrower forSchema(InboundSchema schema) {
+        return switch (schema) {
+            case MBP_10 -> null;
+            case MBP_1 -> new TopOfBook();
+            case TRADES -> new Trades();
+        };
+    }
+
+    public final void publish(int templateId, UnsafeBuffer buffer, int length, SequencedRingBuffer<?> target) {
+        if (templateId != Mbp10Decoder.TEMPLATE_ID) {
+            target.publishRaw(buffer, templateId, length);
+            return;
+        }
+        mbp10.wrap(buffer);
+        narrow(target);
+    }
+
+    protected abstract void narrow(SequencedRingBuffer<?> target);
+
+    private static final class TopOfBook extends SchemaNarrower {
+
+        private final Mbp1Schema mbp1 = new Mbp1Schema();
+
+        @Override
+        protected void narrow(SequencedRingBuffer<?> target) {
+            Mbp10Fields.copyTopOfBook(mbp10, mbp1);
+            target.publishRaw(mbp1.buffer, mbp1.messageHeaderDecoder.templateId(), mbp1.totalMessageSize());
+        }
+    }
+
+    private static final class Trades extends SchemaNarrower {
+
+        private final TradesSchema trades = new TradesSchema();
+
+        @Override
+        protected void narrow(SequencedRingBuffer<?> target) {
+            if (Mbp10Fields.isTrade(mbp10)) {
+                Mbp10Fields.copyTrade(mbp10, trades);
+                target.publishRaw(
+                        trades.buffer, trades.messageHeaderDecoder.templateId(), trades.totalMessageSize());
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.sequencer.SequencedEventHandler;
+import group.gnometrading.sm.Listing;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Sits in front of a listing's consumer, checks the exchange sequence of every Mbp10 event and
+ * requests a resync through {@link BookResync} when one is missing, if the listing's reader can
+ * resync.
+ *
+ * <p>Events from the gap until the snapshot boundary are flagged {@code maybeBadBook} before the
+ * consumer sees them, so downstream consumers can tell recovered data apart. The ring buffer slot
+ * is shared with the buffer's other consumers, so a flagged event is copied into a buffer owned by
+ * the detector and the consumer is given the copy.
+ */
+public final class SequenceGapDetector implements SequencedEventHandler {
+
+    private final Listing listing;
+    private final SequenceGapTracker tracker;
+    private final BookResync resync;
+    private final Logger logger;
+    private final EpochNanoClock clock;
+    private final SequencedEventHandler delegate;
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+    private UnsafeBuffer flagged = new UnsafeBuffer(new byte[0]);
+
+    public SequenceGapDetector(
+            Listing listing,
+            SequenceGapTracker tracker,
+            BookResync resync,
+            Logger logger,
+            EpochNanoClock clock,
+            SequencedEventHandler delegate) {
+        this.listing = listing;
+        this.tracker = tracker;
+        this.resync = resync;
+        this.logger = logger;
+        this.clock = clock;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onEvent(long globalSequence, int templateId, UnsafeBuffer buffer, int length) throws Exception {
+        if (templateId == Mbp10Decoder.TEMPLATE_ID) {
+            mbp10.wrap(buffer);
+            switch (tracker.onSequence(Mbp10Fields.sequence(mbp10), clock.nanoTime())) {
+                case GAP -> {
+                    logger.logf(
+                            LogMessage.DEBUG,
+                            "Sequence gap on listing %d (%d gaps so far)",
+                            listing.listingId(),
+                            tracker.gaps());
+                    delegate.onEvent(globalSequence, templateId, flag(buffer, length), length);
+                    resync.requestSnapshot();
+                    return;
+                }
+                case RECOVERING -> {
+                    delegate.onEvent(globalSequence, templateId, flag(buffer, length), length);
+                    return;
+                }
+                default -> {
+                    /* in order, duplicate or recovered */
+                }
+            }
+        }
+        delegate.onEvent(globalSequence, templateId, buffer, length);
+    }
+
+    private UnsafeBuffer flag(UnsafeBuffer buffer, int length) {
+        if (flagged.capacity() < length) {
+            flagged = new UnsafeBuffer(new byte[length]);
+        }
+        flagged.putBytes(0, buffer, 0, length);
+        mbp10.wrap(flagged);
+        Mbp10Fields.markMaybeBadBook(mbp10);
+        return flagged;
+    }
+}
@@ -0,0 +1,80 @@
+package group.gnometrading.gateways.inbound;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.sequencer.SequencedEventHandler;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Puts the trading path behind each listing's {@link SequenceGapDetector}.
+ *
+ * <p>Collectors consume a listing's buffer through the detector directly. The trading path hands
+ * the buffer to the multiplexer or the strategy instead, so this agent polls it through the
+ * detector and republishes every event to a buffer of its own: gaps request a resync and events
+ * until the snapshot boundary arrive flagged {@code maybeBadBook}, as they do for collectors.
+ *
+ * <p>One relay polls every listing on a single thread and is the sole producer of the output
+ * buffers. The poll loop does not allocate, but every event costs an extra thread handoff and a copy
+ * into the output buffer on the way to the strategy.
+ *
+ * <p>Enabled by {@code inbound.gap.detection}.
+ */
+public final class SequenceGapRelay implements GnomeAgent {
+
+    private final List<SequencedPoller> pollers = new ArrayList<>();
+    private SequencedPoller[] polled = new SequencedPoller[0];
+
+    /**
+     * Relays {@code source}, a buffer carrying the listing of {@code inbound}, through that
+     * listing's gap detector and returns the buffer the checked events go to.
+     */
+    public SequencedRingBuffer<?> add(DefaultInboundOrchestrator<?> inbound, SequencedRingBuffer<?> source) {
+        SequencedRingBuffer<?> output = inbound.newSequencedRingBuffer();
+        relay(inbound, source, (globalSequence, templateId, buffer, length) ->
+                output.publishRaw(buffer, templateId, length));
+        return output;
+    }
+
+    /**
+     * As {@link #add(DefaultInboundOrchestrator, SequencedRingBuffer)}, but re-encodes the checked
+     * events with {@code narrower} into {@code output}, so a listing delivered in a narrower schema
+     * needs no further hop.
+     */
+    public void add(
+            DefaultInboundOrchestrator<?> inbound,
+            SequencedRingBuffer<?> source,
+            SchemaNarrower narrower,
+            SequencedRingBuffer<?> output) {
+        relay(inbound, source, (globalSequence, templateId, buffer, length) ->
+                narrower.publish(templateId, buffer, length, output));
+    }
+
+    private void relay(
+            DefaultInboundOrchestrator<?> inbound, SequencedRingBuffer<?> source, SequencedEventHandler forward) {
+        pollers.add(source.createPoller(inbound.withGapDetection(forward)));
+        polled = pollers.toArray(new SequencedPoller[0]);
+    }
+
+    public int size() {
+        return pollers.size();
+    }
+
+    @Override
+    public String roleName() {
+        return "sequence-gap-relay";
+    }
+
+    @Override
+    public void onStart() {}
+
+    @Override
+    public int doWork() throws Exception {
+        int work = 0;
+        for (SequencedPoller poller : polled) {
+            work += poller.poll();
+        }
+        return work;
+    }
+}
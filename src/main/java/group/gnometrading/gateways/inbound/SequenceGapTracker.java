@@ -0,0 +1,158 @@
+package group.gnometrading.gateways.inbound;
+
+/**
+ * Tracks one listing's exchange sequence numbers, detects gaps and measures how long it takes to
+ * resynchronize after one.
+ *
+ * <p>After a gap the tracker is <em>recovering</em>: every event is reported as
+ * {@link Result#RECOVERING} until the snapshot boundary, which is reported as
+ * {@link Result#RECOVERED}. The boundary is the first discontinuity after the resync has actually
+ * been issued ({@link #onResyncIssued()}); a discontinuity before that, while the request waits out
+ * a reconnect backoff, is another gap on the old connection and keeps the tracker recovering. If
+ * no boundary arrives within the recovery timeout, recovery ends on the next event and is counted
+ * as timed out.
+ *
+ * <p>{@link #onResyncIssued()} is also called for every reconnect that is not a resync, such as one
+ * after an error. A new connection may start its sequence anywhere, so outside recovery the first
+ * event after it is a new baseline: neither a gap nor a duplicate.
+ *
+ * <p>Negative sequence numbers mean the venue does not sequence its messages; they are ignored.
+ * Written by a single consumer thread, except {@link #onResyncIssued()}; the counters may be read
+ * from any thread.
+ */
+public final class SequenceGapTracker {
+
+    public enum Result {
+        IN_ORDER,
+        DUPLICATE,
+        GAP,
+        RECOVERING,
+        RECOVERED
+    }
+
+    private final long recoveryTimeoutNanos;
+    private long lastSequence;
+    private boolean recovering;
+    private long recoveryStartNanos;
+    private volatile boolean resyncIssued;
+
+    private volatile long gaps;
+    private volatile long missedMessages;
+    private volatile long duplicates;
+    private volatile long recoveries;
+    private volatile long recoveryTimeouts;
+    private volatile long lastRecoveryNanos;
+    private volatile long maxRecoveryNanos;
+
+    public SequenceGapTracker(long recoveryTimeoutNanos) {
+        this.recoveryTimeoutNanos = recoveryTimeoutNanos;
+        this.lastSequence = -1;
+    }
+
+    public Result onSequence(long sequence, long nowNanos) {
+        if (sequence < 0) {
+            return Result.IN_ORDER;
+        }
+        if (recovering) {
+            return onRecoveringSequence(sequence, nowNanos);
+        }
+        if (lastSequence < 0 || resyncIssued) {
+            resyncIssued = false;
+            lastSequence = sequence;
+            return Result.IN_ORDER;
+        }
+        if (sequence == lastSequence + 1) {
+            lastSequence = sequence;
+            return Result.IN_ORDER;
+        }
+        if (sequence <= lastSequence) {
+            duplicates++;
+            return Result.DUPLICATE;
+        }
+        gaps++;
+        missedMessages += sequence - lastSequence - 1;
+        lastSequence = sequence;
+        recovering = true;
+        resyncIssued = false;
+        recoveryStartNanos = nowNanos;
+        return Result.GAP;
+    }
+
+    /**
+     * Marks that a reconnect or resync has been issued: while recovering, the next discontinuity is
+     * the snapshot boundary; otherwise the next event starts a new baseline. May be called from any
+     * thread.
+     */
+    public void onResyncIssued() {
+        resyncIssued = true;
+    }
+
+    private Result onRecoveringSequence(long sequence, long nowNanos) {
+        boolean boundary = sequence != lastSequence + 1;
+        long elapsed = nowNanos - recoveryStartNanos;
+        if (boundary && !resyncIssued) {
+            if (sequence <= lastSequence) {
+                duplicates++;
+            } else {
+                gaps++;
+                missedMessages += sequence - lastSequence - 1;
+                lastSequence = sequence;
+            }
+            return elapsed > recoveryTimeoutNanos ? timeOut() : Result.RECOVERING;
+        }
+        lastSequence = sequence;
+        if (boundary) {
+            recovering = false;
+            resyncIssued = false;
+            recoveries++;
+            lastRecoveryNanos = elapsed;
+            if (elapsed > maxRecoveryNanos) {
+                maxRecoveryNanos = elapsed;
+            }
+            return Result.RECOVERED;
+        }
+        if (elapsed > recoveryTimeoutNanos) {
+            return timeOut();
+        }
+        return Result.RECOVERING;
+    }
+
+    private Result timeOut() {
+        recovering = false;
+        resyncIssued = false;
+        recoveryTimeouts++;
+        return Result.RECOVERED;
+    }
+
+    public boolean isRecovering() {
+        return recovering;
+    }
+
+    public long gaps() {
+        return gaps;
+    }
+
+    public long missedMessages() {
+        return missedMessages;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    public long recoveries() {
+        return recoveries;
+    }
+
+    public long recoveryTimeouts() {
+        return recoveryTimeouts;
+    }
+
+    public long lastRecoveryNanos() {
+        return lastRecoveryNanos;
+    }
+
+    public long maxRecoveryNanos() {
+        return maxRecoveryNanos;
+    }
+}
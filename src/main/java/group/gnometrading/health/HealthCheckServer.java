@@ -3,7 +3,9 @@ package group.gnometrading.health;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,6 +33,24 @@ public final class HealthCheckServer {
         this.server.setExecutor(null);
     }
 
+    /**
+     * Serves the JSON document produced by {@code body} on {@code path}. Must be called before
+     * {@link #start()}.
+     */
+    public HealthCheckServer addJsonEndpoint(String path, Supplier<String> body) {
+        this.server.createContext(path, exchange -> {
+            boolean isHead = "HEAD".equals(exchange.getRequestMethod());
+            byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, isHead ? -1 : bytes.length);
+            if (!isHead) {
+                exchange.getResponseBody().write(bytes);
+            }
+            exchange.getResponseBody().close();
+        });
+        return this;
+    }
+
     public void start() {
         this.server.start();
     }
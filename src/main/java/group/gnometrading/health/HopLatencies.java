@@ -0,0 +1,164 @@
+package group.gnometrading.health;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.sm.Listing;
+import java.util.List;
+import java.util.Locale;
+import org.agrona.concurrent.EpochClock;
+
+/**
+ * Per-listing latency histograms for each hop a market data event takes from the venue to the
+ * strategy, all measured from the event's own timestamps:
+ *
+ * <ul>
+ *   <li>{@link Hop#VENUE_TO_RECEIVE}: venue timestamp to socket receive, i.e. venue-to-us lag
+ *       (includes clock offset between the venue and us).
+ *   <li>{@link Hop#RECEIVE_TO_MULTIPLEXER}: socket receive to the {@code MarketDataMultiplexer}
+ *       forwarding it, covering decode, the publish into the listing's ring buffer and queueing.
+ *       Sessions without a multiplexer record socket receive to the strategy thread picking it up.
+ *   <li>{@link Hop#RECEIVE_TO_STRATEGY}: socket receive to the strategy's duty cycle returning,
+ *       which is when it has consumed the event only if the strategy drains its buffer every
+ *       cycle; see {@code StrategyLatencyProbe}.
+ * </ul>
+ *
+ * <p>The publish into the listing's ring buffer is not a hop of its own: it happens inside the
+ * socket reader, and events carry no timestamp from that point, so it is measured as part of
+ * {@link Hop#RECEIVE_TO_MULTIPLEXER}.
+ *
+ * <p>As an agent it logs a snapshot of every histogram each {@code latency.log.interval.seconds};
+ * {@link #toJson()} serves the same snapshot on the admin endpoint.
+ */
+public final class HopLatencies implements GnomeAgent {
+
+    public enum Hop {
+        VENUE_TO_RECEIVE,
+        RECEIVE_TO_MULTIPLEXER,
+        RECEIVE_TO_STRATEGY
+    }
+
+    private static final Hop[] HOPS = Hop.values();
+
+    private final List<Listing> listings;
+    private final LatencyHistogram[][] histograms;
+    private final Logger logger;
+    private final EpochClock clock;
+    private final long logIntervalMillis;
+    private long nextLogMillis;
+
+    public HopLatencies(List<Listing> listings, Logger logger, EpochClock clock, long logIntervalMillis) {
+        this.listings = List.copyOf(listings);
+        this.histograms = new LatencyHistogram[listings.size()][HOPS.length];
+        for (LatencyHistogram[] listingHistograms : histograms) {
+            for (int hop = 0; hop < HOPS.length; hop++) {
+                listingHistograms[hop] = new LatencyHistogram();
+            }
+        }
+        this.logger = logger;
+        this.clock = clock;
+        this.logIntervalMillis = logIntervalMillis;
+    }
+
+    /**
+     * Returns the index of the listing for an event's exchange and security, or {@code -1}.
+     */
+    public int indexOf(long exchangeId, long securityId) {
+        for (int i = 0; i < listings.size(); i++) {
+            Listing listing = listings.get(i);
+            if (listing.exchange().exchangeId() == exchangeId && listing.security().securityId() == securityId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void record(int listingIndex, Hop hop, long nanos) {
+        histograms[listingIndex][hop.ordinal()].record(nanos);
+    }
+
+    /**
+     * Returns how many events have been recorded for a listing at {@code hop}.
+     */
+    public long count(int listingIndex, Hop hop) {
+        return histograms[listingIndex][hop.ordinal()].count();
+    }
+
+    @Override
+    public String roleName() {
+        return "latency-reporter";
+    }
+
+    @Override
+    public void onStart() {
+        nextLogMillis = clock.time() + logIntervalMillis;
+    }
+
+    @Override
+    public int doWork() {
+        long now = clock.time();
+        if (now < nextLogMillis) {
+            return 0;
+        }
+        nextLogMillis = now + logIntervalMillis;
+        logger.logf(LogMessage.DEBUG, "%s", summary());
+        return 1;
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Market data hop latencies (us, p50/p99/p99.9/max):");
+        for (int i = 0; i < listings.size(); i++) {
+            summary.append(String.format(Locale.ROOT, "%n  listing %d:", listings.get(i).listingId()));
+            for (Hop hop : HOPS) {
+                LatencyHistogram.Snapshot snapshot = histograms[i][hop.ordinal()].snapshot();
+                if (snapshot.count() == 0) {
+                    continue;
+                }
+                summary.append(String.format(
+                        Locale.ROOT,
+                        " %s %.1f/%.1f/%.1f/%.1f",
+                        hop.name().toLowerCase(Locale.ROOT),
+                        snapshot.p50() / 1_000.0,
+                        snapshot.p99() / 1_000.0,
+                        snapshot.p999() / 1_000.0,
+                        snapshot.max() / 1_000.0));
+            }
+        }
+        return summary.toString();
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"listings\":[");
+        for (int i = 0; i < listings.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"listingId\":").append(listings.get(i).listingId()).append(",\"hops\":{");
+            for (Hop hop : HOPS) {
+                LatencyHistogram.Snapshot snapshot = histograms[i][hop.ordinal()].snapshot();
+                if (hop.ordinal() > 0) {
+                    json.append(',');
+                }
+                json.append('"')
+                        .append(hop.name().toLowerCase(Locale.ROOT))
+                        .append("\":{\"count\":")
+                        .append(snapshot.count())
+                        .append(",\"negative\":")
+                        .append(snapshot.negative())
+                        .append(",\"p50Nanos\":")
+                        .append(snapshot.p50())
+                        .append(",\"p90Nanos\":")
+                        .append(snapshot.p90())
+                        .append(",\"p99Nanos\":")
+                        .append(snapshot.p99())
+                        .append(",\"p999Nanos\":")
+                        .append(snapshot.p999())
+                        .append(",\"maxNanos\":")
+                        .append(snapshot.max())
+                        .append('}');
+            }
+            json.append("}}");
+        }
+        return json.append("]}").toString();
+    }
+}
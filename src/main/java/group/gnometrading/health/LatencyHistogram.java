@@ -0,0 +1,101 @@
+package group.gnometrading.health;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, log-linear latency histogram in the style of HdrHistogram.
+ *
+ * <p>Values are bucketed by power of two, and each power of two is split into eight linear
+ * sub-buckets, so a recorded value is reported within 12.5% of its true value across the whole
+ * {@code long} range. Recording is allocation-free and lock-free; it is meant for a single writer
+ * thread, which publishes every update with an ordered store rather than a full fence, while
+ * snapshots may be taken from any thread. Negative values, e.g. from clock skew
+ * between the venue and us, are counted in the lowest bucket and tallied separately.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    public record Snapshot(long count, long negative, long p50, long p90, long p99, long p999, long max) {}
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong negative = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            negative.lazySet(negative.get() + 1);
+            value = 0;
+        }
+        int index = indexOf(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        if (value > max.get()) {
+            max.lazySet(value);
+        }
+        count.lazySet(count.get() + 1);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long highest = max.get();
+        return new Snapshot(
+                total,
+                negative.get(),
+                percentile(copy, total, 0.50, highest),
+                percentile(copy, total, 0.90, highest),
+                percentile(copy, total, 0.99, highest),
+                percentile(copy, total, 0.999, highest),
+                highest);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value that falls into bucket {@code index}.
+     */
+    static long upperBound(int index) {
+        int bucket = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        if (bucket == 0) {
+            return subBucket;
+        }
+        int shift = bucket - 1;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,57 @@
+package group.gnometrading.health;
+
+import group.gnometrading.gateways.inbound.DefaultInboundOrchestrator;
+import group.gnometrading.gateways.inbound.ListingCircuitBreaker;
+import group.gnometrading.gateways.inbound.SequenceGapTracker;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the circuit-breaker state and sequence-gap metrics of every inbound listing as JSON for
+ * the {@code /listings} health endpoint.
+ */
+public final class ListingHealthReport {
+
+    private ListingHealthReport() {}
+
+    public static String toJson(Collection<? extends DefaultInboundOrchestrator<?>> inbounds) {
+        StringBuilder json = new StringBuilder("{\"listings\":[");
+        boolean first = true;
+        for (DefaultInboundOrchestrator<?> inbound : inbounds) {
+            ListingCircuitBreaker breaker = inbound.getCircuitBreaker();
+            SequenceGapTracker gaps = inbound.getSequenceGapTracker();
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"listingId\":")
+                    .append(breaker.listing().listingId())
+                    .append(",\"state\":\"")
+                    .append(breaker.state())
+                    .append("\",\"errors\":")
+                    .append(breaker.totalErrors())
+                    .append(",\"reconnects\":")
+                    .append(breaker.reconnects())
+                    .append(",\"trips\":")
+                    .append(breaker.trips())
+                    .append(",\"gaps\":")
+                    .append(gaps.gaps())
+                    .append(",\"missedMessages\":")
+                    .append(gaps.missedMessages())
+                    .append(",\"duplicates\":")
+                    .append(gaps.duplicates())
+                    .append(",\"recovering\":")
+                    .append(gaps.isRecovering())
+                    .append(",\"recoveries\":")
+                    .append(gaps.recoveries())
+                    .append(",\"recoveryTimeouts\":")
+                    .append(gaps.recoveryTimeouts())
+                    .append(",\"lastRecoveryMicros\":")
+                    .append(TimeUnit.NANOSECONDS.toMicros(gaps.lastRecoveryNanos()))
+                    .append(",\"maxRecoveryMicros\":")
+                    .append(TimeUnit.NANOSECONDS.toMicros(gaps.maxRecoveryNanos()))
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -6,6 +6,7 @@ import group.gnometrading.di.Named;
 import group.gnometrading.di.Provides;
 import group.gnometrading.di.Singleton;
 import group.gnometrading.resources.Properties;
+import group.gnometrading.utils.AgentThreadPlan;
 import java.io.IOException;
 
 public class PropertiesModule extends Module {
@@ -21,4 +22,49 @@ public class PropertiesModule extends Module {
         final String path = "orchestrator.%s.properties".formatted(stage.getStageName());
         return new Properties(path, cliArgs);
     }
+
+    @Provides
+    @Named("PARALLEL_WARM_UP")
+    public final Boolean provideParallelWarmUp(Properties properties) {
+        return properties.hasProperty("startup.parallel.warmup")
+                && properties.getBooleanProperty("startup.parallel.warmup");
+    }
+
+    @Provides
+    @Singleton
+    public final AgentThreadPlan provideAgentThreadPlan(Properties properties) {
+        return AgentThreadPlan.fromProperties(properties);
+    }
+
+    @Provides
+    @Named("SHARED_EXCHANGE_SESSIONS")
+    public final Boolean provideSharedExchangeSessions(Properties properties) {
+        return properties.hasProperty("inbound.shared.sessions")
+                && properties.getBooleanProperty("inbound.shared.sessions");
+    }
+
+    @Provides
+    @Named("SEQUENCE_GAP_DETECTION")
+    public final Boolean provideSequenceGapDetection(Properties properties) {
+        return properties.hasProperty("inbound.gap.detection")
+                && properties.getBooleanProperty("inbound.gap.detection");
+    }
+
+    @Provides
+    @Named("LATENCY_TRACKING")
+    public final Boolean provideLatencyTracking(Properties properties) {
+        return properties.hasProperty("latency.tracking") && properties.getBooleanProperty("latency.tracking");
+    }
+
+    @Provides
+    @Named("STREAMING_UPLOADS")
+    public final Boolean provideStreamingUploads(Properties properties) {
+        return properties.hasProperty("upload.streaming") && properties.getBooleanProperty("upload.streaming");
+    }
+
+    @Provides
+    @Named("COLLECTOR_AGGREGATES")
+    public final Boolean provideCollectorAggregates(Properties properties) {
+        return properties.hasProperty("aggregate.enabled") && properties.getBooleanProperty("aggregate.enabled");
+    }
 }
@@ -0,0 +1,85 @@
+package group.gnometrading.testing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A file of raw exchange frames as they came off the socket, each stored as its receive time in
+ * epoch nanoseconds, its length and its bytes. Captures from other sources are converted into this
+ * layout with {@link Writer}.
+ *
+ * <p>The reader reuses one frame buffer, growing it as needed, so iterating a capture does not
+ * allocate per frame.
+ */
+public final class CapturedFrames implements Closeable {
+
+    private final DataInputStream input;
+    private byte[] frame = new byte[1 << 16];
+    private int length;
+    private long receiveNanos;
+
+    public CapturedFrames(Path path) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 20));
+    }
+
+    /**
+     * Advances to the next frame; returns {@code false} at the end of the capture.
+     */
+    public boolean next() throws IOException {
+        try {
+            receiveNanos = input.readLong();
+        } catch (EOFException e) {
+            return false;
+        }
+        length = input.readInt();
+        if (length > frame.length) {
+            frame = new byte[Integer.highestOneBit(length) << 1];
+        }
+        input.readFully(frame, 0, length);
+        return true;
+    }
+
+    public long receiveNanos() {
+        return receiveNanos;
+    }
+
+    public byte[] frame() {
+        return frame;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream output;
+
+        public Writer(Path path) throws IOException {
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 20));
+        }
+
+        public void append(long receiveNanos, byte[] frame, int offset, int length) throws IOException {
+            output.writeLong(receiveNanos);
+            output.writeInt(length);
+            output.write(frame, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.logging.Logger;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays captured FIX messages after accepting the client's Logon. Serves the Binance FIX reader.
+ *
+ * <p>The Logon is answered with the comp IDs swapped and any signature ignored. A captured frame is
+ * one socket read, so it may hold several messages or end part way through one: frames are split
+ * into whole messages, and a trailing partial message waits for the next frame. Each message is
+ * renumbered from {@code MsgSeqNum} 2 on every connection, with body length and checksum
+ * recomputed, so a reconnecting client never sees a sequence gap from the stand-in itself. Fields
+ * are kept as an ordered list, so repeating groups survive the rewrite.
+ */
+public final class FixReplayServer extends ReplayServer {
+
+    private static final byte SOH = 0x01;
+    private static final DateTimeFormatter SENDING_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.SSS");
+
+    private final StringBuilder pending = new StringBuilder();
+    private int nextSequence;
+
+    public FixReplayServer(Config config, Logger logger) throws IOException {
+        super(config, logger);
+    }
+
+    @Override
+    protected void handshake(InputStream in, OutputStream out) throws IOException {
+        List<String[]> logon = parse(readMessage(in));
+        if (!"A".equals(get(logon, "35", null))) {
+            throw new IOException("Expected Logon, got MsgType " + get(logon, "35", null));
+        }
+        List<String[]> reply = new ArrayList<>();
+        reply.add(new String[] {"35", "A"});
+        reply.add(new String[] {"49", get(logon, "56", "EXCHANGE")});
+        reply.add(new String[] {"56", get(logon, "49", "CLIENT")});
+        reply.add(new String[] {"34", "1"});
+        reply.add(new String[] {"52", ZonedDateTime.now(ZoneOffset.UTC).format(SENDING_TIME)});
+        reply.add(new String[] {"98", "0"});
+        reply.add(new String[] {"108", get(logon, "108", "30")});
+        out.write(encode(get(logon, "8", "FIXT.1.1"), reply));
+        nextSequence = 2;
+        pending.setLength(0);
+    }
+
+    @Override
+    protected void writeFrame(OutputStream out, byte[] frame, int length) throws IOException {
+        pending.append(new String(frame, 0, length, StandardCharsets.ISO_8859_1));
+        int start = 0;
+        int end;
+        while ((end = messageEnd(pending, start)) > 0) {
+            writeMessage(out, pending.substring(start, end));
+            start = end;
+        }
+        pending.delete(0, start);
+    }
+
+    private void writeMessage(OutputStream out, String message) throws IOException {
+        List<String[]> fields = parse(message);
+        for (String[] field : fields) {
+            if (field[0].equals("34")) {
+                field[1] = Integer.toString(nextSequence);
+                break;
+            }
+        }
+        nextSequence++;
+        out.write(encode(get(fields, "8", "FIXT.1.1"), fields));
+    }
+
+    /**
+     * Returns the index just past the CheckSum field of the message starting at {@code start}, or
+     * {@code -1} when {@code data} does not hold the whole message yet.
+     */
+    static int messageEnd(CharSequence data, int start) {
+        int field = start;
+        for (int i = start; i < data.length(); i++) {
+            if (data.charAt(i) == SOH) {
+                if (i - field > 3 && data.charAt(field) == '1' && data.charAt(field + 1) == '0'
+                        && data.charAt(field + 2) == '=') {
+                    return i + 1;
+                }
+                field = i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Encodes {@code fields} after the standard header, computing BodyLength and CheckSum. Tags 8,
+     * 9 and 10 in {@code fields} are ignored.
+     */
+    static byte[] encode(String beginString, List<String[]> fields) {
+        StringBuilder body = new StringBuilder();
+        for (String[] field : fields) {
+            String tag = field[0];
+            if (!tag.equals("8") && !tag.equals("9") && !tag.equals("10")) {
+                body.append(tag).append('=').append(field[1]).append((char) SOH);
+            }
+        }
+        String head = "8=" + beginString + (char) SOH + "9=" + body.length() + (char) SOH;
+        byte[] message = (head + body).getBytes(StandardCharsets.ISO_8859_1);
+        int checksum = 0;
+        for (byte b : message) {
+            checksum += b & 0xFF;
+        }
+        byte[] trailer = String.format("10=%03d%c", checksum % 256, (char) SOH).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] encoded = new byte[message.length + trailer.length];
+        System.arraycopy(message, 0, encoded, 0, message.length);
+        System.arraycopy(trailer, 0, encoded, message.length, trailer.length);
+        return encoded;
+    }
+
+    static List<String[]> parse(String message) {
+        List<String[]> fields = new ArrayList<>();
+        int start = 0;
+        while (start < message.length()) {
+            int end = message.indexOf((char) SOH, start);
+            if (end < 0) {
+                end = message.length();
+            }
+            int equals = message.indexOf('=', start);
+            if (equals > start && equals < end) {
+                fields.add(new String[] {message.substring(start, equals), message.substring(equals + 1, end)});
+            }
+            start = end + 1;
+        }
+        return fields;
+    }
+
+    private static String get(List<String[]> fields, String tag, String defaultValue) {
+        for (String[] field : fields) {
+            if (field[0].equals(tag)) {
+                return field[1];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static String readMessage(InputStream in) throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        int fieldStart = 0;
+        int b;
+        while ((b = in.read()) >= 0) {
+            message.write(b);
+            if (b == SOH) {
+                String field = message.toString(StandardCharsets.ISO_8859_1).substring(fieldStart);
+                if (field.startsWith("10=")) {
+                    return message.toString(StandardCharsets.ISO_8859_1);
+                }
+                fieldStart = message.size();
+            }
+        }
+        throw new IOException("Connection closed before Logon");
+    }
+}
@@ -0,0 +1,183 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.SecurityMaster;
+import group.gnometrading.collector.MarketDataCollector;
+import group.gnometrading.di.Orchestrator;
+import group.gnometrading.di.Provides;
+import group.gnometrading.di.Singleton;
+import group.gnometrading.gateways.inbound.InboundSchema;
+import group.gnometrading.gateways.inbound.SchemaNarrower;
+import group.gnometrading.health.HopLatencies;
+import group.gnometrading.logging.ConsoleLogger;
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.sequencer.GlobalSequence;
+import group.gnometrading.sequencer.SchemaEventAdapter;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import group.gnometrading.shared.AwsModule;
+import group.gnometrading.shared.SecurityMasterModule;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.trading.MarketDataMultiplexer;
+import group.gnometrading.utils.AgentThreadPlan;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.SystemEpochClock;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Drives the market data consumers with synthetic MBP-10 book updates for any number of listings
+ * at a configured rate, to find the rate at which they saturate.
+ *
+ * <p>A {@link SyntheticBookGenerator} replaces the inbound gateways and publishes straight into
+ * per-listing ring buffers. What consumes them depends on {@code load.target}:
+ *
+ * <ul>
+ *   <li>{@code trading} (default): the {@code TradingOrchestrator} market data path, i.e. a
+ *       {@link MarketDataMultiplexer} narrowing each listing to its schema into one strategy buffer,
+ *       drained by a consumer in place of the strategy.
+ *   <li>{@code collector}: one {@link MarketDataCollector} per listing, writing to
+ *       {@code output.bucket}, as {@code DelegatingCollectorOrchestrator} runs them.
+ * </ul>
+ *
+ * <p>A {@link LoadReporter} logs achieved rates, generator drops, per-stage backlog and late events
+ * every {@code load.report.interval.seconds}. Configured by {@code listings} and:
+ *
+ * <ul>
+ *   <li>{@code load.rate}: steady total msg/s; {@code load.burst.rate},
+ *       {@code load.burst.duration.millis} and {@code load.burst.interval.millis} add bursts.
+ *   <li>{@code load.max.lag.millis}: how far the generator may fall behind before it drops
+ *       (default 100).
+ *   <li>{@code load.batch}: most messages published per duty cycle (default 1024).
+ *   <li>{@code load.late.threshold.micros}: generation-to-consumer latency counted as late
+ *       (default 1000).
+ *   <li>{@code load.seed}: random seed for the synthetic books (default 0).
+ * </ul>
+ *
+ * <p>Agents are placed by the usual {@code threads.*} properties; the generator's role is
+ * {@code load-generator}.
+ */
+public class LoadGeneratorOrchestrator extends Orchestrator {
+
+    static {
+        instanceClass = LoadGeneratorOrchestrator.class;
+    }
+
+    private static final int DEFAULT_BATCH = 1024;
+    private static final int DEFAULT_MAX_LAG_MILLIS = 100;
+    private static final int DEFAULT_LATE_THRESHOLD_MICROS = 1_000;
+    private static final int DEFAULT_REPORT_INTERVAL_SECONDS = 5;
+
+    @Provides
+    public final Clock provideClock() {
+        return Clock.systemUTC();
+    }
+
+    @Provides
+    public final EpochNanoClock provideEpochNanoClock() {
+        return new SystemEpochNanoClock();
+    }
+
+    @Provides
+    @Singleton
+    public final Logger provideLogger(EpochNanoClock epochClock) {
+        return new ConsoleLogger(epochClock);
+    }
+
+    @Override
+    public final void configure() {
+        install(new SecurityMasterModule(), new AwsModule());
+        Logger logger = getInstance(Logger.class);
+        Properties properties = getInstance(Properties.class);
+        SecurityMaster securityMaster = getInstance(SecurityMaster.class);
+        EpochNanoClock clock = getInstance(EpochNanoClock.class);
+
+        List<Listing> listings = Arrays.stream(properties.getStringProperty("listings").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .map(securityMaster::getListing)
+                .toList();
+
+        GlobalSequence globalSequence = new GlobalSequence();
+        List<SequencedRingBuffer<?>> listingBuffers = new ArrayList<>(listings.size());
+        for (int i = 0; i < listings.size(); i++) {
+            listingBuffers.add(new SequencedRingBuffer<>(Mbp10Schema::new, globalSequence));
+        }
+
+        long lateThresholdNanos = TimeUnit.MICROSECONDS.toNanos(intProperty(
+                properties, "load.late.threshold.micros", DEFAULT_LATE_THRESHOLD_MICROS));
+        LoadSink sink = new LoadSink(listings, clock, lateThresholdNanos);
+
+        String target = properties.hasProperty("load.target") ? properties.getStringProperty("load.target") : "trading";
+        HopLatencies hopLatencies = null;
+        MarketDataMultiplexer muxAgent = null;
+        switch (target) {
+            case "trading" -> {
+                List<InboundSchema> schemas = listings.stream().map(InboundSchema::of).toList();
+                List<SchemaNarrower> narrowers =
+                        schemas.stream().map(SchemaNarrower::forSchema).toList();
+                SequencedRingBuffer<?> strategyMdBuffer = InboundSchema.widest(schemas).newRingBuffer(globalSequence);
+                hopLatencies = new HopLatencies(listings, logger, SystemEpochClock.INSTANCE, Long.MAX_VALUE);
+                muxAgent = new MarketDataMultiplexer(listingBuffers, narrowers, strategyMdBuffer, null, hopLatencies);
+                strategyMdBuffer.handleEventsWith(sink);
+                strategyMdBuffer.start();
+            }
+            case "collector" -> {
+                String outputBucket = properties.getStringProperty("output.bucket");
+                S3Client s3Client = getInstance(S3Client.class);
+                for (int i = 0; i < listings.size(); i++) {
+                    MarketDataCollector collector = new MarketDataCollector(
+                            logger, getInstance(Clock.class), s3Client, listings.get(i), outputBucket);
+                    SequencedRingBuffer<?> buffer = listingBuffers.get(i);
+                    buffer.handleEventsWith(sink.counting(new SchemaEventAdapter(collector)));
+                    buffer.start();
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown load.target: " + target);
+        }
+
+        LoadProfile profile = LoadProfile.fromProperties(properties);
+        SyntheticBookGenerator generator = new SyntheticBookGenerator(
+                listings,
+                listingBuffers,
+                profile,
+                TimeUnit.MILLISECONDS.toNanos(intProperty(properties, "load.max.lag.millis", DEFAULT_MAX_LAG_MILLIS)),
+                intProperty(properties, "load.batch", DEFAULT_BATCH),
+                clock,
+                intProperty(properties, "load.seed", 0));
+        LoadReporter reporter = new LoadReporter(
+                listings,
+                generator,
+                hopLatencies,
+                sink,
+                logger,
+                SystemEpochClock.INSTANCE,
+                TimeUnit.SECONDS.toMillis(
+                        intProperty(properties, "load.report.interval.seconds", DEFAULT_REPORT_INTERVAL_SECONDS)));
+
+        ErrorHandler errorHandler = error -> {
+            logger.logf(LogMessage.FATAL_ERROR_EXITING, "Load generator agent error: %s", error);
+            System.exit(1);
+        };
+        AgentThreadPlan threadPlan = getInstance(AgentThreadPlan.class);
+        if (muxAgent != null) {
+            threadPlan.start(muxAgent, errorHandler);
+        }
+        threadPlan.start(reporter, errorHandler);
+        threadPlan.start(generator, errorHandler);
+        logger.logf(
+                LogMessage.DEBUG, "Generating %s for %d listings into %s", profile, listings.size(), target);
+        logger.logf(LogMessage.DEBUG, "%s", threadPlan.summary());
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        return properties.hasProperty(key) ? properties.getIntProperty(key) : defaultValue;
+    }
+}
@@ -0,0 +1,84 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.resources.Properties;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The message rate a load generator follows: a steady rate, optionally overlaid with periodic
+ * bursts at a higher rate.
+ *
+ * <p>Rates are total messages per second across all listings. A burst of {@code burstDurationNanos}
+ * starts every {@code burstIntervalNanos}, the first one after one full interval.
+ */
+public record LoadProfile(double steadyRate, double burstRate, long burstDurationNanos, long burstIntervalNanos) {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    public LoadProfile {
+        if (steadyRate <= 0) {
+            throw new IllegalArgumentException("Steady rate must be positive: " + steadyRate);
+        }
+        if (burstDurationNanos > 0 && burstIntervalNanos <= burstDurationNanos) {
+            throw new IllegalArgumentException("Burst interval must be longer than the burst duration");
+        }
+    }
+
+    public static LoadProfile steady(double rate) {
+        return new LoadProfile(rate, rate, 0, 0);
+    }
+
+    /**
+     * Reads {@code load.rate} and, for bursts, {@code load.burst.rate},
+     * {@code load.burst.duration.millis} and {@code load.burst.interval.millis}.
+     */
+    public static LoadProfile fromProperties(Properties properties) {
+        double rate = Double.parseDouble(properties.getStringProperty("load.rate"));
+        if (!properties.hasProperty("load.burst.rate")) {
+            return steady(rate);
+        }
+        return new LoadProfile(
+                rate,
+                Double.parseDouble(properties.getStringProperty("load.burst.rate")),
+                TimeUnit.MILLISECONDS.toNanos(properties.getIntProperty("load.burst.duration.millis")),
+                TimeUnit.MILLISECONDS.toNanos(properties.getIntProperty("load.burst.interval.millis")));
+    }
+
+    public boolean inBurst(long elapsedNanos) {
+        return burstDurationNanos > 0
+                && elapsedNanos >= burstIntervalNanos
+                && elapsedNanos % burstIntervalNanos < burstDurationNanos;
+    }
+
+    public double rateAt(long elapsedNanos) {
+        return inBurst(elapsedNanos) ? burstRate : steadyRate;
+    }
+
+    /**
+     * Returns how many messages are due in total after {@code elapsedNanos}.
+     */
+    public long scheduled(long elapsedNanos) {
+        double steady = steadyRate * elapsedNanos / NANOS_PER_SECOND;
+        if (burstDurationNanos == 0 || elapsedNanos < burstIntervalNanos) {
+            return (long) steady;
+        }
+        long fullBursts = elapsedNanos / burstIntervalNanos - 1;
+        long intoCurrent = elapsedNanos % burstIntervalNanos;
+        long burstNanos = fullBursts * burstDurationNanos + Math.min(intoCurrent, burstDurationNanos);
+        return (long) (steady + (burstRate - steadyRate) * burstNanos / NANOS_PER_SECOND);
+    }
+
+    @Override
+    public String toString() {
+        if (burstDurationNanos == 0) {
+            return String.format(Locale.ROOT, "%.0f msg/s steady", steadyRate);
+        }
+        return String.format(
+                Locale.ROOT,
+                "%.0f msg/s steady, %.0f msg/s for %d ms every %d ms",
+                steadyRate,
+                burstRate,
+                TimeUnit.NANOSECONDS.toMillis(burstDurationNanos),
+                TimeUnit.NANOSECONDS.toMillis(burstIntervalNanos));
+    }
+}
@@ -0,0 +1,122 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.health.HopLatencies;
+import group.gnometrading.health.HopLatencies.Hop;
+import group.gnometrading.health.LatencyHistogram;
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.sm.Listing;
+import java.util.List;
+import java.util.Locale;
+import org.agrona.concurrent.EpochClock;
+
+/**
+ * Logs the state of a synthetic load run every interval: the achieved rate against the
+ * {@link LoadProfile}, messages dropped by the generator, and per listing the backlog at each stage
+ * and the events that reached the end of the pipeline late.
+ *
+ * <p>Stages are the listing's ring buffer, drained by the {@code MarketDataMultiplexer} when there
+ * is one ({@code hopLatencies} is not null), and then the final consumer. A backlog that keeps
+ * growing between reports means that stage is saturated.
+ */
+public final class LoadReporter implements GnomeAgent {
+
+    private final List<Listing> listings;
+    private final SyntheticBookGenerator generator;
+    private final HopLatencies hopLatencies;
+    private final LoadSink sink;
+    private final Logger logger;
+    private final EpochClock clock;
+    private final long intervalMillis;
+    private long nextReportMillis;
+    private long lastReportMillis;
+    private long lastGenerated;
+    private long lastConsumed;
+
+    public LoadReporter(
+            List<Listing> listings,
+            SyntheticBookGenerator generator,
+            HopLatencies hopLatencies,
+            LoadSink sink,
+            Logger logger,
+            EpochClock clock,
+            long intervalMillis) {
+        this.listings = List.copyOf(listings);
+        this.generator = generator;
+        this.hopLatencies = hopLatencies;
+        this.sink = sink;
+        this.logger = logger;
+        this.clock = clock;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public String roleName() {
+        return "load-reporter";
+    }
+
+    @Override
+    public void onStart() {
+        lastReportMillis = clock.time();
+        nextReportMillis = lastReportMillis + intervalMillis;
+    }
+
+    @Override
+    public int doWork() {
+        long now = clock.time();
+        if (now < nextReportMillis) {
+            return 0;
+        }
+        nextReportMillis = now + intervalMillis;
+        logger.logf(LogMessage.DEBUG, "%s", summary(now));
+        return 1;
+    }
+
+    private String summary(long nowMillis) {
+        long totalGenerated = 0;
+        long totalConsumed = 0;
+        for (int i = 0; i < listings.size(); i++) {
+            totalGenerated += generator.generated(i);
+            totalConsumed += sink.consumed(i);
+        }
+        double seconds = Math.max(1, nowMillis - lastReportMillis) / 1_000.0;
+        StringBuilder summary = new StringBuilder(String.format(
+                Locale.ROOT,
+                "Synthetic load [%s]: generated %.0f msg/s, consumed %.0f msg/s, dropped %d",
+                generator.profile(),
+                (totalGenerated - lastGenerated) / seconds,
+                (totalConsumed - lastConsumed) / seconds,
+                generator.dropped()));
+        lastReportMillis = nowMillis;
+        lastGenerated = totalGenerated;
+        lastConsumed = totalConsumed;
+
+        for (int i = 0; i < listings.size(); i++) {
+            long generated = generator.generated(i);
+            long consumed = sink.consumed(i);
+            LatencyHistogram.Snapshot latency = sink.latency(i);
+            summary.append(String.format(
+                    Locale.ROOT, "%n  listing %d: generated=%d", listings.get(i).listingId(), generated));
+            if (hopLatencies != null) {
+                long multiplexed = hopLatencies.count(i, Hop.RECEIVE_TO_MULTIPLEXER);
+                summary.append(String.format(
+                        Locale.ROOT,
+                        " backlog[listing buffer]=%d backlog[strategy buffer]=%d",
+                        generated - multiplexed,
+                        multiplexed - consumed));
+            } else {
+                summary.append(String.format(Locale.ROOT, " backlog[listing buffer]=%d", generated - consumed));
+            }
+            summary.append(String.format(
+                    Locale.ROOT,
+                    " consumed=%d late=%d latency p50/p99/max=%.1f/%.1f/%.1fus",
+                    consumed,
+                    sink.late(i),
+                    latency.p50() / 1_000.0,
+                    latency.p99() / 1_000.0,
+                    latency.max() / 1_000.0));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.gateways.inbound.EventTimestamps;
+import group.gnometrading.health.LatencyHistogram;
+import group.gnometrading.sequencer.SequencedEventHandler;
+import group.gnometrading.sm.Listing;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Counts the synthetic events that reach the end of the pipeline, per listing, with their latency
+ * from generation and how many arrived later than {@code lateThresholdNanos}.
+ *
+ * <p>Used directly as the last consumer, or through {@link #counting} in front of a real consumer
+ * such as a collector so that an event counts once that consumer has handled it. Each listing's
+ * slots must be written by a single consumer thread.
+ */
+public final class LoadSink implements SequencedEventHandler {
+
+    private final List<Listing> listings;
+    private final EpochNanoClock clock;
+    private final long lateThresholdNanos;
+    private final AtomicLongArray consumed;
+    private final AtomicLongArray late;
+    private final LatencyHistogram[] latencies;
+    private final EventTimestamps timestamps = new EventTimestamps();
+
+    public LoadSink(List<Listing> listings, EpochNanoClock clock, long lateThresholdNanos) {
+        this.listings = List.copyOf(listings);
+        this.clock = clock;
+        this.lateThresholdNanos = lateThresholdNanos;
+        this.consumed = new AtomicLongArray(listings.size());
+        this.late = new AtomicLongArray(listings.size());
+        this.latencies = new LatencyHistogram[listings.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns a handler that passes each event to {@code consumer} and then counts it here.
+     */
+    public SequencedEventHandler counting(SequencedEventHandler consumer) {
+        EventTimestamps reader = new EventTimestamps();
+        return (globalSequence, templateId, buffer, length) -> {
+            consumer.onEvent(globalSequence, templateId, buffer, length);
+            record(reader, templateId, buffer);
+        };
+    }
+
+    @Override
+    public void onEvent(long globalSequence, int templateId, UnsafeBuffer buffer, int length) {
+        record(timestamps, templateId, buffer);
+    }
+
+    private void record(EventTimestamps reader, int templateId, UnsafeBuffer buffer) {
+        if (!reader.read(templateId, buffer)) {
+            return;
+        }
+        int listing = indexOf(reader.exchangeId(), reader.securityId());
+        if (listing < 0) {
+            return;
+        }
+        long latency = clock.nanoTime() - reader.receiveNanos();
+        latencies[listing].record(latency);
+        if (latency > lateThresholdNanos) {
+            late.lazySet(listing, late.get(listing) + 1);
+        }
+        consumed.lazySet(listing, consumed.get(listing) + 1);
+    }
+
+    private int indexOf(long exchangeId, long securityId) {
+        for (int i = 0; i < listings.size(); i++) {
+            Listing listing = listings.get(i);
+            if (listing.exchange().exchangeId() == exchangeId && listing.security().securityId() == securityId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long consumed(int listingIndex) {
+        return consumed.get(listingIndex);
+    }
+
+    public long late(int listingIndex) {
+        return late.get(listingIndex);
+    }
+
+    public LatencyHistogram.Snapshot latency(int listingIndex) {
+        return latencies[listingIndex].snapshot();
+    }
+}
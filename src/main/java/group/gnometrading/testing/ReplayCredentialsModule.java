@@ -0,0 +1,43 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.di.Module;
+import group.gnometrading.di.Provides;
+import group.gnometrading.di.Singleton;
+import group.gnometrading.gateways.credentials.BinanceCredentials;
+import group.gnometrading.gateways.credentials.KalshiCredentials;
+import group.gnometrading.resources.Properties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loads exchange credentials from local JSON files instead of Secrets Manager, so a replay runs
+ * without network access. The replay servers ignore signatures, so throwaway keys will do.
+ *
+ * <p>Each venue's file is named by {@code replay.<exchange>.credentials} and is only required when
+ * that venue is replayed. The bindings take precedence over the exchange session modules installed
+ * by the inbound orchestrators below this one, so no secret is ever fetched during a replay.
+ */
+public class ReplayCredentialsModule extends Module {
+
+    @Provides
+    @Singleton
+    public final BinanceCredentials provideBinanceCredentials(Properties properties) throws IOException {
+        return BinanceCredentials.fromJson(readCredentials(properties, "binance"));
+    }
+
+    @Provides
+    @Singleton
+    public final KalshiCredentials provideKalshiCredentials(Properties properties) throws IOException {
+        return KalshiCredentials.fromJson(readCredentials(properties, "kalshi"));
+    }
+
+    private static String readCredentials(Properties properties, String exchange) throws IOException {
+        String property = "replay." + exchange + ".credentials";
+        if (!properties.hasProperty(property)) {
+            throw new IllegalArgumentException(
+                    "Set " + property + " to a local credentials file; replays do not fetch secrets");
+        }
+        return Files.readString(Path.of(properties.getStringProperty(property)));
+    }
+}
@@ -0,0 +1,114 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.SecurityMaster;
+import group.gnometrading.di.Named;
+import group.gnometrading.di.Orchestrator;
+import group.gnometrading.di.Provides;
+import group.gnometrading.di.Singleton;
+import group.gnometrading.gateways.inbound.DefaultInboundOrchestrator;
+import group.gnometrading.logging.ConsoleLogger;
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.networking.sockets.factory.GnomeSocketFactory;
+import group.gnometrading.networking.sockets.factory.NativeSocketFactory;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.shared.AwsModule;
+import group.gnometrading.shared.SecurityMasterModule;
+import group.gnometrading.sm.Listing;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.SystemEpochNanoClock;
+
+/**
+ * Plays a raw capture back through a local stand-in for the listing's exchange and, unless
+ * {@code replay.inbound=false}, runs the listing's real inbound gateway against it in-process to
+ * benchmark the whole inbound path (decode, ring buffer, consumer) without a network.
+ *
+ * <p>The stand-in is a {@link FixReplayServer} for Binance and a {@link WebSocketReplayServer} for
+ * every other venue. The inbound orchestrator's URI, FIX address and socket factory are bound here
+ * to plain loopback sockets, as {@link MarketDataWriterOrchestrator} does.
+ *
+ * <p>Configured by {@code listing}, {@code replay.file}, {@code replay.port} (0 for any free port),
+ * {@code replay.speed} ({@code original}, {@code Nx} or {@code max}), {@code replay.loop} and
+ * {@code replay.drop.after.frames} for reconnect drills. {@code replay.binance.credentials} and
+ * {@code replay.kalshi.credentials} point at local credentials files; no secrets are fetched.
+ */
+public class ReplayOrchestrator extends Orchestrator {
+
+    static {
+        instanceClass = ReplayOrchestrator.class;
+    }
+
+    @Provides
+    public final EpochNanoClock provideEpochNanoClock() {
+        return new SystemEpochNanoClock();
+    }
+
+    @Provides
+    @Singleton
+    public final Logger provideLogger(EpochNanoClock epochClock) {
+        return new ConsoleLogger(epochClock);
+    }
+
+    @Provides
+    public final Listing provideListing(SecurityMaster securityMaster, Properties properties) {
+        return securityMaster.getListing(properties.getIntProperty("listing"));
+    }
+
+    @Provides
+    public final ReplayServer.Config provideReplayConfig(Properties properties) {
+        return ReplayServer.Config.fromProperties(properties);
+    }
+
+    @Provides
+    @Singleton
+    public final ReplayServer provideReplayServer(Listing listing, ReplayServer.Config config, Logger logger)
+            throws IOException {
+        if (listing.exchange().exchangeName().equalsIgnoreCase("binance")) {
+            return new FixReplayServer(config, logger);
+        }
+        return new WebSocketReplayServer(config, logger);
+    }
+
+    @Provides
+    public final URI provideUri(ReplayServer server) throws URISyntaxException {
+        return new URI("ws", null, InetAddress.getLoopbackAddress().getHostAddress(), server.port(), "/", null, null);
+    }
+
+    @Provides
+    public final InetSocketAddress provideFixAddress(ReplayServer server) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port());
+    }
+
+    @Provides
+    public final GnomeSocketFactory provideSocketFactory() {
+        return new NativeSocketFactory();
+    }
+
+    @Override
+    public final void configure() {
+        install(new SecurityMasterModule(), new AwsModule(), new ReplayCredentialsModule());
+        Properties properties = getInstance(Properties.class);
+        Logger logger = getInstance(Logger.class);
+        Listing listing = getInstance(Listing.class);
+        ReplayServer server = getInstance(ReplayServer.class);
+        server.start();
+        logger.logf(
+                LogMessage.DEBUG,
+                "Replaying %s for listing %d on port %d",
+                properties.getStringProperty("replay.file"),
+                listing.listingId(),
+                server.port());
+
+        if (properties.hasProperty("replay.inbound") && !properties.getBooleanProperty("replay.inbound")) {
+            return;
+        }
+        DefaultInboundOrchestrator<?> inbound =
+                createChildOrchestrator(DefaultInboundOrchestrator.findInboundOrchestrator(listing));
+        inbound.configureGatewayForListing(new ReplayThroughputProbe(logger, getInstance(EpochNanoClock.class)));
+    }
+}
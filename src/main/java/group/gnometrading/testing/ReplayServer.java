@@ -0,0 +1,210 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.resources.Properties;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A local stand-in for an exchange that plays a {@link CapturedFrames} file back to whichever
+ * inbound gateway connects, so the whole inbound path can be benchmarked without a network.
+ *
+ * <p>Serves one connection at a time on the loopback interface. After the protocol handshake the
+ * capture is sent at the configured {@link ReplaySpeed}; anything the client sends afterwards
+ * (subscriptions, heartbeats) is read and dropped. For reconnect drills, {@code dropAfterFrames}
+ * closes each connection after that many frames; the next connection resumes where the capture
+ * left off. With {@code loop} the capture restarts at its end, otherwise the server stops.
+ */
+public abstract class ReplayServer implements Closeable {
+
+    public record Config(Path capture, int port, ReplaySpeed speed, long dropAfterFrames, boolean loop) {
+
+        /**
+         * Reads {@code replay.file}, {@code replay.port} (0 for any free port), {@code replay.speed},
+         * {@code replay.drop.after.frames} and {@code replay.loop}.
+         */
+        public static Config fromProperties(Properties properties) {
+            return new Config(
+                    Path.of(properties.getStringProperty("replay.file")),
+                    properties.hasProperty("replay.port") ? properties.getIntProperty("replay.port") : 0,
+                    properties.hasProperty("replay.speed")
+                            ? ReplaySpeed.parse(properties.getStringProperty("replay.speed"))
+                            : ReplaySpeed.ORIGINAL,
+                    properties.hasProperty("replay.drop.after.frames")
+                            ? properties.getIntProperty("replay.drop.after.frames")
+                            : 0,
+                    properties.hasProperty("replay.loop") && properties.getBooleanProperty("replay.loop"));
+        }
+    }
+
+    private final Config config;
+    private final Logger logger;
+    private final ServerSocket serverSocket;
+    private volatile boolean running;
+    private CapturedFrames frames;
+    private long framesSent;
+    private long bytesSent;
+    private long firstFrameSentNanos;
+
+    protected ReplayServer(Config config, Logger logger) throws IOException {
+        this.config = config;
+        this.logger = logger;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.port()));
+    }
+
+    /**
+     * Completes the protocol handshake on a new connection before frames are sent.
+     */
+    protected abstract void handshake(InputStream in, OutputStream out) throws IOException;
+
+    /**
+     * Writes one captured frame to the client.
+     */
+    protected abstract void writeFrame(OutputStream out, byte[] frame, int length) throws IOException;
+
+    public final int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public final void start() {
+        running = true;
+        Thread thread = new Thread(this::acceptLoop, getClass().getSimpleName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void acceptLoop() {
+        try {
+            frames = new CapturedFrames(config.capture());
+            while (running) {
+                Socket socket = serverSocket.accept();
+                try (socket) {
+                    socket.setTcpNoDelay(true);
+                    logger.logf(LogMessage.DEBUG, "Replay client connected from %s", socket.getRemoteSocketAddress());
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+                    handshake(socket.getInputStream(), out);
+                    out.flush();
+                    drain(socket.getInputStream());
+                    if (!replay(out)) {
+                        running = false;
+                    }
+                } catch (SocketException e) {
+                    logger.logf(LogMessage.DEBUG, "Replay client disconnected: %s", e.getMessage());
+                } catch (IOException e) {
+                    // A failed handshake ends this connection only; the next client is still served
+                    logger.logf(LogMessage.DEBUG, "Replay connection failed: %s", e);
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.logf(LogMessage.UNKNOWN_ERROR, "Replay server failed: %s", e);
+            }
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Sends frames until the connection is dropped on purpose (returns {@code true}) or the capture
+     * is exhausted and not looped (returns {@code false}).
+     */
+    private boolean replay(OutputStream out) throws IOException {
+        long startNanos = System.nanoTime();
+        long firstCapturedNanos = -1;
+        long sentOnConnection = 0;
+        long reportedAt = startNanos;
+        while (running) {
+            if (!frames.next()) {
+                out.flush();
+                if (!config.loop()) {
+                    report();
+                    return false;
+                }
+                frames.close();
+                frames = new CapturedFrames(config.capture());
+                firstCapturedNanos = -1;
+                continue;
+            }
+            if (firstCapturedNanos < 0) {
+                firstCapturedNanos = frames.receiveNanos();
+                startNanos = System.nanoTime();
+            } else if (!config.speed().isFlatOut()) {
+                long due = startNanos + config.speed().scale(frames.receiveNanos() - firstCapturedNanos);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    out.flush();
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            writeFrame(out, frames.frame(), frames.length());
+            if (framesSent == 0) {
+                firstFrameSentNanos = System.nanoTime();
+            }
+            framesSent++;
+            bytesSent += frames.length();
+            sentOnConnection++;
+            if (config.dropAfterFrames() > 0 && sentOnConnection >= config.dropAfterFrames()) {
+                out.flush();
+                logger.logf(LogMessage.DEBUG, "Dropping replay connection after %d frames", sentOnConnection);
+                return true;
+            }
+            long now = System.nanoTime();
+            if (now - reportedAt >= 1_000_000_000L) {
+                report();
+                reportedAt = now;
+            }
+        }
+        return false;
+    }
+
+    private void report() {
+        double seconds = Math.max(System.nanoTime() - firstFrameSentNanos, 1) / 1e9;
+        logger.logf(
+                LogMessage.DEBUG,
+                "Replayed %d frames (%d bytes) at %s: %.0f frames/s",
+                framesSent,
+                bytesSent,
+                config.speed(),
+                framesSent / seconds);
+    }
+
+    private static void drain(InputStream in) {
+        Thread thread = new Thread(() -> {
+            byte[] discard = new byte[4096];
+            try {
+                while (in.read(discard) >= 0) {
+                    // Subscriptions and heartbeats are not answered
+                }
+            } catch (IOException ignored) {
+                // Connection closed
+            }
+        }, "replay-drain");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public final boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        if (frames != null) {
+            frames.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package group.gnometrading.testing;
+
+import java.util.Locale;
+
+/**
+ * How fast a {@link ReplayServer} plays captured frames back: with their original spacing, N times
+ * faster, or as fast as the socket accepts them.
+ *
+ * <p>Parsed from {@code original}, {@code max} or a multiplier such as {@code 10x}.
+ */
+public record ReplaySpeed(double multiplier) {
+
+    public static final ReplaySpeed ORIGINAL = new ReplaySpeed(1.0);
+    public static final ReplaySpeed FLAT_OUT = new ReplaySpeed(Double.POSITIVE_INFINITY);
+
+    public ReplaySpeed {
+        if (!(multiplier > 0)) {
+            throw new IllegalArgumentException("Replay speed multiplier must be positive: " + multiplier);
+        }
+    }
+
+    public static ReplaySpeed parse(String value) {
+        String speed = value.trim().toLowerCase(Locale.ROOT);
+        return switch (speed) {
+            case "original", "1x" -> ORIGINAL;
+            case "max", "flat_out", "flat-out" -> FLAT_OUT;
+            default -> {
+                if (!speed.endsWith("x")) {
+                    throw new IllegalArgumentException("Unknown replay speed: " + value);
+                }
+                yield new ReplaySpeed(Double.parseDouble(speed.substring(0, speed.length() - 1)));
+            }
+        };
+    }
+
+    public boolean isFlatOut() {
+        return multiplier == Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns how long after the first frame a frame captured {@code capturedNanos} after it should
+     * be sent.
+     */
+    public long scale(long capturedNanos) {
+        return isFlatOut() ? 0 : (long) (capturedNanos / multiplier);
+    }
+
+    @Override
+    public String toString() {
+        return isFlatOut() ? "max" : multiplier + "x";
+    }
+}
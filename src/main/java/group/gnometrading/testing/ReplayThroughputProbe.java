@@ -0,0 +1,62 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.gateways.inbound.EventTimestamps;
+import group.gnometrading.health.LatencyHistogram;
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.sequencer.SequencedEventHandler;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Consumes a replayed listing's ring buffer and logs, once a second, the event rate and the
+ * latency from socket receive to consumption, i.e. decode plus the ring-buffer hop.
+ */
+public final class ReplayThroughputProbe implements SequencedEventHandler {
+
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Logger logger;
+    private final EpochNanoClock clock;
+    private final EventTimestamps timestamps = new EventTimestamps();
+    private final LatencyHistogram receiveToConsumer = new LatencyHistogram();
+    private long events;
+    private long eventsAtReport;
+    private long reportedAtNanos;
+
+    public ReplayThroughputProbe(Logger logger, EpochNanoClock clock) {
+        this.logger = logger;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onEvent(long globalSequence, int templateId, UnsafeBuffer buffer, int length) {
+        long now = clock.nanoTime();
+        events++;
+        if (timestamps.read(templateId, buffer)) {
+            receiveToConsumer.record(now - timestamps.receiveNanos());
+        }
+        if (reportedAtNanos == 0) {
+            reportedAtNanos = now;
+        } else if (now - reportedAtNanos >= REPORT_INTERVAL_NANOS) {
+            report(now);
+        }
+    }
+
+    private void report(long now) {
+        LatencyHistogram.Snapshot snapshot = receiveToConsumer.snapshot();
+        double seconds = (now - reportedAtNanos) / 1e9;
+        logger.logf(
+                LogMessage.DEBUG,
+                "Inbound replay: %.0f events/s (%d total), receive to consumer us "
+                        + "p50 %.1f p99 %.1f p99.9 %.1f max %.1f",
+                (events - eventsAtReport) / seconds,
+                events,
+                snapshot.p50() / 1_000.0,
+                snapshot.p99() / 1_000.0,
+                snapshot.p999() / 1_000.0,
+                snapshot.max() / 1_000.0);
+        eventsAtReport = events;
+        reportedAtNanos = now;
+    }
+}
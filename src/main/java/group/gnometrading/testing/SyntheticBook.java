@@ -0,0 +1,140 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.schemas.Action;
+import group.gnometrading.schemas.Mbp10Encoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Side;
+import java.util.SplittableRandom;
+
+/**
+ * A ten-level book for one synthetic listing that evolves by random adds, cancels and trades, and
+ * encodes each change as an MBP-10 update.
+ *
+ * <p>Most updates add or remove size at a random level, with levels near the top changing more
+ * often, and about one in ten is a trade against the touch. A trade that empties the best level
+ * moves the price one tick in that direction and refills the far end of the book, so the mid
+ * follows a random walk.
+ */
+final class SyntheticBook {
+
+    static final int LEVELS = 10;
+
+    private static final long TICK = 100L;
+    private static final long MAX_LEVEL_SIZE = 1_000L;
+
+    private final int exchangeId;
+    private final long securityId;
+    private final SplittableRandom random;
+    private final long[] bidSizes = new long[LEVELS];
+    private final long[] askSizes = new long[LEVELS];
+    private long bestBid;
+    private long sequence;
+
+    SyntheticBook(int exchangeId, long securityId, long initialPrice, long seed) {
+        this.exchangeId = exchangeId;
+        this.securityId = securityId;
+        this.random = new SplittableRandom(seed);
+        this.bestBid = initialPrice - initialPrice % TICK;
+        for (int level = 0; level < LEVELS; level++) {
+            bidSizes[level] = newLevelSize();
+            askSizes[level] = newLevelSize();
+        }
+    }
+
+    /**
+     * Applies one random change to the book and encodes it into {@code schema} with the listing's
+     * next sequence number.
+     */
+    void next(Mbp10Schema schema, long nowNanos) {
+        boolean bid = random.nextBoolean();
+        long[] sizes = bid ? bidSizes : askSizes;
+        int roll = random.nextInt(100);
+        Action action;
+        int level;
+        long size;
+        if (roll < 10) {
+            action = Action.Trade;
+            level = 0;
+            size = 1 + random.nextLong(sizes[0]);
+            sizes[0] -= size;
+            if (sizes[0] == 0) {
+                shift(bid);
+            }
+        } else {
+            level = Math.min(random.nextInt(LEVELS), random.nextInt(LEVELS));
+            if (roll < 55) {
+                action = Action.Add;
+                size = 1 + random.nextLong(MAX_LEVEL_SIZE / 10);
+                sizes[level] += size;
+            } else {
+                action = Action.Cancel;
+                size = Math.max(1, sizes[level] / 4);
+                sizes[level] = Math.max(1, sizes[level] - size);
+            }
+        }
+        encode(schema.encoder, action, bid, priceAt(bid, level), size, ++sequence, nowNanos);
+    }
+
+    /**
+     * Moves the touch one tick away from the emptied side and refills the far end of the book.
+     */
+    private void shift(boolean bidSide) {
+        long[] emptied = bidSide ? bidSizes : askSizes;
+        System.arraycopy(emptied, 1, emptied, 0, LEVELS - 1);
+        emptied[LEVELS - 1] = newLevelSize();
+
+        long[] other = bidSide ? askSizes : bidSizes;
+        System.arraycopy(other, 0, other, 1, LEVELS - 1);
+        other[0] = newLevelSize();
+        bestBid += bidSide ? -TICK : TICK;
+    }
+
+    private long priceAt(boolean bid, int level) {
+        return bid ? bestBid - level * TICK : bestBid + (level + 1) * TICK;
+    }
+
+    private long newLevelSize() {
+        return 1 + random.nextLong(MAX_LEVEL_SIZE);
+    }
+
+    private void encode(
+            Mbp10Encoder encoder,
+            Action action,
+            boolean bid,
+            long price,
+            long size,
+            long sequence,
+            long nowNanos) {
+        encoder.exchangeId(exchangeId)
+                .securityId(securityId)
+                .timestampEvent(nowNanos)
+                .timestampSent(nowNanos)
+                .timestampRecv(nowNanos)
+                .price(price)
+                .size(size)
+                .action(action)
+                .side(bid ? Side.Bid : Side.Ask)
+                .sequence(sequence);
+        encoder.flags().clear();
+        for (int level = 0; level < LEVELS; level++) {
+            writeLevel(encoder, level, priceAt(true, level), bidSizes[level], priceAt(false, level), askSizes[level]);
+        }
+    }
+
+    private static void writeLevel(
+            Mbp10Encoder encoder, int level, long bidPrice, long bidSize, long askPrice, long askSize) {
+        switch (level) {
+            case 0 -> encoder.bidPrice0(bidPrice).bidSize0(bidSize).askPrice0(askPrice).askSize0(askSize);
+            case 1 -> encoder.bidPrice1(bidPrice).bidSize1(bidSize).askPrice1(askPrice).askSize1(askSize);
+            case 2 -> encoder.bidPrice2(bidPrice).bidSize2(bidSize).askPrice2(askPrice).askSize2(askSize);
+            case 3 -> encoder.bidPrice3(bidPrice).bidSize3(bidSize).askPrice3(askPrice).askSize3(askSize);
+            case 4 -> encoder.bidPrice4(bidPrice).bidSize4(bidSize).askPrice4(askPrice).askSize4(askSize);
+            case 5 -> encoder.bidPrice5(bidPrice).bidSize5(bidSize).askPrice5(askPrice).askSize5(askSize);
+            case 6 -> encoder.bidPrice6(bidPrice).bidSize6(bidSize).askPrice6(askPrice).askSize6(askSize);
+            case 7 -> encoder.bidPrice7(bidPrice).bidSize7(bidSize).askPrice7(askPrice).askSize7(askSize);
+            case 8 -> encoder.bidPrice8(bidPrice).bidSize8(bidSize).askPrice8(askPrice).askSize8(askSize);
+            case 9 -> encoder.bidPrice9(bidPrice).bidSize9(bidSize).askPrice9(askPrice).askSize9(askSize);
+            default -> throw new IllegalArgumentException("Level out of range: " + level);
+        }
+    }
+}
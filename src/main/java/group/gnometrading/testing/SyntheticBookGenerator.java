@@ -0,0 +1,116 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import group.gnometrading.sm.Listing;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.agrona.concurrent.EpochNanoClock;
+
+/**
+ * Publishes synthetic MBP-10 updates for a set of listings into their ring buffers at the rate of
+ * a {@link LoadProfile}, round-robin across listings, standing in for the inbound gateways.
+ *
+ * <p>Each duty cycle publishes every message that has come due since the last one, up to
+ * {@code maxBatch}. Publishing blocks while a ring buffer is full, so a consumer that cannot keep up
+ * holds the generator back. Like a venue, the generator does not wait for us: once it is more than
+ * {@code maxLagNanos} behind its schedule, the overdue messages are skipped and counted as dropped.
+ *
+ * <p>Counters are written by the generator thread only and may be read from any thread.
+ */
+public final class SyntheticBookGenerator implements GnomeAgent {
+
+    private static final long INITIAL_PRICE = 10_000_000L;
+
+    private final List<SequencedRingBuffer<?>> buffers;
+    private final SyntheticBook[] books;
+    private final LoadProfile profile;
+    private final long maxLagNanos;
+    private final int maxBatch;
+    private final EpochNanoClock clock;
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+    private final AtomicLongArray generated;
+
+    private long startNanos;
+    private long emitted;
+    private volatile long dropped;
+
+    public SyntheticBookGenerator(
+            List<Listing> listings,
+            List<SequencedRingBuffer<?>> buffers,
+            LoadProfile profile,
+            long maxLagNanos,
+            int maxBatch,
+            EpochNanoClock clock,
+            long seed) {
+        if (listings.size() != buffers.size()) {
+            throw new IllegalArgumentException("Expected one buffer per listing");
+        }
+        this.buffers = List.copyOf(buffers);
+        this.books = new SyntheticBook[listings.size()];
+        for (int i = 0; i < books.length; i++) {
+            Listing listing = listings.get(i);
+            books[i] = new SyntheticBook(
+                    listing.exchange().exchangeId(), listing.security().securityId(), INITIAL_PRICE, seed + i);
+        }
+        this.profile = profile;
+        this.maxLagNanos = maxLagNanos;
+        this.maxBatch = maxBatch;
+        this.clock = clock;
+        this.generated = new AtomicLongArray(listings.size());
+    }
+
+    @Override
+    public String roleName() {
+        return "load-generator";
+    }
+
+    @Override
+    public void onStart() {
+        startNanos = clock.nanoTime();
+    }
+
+    @Override
+    public int doWork() {
+        long now = clock.nanoTime();
+        long elapsed = now - startNanos;
+        long due = profile.scheduled(elapsed) - emitted;
+        if (due <= 0) {
+            return 0;
+        }
+        long allowedLag = (long) (profile.rateAt(elapsed) * maxLagNanos / 1_000_000_000.0);
+        if (due > allowedLag + maxBatch) {
+            long skipped = due - allowedLag - maxBatch;
+            emitted += skipped;
+            dropped += skipped;
+            due -= skipped;
+        }
+        int batch = (int) Math.min(due, maxBatch);
+        int templateId = mbp10.messageHeaderDecoder.templateId();
+        for (int i = 0; i < batch; i++) {
+            int listing = (int) (emitted % books.length);
+            books[listing].next(mbp10, clock.nanoTime());
+            buffers.get(listing).publishRaw(mbp10.buffer, templateId, mbp10.totalMessageSize());
+            generated.lazySet(listing, generated.get(listing) + 1);
+            emitted++;
+        }
+        return batch;
+    }
+
+    public int listings() {
+        return books.length;
+    }
+
+    public long generated(int listingIndex) {
+        return generated.get(listingIndex);
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+
+    public LoadProfile profile() {
+        return profile;
+    }
+}
@@ -0,0 +1,170 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.SecurityMaster;
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.di.Provides;
+import group.gnometrading.di.Singleton;
+import group.gnometrading.logging.LogMessage;
+import group.gnometrading.logging.Logger;
+import group.gnometrading.networking.sockets.factory.GnomeSocketFactory;
+import group.gnometrading.networking.sockets.factory.NativeSocketFactory;
+import group.gnometrading.oms.position.PositionView;
+import group.gnometrading.resources.Properties;
+import group.gnometrading.schemas.Intent;
+import group.gnometrading.schemas.OrderExecutionReport;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import group.gnometrading.sm.Listing;
+import group.gnometrading.trading.TradingOrchestrator;
+import group.gnometrading.utils.AgentThreadPlan;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import org.agrona.concurrent.EpochNanoClock;
+
+/**
+ * Boots the full {@link TradingOrchestrator} in {@code mode=paper} against a local replay of a
+ * captured feed, with a {@link TickToTradeProbe} in place of the configured strategy, and reports
+ * tick-to-trade latency percentiles when the process exits.
+ *
+ * <p>Everything except the strategy is the production wiring: inbound gateways decode the replay
+ * from loopback sockets exactly as they would the venue, and intents go through the OMS, the
+ * outbound buffers and the {@code PaperTradingOutboundGateway}. The inbound URI, FIX address and
+ * socket factory are bound here, so every inbound orchestrator connects to the replay server. All
+ * {@code listings} must therefore be on the venue the capture was taken from.
+ *
+ * <p>Configured by the usual trading properties plus the {@code replay.*} properties read by
+ * {@link ReplayServer.Config#fromProperties} and:
+ *
+ * <ul>
+ *   <li>{@code tick.to.trade.interval}: send an intent every N ticks (default 10).
+ *   <li>{@code tick.to.trade.timeout.millis}: count an intent as lost after this long (default 1000).
+ *   <li>{@code tick.to.trade.duration.seconds}: exit after this long; otherwise run until killed.
+ *   <li>{@code tick.to.trade.variant}: label for the report, defaulting to the strategy thread's
+ *       placement.
+ *   <li>{@code tick.to.trade.report}: file the JSON report is appended to, one line per run.
+ * </ul>
+ *
+ * <p>CPU-pinning and idle-strategy variants are separate runs with different {@code threads.*}
+ * placements (see {@link AgentThreadPlan}), e.g. {@code threads.default.idle=backoff} against
+ * {@code threads.default.idle=busy_spin} with the strategy, OMS and outbound gateway roles pinned
+ * through {@code threads.<role>.cpu}; the strategy's role is {@code echo-strategy}. Appending every
+ * run to the same report file gives one line per variant to compare.
+ */
+public class TickToTradeOrchestrator extends TradingOrchestrator {
+
+    static {
+        instanceClass = TickToTradeOrchestrator.class;
+    }
+
+    private static final int DEFAULT_TICK_INTERVAL = 10;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 1_000;
+
+    @Provides
+    @Singleton
+    public final ReplayServer provideReplayServer(Properties properties, SecurityMaster securityMaster, Logger logger)
+            throws IOException {
+        ReplayServer.Config config = ReplayServer.Config.fromProperties(properties);
+        String firstListing = properties.getStringProperty("listings").split(",")[0].trim();
+        Listing listing = securityMaster.getListing(Integer.parseInt(firstListing));
+        ReplayServer server = listing.exchange().exchangeName().equalsIgnoreCase("binance")
+                ? new FixReplayServer(config, logger)
+                : new WebSocketReplayServer(config, logger);
+        server.start();
+        logger.logf(LogMessage.DEBUG, "Replaying %s on port %d", config.capture(), server.port());
+        return server;
+    }
+
+    @Provides
+    public final URI provideUri(ReplayServer server) throws URISyntaxException {
+        return new URI("ws", null, InetAddress.getLoopbackAddress().getHostAddress(), server.port(), "/", null, null);
+    }
+
+    @Provides
+    public final InetSocketAddress provideFixAddress(ReplayServer server) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port());
+    }
+
+    @Provides
+    public final GnomeSocketFactory provideSocketFactory() {
+        return new NativeSocketFactory();
+    }
+
+    @Override
+    protected GnomeAgent createStrategy(
+            SequencedRingBuffer<?> mdBuf,
+            SequencedRingBuffer<OrderExecutionReport> erBuf,
+            SequencedRingBuffer<Intent> intentBuf,
+            PositionView positionView,
+            SecurityMaster securityMaster) {
+        Properties properties = getInstance(Properties.class);
+        if (!"paper".equals(properties.getStringProperty("mode"))) {
+            throw new IllegalStateException("Tick-to-trade harness requires mode=paper");
+        }
+        Logger logger = getInstance(Logger.class);
+        int tickInterval = properties.hasProperty("tick.to.trade.interval")
+                ? properties.getIntProperty("tick.to.trade.interval")
+                : DEFAULT_TICK_INTERVAL;
+        long timeoutMillis = properties.hasProperty("tick.to.trade.timeout.millis")
+                ? properties.getIntProperty("tick.to.trade.timeout.millis")
+                : DEFAULT_TIMEOUT_MILLIS;
+        TickToTradeProbe probe = new TickToTradeProbe(
+                mdBuf,
+                erBuf,
+                intentBuf,
+                tickInterval,
+                TimeUnit.MILLISECONDS.toNanos(timeoutMillis),
+                getInstance(EpochNanoClock.class));
+
+        String variant = properties.hasProperty("tick.to.trade.variant")
+                ? properties.getStringProperty("tick.to.trade.variant")
+                : String.valueOf(getInstance(AgentThreadPlan.class).placementFor(probe.roleName()));
+        Path report = properties.hasProperty("tick.to.trade.report")
+                ? Path.of(properties.getStringProperty("tick.to.trade.report"))
+                : null;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            logger.logf(LogMessage.DEBUG, "%s", probe.summary(variant));
+            if (report != null) {
+                appendReport(report, probe.toJson(variant));
+            }
+        }));
+
+        if (properties.hasProperty("tick.to.trade.duration.seconds")) {
+            long durationSeconds = properties.getIntProperty("tick.to.trade.duration.seconds");
+            Thread timer = new Thread(
+                    () -> {
+                        try {
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        System.exit(0);
+                    },
+                    "tick-to-trade-timer");
+            timer.setDaemon(true);
+            timer.start();
+        }
+        return probe;
+    }
+
+    private static void appendReport(Path report, String json) {
+        try {
+            Files.writeString(
+                    report,
+                    json + System.lineSeparator(),
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write tick-to-trade report to " + report, e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package group.gnometrading.testing;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.gateways.inbound.EventTimestamps;
+import group.gnometrading.health.LatencyHistogram;
+import group.gnometrading.schemas.Intent;
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import group.gnometrading.schemas.Mbp1Decoder;
+import group.gnometrading.schemas.Mbp1Schema;
+import group.gnometrading.schemas.OrderExecutionReport;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import java.util.Locale;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * An echo strategy that times the full tick-to-trade round trip: on every Nth market data tick it
+ * publishes one intent, and the first execution report for that intent closes the loop.
+ *
+ * <p>The intent travels {@code intentBuffer -> OmsAgent -> orderOutboundBuffer ->}
+ * {@code PaperTradingOutboundGateway}, and the resulting report comes back through the OMS to the
+ * strategy's execution report buffer. A rejection by the OMS or the simulated exchange is a report
+ * like any other, so every intent completes a round trip. Only one intent is in flight at a time;
+ * ticks that arrive meanwhile are not sampled. An intent with no report after {@code timeoutNanos}
+ * is counted as lost.
+ *
+ * <p>The intent and report buffers share the session's global sequence, so a report belongs to the
+ * intent in flight if it was sequenced after that intent. Reports for earlier intents, such as the
+ * fill following an acknowledgement, were sequenced before it and are ignored.
+ *
+ * <p>Three latencies are recorded, all in epoch nanos:
+ *
+ * <ul>
+ *   <li>{@code tickToTrade}: socket receive of the tick to the report reaching the strategy.
+ *   <li>{@code tickToIntent}: socket receive of the tick to the intent being published.
+ *   <li>{@code intentToReport}: intent published to the report reaching the strategy.
+ * </ul>
+ *
+ * <p>Only book ticks with an ask are sampled, and each intent is priced at that ask so the order
+ * trades against the simulated book instead of resting in it. Resting orders would pile up over a
+ * run and make later samples walk a deeper book than earlier ones.
+ */
+public final class TickToTradeProbe implements GnomeAgent {
+
+    private final SequencedPoller marketDataPoller;
+    private final SequencedPoller execReportPoller;
+    private final SequencedPoller intentPoller;
+    private final SequencedRingBuffer<Intent> intentBuffer;
+    private final int tickInterval;
+    private final long timeoutNanos;
+    private final EpochNanoClock clock;
+    private final EventTimestamps timestamps = new EventTimestamps();
+    private final Intent intent = new Intent();
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+    private final Mbp1Schema mbp1 = new Mbp1Schema();
+
+    private final LatencyHistogram tickToTrade = new LatencyHistogram();
+    private final LatencyHistogram tickToIntent = new LatencyHistogram();
+    private final LatencyHistogram intentToReport = new LatencyHistogram();
+
+    private long ticks;
+    private boolean inFlight;
+    private long tickReceiveNanos;
+    private long intentNanos;
+    private long intentSequence;
+    private volatile long lost;
+
+    public TickToTradeProbe(
+            SequencedRingBuffer<?> marketDataBuffer,
+            SequencedRingBuffer<OrderExecutionReport> execReportBuffer,
+            SequencedRingBuffer<Intent> intentBuffer,
+            int tickInterval,
+            long timeoutNanos,
+            EpochNanoClock clock) {
+        if (tickInterval <= 0) {
+            throw new IllegalArgumentException("Tick interval must be positive: " + tickInterval);
+        }
+        this.marketDataPoller = marketDataBuffer.createPoller(this::onMarketData);
+        this.execReportPoller = execReportBuffer.createPoller(this::onExecReport);
+        this.intentPoller = intentBuffer.createPoller(this::onIntent);
+        this.intentBuffer = intentBuffer;
+        this.tickInterval = tickInterval;
+        this.timeoutNanos = timeoutNanos;
+        this.clock = clock;
+    }
+
+    @Override
+    public String roleName() {
+        return "echo-strategy";
+    }
+
+    @Override
+    public void onStart() {}
+
+    @Override
+    public int doWork() throws Exception {
+        int work = execReportPoller.poll();
+        work += marketDataPoller.poll();
+        // Reads back the sequence of any intent just published, before its report can be polled
+        intentPoller.poll();
+        if (inFlight && clock.nanoTime() - intentNanos > timeoutNanos) {
+            inFlight = false;
+            lost++;
+        }
+        return work;
+    }
+
+    private void onMarketData(long globalSeq, int templateId, UnsafeBuffer buf, int len) {
+        if (inFlight || ++ticks % tickInterval != 0 || !timestamps.read(templateId, buf)) {
+            return;
+        }
+        long askPrice = askPrice(templateId, buf);
+        if (askPrice <= 0) {
+            return;
+        }
+        tickReceiveNanos = timestamps.receiveNanos();
+        writeIntent(timestamps.exchangeId(), timestamps.securityId(), askPrice);
+        intentNanos = clock.nanoTime();
+        intentBuffer.publishRaw(intent.buffer, intent.messageHeaderDecoder.templateId(), intent.totalMessageSize());
+        tickToIntent.record(intentNanos - tickReceiveNanos);
+        inFlight = true;
+    }
+
+    private void onIntent(long globalSeq, int templateId, UnsafeBuffer buf, int len) {
+        intentSequence = globalSeq;
+    }
+
+    private void onExecReport(long globalSeq, int templateId, UnsafeBuffer buf, int len) {
+        if (!inFlight || globalSeq < intentSequence) {
+            return;
+        }
+        long now = clock.nanoTime();
+        tickToTrade.record(now - tickReceiveNanos);
+        intentToReport.record(now - intentNanos);
+        inFlight = false;
+    }
+
+    private long askPrice(int templateId, UnsafeBuffer buf) {
+        if (templateId == Mbp10Decoder.TEMPLATE_ID) {
+            mbp10.wrap(buf);
+            return mbp10.decoder.askPrice0();
+        }
+        if (templateId == Mbp1Decoder.TEMPLATE_ID) {
+            mbp1.wrap(buf);
+            return mbp1.decoder.askPrice0();
+        }
+        return 0;
+    }
+
+    private void writeIntent(long exchangeId, long securityId, long price) {
+        intent.encoder.exchangeId((int) exchangeId).securityId(securityId).price(price).size(1L);
+    }
+
+    /**
+     * Returns the report for this run as a single JSON object, labelled with {@code variant}.
+     */
+    public String toJson(String variant) {
+        StringBuilder json = new StringBuilder("{\"variant\":\"")
+                .append(variant)
+                .append("\",\"tickInterval\":")
+                .append(tickInterval)
+                .append(",\"lost\":")
+                .append(lost);
+        appendJson(json, "tickToTrade", tickToTrade.snapshot());
+        appendJson(json, "tickToIntent", tickToIntent.snapshot());
+        appendJson(json, "intentToReport", intentToReport.snapshot());
+        return json.append('}').toString();
+    }
+
+    /**
+     * Returns a human-readable percentile table for this run.
+     */
+    public String summary(String variant) {
+        StringBuilder summary = new StringBuilder("Tick-to-trade [")
+                .append(variant)
+                .append("], every ")
+                .append(tickInterval)
+                .append(" ticks, lost=")
+                .append(lost);
+        appendSummary(summary, "tick->trade", tickToTrade.snapshot());
+        appendSummary(summary, "tick->intent", tickToIntent.snapshot());
+        appendSummary(summary, "intent->report", intentToReport.snapshot());
+        return summary.toString();
+    }
+
+    private static void appendJson(StringBuilder json, String name, LatencyHistogram.Snapshot snapshot) {
+        json.append(",\"")
+                .append(name)
+                .append("\":{\"count\":")
+                .append(snapshot.count())
+                .append(",\"p50Nanos\":")
+                .append(snapshot.p50())
+                .append(",\"p90Nanos\":")
+                .append(snapshot.p90())
+                .append(",\"p99Nanos\":")
+                .append(snapshot.p99())
+                .append(",\"p999Nanos\":")
+                .append(snapshot.p999())
+                .append(",\"maxNanos\":")
+                .append(snapshot.max())
+                .append('}');
+    }
+
+    private static void appendSummary(StringBuilder summary, String name, LatencyHistogram.Snapshot snapshot) {
+        summary.append(String.format(
+                Locale.ROOT,
+                "%n  %-15s n=%d p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                name,
+                snapshot.count(),
+                snapshot.p50() / 1_000.0,
+                snapshot.p90() / 1_000.0,
+                snapshot.p99() / 1_000.0,
+                snapshot.p999() / 1_000.0,
+                snapshot.max() / 1_000.0));
+    }
+}
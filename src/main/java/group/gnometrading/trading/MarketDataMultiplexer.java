@@ -1,10 +1,19 @@
 package group.gnometrading.trading;
 
 import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.gateways.inbound.EventTimestamps;
+import group.gnometrading.gateways.inbound.SchemaNarrower;
+import group.gnometrading.health.HopLatencies;
+import group.gnometrading.health.HopLatencies.Hop;
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.sequencer.SequencedEventHandler;
 import group.gnometrading.sequencer.SequencedPoller;
 import group.gnometrading.sequencer.SequencedRingBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.SystemEpochNanoClock;
 import org.agrona.concurrent.UnsafeBuffer;
 
 /**
@@ -14,20 +23,76 @@ import org.agrona.concurrent.UnsafeBuffer;
  * {@link SequencedRingBuffer#publishRaw}. Runs on its own thread; is the sole producer of
  * the target buffer.
  *
- * <p>Only instantiated for multi-listing sessions. Single-listing sessions connect the inbound
- * gateway's market data buffer directly to the strategy with no intermediate hop.
+ * <p>Only instantiated for multi-listing sessions, or when a lone listing's schema is narrower than
+ * MBP-10 and no sequence gap relay narrows it already: sources with a {@link SchemaNarrower} are
+ * re-encoded on the way through. Single-listing
+ * MBP-10 sessions connect the inbound gateway's market data buffer directly to the strategy with
+ * no intermediate hop.
+ *
+ * <p>Consumers that decode MBP-10, such as the price writer, cannot read a narrowed target. When
+ * sources are narrowed, every MBP-10 event can also be forwarded unchanged to a depth target.
  */
 public final class MarketDataMultiplexer implements GnomeAgent {
 
     private final List<SequencedPoller> sourcePollers;
     private final SequencedRingBuffer<?> target;
+    private final SequencedRingBuffer<?> depthTarget;
+    private final HopLatencies latencies;
+    private final EpochNanoClock clock;
+    private final EventTimestamps timestamps = new EventTimestamps();
 
     public MarketDataMultiplexer(Collection<SequencedRingBuffer<?>> sources, SequencedRingBuffer<?> target) {
         this.target = target;
+        this.depthTarget = null;
+        this.latencies = null;
+        this.clock = null;
         this.sourcePollers =
                 sources.stream().map(src -> src.createPoller(this::onEvent)).toList();
     }
 
+    /**
+     * @param narrowers one per source, in order; {@code null} forwards that source unchanged
+     * @param depthTarget receives every MBP-10 event of every source unchanged, or {@code null}
+     * @param latencies records the receive-to-multiplexer hop per source, or {@code null}
+     */
+    public MarketDataMultiplexer(
+            List<SequencedRingBuffer<?>> sources,
+            List<SchemaNarrower> narrowers,
+            SequencedRingBuffer<?> target,
+            SequencedRingBuffer<?> depthTarget,
+            HopLatencies latencies) {
+        this.target = target;
+        this.depthTarget = depthTarget;
+        this.latencies = latencies;
+        this.clock = latencies != null ? new SystemEpochNanoClock() : null;
+        List<SequencedPoller> pollers = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            SchemaNarrower narrower = narrowers.get(i);
+            SequencedEventHandler forward = narrower == null
+                    ? this::onEvent
+                    : (globalSeq, templateId, buf, len) -> narrower.publish(templateId, buf, len, target);
+            if (depthTarget != null) {
+                SequencedEventHandler next = forward;
+                forward = (globalSeq, templateId, buf, len) -> {
+                    if (templateId == Mbp10Decoder.TEMPLATE_ID) {
+                        depthTarget.publishRaw(buf, templateId, len);
+                    }
+                    next.onEvent(globalSeq, templateId, buf, len);
+                };
+            }
+            if (latencies != null) {
+                int listing = i;
+                SequencedEventHandler next = forward;
+                forward = (globalSeq, templateId, buf, len) -> {
+                    recordForward(listing, templateId, buf);
+                    next.onEvent(globalSeq, templateId, buf, len);
+                };
+            }
+            pollers.add(sources.get(i).createPoller(forward));
+        }
+        this.sourcePollers = List.copyOf(pollers);
+    }
+
     @Override
     public String roleName() {
         return "market-data-multiplexer";
@@ -48,4 +113,10 @@ public final class MarketDataMultiplexer implements GnomeAgent {
     private void onEvent(long globalSeq, int templateId, UnsafeBuffer buf, int len) throws Exception {
         target.publishRaw(buf, templateId, len);
     }
+
+    private void recordForward(int listing, int templateId, UnsafeBuffer buf) {
+        if (timestamps.read(templateId, buf)) {
+            latencies.record(listing, Hop.RECEIVE_TO_MULTIPLEXER, clock.nanoTime() - timestamps.receiveNanos());
+        }
+    }
 }
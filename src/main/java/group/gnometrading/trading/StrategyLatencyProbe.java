@@ -0,0 +1,118 @@
+package group.gnometrading.trading;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.gateways.inbound.EventTimestamps;
+import group.gnometrading.health.HopLatencies;
+import group.gnometrading.health.HopLatencies.Hop;
+import group.gnometrading.sequencer.SequencedPoller;
+import group.gnometrading.sequencer.SequencedRingBuffer;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Runs the strategy agent and records venue-to-receive and receive-to-strategy latency per listing
+ * for the market data events the strategy consumes.
+ *
+ * <p>The strategy's own callbacks and poller position cannot be reached, so each duty cycle first
+ * takes the timestamps of the events published to the strategy's buffer so far, then runs the
+ * strategy and records them against the time the strategy returned. An event published while the
+ * strategy runs is left for the next cycle rather than measured against a time before it arrived.
+ * The strategy hop includes the strategy's processing of the batch.
+ *
+ * <p>Two limits follow from measuring from outside the strategy:
+ *
+ * <ul>
+ *   <li>{@link Hop#RECEIVE_TO_STRATEGY} assumes one {@code doWork()} drains everything the probe
+ *       saw. A strategy that polls a bounded batch per cycle has the hop recorded for events it has
+ *       not consumed yet, so under backlog the hop understates its latency.
+ *   <li>The probe adds a second poller to the strategy's buffer, which publishers must wait for as
+ *       they wait for the strategy's. It runs on the strategy thread just ahead of the strategy, so
+ *       it only holds the buffer back when the strategy thread itself stalls.
+ * </ul>
+ *
+ * <p>When no multiplexer sits between the listing and the strategy, the receive-to-multiplexer hop
+ * is recorded as the time until the strategy thread first saw the event.
+ */
+public final class StrategyLatencyProbe implements GnomeAgent {
+
+    private static final int MAX_PENDING = 4096;
+
+    private final GnomeAgent strategy;
+    private final SequencedPoller poller;
+    private final HopLatencies latencies;
+    private final EpochNanoClock clock;
+    private final boolean recordForwardHop;
+    private final EventTimestamps timestamps = new EventTimestamps();
+    private final int[] pendingListings = new int[MAX_PENDING];
+    private final long[] pendingReceiveNanos = new long[MAX_PENDING];
+    private int pending;
+
+    /**
+     * @param recordForwardHop whether to record {@link Hop#RECEIVE_TO_MULTIPLEXER}, for sessions
+     *     without a multiplexer
+     */
+    public StrategyLatencyProbe(
+            GnomeAgent strategy,
+            SequencedRingBuffer<?> strategyMdBuffer,
+            HopLatencies latencies,
+            EpochNanoClock clock,
+            boolean recordForwardHop) {
+        this.strategy = strategy;
+        this.poller = strategyMdBuffer.createPoller(this::onEvent);
+        this.latencies = latencies;
+        this.clock = clock;
+        this.recordForwardHop = recordForwardHop;
+    }
+
+    @Override
+    public String roleName() {
+        return strategy.roleName();
+    }
+
+    @Override
+    public void onStart() {
+        strategy.onStart();
+    }
+
+    @Override
+    public int doWork() throws Exception {
+        poller.poll();
+        if (pending > 0 && recordForwardHop) {
+            long seenNanos = clock.nanoTime();
+            for (int i = 0; i < pending; i++) {
+                latencies.record(pendingListings[i], Hop.RECEIVE_TO_MULTIPLEXER, seenNanos - pendingReceiveNanos[i]);
+            }
+        }
+        int work = strategy.doWork();
+        if (pending > 0) {
+            long consumedNanos = clock.nanoTime();
+            for (int i = 0; i < pending; i++) {
+                latencies.record(pendingListings[i], Hop.RECEIVE_TO_STRATEGY, consumedNanos - pendingReceiveNanos[i]);
+            }
+            pending = 0;
+        }
+        return work;
+    }
+
+    @Override
+    public void onClose() {
+        strategy.onClose();
+    }
+
+    private void onEvent(long globalSeq, int templateId, UnsafeBuffer buf, int len) {
+        if (!timestamps.read(templateId, buf)) {
+            return;
+        }
+        int listing = latencies.indexOf(timestamps.exchangeId(), timestamps.securityId());
+        if (listing < 0) {
+            return;
+        }
+        latencies.record(listing, Hop.VENUE_TO_RECEIVE, timestamps.receiveNanos() - timestamps.exchangeNanos());
+        // Beyond this many events in one cycle the later hops are sampled rather than recorded for each
+        if (pending < MAX_PENDING) {
+            pendingListings[pending] = listing;
+            pendingReceiveNanos[pending] = timestamps.receiveNanos();
+            pending++;
+        }
+    }
+}
@@ -3,11 +3,19 @@ package group.gnometrading.trading;
 import group.gnometrading.RegistryConnection;
 import group.gnometrading.SecurityMaster;
 import group.gnometrading.concurrent.GnomeAgent;
-import group.gnometrading.concurrent.GnomeAgentRunner;
 import group.gnometrading.di.Orchestrator;
 import group.gnometrading.di.Provides;
 import group.gnometrading.di.Singleton;
 import group.gnometrading.gateways.inbound.DefaultInboundOrchestrator;
+import group.gnometrading.gateways.inbound.ExchangeSessionOrchestrator;
+import group.gnometrading.gateways.inbound.FeedArbitrator;
+import group.gnometrading.gateways.inbound.InboundIoThreads;
+import group.gnometrading.gateways.inbound.InboundSchema;
+import group.gnometrading.gateways.inbound.SchemaNarrower;
+import group.gnometrading.gateways.inbound.SequenceGapRelay;
+import group.gnometrading.health.HealthCheckServer;
+import group.gnometrading.health.HopLatencies;
+import group.gnometrading.health.ListingHealthReport;
 import group.gnometrading.logging.ConsoleLogger;
 import group.gnometrading.logging.LogMessage;
 import group.gnometrading.logging.Logger;
@@ -42,6 +50,8 @@ import group.gnometrading.sm.Listing;
 import group.gnometrading.strategies.PythonStrategyAgent;
 import group.gnometrading.strategies.PythonStrategyAgent.PythonStrategyCallback;
 import group.gnometrading.strategies.StrategyAgent;
+import group.gnometrading.utils.AgentThreadPlan;
+import group.gnometrading.utils.CompositeAgent;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Parameter;
@@ -53,7 +63,9 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.EpochClock;
@@ -83,6 +95,41 @@ import software.amazon.awssdk.services.s3.S3Client;
  * on the outbound side so the strategy and OMS always see single buffers regardless of the number
  * of exchanges.
  *
+ * <p>The strategy receives each listing in its exchange's {@code schemaType}: listings configured
+ * for top-of-book or trades are narrowed from MBP-10 by the multiplexer, which shrinks the
+ * strategy's market data buffer and the journal. Paper fills and the price writer still see full
+ * MBP-10 depth: a lone narrowed listing is narrowed by the {@link SequenceGapRelay} when there is
+ * one, and the multiplexer otherwise, which also copies MBP-10 events to the price writer's buffer
+ * when several listings are merged.
+ *
+ * <p>Low-rate agents that do not block (price writer, latency histograms) share a single
+ * {@code housekeeping} thread through a {@link CompositeAgent}; {@code housekeeping.roles}
+ * overrides the set. Risk sync and PnL reporting block on HTTP calls, and the journal manager
+ * flushes its mapped file synchronously, so they keep their own threads and a slow call or flush
+ * does not hold up the price writer. Every other agent gets its own thread, placed by the
+ * {@link AgentThreadPlan}.
+ *
+ * <p>With {@code inbound.shared.sessions} enabled, inbound orchestrators are grouped under one
+ * {@link ExchangeSessionOrchestrator} per exchange so credentials and session settings are fetched
+ * once per venue. Each listing still opens its own connection.
+ *
+ * <p>With {@code latency.tracking} enabled (it is off by default), every market data event's hops from
+ * venue to strategy are recorded into per-listing {@link HopLatencies} histograms and logged
+ * periodically.
+ *
+ * <p>When {@code admin.port} (or, as before, {@code latency.admin.port}) is set, an admin server
+ * serves each inbound listing's circuit-breaker and sequence-gap state on {@code /listings}, and the
+ * hop latencies on {@code /latency} when they are tracked.
+ *
+ * <p>Listings on the exchanges in {@code inbound.redundant.exchanges} get a second, independent
+ * inbound connection; a {@link FeedArbitrator} forwards the first copy of each update from either
+ * side, so the strategy sees one gap-free feed per listing.
+ *
+ * <p>With {@code inbound.gap.detection} enabled, a {@link SequenceGapRelay} checks each listing's
+ * feed for sequence gaps before the multiplexer or strategy sees it, counting them and flagging the
+ * events until the snapshot boundary. The relay is an extra thread and copy on the market data
+ * path, so it is off in production until the readers can resync in place.
+ *
  * <p>Configure via the {@code listings} property (comma-separated listing IDs).
  */
 public class TradingOrchestrator extends Orchestrator {
@@ -124,6 +171,11 @@ public class TradingOrchestrator extends Orchestrator {
         install(new RiskModule());
         install(new AwsModule());
 
+        boolean parallelWarmUp = getInstance(Boolean.class, "PARALLEL_WARM_UP");
+        if (parallelWarmUp) {
+            warmUp(Logger.class, SecurityMaster.class, RiskEngine.class, RiskSyncAgent.class);
+        }
+
         Logger logger = getInstance(Logger.class);
         SecurityMaster securityMaster = getInstance(SecurityMaster.class);
         Properties properties = getInstance(Properties.class);
@@ -134,7 +186,11 @@ public class TradingOrchestrator extends Orchestrator {
 
         GlobalSequence globalSequence = new GlobalSequence();
 
+        boolean sharedSessions = getInstance(Boolean.class, "SHARED_EXCHANGE_SESSIONS");
+        Map<Integer, ExchangeSessionOrchestrator> sessions = new HashMap<>();
+        FeedArbitrator feedArbitrator = FeedArbitrator.fromProperties(properties);
         List<DefaultInboundOrchestrator<?>> inbounds = new ArrayList<>(listings.size());
+        Map<DefaultInboundOrchestrator<?>, DefaultInboundOrchestrator<?>> secondaries = new HashMap<>();
         List<SequencedRingBuffer<?>> perListingMdBuffers = new ArrayList<>(listings.size());
         for (Listing listing : listings) {
             Map<Class<?>, Object> inboundOverrides = new HashMap<>();
@@ -142,11 +198,43 @@ public class TradingOrchestrator extends Orchestrator {
             if (listings.size() == 1) {
                 inboundOverrides.put(GlobalSequence.class, globalSequence);
             }
-            DefaultInboundOrchestrator<?> inbound = createChildOrchestrator(
-                    DefaultInboundOrchestrator.findInboundOrchestrator(listing), inboundOverrides);
+            DefaultInboundOrchestrator<?> inbound = createInbound(listing, inboundOverrides, sharedSessions, sessions);
             inbounds.add(inbound);
-            perListingMdBuffers.add(inbound.getSequencedRingBuffer());
+            if (feedArbitrator != null && feedArbitrator.covers(listing)) {
+                secondaries.put(inbound, createInbound(listing, inboundOverrides, sharedSessions, sessions));
+            }
         }
+        if (parallelWarmUp) {
+            List<DefaultInboundOrchestrator<?>> allInbounds = new ArrayList<>(inbounds);
+            allInbounds.addAll(secondaries.values());
+            DefaultInboundOrchestrator.warmUpGateways(allInbounds);
+        }
+        for (DefaultInboundOrchestrator<?> inbound : inbounds) {
+            DefaultInboundOrchestrator<?> secondary = secondaries.get(inbound);
+            perListingMdBuffers.add(
+                    secondary != null ? feedArbitrator.add(inbound, secondary) : inbound.getSequencedRingBuffer());
+        }
+        List<InboundSchema> mdSchemas = listings.stream().map(InboundSchema::of).toList();
+        List<SchemaNarrower> narrowers =
+                mdSchemas.stream().map(SchemaNarrower::forSchema).toList();
+        InboundSchema strategyMdSchema = InboundSchema.widest(mdSchemas);
+        boolean narrowing = narrowers.stream().anyMatch(Objects::nonNull);
+
+        SequenceGapRelay gapRelay = null;
+        SequencedRingBuffer<?> relayedMdBuffer = null;
+        if (getInstance(Boolean.class, "SEQUENCE_GAP_DETECTION")) {
+            gapRelay = new SequenceGapRelay();
+            if (listings.size() == 1 && narrowing) {
+                // The relay narrows a lone listing itself, saving the multiplexer hop
+                relayedMdBuffer = strategyMdSchema.newRingBuffer(globalSequence);
+                gapRelay.add(inbounds.get(0), perListingMdBuffers.get(0), narrowers.get(0), relayedMdBuffer);
+            } else {
+                for (int i = 0; i < inbounds.size(); i++) {
+                    perListingMdBuffers.set(i, gapRelay.add(inbounds.get(i), perListingMdBuffers.get(i)));
+                }
+            }
+        }
+        inbounds.addAll(secondaries.values());
         SharedPositionBuffer sharedBuffer = new SharedPositionBuffer(64);
         DefaultPositionTracker positionTracker = new DefaultPositionTracker(sharedBuffer);
         SharedPriceBuffer priceBuffer = new SharedPriceBuffer(listings.size());
@@ -171,17 +259,35 @@ public class TradingOrchestrator extends Orchestrator {
         SequencedRingBuffer<OrderExecutionReport> stratExecReportBuffer =
                 new SequencedRingBuffer<>(OrderExecutionReport::new, globalSequence, OUTBOUND_BUFFER_SIZE);
 
+        HopLatencies hopLatencies = createHopLatencies(properties, listings, logger);
+        startAdminServer(properties, inbounds, hopLatencies);
+
+        // The price writer decodes MBP-10, so it reads full depth whenever the strategy's feed is narrowed
         SequencedRingBuffer<?> strategyMdBuffer;
+        SequencedRingBuffer<?> priceMdBuffer;
         MarketDataMultiplexer muxAgent = null;
-        if (listings.size() == 1) {
-            strategyMdBuffer = perListingMdBuffers.get(0);
+        if (listings.size() == 1 && (!narrowing || relayedMdBuffer != null)) {
+            strategyMdBuffer = narrowing ? relayedMdBuffer : perListingMdBuffers.get(0);
+            priceMdBuffer = perListingMdBuffers.get(0);
         } else {
-            strategyMdBuffer = new SequencedRingBuffer<>(Intent::new, globalSequence);
-            muxAgent = new MarketDataMultiplexer(perListingMdBuffers, strategyMdBuffer);
+            strategyMdBuffer = strategyMdSchema == InboundSchema.MBP_10
+                    ? new SequencedRingBuffer<>(Intent::new, globalSequence)
+                    : strategyMdSchema.newRingBuffer(globalSequence);
+            SequencedRingBuffer<?> depthMdBuffer = null;
+            if (!narrowing) {
+                priceMdBuffer = strategyMdBuffer;
+            } else if (listings.size() == 1) {
+                priceMdBuffer = perListingMdBuffers.get(0);
+            } else {
+                depthMdBuffer = InboundSchema.MBP_10.newRingBuffer(globalSequence);
+                priceMdBuffer = depthMdBuffer;
+            }
+            muxAgent = new MarketDataMultiplexer(
+                    perListingMdBuffers, narrowers, strategyMdBuffer, depthMdBuffer, hopLatencies);
         }
 
         PriceWriterAgent priceWriterAgent =
-                new PriceWriterAgent(priceBuffer, priceSlotRegistry, securityMaster, strategyMdBuffer);
+                new PriceWriterAgent(priceBuffer, priceSlotRegistry, securityMaster, priceMdBuffer);
 
         SequencedRingBuffer<Intent> orderOutboundBuffer =
                 new SequencedRingBuffer<>(Intent::new, globalSequence, OUTBOUND_BUFFER_SIZE);
@@ -220,8 +326,12 @@ public class TradingOrchestrator extends Orchestrator {
 
         OmsAgent omsAgent =
                 new OmsAgent(oms, intentBuffer, omsExecReportBuffer, orderOutboundBuffer, stratExecReportBuffer);
-        StrategyAgent strategy = createStrategyAgent(
-                strategyMdBuffer, stratExecReportBuffer, intentBuffer, positionView, securityMaster);
+        GnomeAgent strategy =
+                createStrategy(strategyMdBuffer, stratExecReportBuffer, intentBuffer, positionView, securityMaster);
+        GnomeAgent strategyRunner = hopLatencies == null
+                ? strategy
+                : new StrategyLatencyProbe(
+                        strategy, strategyMdBuffer, hopLatencies, new SystemEpochNanoClock(), muxAgent == null);
 
         RegistryConnection registryConnection = getInstance(RegistryConnection.class);
         EpochClock epochClock = SystemEpochClock.INSTANCE;
@@ -254,31 +364,91 @@ public class TradingOrchestrator extends Orchestrator {
         journaledBuffers.add(stratExecReportBuffer);
         journaledBuffers.add(orderOutboundBuffer);
         journaledBuffers.add(omsExecReportBuffer);
-        wireJournal(strategyId, sessionId, journaledBuffers, epochClock, errorHandler, logger, properties);
+        JournalManagerAgent journalManagerAgent =
+                wireJournal(strategyId, sessionId, journaledBuffers, epochClock, logger, properties);
 
+        InboundIoThreads ioThreads = InboundIoThreads.fromProperties(properties);
+        AgentThreadPlan threadPlan = getInstance(AgentThreadPlan.class);
+        Set<String> housekeepingRoles = resolveHousekeepingRoles(properties, priceWriterAgent, hopLatencies);
         startAgentRunners(
+                threadPlan,
+                housekeepingRoles,
                 inbounds,
+                ioThreads,
                 omsAgent,
                 outboundAgents,
                 muxAgent,
+                feedArbitrator,
+                gapRelay,
                 routerAgent,
-                strategy,
+                strategyRunner,
                 pnlReportingAgent,
                 priceWriterAgent,
                 riskSyncAgent,
-                errorHandler);
+                journalManagerAgent,
+                hopLatencies,
+                errorHandler,
+                logger);
+        if (ioThreads != null) {
+            logger.logf(LogMessage.DEBUG, "Started shared inbound I/O threads: %s", ioThreads);
+        }
+        logger.logf(LogMessage.DEBUG, "%s", threadPlan.summary());
+    }
+
+    private DefaultInboundOrchestrator<?> createInbound(
+            Listing listing,
+            Map<Class<?>, Object> overrides,
+            boolean sharedSessions,
+            Map<Integer, ExchangeSessionOrchestrator> sessions) {
+        if (sharedSessions) {
+            ExchangeSessionOrchestrator session = sessions.computeIfAbsent(
+                    listing.exchange().exchangeId(),
+                    exchangeId -> createChildOrchestrator(
+                            ExchangeSessionOrchestrator.class, Map.of(Listing.class, listing)));
+            return session.createListingOrchestrator(listing, overrides);
+        }
+        return createChildOrchestrator(DefaultInboundOrchestrator.findInboundOrchestrator(listing), overrides);
     }
 
-    private void wireJournal(
+    /**
+     * Returns the per-hop latency histograms when {@code latency.tracking} is enabled.
+     */
+    private HopLatencies createHopLatencies(Properties properties, List<Listing> listings, Logger logger) {
+        if (!getInstance(Boolean.class, "LATENCY_TRACKING")) {
+            return null;
+        }
+        int logIntervalSeconds = properties.hasProperty("latency.log.interval.seconds")
+                ? properties.getIntProperty("latency.log.interval.seconds")
+                : 60;
+        return new HopLatencies(
+                listings, logger, SystemEpochClock.INSTANCE, TimeUnit.SECONDS.toMillis(logIntervalSeconds));
+    }
+
+    private static void startAdminServer(
+            Properties properties, List<DefaultInboundOrchestrator<?>> inbounds, HopLatencies hopLatencies) {
+        String portProperty = properties.hasProperty("admin.port") ? "admin.port" : "latency.admin.port";
+        if (!properties.hasProperty(portProperty)) {
+            return;
+        }
+        try {
+            new HealthCheckServer(properties.getIntProperty(portProperty), () -> true)
+                    .addJsonEndpoint("/listings", () -> ListingHealthReport.toJson(inbounds))
+                    .addJsonEndpoint("/latency", () -> hopLatencies != null ? hopLatencies.toJson() : "{}")
+                    .start();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start admin endpoint", e);
+        }
+    }
+
+    private JournalManagerAgent wireJournal(
             int strategyId,
             String sessionId,
             List<SequencedRingBuffer<?>> journaledBuffers,
             EpochClock epochClock,
-            ErrorHandler errorHandler,
             Logger logger,
             Properties properties) {
         if (!properties.getBooleanProperty("journal.enabled")) {
-            return;
+            return null;
         }
         Path journalPath = Path.of("/tmp/journal-" + sessionId + ".bin");
         long fileSizeBytes = (long) properties.getIntProperty("journal.file.size.mb") * 1024L * 1024L;
@@ -292,7 +462,7 @@ public class TradingOrchestrator extends Orchestrator {
             String journalBucket = properties.getStringProperty("journal.bucket");
             String s3Key = strategyId + "/" + sessionId + "/journal.zst";
             int flushIntervalSeconds = properties.getIntProperty("journal.flush.interval.seconds");
-            JournalManagerAgent journalManagerAgent = new JournalManagerAgent(
+            return new JournalManagerAgent(
                     journalWriter,
                     journalPath,
                     s3Client,
@@ -301,50 +471,120 @@ public class TradingOrchestrator extends Orchestrator {
                     epochClock,
                     Duration.ofSeconds(flushIntervalSeconds),
                     logger);
-            GnomeAgentRunner journalRunner = new GnomeAgentRunner(journalManagerAgent, errorHandler);
-            GnomeAgentRunner.startOnThread(journalRunner);
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                try {
-                    journalRunner.close();
-                } catch (Exception e) {
-                    /* best effort */
-                }
-            }));
         } catch (IOException e) {
             throw new RuntimeException("Failed to create journal writer", e);
         }
     }
 
+    /**
+     * Returns the roles that share the housekeeping thread: {@code housekeeping.roles}
+     * (comma-separated, empty to disable) when set, otherwise the roles of the given low-rate agents,
+     * none of which may block. The journal manager is not one of them: its scheduled flush forces up
+     * to {@code journal.file.size.mb} of mapped file and would stall the others for as long.
+     */
+    private static Set<String> resolveHousekeepingRoles(Properties properties, GnomeAgent... defaults) {
+        Set<String> roles = new HashSet<>();
+        if (properties.hasProperty("housekeeping.roles")) {
+            for (String role : properties.getStringProperty("housekeeping.roles").split(",")) {
+                if (!role.isBlank()) {
+                    roles.add(role.trim());
+                }
+            }
+            return roles;
+        }
+        for (GnomeAgent agent : defaults) {
+            if (agent != null) {
+                roles.add(agent.roleName());
+            }
+        }
+        return roles;
+    }
+
     private static void startAgentRunners(
+            AgentThreadPlan threadPlan,
+            Set<String> housekeepingRoles,
             List<DefaultInboundOrchestrator<?>> inbounds,
+            InboundIoThreads ioThreads,
             OmsAgent omsAgent,
             List<GnomeAgent> outboundAgents,
             MarketDataMultiplexer muxAgent,
+            FeedArbitrator feedArbitrator,
+            SequenceGapRelay gapRelay,
             ExchangeRouter routerAgent,
-            StrategyAgent strategy,
+            GnomeAgent strategy,
             PnlReportingAgent pnlReportingAgent,
             PriceWriterAgent priceWriterAgent,
             RiskSyncAgent riskSyncAgent,
-            ErrorHandler errorHandler) {
+            JournalManagerAgent journalManagerAgent,
+            HopLatencies hopLatencies,
+            ErrorHandler errorHandler,
+            Logger logger) {
         for (DefaultInboundOrchestrator<?> inbound : inbounds) {
-            inbound.startGatewayAgents();
+            inbound.startGatewayAgents(ioThreads);
         }
-        GnomeAgentRunner.startOnThread(new GnomeAgentRunner(omsAgent, errorHandler));
-        GnomeAgentRunner.startOnThread(new GnomeAgentRunner(priceWriterAgent, errorHandler));
-        for (GnomeAgent outbound : outboundAgents) {
-            GnomeAgentRunner.startOnThread(new GnomeAgentRunner(outbound, errorHandler));
+        if (ioThreads != null) {
+            ioThreads.start(threadPlan, errorHandler);
         }
+
+        List<GnomeAgent> agents = new ArrayList<>();
+        agents.add(omsAgent);
+        agents.add(priceWriterAgent);
+        agents.addAll(outboundAgents);
         if (muxAgent != null) {
-            GnomeAgentRunner.startOnThread(new GnomeAgentRunner(muxAgent, errorHandler));
+            agents.add(muxAgent);
+        }
+        if (feedArbitrator != null && feedArbitrator.size() > 0) {
+            agents.add(feedArbitrator);
+            Runtime.getRuntime().addShutdownHook(
+                    new Thread(() -> logger.logf(LogMessage.DEBUG, "%s", feedArbitrator.winRateReport())));
+        }
+        if (gapRelay != null && gapRelay.size() > 0) {
+            agents.add(gapRelay);
         }
         if (routerAgent != null) {
-            GnomeAgentRunner.startOnThread(new GnomeAgentRunner(routerAgent, errorHandler));
+            agents.add(routerAgent);
         }
-        GnomeAgentRunner.startOnThread(new GnomeAgentRunner(strategy, errorHandler));
+        agents.add(strategy);
         if (pnlReportingAgent != null) {
-            GnomeAgentRunner.startOnThread(new GnomeAgentRunner(pnlReportingAgent, errorHandler));
+            agents.add(pnlReportingAgent);
+        }
+        agents.add(riskSyncAgent);
+        if (journalManagerAgent != null) {
+            agents.add(journalManagerAgent);
+        }
+        if (hopLatencies != null) {
+            agents.add(hopLatencies);
+        }
+
+        CompositeAgent housekeeping = new CompositeAgent("housekeeping", true);
+        AutoCloseable journalRunner = null;
+        for (GnomeAgent agent : agents) {
+            if (housekeepingRoles.contains(agent.roleName())) {
+                housekeeping.add(agent, errorHandler);
+            } else {
+                AutoCloseable runner = threadPlan.start(agent, errorHandler);
+                if (agent == journalManagerAgent) {
+                    journalRunner = runner;
+                }
+            }
+        }
+        AutoCloseable housekeepingRunner = null;
+        if (housekeeping.size() > 0) {
+            housekeepingRunner = threadPlan.start(housekeeping, errorHandler);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> logger.logf(
+                    LogMessage.DEBUG, "%s", housekeeping.dutyCycleReport())));
+        }
+        if (journalManagerAgent != null) {
+            // Closing the runner finalizes the journal and uploads it
+            AutoCloseable runner = journalRunner != null ? journalRunner : housekeepingRunner;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    runner.close();
+                } catch (Exception e) {
+                    /* best effort */
+                }
+            }));
         }
-        GnomeAgentRunner.startOnThread(new GnomeAgentRunner(riskSyncAgent, errorHandler));
     }
 
     private GnomeAgent createOutboundGateway(
@@ -372,6 +612,20 @@ public class TradingOrchestrator extends Orchestrator {
         throw new UnsupportedOperationException("Live outbound gateway not yet implemented. mode=" + mode);
     }
 
+    /**
+     * Returns the agent that consumes market data and execution reports and publishes intents.
+     * Defaults to the {@link StrategyAgent} configured by {@code strategy.type}; test harnesses
+     * override it to run an instrumented strategy through the rest of the production wiring.
+     */
+    protected GnomeAgent createStrategy(
+            SequencedRingBuffer<?> mdBuf,
+            SequencedRingBuffer<OrderExecutionReport> erBuf,
+            SequencedRingBuffer<Intent> intentBuf,
+            PositionView positionView,
+            SecurityMaster securityMaster) {
+        return createStrategyAgent(mdBuf, erBuf, intentBuf, positionView, securityMaster);
+    }
+
     private StrategyAgent createStrategyAgent(
             SequencedRingBuffer<?> mdBuf,
             SequencedRingBuffer<OrderExecutionReport> erBuf,
@@ -0,0 +1,233 @@
+package group.gnometrading.utils;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import group.gnometrading.concurrent.GnomeAgentRunner;
+import group.gnometrading.resources.Properties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import net.openhft.affinity.AffinityLock;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.NoOpIdleStrategy;
+import org.agrona.concurrent.SleepingMillisIdleStrategy;
+import org.agrona.concurrent.YieldingIdleStrategy;
+
+/**
+ * Thread placement for every agent the orchestrators start, keyed by {@link GnomeAgent#roleName()}.
+ *
+ * <p>Configured with properties of the form {@code threads.<role>.<attribute>}:
+ *
+ * <ul>
+ *   <li>{@code cpu}: CPU ids the threads of the role are pinned to, e.g. {@code 2} or {@code 2,3,5}.
+ *       Each thread started for the role takes the next id in turn, so the per-listing agents that
+ *       share a role name are spread over the list rather than stacked on one CPU.
+ *   <li>{@code idle}: {@code busy_spin}, {@code yielding}, {@code backoff}, {@code sleeping} (1 ms)
+ *       or {@code noop}.
+ *   <li>{@code priority}: Java thread priority, 1 to 10.
+ * </ul>
+ *
+ * <p>A per-listing agent is started with its listing id as the instance, and
+ * {@code threads.<role>.<listingId>.<attribute>} places that one instance, ahead of the role's own
+ * entry. The role {@code default} applies to every agent without an entry.
+ *
+ * <p>Every agent runs on a {@link GnomeAgentRunner}. A placed agent is wrapped so that it pins
+ * itself and sets its priority when the runner thread starts it, and idles with its placement's
+ * strategy after each duty cycle.
+ */
+public final class AgentThreadPlan {
+
+    private static final String PREFIX = "threads.";
+    private static final String DEFAULT_ROLE = "default";
+
+    public record Placement(List<Integer> cpus, String idle, int priority) {
+
+        public static final int UNSET = -1;
+
+        /**
+         * Returns the CPU of the {@code instance}-th thread started with this placement, or
+         * {@link #UNSET}.
+         */
+        int cpu(int instance) {
+            return cpus.isEmpty() ? UNSET : cpus.get(instance % cpus.size());
+        }
+
+        IdleStrategy newIdleStrategy() {
+            return switch (idle.toLowerCase(Locale.ROOT)) {
+                case "busy_spin" -> new BusySpinIdleStrategy();
+                case "yielding" -> new YieldingIdleStrategy();
+                case "backoff" -> new BackoffIdleStrategy();
+                case "sleeping" -> new SleepingMillisIdleStrategy(1);
+                case "noop" -> new NoOpIdleStrategy();
+                default -> throw new IllegalArgumentException("Unknown idle strategy: " + idle);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "cpu=" + (cpus.isEmpty() ? "any" : cpus) + " idle=" + idle + " priority="
+                    + (priority == UNSET ? "default" : priority);
+        }
+    }
+
+    private final Map<String, Placement> placements;
+    private final Map<Placement, Integer> instances;
+    private final List<String> started;
+
+    public AgentThreadPlan(Map<String, Placement> placements) {
+        this.placements = placements;
+        this.instances = new HashMap<>();
+        this.started = new ArrayList<>();
+    }
+
+    public static AgentThreadPlan fromProperties(Properties properties) {
+        Map<String, Map<String, String>> attributesByRole = new HashMap<>();
+        for (Map.Entry<String, String> entry : properties.getPropertiesByPrefix(PREFIX).entrySet()) {
+            int dot = entry.getKey().lastIndexOf('.');
+            if (dot <= 0) {
+                throw new IllegalArgumentException("Expected " + PREFIX + "<role>.<attribute>, got: " + PREFIX
+                        + entry.getKey());
+            }
+            attributesByRole
+                    .computeIfAbsent(entry.getKey().substring(0, dot), role -> new HashMap<>())
+                    .put(entry.getKey().substring(dot + 1), entry.getValue().trim());
+        }
+
+        Map<String, Placement> placements = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> role : attributesByRole.entrySet()) {
+            Map<String, String> attributes = role.getValue();
+            Placement placement = new Placement(
+                    attributes.containsKey("cpu") ? parseCpus(attributes.get("cpu")) : List.of(),
+                    attributes.getOrDefault("idle", "backoff"),
+                    attributes.containsKey("priority")
+                            ? Integer.parseInt(attributes.get("priority"))
+                            : Placement.UNSET);
+            placement.newIdleStrategy();
+            placements.put(role.getKey(), placement);
+        }
+        return new AgentThreadPlan(placements);
+    }
+
+    private static List<Integer> parseCpus(String value) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String cpu : value.split(",")) {
+            if (!cpu.isBlank()) {
+                cpus.add(Integer.parseInt(cpu.trim()));
+            }
+        }
+        return List.copyOf(cpus);
+    }
+
+    /**
+     * Returns the placement for {@code roleName}, falling back to the {@code default} role, or
+     * {@code null} when neither is configured.
+     */
+    public Placement placementFor(String roleName) {
+        Placement placement = placements.get(roleName);
+        return placement != null ? placement : placements.get(DEFAULT_ROLE);
+    }
+
+    /**
+     * Starts {@code agent} on its own thread according to its placement.
+     *
+     * @return closes the runner, which stops the duty cycle and calls the agent's {@code onClose()}
+     */
+    public AutoCloseable start(GnomeAgent agent, ErrorHandler errorHandler) {
+        return start(agent, errorHandler, null);
+    }
+
+    /**
+     * Starts one instance of a per-listing agent, such as a listing's socket reader, placed by
+     * {@code threads.<role>.<instance>.*} if configured and by its role otherwise.
+     */
+    public AutoCloseable start(GnomeAgent agent, ErrorHandler errorHandler, String instance) {
+        Placement placement = instance != null ? placements.get(agent.roleName() + "." + instance) : null;
+        if (placement == null) {
+            placement = placementFor(agent.roleName());
+        }
+        GnomeAgent placed = agent;
+        synchronized (started) {
+            String name = instance != null ? agent.roleName() + "[" + instance + "]" : agent.roleName();
+            if (placement == null) {
+                started.add(name + " -> unplaced");
+            } else {
+                int next = instances.merge(placement, 1, Integer::sum) - 1;
+                int cpu = placement.cpu(next);
+                started.add(name + " -> " + placement + (cpu == Placement.UNSET ? "" : " on cpu " + cpu));
+                placed = new PlacedAgent(agent, placement, cpu);
+            }
+        }
+        GnomeAgentRunner runner = new GnomeAgentRunner(placed, errorHandler);
+        GnomeAgentRunner.startOnThread(runner);
+        return runner::close;
+    }
+
+    /**
+     * Returns one line per agent started so far, with the placement it was given.
+     */
+    public String summary() {
+        synchronized (started) {
+            return "Agent thread plan (" + started.size() + " threads, " + Runtime.getRuntime().availableProcessors()
+                    + " cpus):\n  " + String.join("\n  ", started);
+        }
+    }
+
+    /**
+     * Applies a placement from inside the runner's thread: pins it and sets its priority in
+     * {@code onStart()}, and idles with the placement's strategy after each duty cycle. It reports
+     * at least one unit of work so that the runner's own idling does not add to the placement's.
+     */
+    private static final class PlacedAgent implements GnomeAgent {
+
+        private final GnomeAgent agent;
+        private final Placement placement;
+        private final int cpu;
+        private final IdleStrategy idleStrategy;
+        private AffinityLock lock;
+
+        PlacedAgent(GnomeAgent agent, Placement placement, int cpu) {
+            this.agent = agent;
+            this.placement = placement;
+            this.cpu = cpu;
+            this.idleStrategy = placement.newIdleStrategy();
+        }
+
+        @Override
+        public String roleName() {
+            return agent.roleName();
+        }
+
+        @Override
+        public void onStart() {
+            if (cpu != Placement.UNSET) {
+                lock = AffinityLock.acquireLock(cpu);
+            }
+            if (placement.priority() != Placement.UNSET) {
+                Thread.currentThread().setPriority(placement.priority());
+            }
+            agent.onStart();
+        }
+
+        @Override
+        public int doWork() throws Exception {
+            int work = agent.doWork();
+            idleStrategy.idle(work);
+            return Math.max(work, 1);
+        }
+
+        @Override
+        public void onClose() {
+            try {
+                agent.onClose();
+            } finally {
+                if (lock != null) {
+                    lock.release();
+                }
+            }
+        }
+    }
+}
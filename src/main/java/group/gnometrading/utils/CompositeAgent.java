@@ -0,0 +1,167 @@
+package group.gnometrading.utils;
+
+import group.gnometrading.concurrent.GnomeAgent;
+import java.util.ArrayList;
+import java.util.List;
+import org.agrona.ErrorHandler;
+
+/**
+ * Runs several agents on one thread, calling each member's {@link GnomeAgent#doWork()} in turn.
+ *
+ * <p>Every member has its own {@link ErrorHandler}: an exception thrown by one member is passed to
+ * that member's handler and the remaining members keep running in the same duty cycle. Members
+ * must be added before the composite is started and must not block in {@code doWork()}.
+ *
+ * <p>When created with {@code measureDutyCycle}, the composite also records per-member duty-cycle
+ * statistics (calls, work done, time spent in {@code doWork()}, errors), readable at any time
+ * through {@link #dutyCycleReport()}. The counters are written only by the agent thread, so reads
+ * from other threads are approximate.
+ */
+public class CompositeAgent implements GnomeAgent {
+
+    private final String roleName;
+    private final boolean measureDutyCycle;
+    private final List<GnomeAgent> agents;
+    private final List<ErrorHandler> errorHandlers;
+    private GnomeAgent[] members;
+    private ErrorHandler[] memberErrorHandlers;
+    private long[] calls;
+    private long[] workDone;
+    private long[] busyNanos;
+    private long[] maxNanos;
+    private long[] errors;
+
+    public CompositeAgent(final String roleName) {
+        this(roleName, false);
+    }
+
+    public CompositeAgent(final String roleName, final boolean measureDutyCycle) {
+        this.roleName = roleName;
+        this.measureDutyCycle = measureDutyCycle;
+        this.agents = new ArrayList<>();
+        this.errorHandlers = new ArrayList<>();
+    }
+
+    public final void add(final GnomeAgent agent, final ErrorHandler errorHandler) {
+        if (members != null) {
+            throw new IllegalStateException("Cannot add agents to " + roleName + " after it has started");
+        }
+        agents.add(agent);
+        errorHandlers.add(errorHandler);
+    }
+
+    public final int size() {
+        return agents.size();
+    }
+
+    public final List<GnomeAgent> agents() {
+        return List.copyOf(agents);
+    }
+
+    @Override
+    public String roleName() {
+        return roleName;
+    }
+
+    @Override
+    public void onStart() {
+        members = agents.toArray(new GnomeAgent[0]);
+        memberErrorHandlers = errorHandlers.toArray(new ErrorHandler[0]);
+        calls = new long[members.length];
+        workDone = new long[members.length];
+        busyNanos = new long[members.length];
+        maxNanos = new long[members.length];
+        errors = new long[members.length];
+        for (int i = 0; i < members.length; i++) {
+            try {
+                members[i].onStart();
+            } catch (Exception e) {
+                onMemberError(i, e);
+            }
+        }
+    }
+
+    @Override
+    public int doWork() {
+        return measureDutyCycle ? doWorkMeasured() : doWorkUnmeasured();
+    }
+
+    private int doWorkUnmeasured() {
+        int work = 0;
+        for (int i = 0; i < members.length; i++) {
+            try {
+                work += members[i].doWork();
+            } catch (Exception e) {
+                onMemberError(i, e);
+            }
+        }
+        return work;
+    }
+
+    private int doWorkMeasured() {
+        int work = 0;
+        for (int i = 0; i < members.length; i++) {
+            long start = System.nanoTime();
+            try {
+                int memberWork = members[i].doWork();
+                workDone[i] += memberWork;
+                work += memberWork;
+            } catch (Exception e) {
+                onMemberError(i, e);
+            }
+            long elapsed = System.nanoTime() - start;
+            calls[i]++;
+            busyNanos[i] += elapsed;
+            if (elapsed > maxNanos[i]) {
+                maxNanos[i] = elapsed;
+            }
+        }
+        return work;
+    }
+
+    private void onMemberError(int member, Exception e) {
+        errors[member]++;
+        memberErrorHandlers[member].onError(e);
+    }
+
+    @Override
+    public void onClose() {
+        if (members == null) {
+            return;
+        }
+        for (int i = members.length - 1; i >= 0; i--) {
+            try {
+                members[i].onClose();
+            } catch (Exception e) {
+                onMemberError(i, e);
+            }
+        }
+    }
+
+    /**
+     * Returns one line per member with its duty-cycle statistics. Timings are only present when the
+     * composite measures its duty cycle.
+     */
+    public String dutyCycleReport() {
+        GnomeAgent[] current = members;
+        if (current == null) {
+            return roleName + ": not started";
+        }
+        StringBuilder report = new StringBuilder(roleName).append(" duty cycle:");
+        for (int i = 0; i < current.length; i++) {
+            report.append("\n  ").append(current[i].roleName()).append(": errors=").append(errors[i]);
+            if (measureDutyCycle) {
+                long memberCalls = calls[i];
+                report.append(" calls=")
+                        .append(memberCalls)
+                        .append(" work=")
+                        .append(workDone[i])
+                        .append(" avg_ns=")
+                        .append(memberCalls == 0 ? 0 : busyNanos[i] / memberCalls)
+                        .append(" max_ns=")
+                        .append(maxNanos[i]);
+            }
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package group.gnometrading.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AggregateWindowTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final List<ByteBuffer> files = new ArrayList<>();
+    private final List<Long> fileStarts = new ArrayList<>();
+    private final AggregateWindow.Output output = (window, firstWindowStart, records, length) -> {
+        files.add(ByteBuffer.wrap(Arrays.copyOf(records, length)).order(ByteOrder.LITTLE_ENDIAN));
+        fileStarts.add(firstWindowStart);
+    };
+
+    @Test
+    void testBarClosesOnNextWindow() {
+        AggregateWindow window = new AggregateWindow(SECOND, 60 * SECOND);
+        trade(window, 100, 100, 2, true);
+        trade(window, 200, 105, 1, false);
+        trade(window, 300, 95, 3, true);
+        trade(window, 400, 98, 4, false);
+        assertTrue(files.isEmpty());
+
+        trade(window, SECOND + 10, 99, 1, true);
+        window.flush(SECOND + 20, output);
+
+        assertEquals(1, files.size());
+        ByteBuffer records = files.get(0);
+        assertEquals(2 * AggregateWindow.RECORD_SIZE, records.remaining());
+        assertEquals(0L, records.getLong(0));
+        assertEquals(SECOND, records.getLong(8));
+        assertEquals(100L, records.getLong(16));
+        assertEquals(105L, records.getLong(24));
+        assertEquals(95L, records.getLong(32));
+        assertEquals(98L, records.getLong(40));
+        assertEquals(10L, records.getLong(48));
+        assertEquals(5L, records.getLong(56));
+        assertEquals(4L, records.getLong(64));
+        assertEquals((100.0 * 2 + 105 + 95.0 * 3 + 98.0 * 4) / 10, records.getDouble(72), 1e-9);
+        assertEquals(SECOND, records.getLong(AggregateWindow.RECORD_SIZE));
+        assertEquals(99L, records.getLong(AggregateWindow.RECORD_SIZE + 16));
+    }
+
+    @Test
+    void testSpreadIsTimeWeighted() {
+        AggregateWindow window = new AggregateWindow(SECOND, 60 * SECOND);
+        book(window, 0, 100, 102);
+        book(window, SECOND / 4, 100, 106);
+        book(window, SECOND + 1, 100, 101);
+        window.flush(SECOND + 2, output);
+
+        ByteBuffer records = files.get(0);
+        assertEquals(2L, records.getLong(80));
+        assertEquals(100L, records.getLong(88));
+        assertEquals(106L, records.getLong(104));
+        assertEquals(2L, records.getLong(120));
+        assertEquals(6L, records.getLong(128));
+        assertEquals(2 * 0.25 + 6 * 0.75, records.getDouble(136), 1e-9);
+        assertEquals(6L, records.getLong(AggregateWindow.RECORD_SIZE + 128));
+        assertEquals(1L, records.getLong(AggregateWindow.RECORD_SIZE + 120));
+    }
+
+    @Test
+    void testOneSidedBookIsCountedOnce() {
+        AggregateWindow window = new AggregateWindow(SECOND, 60 * SECOND);
+        book(window, 0, 100, 102);
+        book(window, SECOND / 4, 0, 103);
+        book(window, SECOND / 2, 100, 104);
+        book(window, SECOND + 1, 100, 101);
+        window.flush(SECOND + 2, output);
+
+        ByteBuffer records = files.get(0);
+        assertEquals(3L, records.getLong(80));
+        assertEquals(104L, records.getLong(104));
+        assertEquals(2 * 0.5 + 4 * 0.5, records.getDouble(136), 1e-9);
+    }
+
+    @Test
+    void testFileRollsOverAtPeriodBoundary() {
+        AggregateWindow window = new AggregateWindow(SECOND, 2 * SECOND);
+        trade(window, 10, 1, 1, true);
+        trade(window, SECOND + 10, 2, 1, true);
+        trade(window, 5 * SECOND + 10, 3, 1, true);
+
+        assertEquals(1, files.size());
+        assertEquals(0L, fileStarts.get(0));
+        assertEquals(2 * AggregateWindow.RECORD_SIZE, files.get(0).remaining());
+
+        window.flush(6 * SECOND, output);
+        assertEquals(2, files.size());
+        assertEquals(5 * SECOND, fileStarts.get(1));
+    }
+
+    @Test
+    void testWindowMustDivideFilePeriod() {
+        assertThrows(IllegalArgumentException.class, () -> new AggregateWindow(7 * SECOND, 60 * SECOND));
+    }
+
+    @Test
+    void testLabels() {
+        assertEquals("1s", AggregateWindow.label(SECOND));
+        assertEquals("5m", AggregateWindow.label(300 * SECOND));
+        assertEquals("1h", AggregateWindow.label(3600 * SECOND));
+        assertEquals("250ms", AggregateWindow.label(SECOND / 4));
+    }
+
+    private void trade(AggregateWindow window, long timestamp, long price, long size, boolean bought) {
+        window.advance(timestamp, output);
+        window.onTrade(price, size, bought);
+    }
+
+    private void book(AggregateWindow window, long timestamp, long bid, long ask) {
+        window.advance(timestamp, output);
+        window.onBook(timestamp, bid, 1, ask, 1);
+    }
+}
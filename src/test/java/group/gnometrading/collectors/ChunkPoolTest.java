@@ -0,0 +1,56 @@
+package group.gnometrading.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ChunkPoolTest {
+
+    @Test
+    void testBuffersAreRecycled() throws InterruptedException {
+        ChunkPool pool = new ChunkPool(16, 2);
+        byte[] first = pool.acquire();
+        byte[] second = pool.acquire();
+        assertNotSame(first, second);
+        assertEquals(2, pool.inUse());
+        pool.release(first);
+        assertSame(first, pool.acquire());
+        assertEquals(2, pool.maxInUse());
+        assertEquals(0L, pool.stalls());
+    }
+
+    @Test
+    void testBuffersAreAllocatedOnDemand() throws InterruptedException {
+        ChunkPool pool = new ChunkPool(16, 4);
+        assertEquals(0, pool.allocated());
+        byte[] first = pool.acquire();
+        pool.release(first);
+        assertSame(first, pool.acquire());
+        assertEquals(1, pool.allocated());
+    }
+
+    @Test
+    void testAcquireBlocksUntilReleased() throws InterruptedException {
+        ChunkPool pool = new ChunkPool(16, 2);
+        byte[] first = pool.acquire();
+        pool.acquire();
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignored) {
+                return;
+            }
+            pool.release(first);
+        });
+        releaser.start();
+        assertSame(first, pool.acquire());
+        releaser.join();
+        assertEquals(1L, pool.stalls());
+        assertTrue(pool.stallNanos() > 0);
+    }
+
+    @Test
+    void testBudgetMustHoldTwoParts() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkPool(16, 1));
+    }
+}
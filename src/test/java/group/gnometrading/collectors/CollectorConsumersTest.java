@@ -0,0 +1,69 @@
+package group.gnometrading.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.schemas.Mbp10Decoder;
+import group.gnometrading.schemas.Mbp10Schema;
+import org.agrona.concurrent.EpochNanoClock;
+import org.junit.jupiter.api.Test;
+
+class CollectorConsumersTest {
+
+    private static final int CHUNK = 100;
+
+    private final Mbp10Schema mbp10 = new Mbp10Schema();
+    private final long[] handled = {0};
+    private int pending;
+
+    @Test
+    void testPollsBoundCallsPerCycle() throws Exception {
+        CollectorConsumers.Lane lane = lane(3, () -> 0L);
+        pending = 1_000;
+
+        assertEquals(300, lane.doWork());
+        assertEquals(1, lane.saturatedCycles());
+        assertEquals(300, lane.doWork());
+        assertEquals(300, lane.doWork());
+        assertEquals(100, lane.doWork());
+        assertEquals(0, lane.doWork());
+
+        assertEquals(1_000, handled[0]);
+        assertEquals(1_000, lane.events());
+        assertEquals(3, lane.saturatedCycles());
+    }
+
+    @Test
+    void testDrainsWithinPollsInOneCycle() throws Exception {
+        CollectorConsumers.Lane lane = lane(8, () -> 0L);
+        pending = 250;
+        assertEquals(250, lane.doWork());
+        assertEquals(0, lane.saturatedCycles());
+    }
+
+    @Test
+    void testLagIsAgeOfOldestEventPolled() throws Exception {
+        long[] now = {5_000L};
+        CollectorConsumers.Lane lane = lane(8, () -> now[0]++);
+        mbp10.encoder.timestampRecv(1_000L);
+        pending = 10;
+        lane.doWork();
+        assertEquals(4_000L, lane.lagNanos());
+
+        assertEquals(0, lane.doWork());
+        assertEquals(0L, lane.lagNanos());
+    }
+
+    private CollectorConsumers.Lane lane(int polls, EpochNanoClock clock) {
+        CollectorConsumers.Lane lane = new CollectorConsumers.Lane(
+                1, 0, (sequence, templateId, buffer, length) -> handled[0]++, clock, polls);
+        lane.connect(() -> {
+            int events = Math.min(CHUNK, pending);
+            for (int i = 0; i < events; i++) {
+                lane.onEvent(i, Mbp10Decoder.TEMPLATE_ID, mbp10.buffer, mbp10.totalMessageSize());
+            }
+            pending -= events;
+            return events;
+        });
+        return lane;
+    }
+}
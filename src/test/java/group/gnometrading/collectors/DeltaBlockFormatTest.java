@@ -0,0 +1,214 @@
+package group.gnometrading.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+class DeltaBlockFormatTest {
+
+    private static final int MESSAGE_LENGTH = 370;
+    private static final int TEMPLATE_ID = 5;
+
+    @Test
+    void testRoundTripAcrossBlocks() {
+        List<byte[]> messages = book(2_000, new Random(7));
+        DeltaBlockWriter writer = write(messages, 4 * 1024);
+
+        DeltaBlockReader reader = new DeltaBlockReader(writer.fileBytes(), writer.fileLength());
+        assertEquals(11L, reader.exchangeId());
+        assertEquals(22L, reader.securityId());
+        assertTrue(reader.blocks().size() > 1);
+
+        List<byte[]> decoded = new ArrayList<>();
+        long records = reader.readAll((templateId, buffer, length) -> {
+            assertEquals(TEMPLATE_ID, templateId);
+            byte[] copy = new byte[length];
+            buffer.getBytes(0, copy);
+            decoded.add(copy);
+        });
+        assertEquals(messages.size(), records);
+        for (int i = 0; i < messages.size(); i++) {
+            assertArrayEquals(messages.get(i), decoded.get(i), "message " + i);
+        }
+    }
+
+    @Test
+    void testDeltasAreSmallerThanRecords() {
+        List<byte[]> messages = book(2_000, new Random(11));
+        DeltaBlockWriter writer = write(messages, 64 * 1024);
+        DeltaBlockReader reader = new DeltaBlockReader(writer.fileBytes(), writer.fileLength());
+        long encoded = reader.blocks().stream()
+                .mapToLong(DeltaBlockReader.Block::uncompressedLength)
+                .sum();
+        assertTrue(encoded * 4 < (long) messages.size() * MESSAGE_LENGTH, "encoded " + encoded);
+    }
+
+    @Test
+    void testBlockHeadersBoundTimestamps() {
+        List<byte[]> messages = book(1_000, new Random(3));
+        DeltaBlockWriter writer = write(messages, 4 * 1024);
+        DeltaBlockReader reader = new DeltaBlockReader(writer.fileBytes(), writer.fileLength());
+
+        long previousMax = -1;
+        int total = 0;
+        for (DeltaBlockReader.Block block : reader.blocks()) {
+            assertTrue(block.minTimestamp() > previousMax);
+            assertTrue(block.minTimestamp() <= block.maxTimestamp());
+            previousMax = block.maxTimestamp();
+            total += block.records();
+        }
+        assertEquals(messages.size(), total);
+
+        DeltaBlockReader.Block middle = reader.blocks().get(reader.blocks().size() / 2);
+        long[] seen = {0};
+        long read = reader.readBetween(middle.minTimestamp(), middle.minTimestamp(), (t, buffer, length) -> seen[0]++);
+        assertEquals(middle.records(), read);
+        assertEquals(middle.records(), seen[0]);
+    }
+
+    @Test
+    void testIndexSeeksToBlocks() throws IOException {
+        List<byte[]> messages = book(1_000, new Random(5));
+        DeltaBlockWriter writer = write(messages, 4 * 1024);
+        DeltaBlockReader reader = new DeltaBlockReader(writer.fileBytes(), writer.fileLength());
+        DeltaBlockIndex index = new DeltaBlockIndex(writer.indexBytes(), writer.indexLength());
+        assertEquals(22L, index.securityId());
+        assertEquals(reader.blocks().size(), index.size());
+        for (int i = 0; i < index.size(); i++) {
+            DeltaBlockReader.Block block = reader.blocks().get(i);
+            assertEquals(block.offset(), index.offset(i));
+            assertEquals(block.endOffset() - block.offset(), index.length(i));
+            assertEquals(block.minTimestamp(), index.minTimestamp(i));
+        }
+
+        int middle = index.size() / 2;
+        assertEquals(middle, index.findTimestamp(index.minTimestamp(middle)));
+        assertEquals(middle, index.findSequence(index.firstSequence(middle)));
+        assertEquals(middle + 1, index.findSequence(index.lastSequence(middle) + 1));
+        assertEquals(0, index.findTimestamp(Long.MIN_VALUE));
+        assertEquals(index.size(), index.findTimestamp(Long.MAX_VALUE));
+
+        Path file = Files.createTempFile("delta", ".gmd");
+        Files.write(file, Arrays.copyOf(writer.fileBytes(), writer.fileLength()));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long from = index.minTimestamp(middle);
+            long[] seen = {0};
+            long read = DeltaBlockReader.readBetween(channel, index, from, from, (t, buffer, length) -> seen[0]++);
+            assertEquals(index.records(middle), read);
+            assertEquals(reader.blocks().get(middle).records(), seen[0]);
+
+            long sequenceRecords = DeltaBlockReader.readSequences(
+                    channel, index, index.firstSequence(1), index.lastSequence(2), (t, buffer, length) -> {});
+            assertEquals(index.records(1) + index.records(2), sequenceRecords);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testIndexFindsBlocksAfterTimeStepsBack() throws IOException {
+        List<byte[]> messages = book(1_000, new Random(9));
+        DeltaBlockWriter writer = new DeltaBlockWriter(4 * 1024, 3, 1024);
+        writer.reset(11, 22);
+        UnsafeBuffer buffer = new UnsafeBuffer(new byte[0]);
+        int half = messages.size() / 2;
+        for (int i = 0; i < messages.size(); i++) {
+            buffer.wrap(messages.get(i));
+            long timestamp = i < half ? 1_000L * (i + 1) : 1_000L * (i - half) + 500;
+            writer.append(TEMPLATE_ID, buffer, 0, MESSAGE_LENGTH, timestamp, 100L + 2 * i);
+        }
+        writer.flushBlock();
+        DeltaBlockReader reader = new DeltaBlockReader(writer.fileBytes(), writer.fileLength());
+        DeltaBlockIndex index = new DeltaBlockIndex(writer.indexBytes(), writer.indexLength());
+
+        Path file = Files.createTempFile("delta", ".gmd");
+        Files.write(file, Arrays.copyOf(writer.fileBytes(), writer.fileLength()));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long timestamp = 1_000L * (half / 4) + 500;
+            long expected = reader.readBetween(timestamp, timestamp, (t, b, length) -> {});
+            long read = DeltaBlockReader.readBetween(channel, index, timestamp, timestamp, (t, b, length) -> {});
+            assertTrue(read >= expected, "read " + read + " of " + expected);
+            assertTrue(reader.blocks().stream()
+                    .filter(block -> block.overlaps(timestamp, timestamp))
+                    .count() > 1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testSinkReceivesTheSameFile() {
+        List<byte[]> messages = book(2_000, new Random(5));
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        DeltaBlockWriter writer = new DeltaBlockWriter(4 * 1024, 3, 1024, streamed::write);
+        writer.reset(11, 22);
+        UnsafeBuffer buffer = new UnsafeBuffer(new byte[0]);
+        for (int i = 0; i < messages.size(); i++) {
+            buffer.wrap(messages.get(i));
+            writer.append(TEMPLATE_ID, buffer, 0, MESSAGE_LENGTH, 1_000L * (i + 1), 100L + 2 * i);
+        }
+        writer.flushBlock();
+
+        DeltaBlockWriter buffered = write(messages, 4 * 1024);
+        assertArrayEquals(Arrays.copyOf(buffered.fileBytes(), buffered.fileLength()), streamed.toByteArray());
+        assertEquals(buffered.fileLength(), writer.fileLength());
+        assertArrayEquals(
+                Arrays.copyOf(buffered.indexBytes(), buffered.indexLength()),
+                Arrays.copyOf(writer.indexBytes(), writer.indexLength()));
+    }
+
+    @Test
+    void testRejectsOtherFiles() {
+        assertThrows(IllegalArgumentException.class, () -> new DeltaBlockReader(new byte[64]));
+    }
+
+    private static DeltaBlockWriter write(List<byte[]> messages, int blockSize) {
+        DeltaBlockWriter writer = new DeltaBlockWriter(blockSize, 3, 1024);
+        writer.reset(11, 22);
+        UnsafeBuffer buffer = new UnsafeBuffer(new byte[0]);
+        for (int i = 0; i < messages.size(); i++) {
+            buffer.wrap(messages.get(i));
+            writer.append(TEMPLATE_ID, buffer, 0, MESSAGE_LENGTH, 1_000L * (i + 1), 100L + 2 * i);
+        }
+        writer.flushBlock();
+        return writer;
+    }
+
+    /**
+     * Messages shaped like an MBP-10 event: a header and timestamps that change every time, and
+     * ten levels of which one or two move per update.
+     */
+    private static List<byte[]> book(int count, Random random) {
+        List<byte[]> messages = new ArrayList<>(count);
+        UnsafeBuffer buffer = new UnsafeBuffer(new byte[MESSAGE_LENGTH]);
+        for (int level = 0; level < 10; level++) {
+            buffer.putLong(50 + level * 32, 100_000 - level * 10L);
+            buffer.putLong(58 + level * 32, 100_010 + level * 10L);
+            buffer.putInt(66 + level * 32, 1 + random.nextInt(100));
+            buffer.putInt(70 + level * 32, 1 + random.nextInt(100));
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(10, 1_700_000_000_000_000_000L + i * 1_000L);
+            buffer.putLong(18, 1_700_000_000_000_000_000L + i * 1_000L + random.nextInt(5_000));
+            buffer.putLong(26, i);
+            int changes = 1 + random.nextInt(2);
+            for (int c = 0; c < changes; c++) {
+                int level = random.nextInt(10);
+                buffer.putInt(66 + level * 32 + 4 * random.nextInt(2), 1 + random.nextInt(100));
+            }
+            messages.add(Arrays.copyOf(buffer.byteArray(), MESSAGE_LENGTH));
+        }
+        return messages;
+    }
+}
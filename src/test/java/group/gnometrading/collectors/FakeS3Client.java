@@ -0,0 +1,114 @@
+package group.gnometrading.collectors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Keeps objects and multipart uploads in memory and fails calls on demand.
+ */
+final class FakeS3Client implements S3Client {
+
+    final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    final Map<String, PutObjectRequest> requests = new ConcurrentHashMap<>();
+    final Map<String, Map<Integer, byte[]>> parts = new ConcurrentHashMap<>();
+    final Set<String> aborted = ConcurrentHashMap.newKeySet();
+    final AtomicInteger partFailures = new AtomicInteger();
+    final AtomicInteger putFailures = new AtomicInteger();
+    final AtomicInteger nextUploadId = new AtomicInteger();
+    volatile boolean rejectParts;
+    volatile boolean rejectPuts;
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        if (rejectPuts) {
+            throw accessDenied();
+        }
+        if (putFailures.getAndDecrement() > 0) {
+            throw unavailable();
+        }
+        requests.put(request.key(), request);
+        objects.put(request.key(), read(body));
+        return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = "upload-" + nextUploadId.incrementAndGet();
+        parts.put(uploadId, new ConcurrentHashMap<>());
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        if (rejectParts) {
+            throw accessDenied();
+        }
+        if (partFailures.getAndDecrement() > 0) {
+            throw unavailable();
+        }
+        parts.get(request.uploadId()).put(request.partNumber(), read(body));
+        return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> uploaded = parts.remove(request.uploadId());
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            object.writeBytes(uploaded.get(part.partNumber()));
+        }
+        objects.put(request.key(), object.toByteArray());
+        return CompleteMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        parts.remove(request.uploadId());
+        aborted.add(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return "s3";
+    }
+
+    @Override
+    public void close() {}
+
+    private static S3Exception accessDenied() {
+        return (S3Exception) S3Exception.builder().statusCode(403).message("Access Denied").build();
+    }
+
+    private static S3Exception unavailable() {
+        return (S3Exception) S3Exception.builder().statusCode(503).message("Slow Down").build();
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
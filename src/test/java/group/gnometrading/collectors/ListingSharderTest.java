@@ -0,0 +1,101 @@
+package group.gnometrading.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ListingSharderTest {
+
+    @Test
+    void testShardsCoverPoolOnce() {
+        int[] ids = ids(200);
+        long[] rates = rates(200, new Random(1));
+        int[] seen = new int[ids.length];
+        for (int shard = 0; shard < 5; shard++) {
+            for (int id : new ListingSharder(5, 1.25).select(ids, rates, shard)) {
+                seen[id - 1000]++;
+            }
+        }
+        for (int i = 0; i < seen.length; i++) {
+            assertEquals(1, seen[i], "listing " + ids[i]);
+        }
+    }
+
+    @Test
+    void testLoadIsBoundedByMessageRate() {
+        int[] ids = ids(300);
+        long[] rates = rates(300, new Random(2));
+        assertLoadBounded(new ListingSharder(6, 1.25).assign(ids, rates), rates, 6, 1.25);
+    }
+
+    /**
+     * Ideally a ninth shard takes a ninth of the listings and nothing else moves. The slack covers
+     * the uneven arcs of {@link ListingSharder#VIRTUAL_NODES} points per shard and the listings the
+     * lower capacity pushes on to another existing shard.
+     */
+    @Test
+    void testAddingShardMovesFewListings() {
+        int[] ids = ids(1_000);
+        int ideal = ids.length / 9;
+        for (int seed = 1; seed <= 5; seed++) {
+            long[] rates = rates(1_000, new Random(seed));
+            int[] before = new ListingSharder(8, 1.25).assign(ids, rates);
+            int[] after = new ListingSharder(9, 1.25).assign(ids, rates);
+            assertLoadBounded(before, rates, 8, 1.25);
+            assertLoadBounded(after, rates, 9, 1.25);
+            int moved = 0;
+            int movedBetweenExisting = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (before[i] != after[i]) {
+                    moved++;
+                    if (after[i] != 8) {
+                        movedBetweenExisting++;
+                    }
+                }
+            }
+            assertTrue(moved <= 1.35 * ideal, "seed " + seed + " moved " + moved + ", ideal " + ideal);
+            assertTrue(
+                    movedBetweenExisting <= ids.length / 50,
+                    "seed " + seed + " moved " + movedBetweenExisting + " between existing shards");
+        }
+    }
+
+    @Test
+    void testRejectsBadShard() {
+        assertThrows(IllegalArgumentException.class, () -> new ListingSharder(0, 1.25));
+        assertThrows(IllegalArgumentException.class, () -> new ListingSharder(4, 1.25)
+                .select(ids(4), new long[4], 4));
+    }
+
+    private static void assertLoadBounded(int[] shards, long[] rates, int shardCount, double loadFactor) {
+        long total = 0;
+        long[] loads = new long[shardCount];
+        for (int i = 0; i < shards.length; i++) {
+            total += rates[i];
+            loads[shards[i]] += rates[i];
+        }
+        for (long load : loads) {
+            assertTrue(load <= Math.ceil(loadFactor * total / shardCount), "load " + load + " of " + total);
+        }
+    }
+
+    private static int[] ids(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1000 + i;
+        }
+        return ids;
+    }
+
+    /**
+     * Heavy-tailed rates, as a few major pairs dominate collection.
+     */
+    private static long[] rates(int count, Random random) {
+        long[] rates = new long[count];
+        for (int i = 0; i < count; i++) {
+            rates[i] = 1 + (long) (1_000 / Math.pow(1 + random.nextDouble() * 99, 1.2));
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,130 @@
+package group.gnometrading.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.logging.ConsoleLogger;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+class MultipartUploaderTest {
+
+    private static final int PART_SIZE = MultipartUploader.MIN_PART_SIZE;
+
+    @Test
+    void testRetriesFailedPartUntilItLands() throws IOException {
+        FakeS3Client s3 = new FakeS3Client();
+        s3.partFailures.set(3);
+        MultipartUploader uploader = newUploader(s3, 60_000);
+        byte[] object = bytes(2 * PART_SIZE + 100);
+
+        uploader.submit(request("book.gmd"), new ByteArrayInputStream(object)).join();
+        uploader.close();
+
+        assertArrayEquals(object, s3.objects.get("book.gmd"));
+        assertTrue(uploader.toJson().contains("\"partRetries\":3"));
+        assertTrue(uploader.toJson().contains("\"uploadsFailed\":0"));
+    }
+
+    @Test
+    void testAbortsUploadWhenPartIsRejected() throws IOException {
+        FakeS3Client s3 = new FakeS3Client();
+        s3.rejectParts = true;
+        MultipartUploader uploader = newUploader(s3, 60_000);
+        byte[] object = bytes(2 * PART_SIZE);
+
+        CompletableFuture<Void> done = uploader.submit(request("book.gmd"), new ByteArrayInputStream(object));
+        CompletionException error = assertThrows(CompletionException.class, done::join);
+        uploader.close();
+
+        assertTrue(error.getCause() instanceof S3Exception);
+        assertEquals(1, s3.aborted.size());
+        assertTrue(s3.parts.isEmpty());
+        assertFalse(s3.objects.containsKey("book.gmd"));
+        assertTrue(uploader.toJson().contains("\"uploadsFailed\":1"));
+    }
+
+    @Test
+    void testOpenedUploadSendsPartsAsTheyFill() throws IOException {
+        FakeS3Client s3 = new FakeS3Client();
+        MultipartUploader uploader = newUploader(s3, 60_000);
+        byte[] object = bytes(2 * PART_SIZE + 100);
+
+        MultipartUploader.ObjectUpload upload = uploader.open(request("book.gmd"));
+        for (int offset = 0; offset < object.length; offset += 1000) {
+            upload.write(object, offset, Math.min(1000, object.length - offset));
+        }
+        upload.complete().join();
+        uploader.close();
+
+        assertArrayEquals(object, s3.objects.get("book.gmd"));
+        assertTrue(uploader.toJson().contains("\"partsUploaded\":3"));
+    }
+
+    @Test
+    void testCloseWaitsForUploadsStillRetrying() throws IOException {
+        FakeS3Client s3 = new FakeS3Client();
+        s3.putFailures.set(5);
+        MultipartUploader uploader = newUploader(s3, 60_000);
+        byte[] object = bytes(100);
+
+        CompletableFuture<Void> done = uploader.submit(request("bars.json"), new ByteArrayInputStream(object));
+        uploader.close();
+
+        assertTrue(done.isDone());
+        assertArrayEquals(object, s3.objects.get("bars.json"));
+        assertThrows(
+                IllegalStateException.class,
+                () -> uploader.submit(request("late.json"), InputStream.nullInputStream()));
+    }
+
+    @Test
+    void testCloseGivesUpAfterShutdownTimeout() throws IOException {
+        FakeS3Client s3 = new FakeS3Client();
+        s3.putFailures.set(Integer.MAX_VALUE);
+        MultipartUploader uploader = newUploader(s3, 100);
+
+        CompletableFuture<Void> done = uploader.submit(request("bars.json"), new ByteArrayInputStream(bytes(100)));
+        uploader.close();
+
+        assertThrows(CompletionException.class, done::join);
+        assertTrue(uploader.toJson().contains("\"uploadsFailed\":1"));
+    }
+
+    @Test
+    void testStreamingClientFlushesFinalPutAfterUploaderCloses() {
+        FakeS3Client s3 = new FakeS3Client();
+        MultipartUploader uploader = newUploader(s3, 60_000);
+        StreamingS3Client client = new StreamingS3Client(s3, uploader);
+        uploader.close();
+
+        client.putObject(request("final.gmd"), RequestBody.fromBytes(bytes(10)));
+
+        assertArrayEquals(bytes(10), s3.objects.get("final.gmd"));
+    }
+
+    private static MultipartUploader newUploader(S3Client s3, long shutdownMillis) {
+        return new MultipartUploader(
+                s3, PART_SIZE, 2L * PART_SIZE, 2, new ConsoleLogger(new SystemEpochNanoClock()), 1, shutdownMillis);
+    }
+
+    private static PutObjectRequest request(String key) {
+        return PutObjectRequest.builder().bucket("bucket").key(key).build();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+}
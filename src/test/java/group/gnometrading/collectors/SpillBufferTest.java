@@ -0,0 +1,181 @@
+package group.gnometrading.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import group.gnometrading.logging.ConsoleLogger;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+class SpillBufferTest {
+
+    private static final int DATA_PER_SEGMENT = 100;
+    private static final int SEGMENT_SIZE = SpillBuffer.Segment.HEADER_SIZE + DATA_PER_SEGMENT;
+
+    @Test
+    void testDrainsObjectChainedAcrossSegments() throws Exception {
+        FakeS3Client s3 = new FakeS3Client();
+        MultipartUploader uploader = newUploader(s3);
+        SpillBuffer spill = newSpill(uploader, Files.createTempDirectory("spill"), 4, 1);
+        byte[] object = bytes(DATA_PER_SEGMENT * 2 + 50);
+
+        assertTrue(spill.stage(request("book.gmd"), new ByteArrayInputStream(object)));
+        awaitTrue(() -> s3.objects.containsKey("book.gmd") && spill.segmentsInUse() == 0);
+        spill.close();
+        uploader.close();
+
+        assertArrayEquals(object, s3.objects.get("book.gmd"));
+    }
+
+    @Test
+    void testRecoversStagedObjectsAfterRestart() throws Exception {
+        Path directory = Files.createTempDirectory("spill");
+        FakeS3Client s3 = new FakeS3Client();
+        MultipartUploader uploader = newUploader(s3);
+        byte[] small = bytes(10);
+        byte[] chained = bytes(DATA_PER_SEGMENT * 2 + 1);
+        PutObjectRequest bars = PutObjectRequest.builder()
+                .bucket("bucket")
+                .key("bars.json")
+                .contentType("application/json")
+                .metadata(Map.of("listing", "42"))
+                .build();
+
+        SpillBuffer first = newSpill(uploader, directory, 8, 0);
+        assertTrue(first.stage(bars, new ByteArrayInputStream(small)));
+        assertTrue(first.stage(request("book.gmd"), new ByteArrayInputStream(chained)));
+        first.close();
+        assertTrue(s3.objects.isEmpty());
+
+        SpillBuffer second = newSpill(uploader, directory, 8, 1);
+        awaitTrue(() -> s3.objects.size() == 2);
+        second.close();
+        uploader.close();
+
+        assertTrue(second.toJson().contains("\"objectsRecovered\":2"));
+        assertArrayEquals(small, s3.objects.get("bars.json"));
+        assertArrayEquals(chained, s3.objects.get("book.gmd"));
+        PutObjectRequest recovered = s3.requests.get("bars.json");
+        assertEquals("bucket", recovered.bucket());
+        assertEquals("application/json", recovered.contentType());
+        assertEquals(Map.of("listing", "42"), recovered.metadata());
+    }
+
+    @Test
+    void testRejectedObjectIsQuarantined() throws Exception {
+        Path directory = Files.createTempDirectory("spill");
+        FakeS3Client s3 = new FakeS3Client();
+        s3.rejectPuts = true;
+        MultipartUploader uploader = newUploader(s3);
+        SpillBuffer spill = newSpill(uploader, directory, 4, 1);
+        byte[] object = bytes(DATA_PER_SEGMENT + 10);
+
+        assertTrue(spill.stage(request("denied/book.gmd"), new ByteArrayInputStream(object)));
+        awaitTrue(() -> spill.toJson().contains("\"objectsQuarantined\":1") && spill.segmentsInUse() == 0);
+        s3.rejectPuts = false;
+        assertTrue(spill.stage(request("book.gmd"), new ByteArrayInputStream(bytes(10))));
+        awaitTrue(() -> s3.objects.containsKey("book.gmd"));
+        spill.close();
+        uploader.close();
+
+        assertFalse(s3.objects.containsKey("denied/book.gmd"));
+        assertArrayEquals(object, Files.readAllBytes(directory.resolve("quarantine/0-bucket%2Fdenied%2Fbook.gmd")));
+        assertTrue(spill.toJson().contains("\"drainFailures\":0"));
+    }
+
+    @Test
+    void testFullSpillReturnsObjectToCaller() throws Exception {
+        MultipartUploader uploader = newUploader(new FakeS3Client());
+        SpillBuffer spill = newSpill(uploader, Files.createTempDirectory("spill"), 2, 0);
+
+        assertTrue(spill.stage(request("first"), new ByteArrayInputStream(bytes(DATA_PER_SEGMENT + 1))));
+        assertFalse(spill.stage(request("second"), new ByteArrayInputStream(bytes(1))));
+        assertEquals(2, spill.segmentsInUse());
+        assertTrue(spill.toJson().contains("\"overflows\":1"));
+        spill.close();
+        uploader.close();
+    }
+
+    @Test
+    void testObjectLargerThanFreeSegmentsIsNotStaged() throws Exception {
+        MultipartUploader uploader = newUploader(new FakeS3Client());
+        SpillBuffer spill = newSpill(uploader, Files.createTempDirectory("spill"), 2, 0);
+
+        assertFalse(spill.stage(request("large"), new ByteArrayInputStream(bytes(DATA_PER_SEGMENT * 3))));
+        assertEquals(0, spill.segmentsInUse());
+        spill.close();
+        uploader.close();
+    }
+
+    @Test
+    void testFailedBodyFreesSegments() throws Exception {
+        MultipartUploader uploader = newUploader(new FakeS3Client());
+        SpillBuffer spill = newSpill(uploader, Files.createTempDirectory("spill"), 4, 0);
+        InputStream failing = new InputStream() {
+            private int read;
+
+            @Override
+            public int read() throws IOException {
+                if (read++ >= DATA_PER_SEGMENT + 10) {
+                    throw new IOException("Connection reset");
+                }
+                return 1;
+            }
+        };
+
+        assertThrows(IOException.class, () -> spill.stage(request("broken"), failing));
+        assertEquals(0, spill.segmentsInUse());
+        spill.close();
+        uploader.close();
+    }
+
+    private static SpillBuffer newSpill(MultipartUploader uploader, Path directory, int segments, int drainThreads)
+            throws IOException {
+        return new SpillBuffer(
+                uploader,
+                directory,
+                (long) segments * SEGMENT_SIZE,
+                SEGMENT_SIZE,
+                drainThreads,
+                new ConsoleLogger(new SystemEpochNanoClock()),
+                0);
+    }
+
+    private static MultipartUploader newUploader(FakeS3Client s3) {
+        return new MultipartUploader(
+                s3,
+                MultipartUploader.MIN_PART_SIZE,
+                2L * MultipartUploader.MIN_PART_SIZE,
+                1,
+                new ConsoleLogger(new SystemEpochNanoClock()),
+                1,
+                60_000);
+    }
+
+    private static PutObjectRequest request(String key) {
+        return PutObjectRequest.builder().bucket("bucket").key(key).build();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        return bytes;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the spill to drain");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -2,6 +2,13 @@ package group.gnometrading.di;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 class OrchestratorTest {
@@ -292,4 +299,384 @@ class OrchestratorTest {
         var res = orchestrator.getInstance(String.class, "result");
         assertEquals("whats up man -- not much", res);
     }
+
+    @Test
+    void testPrecompiledBindingsAreSharedAcrossInstances() {
+        var first = new ProviderWithParamsOrchestrator();
+        var second = new ProviderWithParamsOrchestrator();
+
+        assertSame(
+                first.localBinding(String.class.getName() + "@result"),
+                second.localBinding(String.class.getName() + "@result"));
+        assertEquals("whats up man -- not much", second.getInstance(String.class, "result"));
+    }
+
+    @Test
+    void testReflectiveModeMatchesPrecompiled() {
+        BindingMode previous = Orchestrator.bindingMode;
+        Orchestrator.bindingMode = BindingMode.REFLECTIVE;
+        try {
+            var orchestrator = new NamedOrchestrator();
+            assertEquals(BindingMode.REFLECTIVE, orchestrator.mode);
+
+            var res = orchestrator.getInstance(ConstructorWithNamedParams.class);
+            assertEquals(2, res.i1);
+            assertEquals(1, res.i2);
+            assertEquals(
+                    "whats up man -- not much",
+                    new ProviderWithParamsOrchestrator().getInstance(String.class, "result"));
+        } finally {
+            Orchestrator.bindingMode = previous;
+        }
+    }
+
+    static class SlowSingletonOrchestrator extends Orchestrator {
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        final AtomicInteger longCalls = new AtomicInteger();
+        final AtomicInteger stringCalls = new AtomicInteger();
+
+        @Provides
+        @Singleton
+        public Long provideLong() throws InterruptedException {
+            longCalls.incrementAndGet();
+            bothRunning.countDown();
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS), "independent singletons did not run in parallel");
+            return 7L;
+        }
+
+        @Provides
+        @Singleton
+        public String provideString() throws InterruptedException {
+            stringCalls.incrementAndGet();
+            bothRunning.countDown();
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS), "independent singletons did not run in parallel");
+            return "slow";
+        }
+
+        @Provides
+        @Singleton
+        public Integer provideInteger(Long value, String text) {
+            return (int) (value + text.length() + getInstance(Long.class));
+        }
+    }
+
+    @Test
+    void testWarmUpRunsIndependentSingletonsInParallel() {
+        var orchestrator = new SlowSingletonOrchestrator();
+        orchestrator.warmUp(Integer.class);
+
+        assertEquals(18, orchestrator.getInstance(Integer.class));
+        assertEquals(1, orchestrator.longCalls.get());
+        assertEquals(1, orchestrator.stringCalls.get());
+    }
+
+    @Test
+    void testWarmUpAcrossScopesKeepsSingletonsPerScope() {
+        var first = new SlowSingletonOrchestrator();
+        var second = new SlowSingletonOrchestrator();
+        Orchestrator.warmUp(List.of(first, second), Long.class, String.class);
+
+        assertEquals(7L, first.getInstance(Long.class));
+        assertEquals("slow", second.getInstance(String.class));
+        assertEquals(1, first.longCalls.get());
+        assertEquals(1, second.longCalls.get());
+        assertEquals(1, first.stringCalls.get());
+    }
+
+    static class CyclicOrchestrator extends Orchestrator {
+        @Provides
+        @Singleton
+        public Integer provideInteger(String text) {
+            return text.length();
+        }
+
+        @Provides
+        @Singleton
+        public String provideString(Integer value) {
+            return String.valueOf(value);
+        }
+    }
+
+    @Test
+    void testWarmUpReportsCycle() {
+        var orchestrator = new CyclicOrchestrator();
+        var error = assertThrows(IllegalStateException.class, () -> orchestrator.warmUp(Integer.class));
+        assertEquals(
+                "Dependency cycle detected: java.lang.Integer -> java.lang.String -> java.lang.Integer",
+                error.getMessage());
+    }
+
+    @Test
+    void testGetInstanceReportsCycle() {
+        var orchestrator = new CyclicOrchestrator();
+        Throwable error = assertThrows(RuntimeException.class, () -> orchestrator.getInstance(Integer.class));
+        while (error.getCause() != null) {
+            error = error.getCause();
+        }
+        assertTrue(error.getMessage().startsWith("Dependency cycle detected: java.lang.Integer"));
+    }
+
+    static class FailingSingletonOrchestrator extends Orchestrator {
+        @Provides
+        @Singleton
+        public String provideString() {
+            throw new IllegalStateException("secret fetch failed");
+        }
+
+        @Provides
+        @Singleton
+        public Integer provideInteger(String text) {
+            return text.length();
+        }
+    }
+
+    @Test
+    void testWarmUpReportsFailuresAndSkippedDependents() {
+        var orchestrator = new FailingSingletonOrchestrator();
+        var error = assertThrows(RuntimeException.class, () -> orchestrator.warmUp(Integer.class));
+        assertTrue(error.getMessage().contains("java.lang.String [FailingSingletonOrchestrator]"));
+        assertTrue(error.getMessage().contains("secret fetch failed"));
+        assertTrue(error.getMessage().contains("skipped because a dependency failed: java.lang.Integer"));
+    }
+
+    static class SharedParentOrchestrator extends Orchestrator {
+        int logs = 0;
+
+        @Provides
+        @Singleton
+        public StringBuilder provideLog() {
+            logs++;
+            return new StringBuilder();
+        }
+
+        @Override
+        public void configure() {
+            install(new CountingModule());
+        }
+    }
+
+    static class ListingScopeOrchestrator extends Orchestrator {
+        @Provides
+        @Singleton
+        public Long provideListingValue(Integer listingId, StringBuilder log) {
+            log.append(listingId);
+            return listingId * 10L;
+        }
+
+        @Override
+        public void configure() {
+            install(new CountingModule());
+        }
+    }
+
+    @Test
+    void testChildHoldsOnlyOverrides() {
+        var parent = new SharedParentOrchestrator();
+        parent.configure();
+        parent.getInstance(StringBuilder.class);
+
+        var child = parent.createChildOrchestrator(ListingScopeOrchestrator.class, Map.of(Integer.class, 3));
+
+        assertEquals(1, child.singletonCache.size());
+        assertTrue(child.providers.isEmpty());
+        assertTrue(child.installedModules.isEmpty());
+        assertSame(parent, child.parent);
+    }
+
+    @Test
+    void testChildSingletonsArePerScope() {
+        var parent = new SharedParentOrchestrator();
+        parent.configure();
+        var first = parent.createChildOrchestrator(ListingScopeOrchestrator.class, Map.of(Integer.class, 1));
+        var second = parent.createChildOrchestrator(ListingScopeOrchestrator.class, Map.of(Integer.class, 2));
+
+        assertEquals(10L, first.getInstance(Long.class));
+        assertEquals(20L, second.getInstance(Long.class));
+        assertEquals(10L, first.getInstance(Long.class));
+
+        assertSame(parent.getInstance(StringBuilder.class), first.getInstance(StringBuilder.class));
+        assertEquals("12", parent.getInstance(StringBuilder.class).toString());
+        assertEquals(1, parent.logs);
+        assertFalse(parent.singletonCache.containsKey(Long.class.getName()));
+    }
+
+    @Test
+    void testChildOverrideWinsOverParentBinding() {
+        var parent = new SharedParentOrchestrator();
+        parent.configure();
+        var child = parent.createChildOrchestrator(ChildOrchestrator.class, Map.of(String.class, "override"));
+
+        assertEquals("override", child.getInstance(String.class));
+        assertEquals(8, child.getInstance(Integer.class));
+        assertEquals("from module", parent.getInstance(String.class));
+    }
+
+    static class OverriddenParentOrchestrator extends Orchestrator {
+        int scaledCalls = 0;
+
+        @Provides
+        @Singleton
+        public Integer provideListingId() {
+            return 0;
+        }
+
+        @Provides
+        @Singleton
+        public Long provideScaled(Integer listingId) {
+            scaledCalls++;
+            return listingId * 10L;
+        }
+
+        @Provides
+        public String provideLabel(Integer listingId) {
+            return "listing-" + listingId;
+        }
+
+        @Provides
+        @Singleton
+        public StringBuilder provideShared() {
+            return new StringBuilder();
+        }
+    }
+
+    static class PlainChildOrchestrator extends Orchestrator {}
+
+    @Test
+    void testInheritedProvidersSeeChildOverrides() {
+        var parent = new OverriddenParentOrchestrator();
+        parent.configure();
+        var first = parent.createChildOrchestrator(PlainChildOrchestrator.class, Map.of(Integer.class, 1));
+        var second = parent.createChildOrchestrator(PlainChildOrchestrator.class, Map.of(Integer.class, 2));
+
+        assertEquals(10L, first.getInstance(Long.class));
+        assertEquals(20L, second.getInstance(Long.class));
+        assertEquals(10L, first.getInstance(Long.class));
+        assertEquals(0L, parent.getInstance(Long.class));
+        assertEquals(3, parent.scaledCalls);
+
+        assertEquals("listing-1", first.getInstance(String.class));
+        assertEquals("listing-2", second.getInstance(String.class));
+        assertSame(first.getInstance(StringBuilder.class), second.getInstance(StringBuilder.class));
+        assertSame(parent.getInstance(StringBuilder.class), first.getInstance(StringBuilder.class));
+
+        var third = parent.createChildOrchestrator(PlainChildOrchestrator.class, Map.of(Integer.class, 3));
+        Orchestrator.warmUp(List.of(third), Long.class);
+        assertEquals(30L, third.singletonCache.get(Long.class.getName()));
+    }
+
+    @Test
+    void testChildRemembersWhichAncestorItSharesWith() {
+        var parent = new OverriddenParentOrchestrator();
+        parent.configure();
+        var child = parent.createChildOrchestrator(PlainChildOrchestrator.class, Map.of(Integer.class, 1));
+
+        StringBuilder shared = parent.getInstance(StringBuilder.class);
+        assertSame(shared, child.getInstance(StringBuilder.class));
+        assertSame(parent, child.sharedScopes.get(StringBuilder.class.getName()));
+        assertSame(shared, child.getInstance(StringBuilder.class));
+
+        assertEquals(10L, child.getInstance(Long.class));
+        assertFalse(child.sharedScopes.containsKey(Long.class.getName()));
+        assertEquals(10L, child.getInstance(Long.class));
+    }
+
+    @Test
+    void testStartupTraceRecordsProviderCallsAndCacheHits() throws Exception {
+        Path output = Files.createTempFile("startup-trace", ".json");
+        System.setProperty("gnome.di.trace", output.toString());
+        try {
+            var parent = new SharedParentOrchestrator();
+            parent.configure();
+            var child = parent.createChildOrchestrator(ListingScopeOrchestrator.class, Map.of(Integer.class, 4));
+            child.getInstance(Long.class);
+            child.getInstance(Long.class);
+            parent.writeStartupTrace();
+
+            String json = Files.readString(output);
+            assertTrue(json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+            assertTrue(json.contains("\"name\":\"java.lang.Long\",\"cat\":\"provider\""));
+            assertTrue(json.contains("\"name\":\"java.lang.Long\",\"cat\":\"cache_hit\""));
+            assertTrue(json.contains("\"scope\":\"SharedParentOrchestrator\""));
+            assertTrue(json.contains("\"cacheHit\":true"));
+            assertTrue(json.contains("\"path\":\"java.lang.Long\""));
+
+            child.getInstance(Long.class);
+            assertEquals(0, parent.trace.size());
+            parent.writeStartupTrace();
+            assertEquals(json, Files.readString(output));
+        } finally {
+            System.clearProperty("gnome.di.trace");
+            Files.deleteIfExists(output);
+        }
+    }
+
+    static class CountingLambda extends OrchestratorLambda<String, Integer> {
+        final boolean warmStart;
+        int configureCount = 0;
+        int primeCount = 0;
+
+        CountingLambda(boolean warmStart) {
+            this.warmStart = warmStart;
+        }
+
+        @Provides
+        @Singleton
+        public Long provideLong() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void configure() {
+            configureCount++;
+            install(new CountingModule());
+        }
+
+        @Override
+        protected void prime() {
+            primeCount++;
+            warmUp(Long.class);
+        }
+
+        @Override
+        protected boolean isWarmStartEnabled() {
+            return warmStart;
+        }
+
+        @Override
+        protected Integer execute(String input, com.amazonaws.services.lambda.runtime.Context context) {
+            return getInstance(String.class).length() + input.length();
+        }
+    }
+
+    @Test
+    void testWarmStartLambdaConfiguresOncePerContainer() {
+        var lambda = new CountingLambda(true);
+        assertEquals(12, lambda.handleRequest("a", null));
+        Long primed = lambda.getInstance(Long.class);
+        assertEquals(13, lambda.handleRequest("ab", null));
+        assertEquals(1, lambda.configureCount);
+        assertEquals(1, lambda.primeCount);
+        assertSame(primed, lambda.getInstance(Long.class));
+    }
+
+    @Test
+    void testCheckpointPrimesLambdaBeforeFirstInvocation() {
+        var lambda = new CountingLambda(true);
+        lambda.beforeCheckpoint(null);
+        assertEquals(1, lambda.configureCount);
+        assertEquals(1, lambda.primeCount);
+        assertEquals(12, lambda.handleRequest("a", null));
+        assertEquals(1, lambda.configureCount);
+    }
+
+    @Test
+    void testLambdaWithoutWarmStartConfiguresEveryInvocation() {
+        var lambda = new CountingLambda(false);
+        lambda.beforeCheckpoint(null);
+        assertEquals(0, lambda.configureCount);
+        lambda.handleRequest("a", null);
+        lambda.handleRequest("a", null);
+        assertEquals(2, lambda.configureCount);
+        assertEquals(0, lambda.primeCount);
+    }
 }
@@ -0,0 +1,80 @@
+package group.gnometrading.gateways.inbound;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ErrorRateTrackerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testTripsOnlyWhenMaxErrorsFallInsideWindow() {
+        ErrorRateTracker tracker = new ErrorRateTracker(3, 10 * SECOND);
+        assertFalse(tracker.record(0));
+        assertFalse(tracker.record(SECOND));
+        assertTrue(tracker.record(2 * SECOND));
+        assertTrue(tracker.record(3 * SECOND));
+        assertFalse(tracker.record(13 * SECOND + 1));
+    }
+
+    @Test
+    void testSingleErrorTripsWithMaxErrorsOfOne() {
+        ErrorRateTracker tracker = new ErrorRateTracker(1, 10 * SECOND);
+        assertTrue(tracker.record(0));
+    }
+
+    @Test
+    void testErrorsSpreadBeyondWindowDoNotTrip() {
+        ErrorRateTracker tracker = new ErrorRateTracker(3, 10 * SECOND);
+        for (int i = 0; i < 20; i++) {
+            assertFalse(tracker.record(i * 6 * SECOND));
+        }
+        assertEquals(20L, tracker.total());
+    }
+
+    @Test
+    void testResetForgetsWindowButKeepsTotal() {
+        ErrorRateTracker tracker = new ErrorRateTracker(2, 10 * SECOND);
+        tracker.record(0);
+        tracker.record(1);
+        tracker.reset();
+        assertFalse(tracker.record(2));
+        assertTrue(tracker.record(3));
+        assertTrue(tracker.record(4));
+        assertEquals(5L, tracker.total());
+    }
+
+    @Test
+    void testConcurrentRecordingCountsEveryError() throws Exception {
+        ErrorRateTracker tracker = new ErrorRateTracker(10, 10 * SECOND);
+        int threads = 4;
+        int perThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger trips = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = 0; i < perThread; i++) {
+                    if (tracker.record(System.nanoTime())) {
+                        trips.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals((long) threads * perThread, tracker.total());
+        assertTrue(trips.get() > 0);
+    }
+}
@@ -0,0 +1,62 @@
+package group.gnometrading.gateways.inbound;
+
+import static group.gnometrading.gateways.inbound.FeedOrder.SIDE_A;
+import static group.gnometrading.gateways.inbound.FeedOrder.SIDE_B;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class FeedOrderTest {
+
+    @Test
+    void testForwardsFirstCopyOfEachSequence() {
+        FeedOrder order = new FeedOrder(1_000);
+        assertTrue(order.accept(SIDE_A, 1, true));
+        assertFalse(order.accept(SIDE_B, 1, true));
+        assertTrue(order.accept(SIDE_B, 2, true));
+        assertFalse(order.accept(SIDE_A, 2, true));
+        assertTrue(order.accept(SIDE_A, 3, true));
+    }
+
+    @Test
+    void testTimestampTiesAreCountedPerSide() {
+        FeedOrder order = new FeedOrder(1_000);
+        assertTrue(order.accept(SIDE_A, 100, false));
+        assertTrue(order.accept(SIDE_A, 100, false));
+        assertFalse(order.accept(SIDE_B, 100, false));
+        assertFalse(order.accept(SIDE_B, 100, false));
+        // Side A fails after two of three updates at this timestamp
+        assertTrue(order.accept(SIDE_B, 100, false));
+        assertTrue(order.accept(SIDE_B, 101, false));
+    }
+
+    @Test
+    void testUnorderedUpdatesFollowOneSideBeforeAnyLeader() {
+        FeedOrder order = new FeedOrder(1_000);
+        assertTrue(order.acceptUnordered(SIDE_B));
+        assertFalse(order.acceptUnordered(SIDE_A));
+        assertTrue(order.accept(SIDE_A, 1, true));
+        assertTrue(order.acceptUnordered(SIDE_A));
+        assertFalse(order.acceptUnordered(SIDE_B));
+    }
+
+    @Test
+    void testDifferentNumberingSplitsToSideA() {
+        FeedOrder order = new FeedOrder(1_000);
+        assertTrue(order.accept(SIDE_A, 5_000, true));
+        assertFalse(order.split());
+        assertFalse(order.accept(SIDE_B, 10, true));
+        assertTrue(order.split());
+        assertTrue(order.accept(SIDE_A, 5_001, true));
+        assertFalse(order.accept(SIDE_B, 9_999, true));
+        assertFalse(order.acceptUnordered(SIDE_B));
+    }
+
+    @Test
+    void testSequencedAgainstUnsequencedSplits() {
+        FeedOrder order = new FeedOrder(1_000);
+        assertTrue(order.accept(SIDE_B, 1_700_000_000_000L, false));
+        assertTrue(order.accept(SIDE_A, 7, true));
+        assertTrue(order.split());
+    }
+}
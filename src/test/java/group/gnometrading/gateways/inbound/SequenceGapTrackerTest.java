@@ -0,0 +1,112 @@
+package group.gnometrading.gateways.inbound;
+
+import static group.gnometrading.gateways.inbound.SequenceGapTracker.Result.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SequenceGapTrackerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testContiguousSequencesAreInOrder() {
+        SequenceGapTracker tracker = new SequenceGapTracker(5 * SECOND);
+        for (long sequence = 10; sequence < 20; sequence++) {
+            assertEquals(IN_ORDER, tracker.onSequence(sequence, sequence));
+        }
+        assertEquals(0L, tracker.gaps());
+    }
+
+    @Test
+    void testUnsequencedEventsAreIgnored() {
+        SequenceGapTracker tracker = new SequenceGapTracker(5 * SECOND);
+        assertEquals(IN_ORDER, tracker.onSequence(-1, 0));
+        assertEquals(IN_ORDER, tracker.onSequence(1, 1));
+        assertEquals(IN_ORDER, tracker.onSequence(-1, 2));
+        assertEquals(IN_ORDER, tracker.onSequence(2, 3));
+    }
+
+    @Test
+    void testGapRecoversAtSnapshotBoundary() {
+        SequenceGapTracker tracker = new SequenceGapTracker(5 * SECOND);
+        tracker.onSequence(1, 0);
+        assertEquals(GAP, tracker.onSequence(5, SECOND));
+        assertEquals(3L, tracker.missedMessages());
+        assertTrue(tracker.isRecovering());
+        assertEquals(RECOVERING, tracker.onSequence(6, 2 * SECOND));
+        tracker.onResyncIssued();
+        assertEquals(RECOVERED, tracker.onSequence(100, 3 * SECOND));
+        assertFalse(tracker.isRecovering());
+        assertEquals(1L, tracker.recoveries());
+        assertEquals(2 * SECOND, tracker.lastRecoveryNanos());
+        assertEquals(IN_ORDER, tracker.onSequence(101, 4 * SECOND));
+    }
+
+    @Test
+    void testSecondGapBeforeResyncIsNotTheBoundary() {
+        SequenceGapTracker tracker = new SequenceGapTracker(5 * SECOND);
+        tracker.onSequence(1, 0);
+        assertEquals(GAP, tracker.onSequence(3, SECOND));
+        assertEquals(RECOVERING, tracker.onSequence(6, 2 * SECOND));
+        assertEquals(2L, tracker.gaps());
+        assertEquals(3L, tracker.missedMessages());
+        assertTrue(tracker.isRecovering());
+
+        tracker.onResyncIssued();
+        assertEquals(RECOVERING, tracker.onSequence(7, 3 * SECOND));
+        assertEquals(RECOVERED, tracker.onSequence(50, 4 * SECOND));
+        assertEquals(1L, tracker.recoveries());
+        assertEquals(3 * SECOND, tracker.lastRecoveryNanos());
+    }
+
+    @Test
+    void testRecoveryTimesOutWithoutBoundary() {
+        SequenceGapTracker tracker = new SequenceGapTracker(SECOND);
+        tracker.onSequence(1, 0);
+        tracker.onSequence(3, 0);
+        assertEquals(RECOVERING, tracker.onSequence(4, SECOND / 2));
+        assertEquals(RECOVERED, tracker.onSequence(5, 2 * SECOND));
+        assertEquals(1L, tracker.recoveryTimeouts());
+        assertEquals(0L, tracker.recoveries());
+        assertEquals(GAP, tracker.onSequence(7, 3 * SECOND));
+        assertEquals(2L, tracker.gaps());
+    }
+
+    @Test
+    void testLowerSequenceAfterReconnectIsNewBaseline() {
+        SequenceGapTracker tracker = new SequenceGapTracker(5 * SECOND);
+        tracker.onSequence(1_000, 0);
+        tracker.onSequence(1_001, 0);
+        tracker.onResyncIssued();
+        assertEquals(IN_ORDER, tracker.onSequence(5, SECOND));
+        assertEquals(IN_ORDER, tracker.onSequence(6, SECOND));
+        assertEquals(GAP, tracker.onSequence(9, SECOND));
+        assertEquals(0L, tracker.duplicates());
+        assertEquals(1L, tracker.gaps());
+        assertEquals(2L, tracker.missedMessages());
+    }
+
+    @Test
+    void testForwardJumpAfterReconnectIsNotAGap() {
+        SequenceGapTracker tracker = new SequenceGapTracker(5 * SECOND);
+        tracker.onSequence(1, 0);
+        tracker.onResyncIssued();
+        assertEquals(IN_ORDER, tracker.onSequence(500, SECOND));
+        assertEquals(IN_ORDER, tracker.onSequence(501, SECOND));
+        assertFalse(tracker.isRecovering());
+        assertEquals(0L, tracker.gaps());
+        assertEquals(0L, tracker.missedMessages());
+    }
+
+    @Test
+    void testDuplicatesAreCountedNotTreatedAsGaps() {
+        SequenceGapTracker tracker = new SequenceGapTracker(5 * SECOND);
+        tracker.onSequence(1, 0);
+        tracker.onSequence(2, 0);
+        assertEquals(DUPLICATE, tracker.onSequence(2, 0));
+        assertEquals(IN_ORDER, tracker.onSequence(3, 0));
+        assertEquals(1L, tracker.duplicates());
+        assertEquals(0L, tracker.gaps());
+    }
+}
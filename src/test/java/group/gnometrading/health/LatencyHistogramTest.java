@@ -0,0 +1,51 @@
+package group.gnometrading.health;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketBoundsCoverEveryValue() {
+        for (long value : new long[] {0, 1, 7, 8, 15, 16, 17, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value, "upper bound of " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.upperBound(index - 1) < value, "previous bucket of " + value);
+            }
+        }
+    }
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000L, snapshot.count());
+        assertEquals(5_000_000.0, snapshot.p50(), 5_000_000 * 0.125);
+        assertEquals(9_900_000.0, snapshot.p99(), 9_900_000 * 0.125);
+        assertEquals(10_000_000L, snapshot.max());
+        assertTrue(snapshot.p999() <= snapshot.max());
+    }
+
+    @Test
+    void testNegativeValuesAreCountedSeparately() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(10);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2L, snapshot.count());
+        assertEquals(1L, snapshot.negative());
+        assertEquals(0L, snapshot.p50());
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0L, snapshot.count());
+        assertEquals(0L, snapshot.p99());
+    }
+}
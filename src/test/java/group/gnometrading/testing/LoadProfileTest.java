@@ -0,0 +1,44 @@
+package group.gnometrading.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LoadProfileTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testSteadyRateSchedulesLinearly() {
+        LoadProfile profile = LoadProfile.steady(1_000);
+        assertEquals(0, profile.scheduled(0));
+        assertEquals(500, profile.scheduled(SECOND / 2));
+        assertEquals(10_000, profile.scheduled(10 * SECOND));
+        assertFalse(profile.inBurst(5 * SECOND));
+    }
+
+    @Test
+    void testBurstsStartAfterOneInterval() {
+        LoadProfile profile = new LoadProfile(1_000, 11_000, SECOND, 10 * SECOND);
+        assertFalse(profile.inBurst(SECOND / 2));
+        assertTrue(profile.inBurst(10 * SECOND + SECOND / 2));
+        assertFalse(profile.inBurst(11 * SECOND + 1));
+        assertEquals(11_000.0, profile.rateAt(20 * SECOND));
+    }
+
+    @Test
+    void testBurstsAddToScheduledCount() {
+        LoadProfile profile = new LoadProfile(1_000, 11_000, SECOND, 10 * SECOND);
+        assertEquals(10_000, profile.scheduled(10 * SECOND));
+        assertEquals(15_500, profile.scheduled(10 * SECOND + SECOND / 2));
+        assertEquals(21_000, profile.scheduled(11 * SECOND));
+        assertEquals(30_000, profile.scheduled(20 * SECOND));
+        assertEquals(41_000, profile.scheduled(21 * SECOND));
+    }
+
+    @Test
+    void testRejectsBurstLongerThanInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new LoadProfile(1_000, 2_000, SECOND, SECOND));
+    }
+}
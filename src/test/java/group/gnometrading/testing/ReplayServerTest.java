@@ -0,0 +1,56 @@
+package group.gnometrading.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ReplayServerTest {
+
+    @Test
+    void testWebSocketAcceptMatchesRfcExample() {
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocketReplayServer.accept("dGhlIHNhbXBsZSBub25jZQ=="));
+    }
+
+    @Test
+    void testFixEncodeComputesBodyLengthAndChecksum() {
+        byte[] encoded = FixReplayServer.encode(
+                "FIX.4.2", List.of(new String[] {"35", "0"}, new String[] {"34", "7"}, new String[] {"10", "999"}));
+        String message = new String(encoded, StandardCharsets.ISO_8859_1);
+        assertTrue(message.startsWith("8=FIX.4.2\u00019=10\u000135=0\u000134=7\u0001"));
+        int checksum = 0;
+        int trailer = message.lastIndexOf("10=");
+        for (int i = 0; i < trailer; i++) {
+            checksum += message.charAt(i);
+        }
+        assertEquals(String.format("10=%03d\u0001", checksum % 256), message.substring(trailer));
+    }
+
+    @Test
+    void testFixParseKeepsRepeatingGroups() {
+        List<String[]> fields = FixReplayServer.parse("35=X\u0001268=2\u0001270=1.5\u0001270=1.6\u0001");
+        assertEquals(4, fields.size());
+        assertEquals("1.5", fields.get(2)[1]);
+        assertEquals("1.6", fields.get(3)[1]);
+    }
+
+    @Test
+    void testFixMessageEndSplitsFramesIntoMessages() {
+        String two = "8=FIX.4.2\u00019=5\u000135=0\u000110=001\u00018=FIX.4.2\u00019=5\u000135=0\u000110=002\u0001";
+        int first = FixReplayServer.messageEnd(two, 0);
+        assertEquals(two.indexOf("8=", 1), first);
+        assertEquals(two.length(), FixReplayServer.messageEnd(two, first));
+        assertEquals(-1, FixReplayServer.messageEnd("8=FIX.4.2\u00019=5\u000135=0\u000110=0", 0));
+        assertEquals(-1, FixReplayServer.messageEnd("8=FIX.4.2\u0001100=1\u0001", 0));
+    }
+
+    @Test
+    void testReplaySpeedParsing() {
+        assertEquals(ReplaySpeed.ORIGINAL, ReplaySpeed.parse("original"));
+        assertTrue(ReplaySpeed.parse("max").isFlatOut());
+        assertEquals(100L, ReplaySpeed.parse("10x").scale(1_000));
+        assertEquals(0L, ReplaySpeed.FLAT_OUT.scale(1_000));
+        assertThrows(IllegalArgumentException.class, () -> ReplaySpeed.parse("fast"));
+    }
+}